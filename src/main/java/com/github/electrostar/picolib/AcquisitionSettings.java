@@ -0,0 +1,140 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Acquisition Settings.
+ * Contains all parameters for the continuous acquisition of blocks.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class AcquisitionSettings {
+
+  /**
+   * Default number of rotating buffers.
+   */
+  public static final int DEFAULT_BUFFERS = 2;
+
+  private int buffers;
+  private SampleFormat format;
+
+  /**
+   * Constructs Acquisition Settings with default values.
+   * <p>
+   * This means {@value #DEFAULT_BUFFERS} rotating buffers with {@link SampleFormat#VOLTAGE}.
+   * </p>
+   */
+  public AcquisitionSettings() {
+    this(DEFAULT_BUFFERS, SampleFormat.VOLTAGE);
+  }
+
+  /**
+   * Constructs Acquisition Settings.
+   * 
+   * @param buffers the number of rotating buffers, at least two.
+   * @param format the {@link SampleFormat} of the delivered sample data.
+   */
+  public AcquisitionSettings(int buffers, SampleFormat format) {
+    this.buffers = buffers;
+    this.format = format;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the settings to copy.
+   */
+  public AcquisitionSettings(AcquisitionSettings s) {
+    this(s.buffers, s.format);
+  }
+
+  /**
+   * Gets the number of rotating buffers.
+   * 
+   * @return the number of buffers.
+   */
+  public int getBuffers() {
+    return buffers;
+  }
+
+  /**
+   * Sets the number of rotating buffers. While one buffer is converted and delivered the next 
+   * block is already transferred into another one.
+   * 
+   * @param buffers the new number of buffers.
+   */
+  public void setBuffers(int buffers) {
+    this.buffers = buffers;
+  }
+
+  /**
+   * Gets the {@link SampleFormat} of the delivered sample data.
+   * 
+   * @return the {@link SampleFormat}.
+   */
+  public SampleFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Sets the {@link SampleFormat} of the delivered sample data.
+   * 
+   * @param format the new {@link SampleFormat}.
+   */
+  public void setFormat(SampleFormat format) {
+    this.format = format;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final AcquisitionSettings other = (AcquisitionSettings) obj;
+    if (this.buffers != other.buffers) {
+      return false;
+    }
+    return this.format == other.format;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 5;
+    hash = 59 * hash + this.buffers;
+    hash = 59 * hash + Objects.hashCode(this.format);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "AcquisitionSettings(buffers=" + this.getBuffers() + ", format=" + this.getFormat() 
+            + ")";
+  }
+}
@@ -0,0 +1,211 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Acquisition Statistics.
+ * Contains the achieved rate and the dead time of a continuous acquisition. The dead time of a 
+ * cycle is the time between a block being ready and the next block being armed, in which the 
+ * unit does not capture.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class AcquisitionStatistics {
+
+  private long waveforms;
+  private double waveformsPerSecond;
+  private long lastDeadTime;
+  private long averageDeadTime;
+  private long maxDeadTime;
+
+  /**
+   * Constructs empty Acquisition Statistics.
+   */
+  public AcquisitionStatistics() {
+  }
+
+  /**
+   * Constructs Acquisition Statistics.
+   * 
+   * @param waveforms the number of captured waveforms.
+   * @param waveformsPerSecond the achieved waveforms per second.
+   * @param lastDeadTime the dead time of the last cycle in nanoseconds.
+   * @param averageDeadTime the average dead time per cycle in nanoseconds.
+   * @param maxDeadTime the maximum dead time of a cycle in nanoseconds.
+   */
+  public AcquisitionStatistics(long waveforms, double waveformsPerSecond, long lastDeadTime, 
+          long averageDeadTime, long maxDeadTime) {
+    this.waveforms = waveforms;
+    this.waveformsPerSecond = waveformsPerSecond;
+    this.lastDeadTime = lastDeadTime;
+    this.averageDeadTime = averageDeadTime;
+    this.maxDeadTime = maxDeadTime;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the statistics to copy.
+   */
+  public AcquisitionStatistics(AcquisitionStatistics s) {
+    this(s.waveforms, s.waveformsPerSecond, s.lastDeadTime, s.averageDeadTime, s.maxDeadTime);
+  }
+
+  /**
+   * Gets the number of captured waveforms.
+   * 
+   * @return the number of waveforms.
+   */
+  public long getWaveforms() {
+    return waveforms;
+  }
+
+  /**
+   * Sets the number of captured waveforms.
+   * 
+   * @param waveforms the new number of waveforms.
+   */
+  public void setWaveforms(long waveforms) {
+    this.waveforms = waveforms;
+  }
+
+  /**
+   * Gets the achieved waveforms per second.
+   * 
+   * @return the waveforms per second.
+   */
+  public double getWaveformsPerSecond() {
+    return waveformsPerSecond;
+  }
+
+  /**
+   * Sets the achieved waveforms per second.
+   * 
+   * @param waveformsPerSecond the new waveforms per second.
+   */
+  public void setWaveformsPerSecond(double waveformsPerSecond) {
+    this.waveformsPerSecond = waveformsPerSecond;
+  }
+
+  /**
+   * Gets the dead time of the last cycle in nanoseconds.
+   * 
+   * @return the last dead time.
+   */
+  public long getLastDeadTime() {
+    return lastDeadTime;
+  }
+
+  /**
+   * Sets the dead time of the last cycle in nanoseconds.
+   * 
+   * @param lastDeadTime the new last dead time.
+   */
+  public void setLastDeadTime(long lastDeadTime) {
+    this.lastDeadTime = lastDeadTime;
+  }
+
+  /**
+   * Gets the average dead time per cycle in nanoseconds.
+   * 
+   * @return the average dead time.
+   */
+  public long getAverageDeadTime() {
+    return averageDeadTime;
+  }
+
+  /**
+   * Sets the average dead time per cycle in nanoseconds.
+   * 
+   * @param averageDeadTime the new average dead time.
+   */
+  public void setAverageDeadTime(long averageDeadTime) {
+    this.averageDeadTime = averageDeadTime;
+  }
+
+  /**
+   * Gets the maximum dead time of a cycle in nanoseconds.
+   * 
+   * @return the maximum dead time.
+   */
+  public long getMaxDeadTime() {
+    return maxDeadTime;
+  }
+
+  /**
+   * Sets the maximum dead time of a cycle in nanoseconds.
+   * 
+   * @param maxDeadTime the new maximum dead time.
+   */
+  public void setMaxDeadTime(long maxDeadTime) {
+    this.maxDeadTime = maxDeadTime;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final AcquisitionStatistics other = (AcquisitionStatistics) obj;
+    if (this.waveforms != other.waveforms) {
+      return false;
+    }
+    if (Double.doubleToLongBits(this.waveformsPerSecond) 
+            != Double.doubleToLongBits(other.waveformsPerSecond)) {
+      return false;
+    }
+    if (this.lastDeadTime != other.lastDeadTime) {
+      return false;
+    }
+    if (this.averageDeadTime != other.averageDeadTime) {
+      return false;
+    }
+    return this.maxDeadTime == other.maxDeadTime;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 3;
+    hash = 67 * hash + (int) (this.waveforms ^ (this.waveforms >>> 32));
+    hash = 67 * hash + (int) (Double.doubleToLongBits(this.waveformsPerSecond) 
+            ^ (Double.doubleToLongBits(this.waveformsPerSecond) >>> 32));
+    hash = 67 * hash + (int) (this.lastDeadTime ^ (this.lastDeadTime >>> 32));
+    hash = 67 * hash + (int) (this.averageDeadTime ^ (this.averageDeadTime >>> 32));
+    hash = 67 * hash + (int) (this.maxDeadTime ^ (this.maxDeadTime >>> 32));
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "AcquisitionStatistics(waveforms=" + this.getWaveforms() 
+            + ", waveformsPerSecond=" + this.getWaveformsPerSecond() 
+            + ", lastDeadTime=" + this.getLastDeadTime() 
+            + ", averageDeadTime=" + this.getAverageDeadTime() 
+            + ", maxDeadTime=" + this.getMaxDeadTime() + ")";
+  }
+}
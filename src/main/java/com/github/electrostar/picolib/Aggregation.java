@@ -0,0 +1,308 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Aggregation.
+ * Describes sample data which the driver aggregated while streaming. Each value of the channels 
+ * of the {@link ResultSet} is the maximum of {@link #getSamplesPerAggregate()} samples, the 
+ * matching minima are held here.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class Aggregation {
+
+  private int samplesPerAggregate;
+  private float[][] channels;
+  private short[][] rawChannels;
+
+  /**
+   * Constructs an empty Aggregation.
+   */
+  public Aggregation() {
+  }
+
+  /**
+   * Constructs an Aggregation without minima.
+   * 
+   * @param samplesPerAggregate the number of samples per aggregate.
+   */
+  public Aggregation(int samplesPerAggregate) {
+    this.samplesPerAggregate = samplesPerAggregate;
+  }
+
+  /**
+   * Copy Constructor. The columns are not shared, the arrays of the samples are.
+   * 
+   * @param a the Aggregation to copy.
+   */
+  public Aggregation(Aggregation a) {
+    this(a.samplesPerAggregate);
+    this.channels = Columns.copy(a.channels);
+    this.rawChannels = Columns.copy(a.rawChannels);
+  }
+
+  /**
+   * Gets the number of samples the driver aggregated into each value.
+   * 
+   * @return the samples per aggregate.
+   */
+  public int getSamplesPerAggregate() {
+    return samplesPerAggregate;
+  }
+
+  /**
+   * Sets the number of samples the driver aggregated into each value.
+   * 
+   * @param samplesPerAggregate the new samples per aggregate.
+   */
+  public void setSamplesPerAggregate(int samplesPerAggregate) {
+    this.samplesPerAggregate = samplesPerAggregate;
+  }
+
+  /**
+   * Gets the minima of a channel as voltages.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the minima or {@code null} if the channel has none.
+   */
+  public float[] getChannel(Channel channel) {
+    return Columns.get(channels, channel);
+  }
+
+  /**
+   * Sets the minima of a channel as voltages.
+   * 
+   * @param channel the {@link Channel}.
+   * @param minima the new minima.
+   */
+  public void setChannel(Channel channel, float[] minima) {
+    channels = Columns.put(channels, channel, minima);
+  }
+
+  /**
+   * Gets the minima of a channel as raw ADC counts.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the ADC counts or {@code null} if the channel has none.
+   */
+  public short[] getRawChannel(Channel channel) {
+    return Columns.get(rawChannels, channel);
+  }
+
+  /**
+   * Sets the minima of a channel as raw ADC counts.
+   * 
+   * @param channel the {@link Channel}.
+   * @param counts the new ADC counts.
+   */
+  public void setRawChannel(Channel channel, short[] counts) {
+    rawChannels = Columns.put(rawChannels, channel, counts);
+  }
+
+  /**
+   * Gets the minima for Channel A in volts.
+   * 
+   * @return channel A minima or {@code null} if not converted.
+   */
+  public float[] getChannelA() {
+    return getChannel(Channel.CHANNEL_A);
+  }
+
+  /**
+   * Sets the minima for Channel A in volts.
+   * 
+   * @param channelA the new minima.
+   */
+  public void setChannelA(float[] channelA) {
+    setChannel(Channel.CHANNEL_A, channelA);
+  }
+
+  /**
+   * Gets the minima for Channel B in volts.
+   * 
+   * @return channel B minima or {@code null} if not converted.
+   */
+  public float[] getChannelB() {
+    return getChannel(Channel.CHANNEL_B);
+  }
+
+  /**
+   * Sets the minima for Channel B in volts.
+   * 
+   * @param channelB the new minima.
+   */
+  public void setChannelB(float[] channelB) {
+    setChannel(Channel.CHANNEL_B, channelB);
+  }
+
+  /**
+   * Gets the minima for Channel C in volts.
+   * 
+   * @return channel C minima or {@code null} if not converted.
+   */
+  public float[] getChannelC() {
+    return getChannel(Channel.CHANNEL_C);
+  }
+
+  /**
+   * Sets the minima for Channel C in volts.
+   * 
+   * @param channelC the new minima.
+   */
+  public void setChannelC(float[] channelC) {
+    setChannel(Channel.CHANNEL_C, channelC);
+  }
+
+  /**
+   * Gets the minima for Channel D in volts.
+   * 
+   * @return channel D minima or {@code null} if not converted.
+   */
+  public float[] getChannelD() {
+    return getChannel(Channel.CHANNEL_D);
+  }
+
+  /**
+   * Sets the minima for Channel D in volts.
+   * 
+   * @param channelD the new minima.
+   */
+  public void setChannelD(float[] channelD) {
+    setChannel(Channel.CHANNEL_D, channelD);
+  }
+
+  /**
+   * Gets the minima for Channel A as raw ADC counts.
+   * 
+   * @return channel A minima or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelA() {
+    return getRawChannel(Channel.CHANNEL_A);
+  }
+
+  /**
+   * Sets the minima for Channel A as raw ADC counts.
+   * 
+   * @param rawChannelA the new ADC counts.
+   */
+  public void setRawChannelA(short[] rawChannelA) {
+    setRawChannel(Channel.CHANNEL_A, rawChannelA);
+  }
+
+  /**
+   * Gets the minima for Channel B as raw ADC counts.
+   * 
+   * @return channel B minima or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelB() {
+    return getRawChannel(Channel.CHANNEL_B);
+  }
+
+  /**
+   * Sets the minima for Channel B as raw ADC counts.
+   * 
+   * @param rawChannelB the new ADC counts.
+   */
+  public void setRawChannelB(short[] rawChannelB) {
+    setRawChannel(Channel.CHANNEL_B, rawChannelB);
+  }
+
+  /**
+   * Gets the minima for Channel C as raw ADC counts.
+   * 
+   * @return channel C minima or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelC() {
+    return getRawChannel(Channel.CHANNEL_C);
+  }
+
+  /**
+   * Sets the minima for Channel C as raw ADC counts.
+   * 
+   * @param rawChannelC the new ADC counts.
+   */
+  public void setRawChannelC(short[] rawChannelC) {
+    setRawChannel(Channel.CHANNEL_C, rawChannelC);
+  }
+
+  /**
+   * Gets the minima for Channel D as raw ADC counts.
+   * 
+   * @return channel D minima or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelD() {
+    return getRawChannel(Channel.CHANNEL_D);
+  }
+
+  /**
+   * Sets the minima for Channel D as raw ADC counts.
+   * 
+   * @param rawChannelD the new ADC counts.
+   */
+  public void setRawChannelD(short[] rawChannelD) {
+    setRawChannel(Channel.CHANNEL_D, rawChannelD);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 3;
+    hash = 47 * hash + this.samplesPerAggregate;
+    hash = 47 * hash + Columns.hashCode(this.channels, this.rawChannels);
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final Aggregation other = (Aggregation) obj;
+    if (this.samplesPerAggregate != other.samplesPerAggregate) {
+      return false;
+    }
+    return Columns.equals(this.channels, this.rawChannels, other.channels, other.rawChannels);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("Aggregation(samplesPerAggregate=")
+            .append(this.getSamplesPerAggregate());
+    for (Channel channel : Channel.values()) {
+      if (null != getChannel(channel)) {
+        sb.append(", ").append(channel.name()).append("=float[")
+                .append(getChannel(channel).length).append(']');
+      }
+      if (null != getRawChannel(channel)) {
+        sb.append(", raw").append(channel.name()).append("=short[")
+                .append(getRawChannel(channel).length).append(']');
+      }
+    }
+    return sb.append(')').toString();
+  }
+}
@@ -0,0 +1,67 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Reusable buffer for the sample data of a block.
+ * <p>
+ * A {@code CaptureBuffer} owns the native memory the driver writes into and a {@link ResultSet} 
+ * which is filled on every capture. Reading repeated blocks of the same size into the same buffer
+ * does not allocate any native memory or sample arrays. The {@link ResultSet} and its arrays are 
+ * overwritten by the next capture, so copy the data if it is needed longer. A buffer must not be 
+ * used by more than one capture at the same time. Buffers are created by 
+ * {@link PicoScope#newCaptureBuffer(int, SampleFormat)}.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public interface CaptureBuffer {
+
+  /**
+   * Gets the maximum number of samples per channel.
+   * 
+   * @return the number of samples.
+   */
+  int getSamples();
+
+  /**
+   * Gets the {@link SampleFormat} of the sample data.
+   * 
+   * @return the {@link SampleFormat}.
+   */
+  SampleFormat getFormat();
+
+  /**
+   * Gets the {@link ResultSet} which is filled by every capture into this buffer.
+   * 
+   * @return the {@link ResultSet}.
+   */
+  ResultSet getResultSet();
+
+  /**
+   * Gets the overflow flags of the last capture. Each bit stands for a channel whose input 
+   * voltage exceeded the range, starting with bit 0 for Channel A.
+   * 
+   * @return the overflow flags.
+   */
+  short getOverflow();
+}
@@ -0,0 +1,299 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Capture Reader.
+ * Reads the capture files of a {@link CaptureWriter}. Only the header and the block index are 
+ * read on opening, sample data are decoded block by block for the requested range.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class CaptureReader implements AutoCloseable {
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final int flags;
+  private final int blockSize;
+  private final TimeUnit timeUnit;
+  private final long sampleInterval;
+  private final long startTime;
+  private final CollectionTime collectionTime;
+  private final int divisions;
+  private final int samplesPerAggregate;
+  private final Channel[] channels;
+  private final boolean[] minima;
+  private final SampleScaling[] scalings;
+  private final long samples;
+  private final long[] blockOffsets;
+  private final int[] blockLengths;
+
+  private byte[] encoded;
+  private short[] decoded;
+
+  /**
+   * Opens a capture file.
+   * 
+   * @param capture the capture file.
+   * @throws IOException if the file could not be read or is no capture file.
+   */
+  public CaptureReader(File capture) throws IOException {
+    file = new RandomAccessFile(capture, "r");
+    channel = file.getChannel();
+    try {
+      // Number of samples, offset of the index, number of blocks and the magic
+      ByteBuffer trailer = readBytes(file.length() - CaptureWriter.TRAILER_SIZE, 
+              CaptureWriter.TRAILER_SIZE);
+      if (trailer.getInt(CaptureWriter.TRAILER_SIZE - Integer.BYTES) != CaptureWriter.MAGIC 
+              || file.readInt() != CaptureWriter.MAGIC 
+              || file.readShort() != CaptureWriter.VERSION) {
+        throw new IOException("Not a capture file: " + capture);
+      }
+      samples = trailer.getLong(0);
+
+      flags = file.readShort();
+      blockSize = file.readInt();
+      timeUnit = TimeUnit.findById(file.readShort());
+      channels = new Channel[file.readShort()];
+      sampleInterval = file.readLong();
+      startTime = file.readLong();
+      collectionTime = CollectionTime.findByTime(file.readLong());
+      divisions = file.readInt();
+      samplesPerAggregate = file.readInt();
+      int columns = channels.length;
+      minima = new boolean[columns];
+      scalings = new SampleScaling[columns];
+      for (int c = 0; c < columns; c++) {
+        channels[c] = Channel.findById(file.readByte());
+        minima[c] = file.readBoolean();
+        Range range = Range.findByVoltage(file.readInt());
+        int maxValue = file.readInt();
+        int lostValue = file.readInt();
+        if (null != range) {
+          scalings[c] = new SampleScaling(range, maxValue, lostValue);
+        }
+        if (null == channels[c]) {
+          throw new IOException("Corrupt capture file: " + capture);
+        }
+      }
+
+      int entrySize = Long.BYTES + Integer.BYTES 
+              + columns * (Long.BYTES + Integer.BYTES);
+      long indexOffset = trailer.getLong(Long.BYTES);
+      int blocks = trailer.getInt(2 * Long.BYTES);
+      ByteBuffer entries = readBytes(indexOffset, (long) blocks * entrySize);
+      blockOffsets = new long[blocks * columns];
+      blockLengths = new int[blocks * columns];
+      for (int b = 0; b < blocks; b++) {
+        entries.getLong();
+        entries.getInt();
+        for (int c = 0; c < columns; c++) {
+          blockOffsets[b * columns + c] = entries.getLong();
+          blockLengths[b * columns + c] = entries.getInt();
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      file.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Gets the number of samples per channel.
+   * 
+   * @return the number of samples.
+   */
+  public long getSamples() {
+    return samples;
+  }
+
+  /**
+   * Gets the {@link TimeUnit} of the times.
+   * 
+   * @return the {@link TimeUnit}.
+   */
+  public TimeUnit getTimeUnit() {
+    return timeUnit;
+  }
+
+  /**
+   * Gets the time between two samples in the {@link TimeUnit} of the capture.
+   * 
+   * @return the sample interval.
+   */
+  public long getSampleInterval() {
+    return sampleInterval;
+  }
+
+  /**
+   * Gets the time of the first sample in the {@link TimeUnit} of the capture.
+   * 
+   * @return the start time.
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Reads a range of samples. Only the blocks which hold the range are read and decoded.
+   * 
+   * @param from the index of the first sample.
+   * @param count the maximum number of samples.
+   * @return the {@link ResultSet} in {@link SampleFormat#ADC_COUNTS}, shorter than 
+   *         {@code count} at the end of the capture.
+   * @throws IOException if the file could not be read.
+   * @throws IllegalArgumentException if the range is negative.
+   */
+  public ResultSet read(long from, int count) throws IOException {
+    if (from < 0 || count < 0) {
+      throw new IllegalArgumentException("Range must not be negative.");
+    }
+    int length = (int) Math.max(0, Math.min(count, samples - from));
+
+    ResultSet rs = new ResultSet(timeUnit, divisions, collectionTime);
+    rs.setNumberOfSamples(length);
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    if ((flags & CaptureWriter.FLAG_AGGREGATED) != 0) {
+      rs.setAggregation(new Aggregation(samplesPerAggregate));
+    }
+    for (int c = 0; c < channels.length; c++) {
+      short[] counts = new short[length];
+      decode(c, from, counts);
+      RawChannels.set(rs, channels[c], minima[c], counts);
+      if (!minima[c]) {
+        rs.setScaling(channels[c], scalings[c]);
+      }
+    }
+
+    if ((flags & CaptureWriter.FLAG_TIMES) != 0) {
+      rs.setTimeOffset(startTime + from * sampleInterval);
+      rs.setTimeInterval(sampleInterval);
+    } else {
+      long startIndex = sampleInterval > 0 ? startTime / sampleInterval + from : from;
+      rs.setStreamingInfo(new StreamingInfo(startIndex, sampleInterval, -1, (short) 0, false));
+    }
+    return rs;
+  }
+
+  /**
+   * Reads the samples of a time window.
+   * 
+   * @param fromTime the start of the window in the {@link TimeUnit} of the capture.
+   * @param toTime the end of the window, inclusive.
+   * @return the {@link ResultSet} with the samples within the window.
+   * @throws IOException if the file could not be read.
+   */
+  public ResultSet readTime(long fromTime, long toTime) throws IOException {
+    if (sampleInterval <= 0) {
+      return read(0, (int) Math.min(samples, Integer.MAX_VALUE));
+    }
+    long first = Math.max(0, Math.floorDiv(fromTime - startTime + sampleInterval - 1, 
+            sampleInterval));
+    long last = Math.min(samples - 1, Math.floorDiv(toTime - startTime, sampleInterval));
+    if (last < first) {
+      return read(Math.min(first, samples), 0);
+    }
+    return read(first, (int) Math.min(last - first + 1, Integer.MAX_VALUE));
+  }
+
+  private void decode(int column, long from, short[] target) throws IOException {
+    int position = 0;
+    while (position < target.length) {
+      long sample = from + position;
+      int block = (int) (sample / blockSize);
+      int skip = (int) (sample % blockSize);
+      int index = block * channels.length + column;
+      ByteBuffer data = readBytes(blockOffsets[index], blockLengths[index]);
+      if (null == decoded) {
+        decoded = new short[blockSize];
+      }
+      int available = decode(data, decoded);
+      int length = Math.min(available - skip, target.length - position);
+      if (length <= 0) {
+        throw new IOException("Corrupt block " + block);
+      }
+      System.arraycopy(decoded, skip, target, position, length);
+      position += length;
+    }
+  }
+
+  /**
+   * Decodes zig-zag mapped differences in variable length integers.
+   * 
+   * @param data the encoded block.
+   * @param target the target for the counts.
+   * @return the number of decoded counts.
+   */
+  static int decode(ByteBuffer data, short[] target) {
+    int count = 0;
+    int previous = 0;
+    while (data.hasRemaining() && count < target.length) {
+      int zigzag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data.get();
+        zigzag |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0 && data.hasRemaining());
+      previous += (zigzag >>> 1) ^ -(zigzag & 1);
+      target[count++] = (short) previous;
+    }
+    return count;
+  }
+
+  private ByteBuffer readBytes(long position, long length) throws IOException {
+    if (position < 0 || length < 0 || position + length > file.length() 
+            || length > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt capture file.");
+    }
+    ByteBuffer buffer;
+    if (null != encoded && encoded.length >= length) {
+      buffer = ByteBuffer.wrap(encoded, 0, (int) length);
+    } else {
+      buffer = ByteBuffer.allocate((int) length);
+      if (length <= (long) blockSize * CaptureWriter.MAX_BYTES_PER_SAMPLE) {
+        encoded = buffer.array();
+      }
+    }
+    int start = buffer.position();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position() - start) < 0) {
+        throw new EOFException();
+      }
+    }
+    buffer.position(start);
+    return buffer;
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
@@ -0,0 +1,319 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Capture Writer.
+ * Writes {@link ResultSet}s in {@link SampleFormat#ADC_COUNTS} into a compact capture file, 
+ * which is read with a {@link CaptureReader}.
+ * <p>
+ * The {@link ResultSet}s are appended back to back as one sequence of samples. The counts of 
+ * every channel are split into blocks of a fixed number of samples and each block is encoded 
+ * on its own as differences to the previous count, zig-zag mapped and stored as variable 
+ * length integers. Slowly changing signals take one byte per sample instead of four for a 
+ * voltage. The times are not stored, they follow from the start time and the sample interval, 
+ * which are kept in the {@link TimeUnit} of the first {@link ResultSet}. 
+ * An index of all blocks at the end of the file lets the reader decode a time window without 
+ * reading the whole file.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class CaptureWriter implements AutoCloseable {
+
+  /**
+   * Default number of samples per block.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+  static final int MAGIC = 0x50534331;
+  static final short VERSION = 1;
+  static final int FLAG_TIMES = 1;
+  static final int FLAG_AGGREGATED = 2;
+  // Number of samples, offset of the index, number of blocks and the magic
+  static final int TRAILER_SIZE = 24;
+  // The largest zig-zag mapped difference of two counts fits into three bytes
+  static final int MAX_BYTES_PER_SAMPLE = 3;
+
+  private final DataOutputStream out;
+  private final Timebase timebase;
+  private final int blockSize;
+  private final List<long[]> index = new ArrayList<>();
+
+  private Channel[] channels;
+  private boolean[] minima;
+  private short[][] pending;
+  private int pendingSamples;
+  private long samples;
+  private long offset;
+  private byte[] encoded;
+  private boolean closed;
+
+  /**
+   * Constructs a {@code CaptureWriter} with the default block size.
+   * 
+   * @param file the capture file, it is overwritten.
+   * @param timebase the {@link Timebase} of the sample data.
+   * @throws IOException if the file could not be created.
+   */
+  public CaptureWriter(File file, Timebase timebase) throws IOException {
+    this(file, timebase, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructs a {@code CaptureWriter}.
+   * 
+   * @param file the capture file, it is overwritten.
+   * @param timebase the {@link Timebase} of the sample data.
+   * @param blockSize the number of samples per block.
+   * @throws IOException if the file could not be created.
+   * @throws IllegalArgumentException if a parameter is {@code null} or the block size is less 
+   *                                  than one.
+   */
+  public CaptureWriter(File file, Timebase timebase, int blockSize) throws IOException {
+    if (null == file || null == timebase) {
+      throw new IllegalArgumentException("File and timebase must be set.");
+    }
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Block size must be at least one.");
+    }
+    this.timebase = timebase;
+    this.blockSize = blockSize;
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+  }
+
+  /**
+   * Gets the number of written samples per channel.
+   * 
+   * @return the number of samples.
+   */
+  public long getSamples() {
+    return samples + pendingSamples;
+  }
+
+  /**
+   * Appends the sample data of a {@link ResultSet}. The first one defines the channels, their 
+   * scaling and the start time of the capture.
+   * 
+   * @param rs the {@link ResultSet} in {@link SampleFormat#ADC_COUNTS}.
+   * @throws IOException if the sample data could not be written.
+   * @throws IllegalArgumentException if the {@link ResultSet} has no ADC counts, other channels 
+   *                                  than the first one or times which are not equidistant.
+   * @throws IllegalStateException if the writer is closed.
+   */
+  public void write(ResultSet rs) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Capture writer is closed.");
+    }
+    if (null == rs || SampleFormat.ADC_COUNTS != rs.getSampleFormat()) {
+      throw new IllegalArgumentException("Only ADC counts can be written.");
+    }
+    if (null == channels) {
+      writeHeader(rs);
+    }
+
+    short[][] columns = new short[channels.length][];
+    for (int c = 0; c < channels.length; c++) {
+      columns[c] = RawChannels.get(rs, channels[c], minima[c]);
+      if (null == columns[c] || columns[c].length < rs.getNumberOfSamples()) {
+        throw new IllegalArgumentException("Channel " + channels[c] + " is missing.");
+      }
+    }
+
+    int position = 0;
+    while (position < rs.getNumberOfSamples()) {
+      int length = Math.min(blockSize - pendingSamples, rs.getNumberOfSamples() - position);
+      for (int c = 0; c < columns.length; c++) {
+        System.arraycopy(columns[c], position, pending[c], pendingSamples, length);
+      }
+      pendingSamples += length;
+      position += length;
+      if (pendingSamples == blockSize) {
+        flushBlock();
+      }
+    }
+  }
+
+  private void writeHeader(ResultSet rs) throws IOException {
+    // Unit, interval and start time are always taken from the same source, so they match
+    StreamingInfo info = rs.getStreamingInfo();
+    TimeUnit timeUnit = null != rs.getTimeUnit() ? rs.getTimeUnit() : TimeUnit.NANOSECOND;
+    long sampleInterval = 0;
+    long startTime = 0;
+    int flags = null != rs.getAggregation() ? FLAG_AGGREGATED : 0;
+    if (null != info) {
+      sampleInterval = info.getSampleInterval();
+      startTime = info.getTime(0);
+    } else if (rs.getTimeInterval() > 0) {
+      sampleInterval = rs.getTimeInterval();
+      startTime = rs.getTimeOffset();
+      flags |= FLAG_TIMES;
+    } else if (null != rs.getTimes() && rs.getTimes().length > 0) {
+      int[] times = rs.getTimes();
+      sampleInterval = times.length > 1 ? times[1] - times[0] : 0;
+      startTime = checkTimes(times, rs.getNumberOfSamples(), sampleInterval);
+      flags |= FLAG_TIMES;
+    } else {
+      // Without a time axis only the interval of the timebase is known, it is in nanoseconds
+      timeUnit = TimeUnit.NANOSECOND;
+      sampleInterval = timebase.getTimeInterval();
+    }
+
+    List<Channel> found = new ArrayList<>();
+    List<Boolean> foundMinima = new ArrayList<>();
+    for (Channel channel : Channel.values()) {
+      if (null != RawChannels.get(rs, channel, false)) {
+        found.add(channel);
+        foundMinima.add(false);
+        if (null != RawChannels.get(rs, channel, true)) {
+          found.add(channel);
+          foundMinima.add(true);
+        }
+      }
+    }
+    channels = found.toArray(new Channel[0]);
+    minima = new boolean[channels.length];
+    for (int c = 0; c < minima.length; c++) {
+      minima[c] = foundMinima.get(c);
+    }
+    pending = new short[channels.length][blockSize];
+    encoded = new byte[blockSize * MAX_BYTES_PER_SAMPLE];
+
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeShort(flags);
+    out.writeInt(blockSize);
+    out.writeShort(timeUnit.getId());
+    out.writeShort(channels.length);
+    out.writeLong(sampleInterval);
+    out.writeLong(startTime);
+    CollectionTime collectionTime = rs.getCollectionTime();
+    out.writeLong(null == collectionTime ? 0 : collectionTime.getDivisionTime());
+    out.writeInt(rs.getDivisions());
+    out.writeInt(null == rs.getAggregation() ? 1 : rs.getAggregation().getSamplesPerAggregate());
+    for (int c = 0; c < channels.length; c++) {
+      SampleScaling scaling = rs.getScaling(channels[c]);
+      out.writeByte(channels[c].getId());
+      out.writeBoolean(minima[c]);
+      out.writeInt(null == scaling ? 0 : scaling.getRange().getValue());
+      out.writeInt(null == scaling ? 0 : scaling.getMaxValue());
+      out.writeInt(null == scaling ? 0 : scaling.getLostValue());
+    }
+    offset = out.size();
+  }
+
+  private static long checkTimes(int[] times, int numberOfSamples, long sampleInterval) {
+    // Only equidistant times can be left out, ETS captures are interleaved
+    for (int i = 1; i < numberOfSamples && i < times.length; i++) {
+      if (times[i] - times[i - 1] != sampleInterval) {
+        throw new IllegalArgumentException("Times are not equidistant.");
+      }
+    }
+    return times[0];
+  }
+
+  private void flushBlock() throws IOException {
+    if (0 == pendingSamples) {
+      return;
+    }
+    long[] entry = new long[2 + 2 * channels.length];
+    entry[0] = samples;
+    entry[1] = pendingSamples;
+    for (int c = 0; c < channels.length; c++) {
+      int length = encode(pending[c], pendingSamples, encoded);
+      out.write(encoded, 0, length);
+      entry[2 + 2 * c] = offset;
+      entry[3 + 2 * c] = length;
+      offset += length;
+    }
+    index.add(entry);
+    samples += pendingSamples;
+    pendingSamples = 0;
+  }
+
+  /**
+   * Encodes counts as zig-zag mapped differences in variable length integers.
+   * 
+   * @param counts the counts.
+   * @param length the number of counts.
+   * @param target the target with space for {@value #MAX_BYTES_PER_SAMPLE} bytes per count.
+   * @return the number of encoded bytes.
+   */
+  static int encode(short[] counts, int length, byte[] target) {
+    int position = 0;
+    int previous = 0;
+    for (int i = 0; i < length; i++) {
+      int delta = counts[i] - previous;
+      previous = counts[i];
+      int zigzag = (delta << 1) ^ (delta >> 31);
+      while ((zigzag & ~0x7F) != 0) {
+        target[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+        zigzag >>>= 7;
+      }
+      target[position++] = (byte) zigzag;
+    }
+    return position;
+  }
+
+  /**
+   * Writes the last block and the index and closes the file.
+   * 
+   * @throws IOException if the file could not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (null == channels) {
+        // An empty capture still gets a header
+        writeHeader(new ResultSet());
+      }
+      flushBlock();
+      long indexOffset = offset;
+      for (long[] entry : index) {
+        out.writeLong(entry[0]);
+        out.writeInt((int) entry[1]);
+        for (int c = 0; c < channels.length; c++) {
+          out.writeLong(entry[2 + 2 * c]);
+          out.writeInt((int) entry[3 + 2 * c]);
+        }
+      }
+      out.writeLong(samples);
+      out.writeLong(indexOffset);
+      out.writeInt(index.size());
+      out.writeInt(MAGIC);
+    } finally {
+      out.close();
+    }
+  }
+}
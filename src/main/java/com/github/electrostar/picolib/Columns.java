@@ -0,0 +1,141 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Arrays;
+
+/**
+ * Compact arrays of sample columns indexed by the id of the {@link Channel}. The arrays only 
+ * grow up to the highest channel which was set.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class Columns {
+
+  private Columns() {
+  }
+
+  /**
+   * Gets the column of a channel.
+   * 
+   * @param <T> the type of the column.
+   * @param columns the columns or {@code null} if there are none.
+   * @param channel the {@link Channel}.
+   * @return the column or {@code null} if none is set.
+   */
+  static <T> T get(T[] columns, Channel channel) {
+    return null != columns && channel.getId() < columns.length ? columns[channel.getId()] : null;
+  }
+
+  /**
+   * Sets the voltages of a channel.
+   * 
+   * @param columns the columns or {@code null} if there are none.
+   * @param channel the {@link Channel}.
+   * @param column the new column.
+   * @return the columns, a grown copy if the channel was out of range.
+   */
+  static float[][] put(float[][] columns, Channel channel, float[] column) {
+    int id = channel.getId();
+    if (null == columns || id >= columns.length) {
+      if (null == column) {
+        return columns;
+      }
+      columns = null == columns ? new float[id + 1][] : Arrays.copyOf(columns, id + 1);
+    }
+    columns[id] = column;
+    return columns;
+  }
+
+  /**
+   * Sets the raw ADC counts of a channel.
+   * 
+   * @param columns the columns or {@code null} if there are none.
+   * @param channel the {@link Channel}.
+   * @param column the new column.
+   * @return the columns, a grown copy if the channel was out of range.
+   */
+  static short[][] put(short[][] columns, Channel channel, short[] column) {
+    int id = channel.getId();
+    if (null == columns || id >= columns.length) {
+      if (null == column) {
+        return columns;
+      }
+      columns = null == columns ? new short[id + 1][] : Arrays.copyOf(columns, id + 1);
+    }
+    columns[id] = column;
+    return columns;
+  }
+
+  /**
+   * Copies the columns so that setting a column of the copy does not change the original.
+   * 
+   * @param <T> the type of the column.
+   * @param columns the columns or {@code null} if there are none.
+   * @return the copy or {@code null}.
+   */
+  static <T> T[] copy(T[] columns) {
+    return null == columns ? null : columns.clone();
+  }
+
+  /**
+   * Calculates the hash code of the sample columns without converting. The raw ADC counts of a 
+   * channel take precedence over its voltages, as the voltages may be calculated from them.
+   * 
+   * @param volts the voltage columns or {@code null} if there are none.
+   * @param counts the raw ADC count columns or {@code null} if there are none.
+   * @return the hash code.
+   */
+  static int hashCode(float[][] volts, short[][] counts) {
+    int hash = 1;
+    for (Channel channel : Channel.values()) {
+      short[] raw = get(counts, channel);
+      hash = 31 * hash + (null != raw ? Arrays.hashCode(raw) 
+              : Arrays.hashCode(get(volts, channel)));
+    }
+    return hash;
+  }
+
+  /**
+   * Compares sample columns without converting. Channels with raw ADC counts are compared by 
+   * their counts, all other channels by their stored voltages.
+   * 
+   * @param volts the voltage columns or {@code null} if there are none.
+   * @param counts the raw ADC count columns or {@code null} if there are none.
+   * @param otherVolts the other voltage columns or {@code null} if there are none.
+   * @param otherCounts the other raw ADC count columns or {@code null} if there are none.
+   * @return {@code true} if the columns are equal.
+   */
+  static boolean equals(float[][] volts, short[][] counts, float[][] otherVolts, 
+          short[][] otherCounts) {
+    for (Channel channel : Channel.values()) {
+      short[] raw = get(counts, channel);
+      if (!Arrays.equals(raw, get(otherCounts, channel))) {
+        return false;
+      }
+      if (null == raw && !Arrays.equals(get(volts, channel), get(otherVolts, channel))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,155 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Consumer Statistics.
+ * Counters of one consumer of a {@link StreamingFanOut}.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ConsumerStatistics {
+
+  private long deliveredResultSets;
+  private long droppedResultSets;
+  private int lag;
+
+  /**
+   * Constructs empty Consumer Statistics.
+   */
+  public ConsumerStatistics() {
+  }
+
+  /**
+   * Constructs Consumer Statistics.
+   * 
+   * @param deliveredResultSets the number of {@link ResultSet}s handed to the consumer.
+   * @param droppedResultSets the number of {@link ResultSet}s dropped because the queue of the 
+   *                          consumer was full.
+   * @param lag the number of {@link ResultSet}s waiting in the queue of the consumer.
+   */
+  public ConsumerStatistics(long deliveredResultSets, long droppedResultSets, int lag) {
+    this.deliveredResultSets = deliveredResultSets;
+    this.droppedResultSets = droppedResultSets;
+    this.lag = lag;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the statistics to copy.
+   */
+  public ConsumerStatistics(ConsumerStatistics s) {
+    this(s.deliveredResultSets, s.droppedResultSets, s.lag);
+  }
+
+  /**
+   * Gets the number of {@link ResultSet}s handed to the consumer.
+   * 
+   * @return the number of delivered {@link ResultSet}s.
+   */
+  public long getDeliveredResultSets() {
+    return deliveredResultSets;
+  }
+
+  /**
+   * Sets the number of {@link ResultSet}s handed to the consumer.
+   * 
+   * @param deliveredResultSets the new number of delivered {@link ResultSet}s.
+   */
+  public void setDeliveredResultSets(long deliveredResultSets) {
+    this.deliveredResultSets = deliveredResultSets;
+  }
+
+  /**
+   * Gets the number of {@link ResultSet}s dropped because the queue of the consumer was full.
+   * 
+   * @return the number of dropped {@link ResultSet}s.
+   */
+  public long getDroppedResultSets() {
+    return droppedResultSets;
+  }
+
+  /**
+   * Sets the number of {@link ResultSet}s dropped because the queue of the consumer was full.
+   * 
+   * @param droppedResultSets the new number of dropped {@link ResultSet}s.
+   */
+  public void setDroppedResultSets(long droppedResultSets) {
+    this.droppedResultSets = droppedResultSets;
+  }
+
+  /**
+   * Gets the number of {@link ResultSet}s waiting in the queue of the consumer.
+   * 
+   * @return the lag in {@link ResultSet}s.
+   */
+  public int getLag() {
+    return lag;
+  }
+
+  /**
+   * Sets the number of {@link ResultSet}s waiting in the queue of the consumer.
+   * 
+   * @param lag the new lag in {@link ResultSet}s.
+   */
+  public void setLag(int lag) {
+    this.lag = lag;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final ConsumerStatistics other = (ConsumerStatistics) obj;
+    if (this.deliveredResultSets != other.deliveredResultSets) {
+      return false;
+    }
+    if (this.droppedResultSets != other.droppedResultSets) {
+      return false;
+    }
+    return this.lag == other.lag;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 5;
+    hash = 41 * hash + (int) (this.deliveredResultSets ^ (this.deliveredResultSets >>> 32));
+    hash = 41 * hash + (int) (this.droppedResultSets ^ (this.droppedResultSets >>> 32));
+    hash = 41 * hash + this.lag;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "ConsumerStatistics(deliveredResultSets=" + this.getDeliveredResultSets() 
+            + ", droppedResultSets=" + this.getDroppedResultSets() + ", lag=" + this.getLag() 
+            + ")";
+  }
+}
@@ -0,0 +1,172 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Conversion Settings.
+ * Contains all parameters for the library-wide conversion of sample data into a 
+ * {@link ResultSet}.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ConversionSettings {
+
+  /**
+   * Default number of samples below which the conversion runs on the calling thread.
+   */
+  public static final int DEFAULT_INLINE_THRESHOLD = 65536;
+
+  private ConversionMode mode;
+  private int threads;
+  private int inlineThreshold;
+
+  /**
+   * Constructs Conversion Settings with default values.
+   * <p>
+   * This means a {@link ConversionMode#FORK_JOIN} pool with one thread per available processor
+   * and an inline threshold of {@value #DEFAULT_INLINE_THRESHOLD} samples.
+   * </p>
+   */
+  public ConversionSettings() {
+    this(ConversionMode.FORK_JOIN, 0, DEFAULT_INLINE_THRESHOLD);
+  }
+
+  /**
+   * Constructs Conversion Settings.
+   * 
+   * @param mode the {@link ConversionMode}.
+   * @param threads the number of worker threads. {@code 0} means one thread per available 
+   *                processor.
+   * @param inlineThreshold the number of samples of all channels below which the conversion 
+   *                        runs on the calling thread.
+   */
+  public ConversionSettings(ConversionMode mode, int threads, int inlineThreshold) {
+    this.mode = mode;
+    this.threads = threads;
+    this.inlineThreshold = inlineThreshold;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the settings to copy.
+   */
+  public ConversionSettings(ConversionSettings s) {
+    this(s.mode, s.threads, s.inlineThreshold);
+  }
+
+  /**
+   * Gets the {@link ConversionMode}.
+   * 
+   * @return the {@link ConversionMode}.
+   */
+  public ConversionMode getMode() {
+    return mode;
+  }
+
+  /**
+   * Sets the {@link ConversionMode}.
+   * 
+   * @param mode the new {@link ConversionMode}.
+   */
+  public void setMode(ConversionMode mode) {
+    this.mode = mode;
+  }
+
+  /**
+   * Gets the number of worker threads.
+   * {@code 0} means one thread per available processor.
+   * 
+   * @return the number of worker threads.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the number of worker threads.
+   * {@code 0} means one thread per available processor.
+   * 
+   * @param threads the new number of worker threads.
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Gets the number of samples of all channels below which the conversion runs on the calling 
+   * thread.
+   * 
+   * @return the inline threshold.
+   */
+  public int getInlineThreshold() {
+    return inlineThreshold;
+  }
+
+  /**
+   * Sets the number of samples of all channels below which the conversion runs on the calling 
+   * thread.
+   * 
+   * @param inlineThreshold the new inline threshold.
+   */
+  public void setInlineThreshold(int inlineThreshold) {
+    this.inlineThreshold = inlineThreshold;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final ConversionSettings other = (ConversionSettings) obj;
+    if (this.threads != other.threads) {
+      return false;
+    }
+    if (this.inlineThreshold != other.inlineThreshold) {
+      return false;
+    }
+    return this.mode == other.mode;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 5;
+    hash = 37 * hash + Objects.hashCode(this.mode);
+    hash = 37 * hash + this.threads;
+    hash = 37 * hash + this.inlineThreshold;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "ConversionSettings(mode=" + this.getMode() + ", threads=" + this.getThreads() 
+            + ", inlineThreshold=" + this.getInlineThreshold() + ")";
+  }
+}
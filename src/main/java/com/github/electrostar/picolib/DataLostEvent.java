@@ -0,0 +1,165 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Data Lost Event.
+ * Describes an overrun of the overview buffers of the driver while streaming. Sample data 
+ * between the previous and the next delivered {@link ResultSet} are missing.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class DataLostEvent {
+
+  private long overruns;
+  private int overviewBufferSize;
+  private int newOverviewBufferSize;
+
+  /**
+   * Constructs an empty Data Lost Event.
+   */
+  public DataLostEvent() {
+  }
+
+  /**
+   * Constructs a Data Lost Event.
+   * 
+   * @param overruns the number of overruns since streaming started, including this one.
+   * @param overviewBufferSize the size of the overview buffers which overran.
+   * @param newOverviewBufferSize the size of the overview buffers after an automatic restart, 
+   *                              the same size if streaming was not restarted.
+   */
+  public DataLostEvent(long overruns, int overviewBufferSize, int newOverviewBufferSize) {
+    this.overruns = overruns;
+    this.overviewBufferSize = overviewBufferSize;
+    this.newOverviewBufferSize = newOverviewBufferSize;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param e the event to copy.
+   */
+  public DataLostEvent(DataLostEvent e) {
+    this(e.overruns, e.overviewBufferSize, e.newOverviewBufferSize);
+  }
+
+  /**
+   * Gets the number of overruns since streaming started, including this one.
+   * 
+   * @return the number of overruns.
+   */
+  public long getOverruns() {
+    return overruns;
+  }
+
+  /**
+   * Sets the number of overruns since streaming started.
+   * 
+   * @param overruns the new number of overruns.
+   */
+  public void setOverruns(long overruns) {
+    this.overruns = overruns;
+  }
+
+  /**
+   * Gets the size of the overview buffers which overran.
+   * 
+   * @return the size in samples.
+   */
+  public int getOverviewBufferSize() {
+    return overviewBufferSize;
+  }
+
+  /**
+   * Sets the size of the overview buffers which overran.
+   * 
+   * @param overviewBufferSize the new size in samples.
+   */
+  public void setOverviewBufferSize(int overviewBufferSize) {
+    this.overviewBufferSize = overviewBufferSize;
+  }
+
+  /**
+   * Gets the size of the overview buffers after an automatic restart of streaming.
+   * 
+   * @return the size in samples.
+   */
+  public int getNewOverviewBufferSize() {
+    return newOverviewBufferSize;
+  }
+
+  /**
+   * Sets the size of the overview buffers after an automatic restart of streaming.
+   * 
+   * @param newOverviewBufferSize the new size in samples.
+   */
+  public void setNewOverviewBufferSize(int newOverviewBufferSize) {
+    this.newOverviewBufferSize = newOverviewBufferSize;
+  }
+
+  /**
+   * Checks if streaming was restarted with larger overview buffers.
+   * 
+   * @return {@code true} if the overview buffers were resized, otherwise {@code false}.
+   */
+  public boolean isResized() {
+    return newOverviewBufferSize != overviewBufferSize;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final DataLostEvent other = (DataLostEvent) obj;
+    if (this.overruns != other.overruns) {
+      return false;
+    }
+    if (this.overviewBufferSize != other.overviewBufferSize) {
+      return false;
+    }
+    return this.newOverviewBufferSize == other.newOverviewBufferSize;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 5;
+    hash = 31 * hash + (int) (this.overruns ^ (this.overruns >>> 32));
+    hash = 31 * hash + this.overviewBufferSize;
+    hash = 31 * hash + this.newOverviewBufferSize;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "DataLostEvent(overruns=" + this.getOverruns() + ", overviewBufferSize=" 
+            + this.getOverviewBufferSize() + ", newOverviewBufferSize=" 
+            + this.getNewOverviewBufferSize() + ")";
+  }
+}
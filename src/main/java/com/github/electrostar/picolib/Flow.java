@@ -0,0 +1,107 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Flow.
+ * Interfaces for streams with demand signalled by the receiver. They have the same methods and 
+ * semantics as {@code java.util.concurrent.Flow} of Java 9, which is not available on Java 8.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public final class Flow {
+
+  private Flow() {
+  }
+
+  /**
+   * A producer of items received by {@link Subscriber}s.
+   * 
+   * @param <T> the type of the items.
+   */
+  @FunctionalInterface
+  public interface Publisher<T> {
+
+    /**
+     * Adds a {@link Subscriber}. The publisher calls 
+     * {@link Subscriber#onSubscribe(Subscription)} first and afterwards sends items as requested.
+     * 
+     * @param subscriber the {@link Subscriber}.
+     * @throws NullPointerException if the subscriber is {@code null}.
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items. The methods of one subscription are called in order, never 
+   * concurrently.
+   * 
+   * @param <T> the type of the items.
+   */
+  public interface Subscriber<T> {
+
+    /**
+     * Method called before any other method of the subscription.
+     * 
+     * @param subscription the {@link Subscription} to request or cancel items.
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Method called with the next item, never more often than requested.
+     * 
+     * @param item the item.
+     */
+    void onNext(T item);
+
+    /**
+     * Method called if the subscription failed. No other method is called afterwards.
+     * 
+     * @param throwable the error.
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Method called after the last item. No other method is called afterwards.
+     */
+    void onComplete();
+  }
+
+  /**
+   * The link between a {@link Publisher} and one {@link Subscriber}.
+   */
+  public interface Subscription {
+
+    /**
+     * Adds the number of items the {@link Subscriber} is ready to receive. A number less than 
+     * one fails the subscription with an {@link IllegalArgumentException}.
+     * 
+     * @param n the number of additional items.
+     */
+    void request(long n);
+
+    /**
+     * Stops sending items to the {@link Subscriber}.
+     */
+    void cancel();
+  }
+}
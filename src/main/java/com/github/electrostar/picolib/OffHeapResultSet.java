@@ -0,0 +1,440 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import com.sun.jna.Memory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-Heap Result Set.
+ * A {@link ResultSet} in {@link SampleFormat#ADC_COUNTS} whose channel columns are kept in 
+ * native memory or in a memory-mapped file instead of the heap.
+ * <p>
+ * The getters of {@link ResultSet} keep working, they copy a column onto the heap on their first 
+ * call. The indexed and bulk accessors of this class read the columns directly and never copy 
+ * them. After {@link #close()} the native memory is freed right away and only the columns 
+ * which were already copied are available, all other accessors throw an 
+ * {@link IllegalStateException}. Buffers returned by {@link #getRawBuffer(Channel)} and 
+ * {@link #getRawMinBuffer(Channel)} are invalid after closing, their limit is set to zero so 
+ * that reading them throws instead of reading freed memory. Closing must not run concurrently 
+ * with reading the columns.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public final class OffHeapResultSet extends ResultSet implements AutoCloseable {
+
+  private final ShortBuffer[] maxima;
+  private final ShortBuffer[] minima;
+  private final NativeColumns memory;
+  // Views handed out by the buffer getters, invalidated on close
+  private final List<ShortBuffer> views = new ArrayList<>();
+  private boolean minimaCopied;
+  private volatile boolean closed;
+
+  /**
+   * Constructs an {@code OffHeapResultSet} over existing columns.
+   * 
+   * @param header the {@link ResultSet} with the meta data, its sample data are not used.
+   * @param maxima the columns of the samples indexed by the id of the {@link Channel}.
+   * @param minima the columns of the minima of aggregated samples indexed by the id of the 
+   *               {@link Channel}.
+   * @param memory the native memory of the columns to free on close or {@code null}.
+   */
+  OffHeapResultSet(ResultSet header, ShortBuffer[] maxima, ShortBuffer[] minima, 
+          NativeColumns memory) {
+    super(header);
+    // One slot per channel, so that the columns of two sets can be compared as arrays
+    this.maxima = Arrays.copyOf(maxima, Channel.values().length);
+    this.minima = Arrays.copyOf(minima, Channel.values().length);
+    this.memory = memory;
+    super.setSampleFormat(SampleFormat.ADC_COUNTS);
+    for (Channel channel : Channel.values()) {
+      super.setChannel(channel, null);
+      super.setRawChannel(channel, null);
+    }
+    if (null != header.getAggregation()) {
+      super.setAggregation(new Aggregation(header.getAggregation().getSamplesPerAggregate()));
+    }
+  }
+
+  /**
+   * Copies the raw ADC counts of a {@link ResultSet} into native memory. The copy can be 
+   * kept while the heap arrays of the original are released.
+   * 
+   * @param rs the {@link ResultSet} in {@link SampleFormat#ADC_COUNTS}.
+   * @return the {@code OffHeapResultSet}.
+   * @throws IllegalArgumentException if no {@link ResultSet} is given or it has voltages without 
+   *                                  raw ADC counts.
+   */
+  public static OffHeapResultSet copyOf(ResultSet rs) {
+    if (null == rs) {
+      throw new IllegalArgumentException("ResultSet must be set.");
+    }
+    Channel[] channels = Channel.values();
+    short[][] maxCounts = new short[channels.length][];
+    short[][] minCounts = new short[channels.length][];
+    long size = 0;
+    for (Channel channel : channels) {
+      int id = channel.getId();
+      maxCounts[id] = RawChannels.get(rs, channel, false);
+      minCounts[id] = RawChannels.get(rs, channel, true);
+      if (null == maxCounts[id] && null != rs.getChannel(channel)) {
+        throw new IllegalArgumentException("Only raw ADC counts can be kept off-heap.");
+      }
+      size += null == maxCounts[id] ? 0 : (long) maxCounts[id].length * Short.BYTES;
+      size += null == minCounts[id] ? 0 : (long) minCounts[id].length * Short.BYTES;
+    }
+
+    NativeColumns memory = size > 0 ? new NativeColumns(size) : null;
+    ByteBuffer bytes = null == memory ? null : memory.getByteBuffer(0, size)
+            .order(ByteOrder.nativeOrder());
+    ShortBuffer[] maxima = new ShortBuffer[channels.length];
+    ShortBuffer[] minima = new ShortBuffer[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      maxima[i] = put(bytes, maxCounts[i]);
+      minima[i] = put(bytes, minCounts[i]);
+    }
+    return new OffHeapResultSet(rs, maxima, minima, memory);
+  }
+
+  @Override
+  public boolean hasChannel(Channel channel) {
+    if (closed) {
+      return super.hasChannel(channel);
+    }
+    return null != column(channel, false);
+  }
+
+  @Override
+  public void forEachSample(Channel channel, SampleConsumer consumer) {
+    // Read the column directly instead of copying it onto the heap
+    ShortBuffer column = column(channel, false);
+    SampleScaling scaling = getScaling(channel);
+    if (null == column || null == scaling) {
+      return;
+    }
+    for (int i = 0; i < column.limit(); i++) {
+      consumer.accept(channel, i, scaling.toVolts(column.get(i)));
+    }
+  }
+
+  /**
+   * Gets a read-only view of the raw ADC counts of a channel without copying them.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the column or {@code null} if the channel has no samples.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   */
+  public ShortBuffer getRawBuffer(Channel channel) {
+    return view(column(channel, false));
+  }
+
+  /**
+   * Gets a read-only view of the minima of aggregated raw ADC counts of a channel without 
+   * copying them.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the column or {@code null} if the channel has no minima.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   */
+  public ShortBuffer getRawMinBuffer(Channel channel) {
+    return view(column(channel, true));
+  }
+
+  /**
+   * Gets one raw ADC count of a channel.
+   * 
+   * @param channel the {@link Channel}.
+   * @param index the index of the sample.
+   * @return the raw ADC count.
+   * @throws IllegalArgumentException if the channel has no samples.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   */
+  public short getRaw(Channel channel, int index) {
+    return requireColumn(channel, false).get(index);
+  }
+
+  /**
+   * Reads raw ADC counts of a channel into an array.
+   * 
+   * @param channel the {@link Channel}.
+   * @param from the index of the first sample.
+   * @param target the array to read into.
+   * @param offset the first index in the array.
+   * @param length the number of samples.
+   * @throws IllegalArgumentException if the channel has no samples.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   * @throws IndexOutOfBoundsException if the range exceeds the column or the array.
+   */
+  public void getRaw(Channel channel, int from, short[] target, int offset, int length) {
+    ShortBuffer column = requireColumn(channel, false).duplicate();
+    column.position(from);
+    column.get(target, offset, length);
+  }
+
+  /**
+   * Gets one minimum of aggregated raw ADC counts of a channel.
+   * 
+   * @param channel the {@link Channel}.
+   * @param index the index of the aggregate.
+   * @return the raw ADC count.
+   * @throws IllegalArgumentException if the channel has no minima.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   */
+  public short getRawMin(Channel channel, int index) {
+    return requireColumn(channel, true).get(index);
+  }
+
+  /**
+   * Gets one voltage of a channel.
+   * 
+   * @param channel the {@link Channel}.
+   * @param index the index of the sample.
+   * @return the voltage, lost sample data are {@link Float#MAX_VALUE}.
+   * @throws IllegalArgumentException if the channel has no samples or no {@link SampleScaling}.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   */
+  public float getVoltage(Channel channel, int index) {
+    return requireScaling(channel).toVolts(getRaw(channel, index));
+  }
+
+  /**
+   * Reads voltages of a channel into an array.
+   * 
+   * @param channel the {@link Channel}.
+   * @param from the index of the first sample.
+   * @param target the array to read into.
+   * @param offset the first index in the array.
+   * @param length the number of samples.
+   * @throws IllegalArgumentException if the channel has no samples or no {@link SampleScaling}.
+   * @throws IllegalStateException if the {@code OffHeapResultSet} is closed.
+   * @throws IndexOutOfBoundsException if the range exceeds the column or the array.
+   */
+  public void getVoltages(Channel channel, int from, float[] target, int offset, int length) {
+    ShortBuffer column = requireColumn(channel, false);
+    SampleScaling scaling = requireScaling(channel);
+    if (from < 0 || length < 0 || from + length > column.limit() 
+            || offset < 0 || offset + length > target.length) {
+      throw new IndexOutOfBoundsException();
+    }
+    for (int i = 0; i < length; i++) {
+      target[offset + i] = scaling.toVolts(column.get(from + i));
+    }
+  }
+
+  /**
+   * Checks if the {@code OffHeapResultSet} is closed.
+   * 
+   * @return {@code true} if it is closed.
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Frees the native memory of the columns and invalidates the buffers returned by 
+   * {@link #getRawBuffer(Channel)} and {@link #getRawMinBuffer(Channel)}. Memory-mapped columns 
+   * are unmapped once they are no longer referenced. Closing twice has no effect.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    Arrays.fill(maxima, null);
+    Arrays.fill(minima, null);
+    synchronized (views) {
+      for (ShortBuffer view : views) {
+        view.limit(0);
+      }
+      views.clear();
+    }
+    if (null != memory) {
+      memory.free();
+    }
+  }
+
+  @Override
+  public short[] getRawChannel(Channel channel) {
+    short[] counts = super.getRawChannel(channel);
+    if (null == counts) {
+      counts = copy(channel, false);
+      if (null != counts) {
+        super.setRawChannel(channel, counts);
+      }
+    }
+    return counts;
+  }
+
+  @Override
+  public void setRawChannel(Channel channel, short[] counts) {
+    throw fixedColumns();
+  }
+
+  @Override
+  public void setSampleFormat(SampleFormat sampleFormat) {
+    throw fixedColumns();
+  }
+
+  @Override
+  public Aggregation getAggregation() {
+    Aggregation aggregation = super.getAggregation();
+    if (null != aggregation && !minimaCopied) {
+      short[][] counts = new short[minima.length][];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = copy(Channel.findById(i), true);
+      }
+      // Setting the minima gets the aggregation again
+      minimaCopied = true;
+      for (int i = 0; i < counts.length; i++) {
+        if (null != counts[i]) {
+          RawChannels.set(this, Channel.findById(i), true, counts[i]);
+        }
+      }
+    }
+    return aggregation;
+  }
+
+  @Override
+  public void setAggregation(Aggregation aggregation) {
+    throw fixedColumns();
+  }
+
+  @Override
+  public int hashCode() {
+    // Only the meta data, so that the hash code does not change on copying or closing
+    return headerHashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final OffHeapResultSet other = (OffHeapResultSet) obj;
+    if (this.closed || other.closed) {
+      return super.equals(other);
+    }
+    if (!headerEquals(other)) {
+      return false;
+    }
+    if (aggregateSize() != other.aggregateSize()) {
+      return false;
+    }
+    // Compare the columns in native memory instead of copying them
+    return Arrays.equals(this.maxima, other.maxima) && Arrays.equals(this.minima, other.minima);
+  }
+
+  private int aggregateSize() {
+    Aggregation aggregation = super.getAggregation();
+    return null == aggregation ? 0 : aggregation.getSamplesPerAggregate();
+  }
+
+  private ShortBuffer column(Channel channel, boolean min) {
+    if (closed) {
+      throw new IllegalStateException("OffHeapResultSet is closed.");
+    }
+    if (channel.getId() >= maxima.length) {
+      return null;
+    }
+    return min ? minima[channel.getId()] : maxima[channel.getId()];
+  }
+
+  private ShortBuffer view(ShortBuffer column) {
+    if (null == column) {
+      return null;
+    }
+    ShortBuffer view = column.asReadOnlyBuffer();
+    synchronized (views) {
+      views.add(view);
+    }
+    return view;
+  }
+
+  private ShortBuffer requireColumn(Channel channel, boolean min) {
+    ShortBuffer column = column(channel, min);
+    if (null == column) {
+      throw new IllegalArgumentException("No sample data for " + channel + ".");
+    }
+    return column;
+  }
+
+  private SampleScaling requireScaling(Channel channel) {
+    SampleScaling scaling = getScaling(channel);
+    if (null == scaling) {
+      throw new IllegalArgumentException("No scaling for " + channel + ".");
+    }
+    return scaling;
+  }
+
+  private short[] copy(Channel channel, boolean min) {
+    ShortBuffer column = column(channel, min);
+    if (null == column) {
+      return null;
+    }
+    short[] counts = new short[column.limit()];
+    column.duplicate().get(counts);
+    return counts;
+  }
+
+  private static ShortBuffer put(ByteBuffer memory, short[] counts) {
+    if (null == counts) {
+      return null;
+    }
+    ShortBuffer column = memory.asShortBuffer();
+    column.limit(counts.length);
+    column.put(counts).flip();
+    memory.position(memory.position() + counts.length * Short.BYTES);
+    return column;
+  }
+
+  private static UnsupportedOperationException fixedColumns() {
+    return new UnsupportedOperationException("The columns of an OffHeapResultSet are fixed.");
+  }
+
+  /**
+   * Native memory of the columns which can be freed explicitly.
+   */
+  static final class NativeColumns extends Memory {
+
+    NativeColumns(long size) {
+      super(size);
+    }
+
+    void free() {
+      dispose();
+    }
+  }
+}
@@ -37,4 +37,30 @@ public interface OnDataCallback {
    * @param rs the {@link ResultSet} received from the driver.
    */
   void onDataEvent(ResultSet rs);
+
+  /**
+   * Method called when the driver lost sample data while streaming. It is called in order with 
+   * {@link #onDataEvent(ResultSet)}, right before the first {@link ResultSet} after the gap.
+   * 
+   * @param event the {@link DataLostEvent} describing the overrun.
+   */
+  default void onDataLost(DataLostEvent event) {
+    // Lost data are ignored unless the application is interested in them
+  }
+
+  /**
+   * Method called once when streaming is stopped, before the remaining {@link ResultSet}s are 
+   * delivered. It is called on the thread stopping the stream and must not block, a callback 
+   * holding up {@link #onDataEvent(ResultSet)} has to let it return from now on.
+   */
+  default void onStreamingStopping() {
+    // Nothing to release unless the application holds up the delivery
+  }
+
+  /**
+   * Method called once after streaming stopped and the last {@link ResultSet} was delivered.
+   */
+  default void onStreamingComplete() {
+    // Nothing to release unless the application holds resources for the stream
+  }
 }
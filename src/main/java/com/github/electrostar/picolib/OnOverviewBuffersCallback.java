@@ -0,0 +1,91 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Interface to the Overview Buffers of the driver.
+ * A low level alternative to {@link OnDataCallback} for high sample rates. The implementation is 
+ * called on the streaming thread with read-only views of the native overview buffers, nothing is 
+ * copied or converted. Register it with 
+ * {@link PicoScope#registerOverviewBufferCallback(OnOverviewBuffersCallback)}.
+ * <p>
+ * The views and the arrays holding them are reused and only valid during the call. Data needed 
+ * afterwards must be copied. A slow implementation delays the polling of the driver and may 
+ * cause overruns of the overview buffers.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+@FunctionalInterface
+public interface OnOverviewBuffersCallback {
+
+  /**
+   * Method called once after registration, before the first sample data arrive.
+   * 
+   * @param scalings the {@link SampleScaling} per {@link Channel} indexed by the id of the 
+   *                 channel, {@code null} for disabled channels.
+   * @param timebase the {@link Timebase} of the stream. It must not be modified.
+   * @param samplesPerAggregate the number of samples per aggregate, {@code 1} if the sample 
+   *                            data are not aggregated.
+   */
+  default void onStreamingStarted(SampleScaling[] scalings, Timebase timebase, 
+          int samplesPerAggregate) {
+    // The format of the stream is ignored unless the application is interested in it
+  }
+
+  /**
+   * Method called when the driver has new sample data.
+   * 
+   * @param maxima the ADC counts per enabled channel in the order of the channel settings, 
+   *               {@code null} for disabled channels. Each view holds {@code values} counts 
+   *               from position zero. For aggregated sample data these are the maxima.
+   * @param minima the minima per channel of aggregated sample data or {@code null} if the sample 
+   *               data are not aggregated.
+   * @param values the number of values per channel.
+   * @param overflow the bit field of channels whose range was exceeded.
+   * @param triggerIndex the index of the trigger event within the values, {@code -1} if the 
+   *                     trigger did not fire within them.
+   * @param autoStop {@code true} if the driver stopped streaming automatically.
+   */
+  void onOverviewBuffers(ShortBuffer[] maxima, ShortBuffer[] minima, int values, short overflow, 
+          int triggerIndex, boolean autoStop);
+
+  /**
+   * Method called when the driver lost sample data while streaming. It is called in order with 
+   * {@link #onOverviewBuffers(ShortBuffer[], ShortBuffer[], int, short, int, boolean)}, right 
+   * before the first call after the gap.
+   * 
+   * @param event the {@link DataLostEvent} describing the overrun.
+   */
+  default void onDataLost(DataLostEvent event) {
+    // Lost data are ignored unless the application is interested in them
+  }
+
+  /**
+   * Method called once after streaming stopped.
+   */
+  default void onStreamingComplete() {
+    // Nothing to release unless the application holds resources for the stream
+  }
+}
@@ -26,6 +26,8 @@ import com.github.electrostar.picolib.exception.PicoException;
 import com.github.electrostar.picolib.exception.UnitNotFoundException;
 import com.github.electrostar.picolib.unit.PicoUnit;
 import com.github.electrostar.picolib.unit.UnitFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
 
 /**
  * The <code>PicoScope</code> Class represents an interface to a physical Pico Technology PicoScope.
@@ -37,6 +39,7 @@ public class PicoScope implements AutoCloseable {
 
   private PicoUnit unit;
   private UnitFactory unitFactory;
+  private CompletableFuture<PicoScope> opening;
 
   /**
    * Creates an instance to interacte with a PicoScope.
@@ -87,9 +90,58 @@ public class PicoScope implements AutoCloseable {
     openUnit(unitSeries);
   }
 
+  /**
+   * Open a connection to a Pico Technology PicoScope asynchronously.
+   *
+   * @param unitSeries {@link UnitSeries} of device you want to use.
+   * @return the future of this instance.
+   * @throws IllegalStateException if the current instance holds already a connection to an opened
+   *                               or opening PicoScope device or no {@link UnitFactory} is set.
+   * @throws NotSupportedException if the given {@link UnitSeries} is not supported.
+   * @see #openAsync(UnitSeries, IntConsumer)
+   */
+  public CompletableFuture<PicoScope> openAsync(UnitSeries unitSeries) 
+          throws NotSupportedException {
+    return openAsync(unitSeries, null);
+  }
+
+  /**
+   * Open a connection to a Pico Technology PicoScope asynchronously and report the progress.
+   * The firmware of a device takes seconds to load, the opens of all devices are queued and run 
+   * one after another without blocking the caller. Cancelling the returned future before the 
+   * device is open closes it again.
+   *
+   * @param unitSeries {@link UnitSeries} of device you want to use.
+   * @param progress receives the estimated progress in percent from 0 to 100, may be 
+   *                 {@code null}. Called on a thread shared by all devices.
+   * @return the future of this instance, completed exceptionally with an 
+   *         {@link UnitNotFoundException} if no device of the specifying {@link UnitSeries} is 
+   *         connected to the computer or it fails to open.
+   * @throws IllegalStateException if the current instance holds already a connection to an opened
+   *                               or opening PicoScope device or no {@link UnitFactory} is set.
+   * @throws NotSupportedException if the given {@link UnitSeries} is not supported.
+   */
+  public CompletableFuture<PicoScope> openAsync(UnitSeries unitSeries, IntConsumer progress) 
+          throws NotSupportedException {
+    this.unit = createUnit(unitSeries);
+
+    CompletableFuture<PicoUnit> open = unit.openAsync(progress);
+    this.opening = open.thenApply(openedUnit -> this);
+    // Cancelling the returned future cancels the open of the unit
+    opening.whenComplete((scope, ex) -> open.cancel(false));
+    return opening;
+  }
+
   private void openUnit(UnitSeries unitSeries) throws PicoException {
+    this.unit = createUnit(unitSeries);
+
+    // Open the Unit over the handler
+    this.unit.open();
+  }
+
+  private PicoUnit createUnit(UnitSeries unitSeries) throws NotSupportedException {
     // Check for already open
-    if (null != unit && unit.isOpen()) {
+    if ((null != unit && unit.isOpen()) || (null != opening && !opening.isDone())) {
       throw new IllegalStateException("A Unit is already open for this instance.");
     }
     
@@ -98,10 +150,7 @@ public class PicoScope implements AutoCloseable {
     }
 
     // Try to generate a Handler for this unit Series
-    this.unit = unitFactory.getUnit(unitSeries);
-
-    // Open the Unit over the handler
-    this.unit.open();
+    return unitFactory.getUnit(unitSeries);
   }
 
   /**
@@ -481,6 +530,120 @@ public class PicoScope implements AutoCloseable {
     unit.runBlock();
   }
 
+  /**
+   * Runs a Block and returns a future which is completed with the {@link ResultSet} of the block.
+   * The readiness is polled by the library with a backoff based on the expected collection time 
+   * of the {@link Timebase}, so there is no need to poll {@link #ready()}. Cancelling the future 
+   * stops the block.
+   *
+   * @return the future of the result set.
+   * @throws IllegalStateException if instance is not opened or a block capture is already 
+   *                               running.
+   * @throws ConfigurationException if the block could not be run because of wrong configuration.
+   */
+  public CompletableFuture<ResultSet> captureBlockAsync() throws ConfigurationException {
+    checkUnit();
+
+    return unit.captureBlockAsync();
+  }
+
+  /**
+   * Starts a continuous acquisition of blocks with default {@link AcquisitionSettings}.
+   *
+   * @param callback the callback for every block.
+   * @throws IllegalStateException if instance is not opened or a capture is already running.
+   * @throws IllegalArgumentException if no callback is given.
+   * @throws ConfigurationException if the block could not be run because of wrong configuration.
+   * @see #startAcquisition(OnDataCallback, AcquisitionSettings)
+   */
+  public void startAcquisition(OnDataCallback callback) throws ConfigurationException {
+    startAcquisition(callback, new AcquisitionSettings());
+  }
+
+  /**
+   * Starts a continuous acquisition of blocks. Each block is transferred into one of several 
+   * rotating buffers and the next block is armed right away, while the conversion and the 
+   * callback run on another thread. The {@link ResultSet} passed to the callback belongs to its 
+   * buffer and is only valid until the callback returns. The configuration must not be changed 
+   * while acquiring.
+   *
+   * @param callback the callback for every block.
+   * @param settings the {@link AcquisitionSettings}.
+   * @throws IllegalStateException if instance is not opened or a capture is already running.
+   * @throws IllegalArgumentException if no callback is given or the settings are not valid.
+   * @throws ConfigurationException if the block could not be run because of wrong configuration.
+   */
+  public void startAcquisition(OnDataCallback callback, AcquisitionSettings settings) 
+          throws ConfigurationException {
+    checkUnit();
+
+    unit.startAcquisition(callback, settings);
+  }
+
+  /**
+   * Stops a continuous acquisition.
+   *
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public void stopAcquisition() {
+    checkUnit();
+
+    unit.stopAcquisition();
+  }
+
+  /**
+   * Checks if a continuous acquisition is running.
+   *
+   * @return {@code true} if acquiring, otherwise {@code false}.
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public boolean isAcquiring() {
+    checkUnit();
+
+    return unit.isAcquiring();
+  }
+
+  /**
+   * Returns the achieved waveforms per second and the dead time per cycle of the current or last 
+   * continuous acquisition.
+   *
+   * @return the statistics or {@code null} if there was no acquisition.
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public AcquisitionStatistics getAcquisitionStatistics() {
+    checkUnit();
+
+    return unit.getAcquisitionStatistics();
+  }
+
+  /**
+   * Creates a reusable {@link CaptureBuffer} for voltages.
+   *
+   * @param samples the maximum number of samples per channel.
+   * @return a new {@link CaptureBuffer}.
+   * @throws IllegalStateException if instance is not opened.
+   * @throws IllegalArgumentException if the number of samples is not positive.
+   */
+  public CaptureBuffer newCaptureBuffer(int samples) {
+    return newCaptureBuffer(samples, SampleFormat.VOLTAGE);
+  }
+
+  /**
+   * Creates a reusable {@link CaptureBuffer}.
+   *
+   * @param samples the maximum number of samples per channel.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return a new {@link CaptureBuffer}.
+   * @throws IllegalStateException if instance is not opened.
+   * @throws IllegalArgumentException if the number of samples is not positive or no format is 
+   *                                  given.
+   */
+  public CaptureBuffer newCaptureBuffer(int samples, SampleFormat format) {
+    checkUnit();
+
+    return unit.createCaptureBuffer(samples, format);
+  }
+
   /**
    * Returns the {@link ResultSet} of a executed block.
    *
@@ -493,6 +656,41 @@ public class PicoScope implements AutoCloseable {
     return unit.getTimesAndValues();
   }
 
+  /**
+   * Returns the {@link ResultSet} of a executed block in the given format. With 
+   * {@link SampleFormat#ADC_COUNTS} the raw ADC counts are returned and the voltages are only 
+   * calculated on demand.
+   *
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return the result set.
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public ResultSet getTimesAndValues(SampleFormat format) {
+    checkUnit();
+
+    return unit.getTimesAndValues(format);
+  }
+
+  /**
+   * Returns the {@link ResultSet} of a executed block read into a reusable {@link CaptureBuffer}.
+   * The returned {@link ResultSet} belongs to the buffer and is overwritten by the next call with 
+   * the same buffer. Repeated blocks of the same size do not allocate new memory.
+   *
+   * @param buffer the {@link CaptureBuffer} to read into.
+   * @return the result set of the buffer.
+   * @throws IllegalStateException if instance is not opened.
+   * @throws IllegalArgumentException if no buffer is given or it was not created by 
+   *                                  {@link #newCaptureBuffer(int, SampleFormat)}.
+   */
+  public ResultSet getTimesAndValues(CaptureBuffer buffer) {
+    checkUnit();
+    if (null == buffer) {
+      throw new IllegalArgumentException("Capture buffer must be set.");
+    }
+
+    return unit.getTimesAndValues(buffer);
+  }
+
   /**
    * Set the ETS Mode.
    *
@@ -561,6 +759,26 @@ public class PicoScope implements AutoCloseable {
     unit.runStreaming();
   }
 
+  /**
+   * Start streaming aggregated sample data from the device to the computer. The driver merges 
+   * {@code samplesPerAggregate} samples into one pair of minimum and maximum values, which 
+   * reduces the transferred data by the same factor. The maxima are delivered as the channel 
+   * samples and the minima as the channel minima of each {@link ResultSet}.
+   *
+   * @param samplesPerAggregate the number of samples per aggregate, at least one.
+   * @throws IllegalStateException if instance is not opened, no timebase is set or instance is
+   *                               already in streaming mode.
+   * @throws IllegalArgumentException if the number of samples per aggregate is less than one.
+   * @throws NotSupportedException if the device does not support streaming mode.
+   * @throws ConfigurationException if no streaming mode could start because of configuration error.
+   */
+  public void runStreaming(int samplesPerAggregate) 
+          throws NotSupportedException, ConfigurationException {
+    checkUnit();
+
+    unit.runStreaming(samplesPerAggregate);
+  }
+
   /**
    * Register a Callback for {@link ResultSet} while in streaming mode.
    *
@@ -575,6 +793,193 @@ public class PicoScope implements AutoCloseable {
     unit.registerCallback(callback);
   }
 
+  /**
+   * Register a Callback for {@link ResultSet} in the given format while in streaming mode.
+   *
+   * @param callback the callback function.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public void registerStreamingCallback(OnDataCallback callback, SampleFormat format) 
+          throws ConfigurationException {
+    checkUnit();
+
+    unit.registerCallback(callback, format);
+  }
+
+  /**
+   * Register a Callback which receives read-only views of the overview buffers of the driver 
+   * while in streaming mode. Nothing is copied or converted, the views are only valid during the 
+   * call.
+   *
+   * @param callback the callback function.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public void registerOverviewBufferCallback(OnOverviewBuffersCallback callback) 
+          throws ConfigurationException {
+    checkUnit();
+
+    unit.registerOverviewBufferCallback(callback);
+  }
+
+  /**
+   * Register a {@link StreamRecorder} which writes the sample data as raw ADC counts into 
+   * memory-mapped segment files while in streaming mode. Read them back with a 
+   * {@link StreamRecording}.
+   *
+   * @param settings the {@link RecorderSettings} of the segment files.
+   * @return the {@link StreamRecorder}.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws IllegalArgumentException if a setting is not valid.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public StreamRecorder registerStreamRecorder(RecorderSettings settings) 
+          throws ConfigurationException {
+    checkUnit();
+
+    StreamRecorder recorder = new StreamRecorder(settings);
+    unit.registerOverviewBufferCallback(recorder);
+    return recorder;
+  }
+
+  /**
+   * Register a {@link ResultSetPublisher} for {@link ResultSet} while in streaming mode. Any 
+   * number of {@link Flow.Subscriber}s can subscribe to it, they complete on {@link #stop()}.
+   *
+   * @param settings the {@link PublisherSettings} for the buffers of the subscribers.
+   * @return the {@link ResultSetPublisher}.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws IllegalArgumentException if a setting is not valid.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public ResultSetPublisher registerStreamingPublisher(PublisherSettings settings) 
+          throws ConfigurationException {
+    return registerStreamingPublisher(settings, SampleFormat.VOLTAGE);
+  }
+
+  /**
+   * Register a {@link ResultSetPublisher} for {@link ResultSet} in the given format while in 
+   * streaming mode.
+   *
+   * @param settings the {@link PublisherSettings} for the buffers of the subscribers.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return the {@link ResultSetPublisher}.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws IllegalArgumentException if a setting is not valid.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public ResultSetPublisher registerStreamingPublisher(PublisherSettings settings, 
+          SampleFormat format) throws ConfigurationException {
+    checkUnit();
+
+    ResultSetPublisher publisher = new ResultSetPublisher(settings);
+    unit.registerCallback(publisher, format);
+    return publisher;
+  }
+
+  /**
+   * Register a {@link StreamingFanOut} for {@link ResultSet} while in streaming mode. Consumers 
+   * added to it share each converted {@link ResultSet} and run on their own executors.
+   *
+   * @param queueCapacity the number of queued {@link ResultSet}s per consumer.
+   * @return the {@link StreamingFanOut}.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws IllegalArgumentException if the capacity is less than one.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public StreamingFanOut registerStreamingFanOut(int queueCapacity) 
+          throws ConfigurationException {
+    return registerStreamingFanOut(queueCapacity, SampleFormat.VOLTAGE);
+  }
+
+  /**
+   * Register a {@link StreamingFanOut} for {@link ResultSet} in the given format while in 
+   * streaming mode.
+   *
+   * @param queueCapacity the number of queued {@link ResultSet}s per consumer.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return the {@link StreamingFanOut}.
+   * @throws IllegalStateException if instance is not opened, a callback already registered or not
+   *                               in streaming mode.
+   * @throws IllegalArgumentException if the capacity is less than one.
+   * @throws ConfigurationException if a register callback could not be registered on the driver.
+   */
+  public StreamingFanOut registerStreamingFanOut(int queueCapacity, SampleFormat format) 
+          throws ConfigurationException {
+    checkUnit();
+
+    StreamingFanOut fanOut = new StreamingFanOut(queueCapacity);
+    unit.registerCallback(fanOut, format);
+    return fanOut;
+  }
+
+  /**
+   * Sets the {@link StreamingSettings} for the buffering between the driver and the streaming 
+   * callback. They are applied on the next registration of a streaming callback.
+   *
+   * @param settings the buffer capacity and the {@link OverflowPolicy}.
+   * @throws IllegalStateException if instance is not opened.
+   * @throws IllegalArgumentException if a setting is not valid.
+   */
+  public void setStreamingSettings(StreamingSettings settings) {
+    checkUnit();
+
+    unit.setStreamingSettings(settings);
+  }
+
+  /**
+   * Returns the {@link StreamingSettings} for the buffering between the driver and the streaming 
+   * callback.
+   *
+   * @return the {@link StreamingSettings}.
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public StreamingSettings getStreamingSettings() {
+    checkUnit();
+
+    return unit.getStreamingSettings();
+  }
+
+  /**
+   * Returns the number of delivered, dropped and blocked chunks of the current or last streaming 
+   * callback.
+   *
+   * @return the statistics or {@code null} if no streaming callback was registered.
+   * @throws IllegalStateException if instance is not opened.
+   */
+  public StreamingStatistics getStreamingStatistics() {
+    checkUnit();
+
+    return unit.getStreamingStatistics();
+  }
+
+  /**
+   * Sets the library-wide {@link ConversionSettings} used to convert sample data of all devices.
+   *
+   * @param settings the settings for the conversion.
+   * @throws IllegalArgumentException if a setting is out of range.
+   */
+  public static void setConversionSettings(ConversionSettings settings) {
+    UnitFactory.setConversionSettings(settings);
+  }
+
+  /**
+   * Returns the library-wide {@link ConversionSettings}.
+   *
+   * @return the settings for the conversion.
+   */
+  public static ConversionSettings getConversionSettings() {
+    return UnitFactory.getConversionSettings();
+  }
+
   @Override
   public String toString() {
     if (null != unit && unit.isOpen()) {
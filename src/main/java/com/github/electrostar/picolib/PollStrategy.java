@@ -0,0 +1,56 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Strategies how the streaming thread waits between two polls of the driver.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public enum PollStrategy {
+
+  /**
+   * The strategy is chosen from the sample interval, the overview buffer size and the observed 
+   * chunk sizes and changes while streaming.
+   */
+  ADAPTIVE,
+
+  /**
+   * Polls again right away. Lowest latency with one fully used core.
+   */
+  BUSY_SPIN,
+
+  /**
+   * Yields to other threads before polling again.
+   */
+  YIELD,
+
+  /**
+   * Parks the thread for an adaptive number of nanoseconds.
+   */
+  PARK,
+
+  /**
+   * Parks the thread for a fixed poll period.
+   */
+  FIXED
+}
@@ -0,0 +1,139 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Publisher Settings.
+ * Settings of the buffer each subscriber of a {@link ResultSetPublisher} has for the 
+ * {@link ResultSet}s it did not request yet.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class PublisherSettings {
+
+  /**
+   * Default number of buffered {@link ResultSet}s per subscriber.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 16;
+
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+  /**
+   * Constructs Publisher Settings with the default buffer size, dropping {@link ResultSet}s if 
+   * a buffer is full.
+   */
+  public PublisherSettings() {
+  }
+
+  /**
+   * Constructs Publisher Settings.
+   * 
+   * @param bufferSize the number of buffered {@link ResultSet}s per subscriber.
+   * @param overflowPolicy the {@link OverflowPolicy} if the buffer of a subscriber is full.
+   */
+  public PublisherSettings(int bufferSize, OverflowPolicy overflowPolicy) {
+    this.bufferSize = bufferSize;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the settings to copy.
+   */
+  public PublisherSettings(PublisherSettings s) {
+    this(s.bufferSize, s.overflowPolicy);
+  }
+
+  /**
+   * Gets the number of buffered {@link ResultSet}s per subscriber.
+   * 
+   * @return the buffer size.
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Sets the number of buffered {@link ResultSet}s per subscriber.
+   * 
+   * @param bufferSize the new buffer size.
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Gets the {@link OverflowPolicy} if the buffer of a subscriber is full. 
+   * {@link OverflowPolicy#DROP} drops the {@link ResultSet} for that subscriber only, 
+   * {@link OverflowPolicy#BLOCK} holds up the delivery until the subscriber requested more.
+   * 
+   * @return the {@link OverflowPolicy}.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Sets the {@link OverflowPolicy} if the buffer of a subscriber is full.
+   * 
+   * @param overflowPolicy the new {@link OverflowPolicy}.
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final PublisherSettings other = (PublisherSettings) obj;
+    if (this.bufferSize != other.bufferSize) {
+      return false;
+    }
+    return this.overflowPolicy == other.overflowPolicy;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 3;
+    hash = 29 * hash + this.bufferSize;
+    hash = 29 * hash + Objects.hashCode(this.overflowPolicy);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "PublisherSettings(bufferSize=" + this.getBufferSize() + ", overflowPolicy=" 
+            + this.getOverflowPolicy() + ")";
+  }
+}
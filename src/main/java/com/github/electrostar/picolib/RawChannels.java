@@ -0,0 +1,69 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Access to the raw ADC counts of a {@link ResultSet} by {@link Channel}.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class RawChannels {
+
+  private RawChannels() {
+  }
+
+  /**
+   * Gets the raw ADC counts of a channel.
+   * 
+   * @param rs the {@link ResultSet}.
+   * @param channel the {@link Channel}.
+   * @param min {@code true} for the minima of aggregated sample data.
+   * @return the ADC counts or {@code null} if there are none.
+   */
+  static short[] get(ResultSet rs, Channel channel, boolean min) {
+    if (!min) {
+      return rs.getRawChannel(channel);
+    }
+    Aggregation aggregation = rs.getAggregation();
+    return null == aggregation ? null : aggregation.getRawChannel(channel);
+  }
+
+  /**
+   * Sets the raw ADC counts of a channel. The minima are only set if the {@link ResultSet} has 
+   * an {@link Aggregation}.
+   * 
+   * @param rs the {@link ResultSet}.
+   * @param channel the {@link Channel}.
+   * @param min {@code true} for the minima of aggregated sample data.
+   * @param counts the ADC counts.
+   */
+  static void set(ResultSet rs, Channel channel, boolean min, short[] counts) {
+    if (!min) {
+      rs.setRawChannel(channel, counts);
+      return;
+    }
+    Aggregation aggregation = rs.getAggregation();
+    if (null != aggregation) {
+      aggregation.setRawChannel(channel, counts);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Read-only view of a {@link ResultSet} shared by several consumers.
+ * All setters throw an {@link UnsupportedOperationException}. The voltages and times which are 
+ * calculated on the first call are calculated under the lock of the view, so consumers on 
+ * different threads see the same arrays. The arrays themselves are shared and must not be modified.
+ * The {@link SampleScaling}s, the {@link Aggregation} and the {@link StreamingInfo} are returned 
+ * as copies, changing them does not change the view.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class ReadOnlyResultSet extends ResultSet {
+
+  /**
+   * Constructs a read-only view of a {@link ResultSet}.
+   * 
+   * @param rs the {@link ResultSet} to share.
+   */
+  ReadOnlyResultSet(ResultSet rs) {
+    super(rs);
+  }
+
+  @Override
+  public synchronized int[] getTimes() {
+    return super.getTimes();
+  }
+
+  @Override
+  public synchronized float[] getChannel(Channel channel) {
+    return super.getChannel(channel);
+  }
+
+  @Override
+  public synchronized float[] getChannelMin(Channel channel) {
+    return getChannelMin(super.getAggregation(), channel);
+  }
+
+  @Override
+  public SampleScaling[] getScalings() {
+    SampleScaling[] scalings = super.getScalings();
+    if (null == scalings) {
+      return null;
+    }
+    SampleScaling[] copy = new SampleScaling[scalings.length];
+    for (int i = 0; i < copy.length; i++) {
+      copy[i] = null == scalings[i] ? null : new SampleScaling(scalings[i]);
+    }
+    return copy;
+  }
+
+  @Override
+  public SampleScaling getScaling(Channel channel) {
+    SampleScaling scaling = super.getScaling(channel);
+    return null == scaling ? null : new SampleScaling(scaling);
+  }
+
+  @Override
+  public synchronized Aggregation getAggregation() {
+    Aggregation aggregation = super.getAggregation();
+    if (null == aggregation) {
+      return null;
+    }
+    // Calculate the minima once in the shared aggregation, so that all copies share them
+    for (Channel channel : Channel.values()) {
+      getChannelMin(aggregation, channel);
+    }
+    return new Aggregation(aggregation);
+  }
+
+  @Override
+  public StreamingInfo getStreamingInfo() {
+    StreamingInfo info = super.getStreamingInfo();
+    return null == info ? null : new StreamingInfo(info);
+  }
+
+  @Override
+  public void setTimeUnit(TimeUnit timeUnit) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setDivisions(int divisions) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setCollectionTime(CollectionTime collectionTime) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setTimes(int[] times) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setTimeOffset(long timeOffset) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setTimeInterval(long timeInterval) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setChannel(Channel channel, float[] samples) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setRawChannel(Channel channel, short[] counts) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setNumberOfSamples(int numberOfSamples) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setSampleFormat(SampleFormat sampleFormat) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setScalings(SampleScaling[] scalings) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setScaling(Channel channel, SampleScaling scaling) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setAggregation(Aggregation aggregation) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setStreamingInfo(StreamingInfo streamingInfo) {
+    throw readOnly();
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("ResultSet is shared and read-only.");
+  }
+}
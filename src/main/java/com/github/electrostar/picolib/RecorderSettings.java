@@ -0,0 +1,208 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Recorder Settings.
+ * Settings of the segment files a {@link StreamRecorder} writes the streamed sample data to. A 
+ * new segment is started if the current one is full or covers the segment duration.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class RecorderSettings {
+
+  /**
+   * Default size of a segment file in bytes.
+   */
+  public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+  /**
+   * Default prefix of the segment file names.
+   */
+  public static final String DEFAULT_PREFIX = "stream";
+
+  private File directory;
+  private String prefix = DEFAULT_PREFIX;
+  private long segmentSize = DEFAULT_SEGMENT_SIZE;
+  private long segmentDuration;
+
+  /**
+   * Constructs empty Recorder Settings.
+   */
+  public RecorderSettings() {
+  }
+
+  /**
+   * Constructs Recorder Settings with the default prefix and segment size and no segment 
+   * duration.
+   * 
+   * @param directory the directory of the segment files.
+   */
+  public RecorderSettings(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Constructs Recorder Settings.
+   * 
+   * @param directory the directory of the segment files.
+   * @param prefix the prefix of the segment file names.
+   * @param segmentSize the size of a segment file in bytes.
+   * @param segmentDuration the stream time a segment covers at most in milliseconds, {@code 0} 
+   *                        for no limit.
+   */
+  public RecorderSettings(File directory, String prefix, long segmentSize, 
+          long segmentDuration) {
+    this.directory = directory;
+    this.prefix = prefix;
+    this.segmentSize = segmentSize;
+    this.segmentDuration = segmentDuration;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the settings to copy.
+   */
+  public RecorderSettings(RecorderSettings s) {
+    this(s.directory, s.prefix, s.segmentSize, s.segmentDuration);
+  }
+
+  /**
+   * Gets the directory of the segment files.
+   * 
+   * @return the directory.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Sets the directory of the segment files.
+   * 
+   * @param directory the new directory.
+   */
+  public void setDirectory(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Gets the prefix of the segment file names. The segments are named 
+   * {@code <prefix>-<number>.psr}.
+   * 
+   * @return the prefix.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Sets the prefix of the segment file names.
+   * 
+   * @param prefix the new prefix.
+   */
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * Gets the size of a segment file in bytes. The files are created with this size up front. A 
+   * segment is only larger if a single chunk of sample data does not fit into it.
+   * 
+   * @return the segment size.
+   */
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Sets the size of a segment file in bytes.
+   * 
+   * @param segmentSize the new segment size.
+   */
+  public void setSegmentSize(long segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Gets the stream time a segment covers at most in milliseconds. It is measured by the number 
+   * of samples, so gaps of lost sample data do not count.
+   * 
+   * @return the segment duration or {@code 0} for no limit.
+   */
+  public long getSegmentDuration() {
+    return segmentDuration;
+  }
+
+  /**
+   * Sets the stream time a segment covers at most in milliseconds.
+   * 
+   * @param segmentDuration the new segment duration or {@code 0} for no limit.
+   */
+  public void setSegmentDuration(long segmentDuration) {
+    this.segmentDuration = segmentDuration;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final RecorderSettings other = (RecorderSettings) obj;
+    if (this.segmentSize != other.segmentSize) {
+      return false;
+    }
+    if (this.segmentDuration != other.segmentDuration) {
+      return false;
+    }
+    if (!Objects.equals(this.prefix, other.prefix)) {
+      return false;
+    }
+    return Objects.equals(this.directory, other.directory);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 7;
+    hash = 37 * hash + Objects.hashCode(this.directory);
+    hash = 37 * hash + Objects.hashCode(this.prefix);
+    hash = 37 * hash + (int) (this.segmentSize ^ (this.segmentSize >>> 32));
+    hash = 37 * hash + (int) (this.segmentDuration ^ (this.segmentDuration >>> 32));
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "RecorderSettings(directory=" + this.getDirectory() + ", prefix=" + this.getPrefix() 
+            + ", segmentSize=" + this.getSegmentSize() + ", segmentDuration=" 
+            + this.getSegmentDuration() + ")";
+  }
+}
@@ -20,7 +20,9 @@
 
 package com.github.electrostar.picolib;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -36,10 +38,16 @@ public class ResultSet {
   private CollectionTime collectionTime;
   private int numberOfSamples;
   private int[] times;
-  private float[] channelA;
-  private float[] channelB;
-  private float[] channelC;
-  private float[] channelD;
+  // Times calculated from offset and interval, not part of the state
+  private int[] calculatedTimes;
+  private long timeOffset;
+  private long timeInterval;
+  private float[][] channels;
+  private SampleFormat sampleFormat = SampleFormat.VOLTAGE;
+  private short[][] rawChannels;
+  private SampleScaling[] scalings;
+  private Aggregation aggregation;
+  private StreamingInfo streamingInfo;
 
   /**
    * Create empty ResultSet.
@@ -61,6 +69,25 @@ public class ResultSet {
     this.collectionTime = collectionTime;
   }
 
+  /**
+   * Copy Constructor. The sample data and the nested objects are shared, not copied.
+   * 
+   * @param rs the {@link ResultSet} to copy.
+   */
+  public ResultSet(ResultSet rs) {
+    this(rs.timeUnit, rs.divisions, rs.collectionTime);
+    this.numberOfSamples = rs.numberOfSamples;
+    this.times = rs.times;
+    this.timeOffset = rs.timeOffset;
+    this.timeInterval = rs.timeInterval;
+    this.channels = Columns.copy(rs.channels);
+    this.sampleFormat = rs.sampleFormat;
+    this.rawChannels = Columns.copy(rs.rawChannels);
+    this.scalings = rs.scalings;
+    this.aggregation = rs.aggregation;
+    this.streamingInfo = rs.streamingInfo;
+  }
+
   /**
    * Gets the {@link TimeUnit} of the sampling process.
    * 
@@ -117,11 +144,47 @@ public class ResultSet {
 
   /**
    * Gets the time values for the channels of the sampling process.
+   * If the times are only given by offset and interval they are calculated on the first call. 
+   * The times of a long stream exceed the range of an {@code int}, use {@link #getLongTimes()} 
+   * for them.
    * 
    * @return time values.
+   * @throws IllegalStateException if a calculated time exceeds the range of an {@code int}.
    */
   public int[] getTimes() {
-    return times;
+    if (null != times || 0 == timeInterval || numberOfSamples <= 0) {
+      return times;
+    }
+    if (null == calculatedTimes) {
+      int[] calculated = new int[numberOfSamples];
+      for (int i = 0; i < calculated.length; i++) {
+        long time = getTime(i);
+        if (time != (int) time) {
+          throw new IllegalStateException("Time " + time + " exceeds the int range, use "
+                  + "getLongTimes() instead.");
+        }
+        calculated[i] = (int) time;
+      }
+      calculatedTimes = calculated;
+    }
+    return calculatedTimes;
+  }
+
+  /**
+   * Gets the time values for the channels of the sampling process without a limited range.
+   * The array is created on every call, prefer {@link #getTime(int)} for single samples.
+   * 
+   * @return time values or {@code null} if there are neither times nor a time interval.
+   */
+  public long[] getLongTimes() {
+    if (null == times && (0 == timeInterval || numberOfSamples <= 0)) {
+      return null;
+    }
+    long[] calculated = new long[null != times ? times.length : numberOfSamples];
+    for (int i = 0; i < calculated.length; i++) {
+      calculated[i] = getTime(i);
+    }
+    return calculated;
   }
 
   /**
@@ -131,15 +194,172 @@ public class ResultSet {
    */
   public void setTimes(int[] times) {
     this.times = times;
+    this.calculatedTimes = null;
+  }
+
+  /**
+   * Gets the time of the first sample relative to the trigger event. Together with the 
+   * {@link #getTimeInterval() time interval} it describes the times without an array.
+   * 
+   * @return the time offset in the {@link TimeUnit} of the sampling process.
+   */
+  public long getTimeOffset() {
+    return timeOffset;
+  }
+
+  /**
+   * Sets the time of the first sample relative to the trigger event.
+   * 
+   * @param timeOffset the new time offset.
+   */
+  public void setTimeOffset(long timeOffset) {
+    this.timeOffset = timeOffset;
+    this.calculatedTimes = null;
+  }
+
+  /**
+   * Gets the time between two samples if the times are equidistant.
+   * 
+   * @return the time interval in the {@link TimeUnit} of the sampling process or {@code 0} if 
+   *         the times are only given as array.
+   */
+  public long getTimeInterval() {
+    return timeInterval;
+  }
+
+  /**
+   * Sets the time between two samples.
+   * 
+   * @param timeInterval the new time interval or {@code 0} if the times are only given as array.
+   */
+  public void setTimeInterval(long timeInterval) {
+    this.timeInterval = timeInterval;
+    this.calculatedTimes = null;
+  }
+
+  /**
+   * Gets the time of a sample without calculating the whole time array.
+   * 
+   * @param index the index of the sample.
+   * @return the time in the {@link TimeUnit} of the sampling process.
+   */
+  public long getTime(int index) {
+    if (null != times) {
+      return times[index];
+    }
+    return timeOffset + index * timeInterval;
+  }
+
+  /**
+   * Gets the samples of a channel of the sampling process.
+   * If only raw ADC counts are available the voltages are calculated on the first call.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the samples or {@code null} if the channel has none.
+   */
+  public float[] getChannel(Channel channel) {
+    float[] volts = Columns.get(channels, channel);
+    if (null == volts) {
+      volts = toVolts(channel, getRawChannel(channel));
+      if (null != volts) {
+        channels = Columns.put(channels, channel, volts);
+      }
+    }
+    return volts;
+  }
+
+  /**
+   * Sets the samples of a channel of the sampling process.
+   * 
+   * @param channel the {@link Channel}.
+   * @param samples the new samples.
+   */
+  public void setChannel(Channel channel, float[] samples) {
+    channels = Columns.put(channels, channel, samples);
+  }
+
+  /**
+   * Gets the raw ADC counts of a channel of the sampling process.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the ADC counts or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannel(Channel channel) {
+    return Columns.get(rawChannels, channel);
+  }
+
+  /**
+   * Sets the raw ADC counts of a channel of the sampling process.
+   * 
+   * @param channel the {@link Channel}.
+   * @param counts the new ADC counts.
+   */
+  public void setRawChannel(Channel channel, short[] counts) {
+    rawChannels = Columns.put(rawChannels, channel, counts);
+  }
+
+  /**
+   * Checks if a channel has samples, either as voltages or as raw ADC counts. No voltages are 
+   * calculated.
+   * 
+   * @param channel the {@link Channel}.
+   * @return {@code true} if the channel has samples.
+   */
+  public boolean hasChannel(Channel channel) {
+    return null != Columns.get(channels, channel) || null != Columns.get(rawChannels, channel);
+  }
+
+  /**
+   * Gets the channels with samples in the order of their ids.
+   * 
+   * @return the {@link Channel}s.
+   */
+  public List<Channel> channels() {
+    List<Channel> found = new ArrayList<>();
+    for (Channel channel : Channel.values()) {
+      if (hasChannel(channel)) {
+        found.add(channel);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Passes all samples of all channels to a consumer, channel by channel.
+   * 
+   * @param consumer the {@link SampleConsumer}.
+   */
+  public void forEachSample(SampleConsumer consumer) {
+    for (Channel channel : channels()) {
+      forEachSample(channel, consumer);
+    }
+  }
+
+  /**
+   * Passes all samples of a channel to a consumer. Lost sample data are 
+   * {@link Float#MAX_VALUE}.
+   * 
+   * @param channel the {@link Channel}.
+   * @param consumer the {@link SampleConsumer}.
+   */
+  public void forEachSample(Channel channel, SampleConsumer consumer) {
+    float[] volts = getChannel(channel);
+    if (null == volts) {
+      return;
+    }
+    for (int i = 0; i < volts.length; i++) {
+      consumer.accept(channel, i, volts[i]);
+    }
   }
 
   /**
    * Gets the samples for Channel A of the sampling process.
+   * If only raw ADC counts are available the voltages are calculated on the first call.
    * 
    * @return channel A samples.
    */
   public float[] getChannelA() {
-    return channelA;
+    return getChannel(Channel.CHANNEL_A);
   }
 
   /**
@@ -148,16 +368,17 @@ public class ResultSet {
    * @param channelA the new samples.
    */
   public void setChannelA(float[] channelA) {
-    this.channelA = channelA;
+    setChannel(Channel.CHANNEL_A, channelA);
   }
 
   /**
    * Gets the samples for Channel B of the sampling process.
+   * If only raw ADC counts are available the voltages are calculated on the first call.
    * 
    * @return channel B samples.
    */
   public float[] getChannelB() {
-    return channelB;
+    return getChannel(Channel.CHANNEL_B);
   }
 
   /**
@@ -166,16 +387,17 @@ public class ResultSet {
    * @param channelB the new samples.
    */
   public void setChannelB(float[] channelB) {
-    this.channelB = channelB;
+    setChannel(Channel.CHANNEL_B, channelB);
   }
 
   /**
    * Gets the samples for Channel C of the sampling process.
+   * If only raw ADC counts are available the voltages are calculated on the first call.
    * 
    * @return channel C samples.
    */
   public float[] getChannelC() {
-    return channelC;
+    return getChannel(Channel.CHANNEL_C);
   }
 
   /**
@@ -184,16 +406,17 @@ public class ResultSet {
    * @param channelC the new samples.
    */
   public void setChannelC(float[] channelC) {
-    this.channelC = channelC;
+    setChannel(Channel.CHANNEL_C, channelC);
   }
 
   /**
    * Gets the samples for Channel D of the sampling process.
+   * If only raw ADC counts are available the voltages are calculated on the first call.
    * 
    * @return channel D samples.
    */
   public float[] getChannelD() {
-    return channelD;
+    return getChannel(Channel.CHANNEL_D);
   }
 
   /**
@@ -202,7 +425,7 @@ public class ResultSet {
    * @param channelD the new samples.
    */
   public void setChannelD(float[] channelD) {
-    this.channelD = channelD;
+    setChannel(Channel.CHANNEL_D, channelD);
   }
 
   /**
@@ -221,20 +444,233 @@ public class ResultSet {
    */
   public void setNumberOfSamples(int numberOfSamples) {
     this.numberOfSamples = numberOfSamples;
+    this.calculatedTimes = null;
+  }
+
+  /**
+   * Gets the {@link SampleFormat} in which the sample data were delivered.
+   * 
+   * @return the {@link SampleFormat}.
+   */
+  public SampleFormat getSampleFormat() {
+    return sampleFormat;
+  }
+
+  /**
+   * Sets the {@link SampleFormat} in which the sample data were delivered.
+   * 
+   * @param sampleFormat the new {@link SampleFormat}.
+   */
+  public void setSampleFormat(SampleFormat sampleFormat) {
+    this.sampleFormat = sampleFormat;
+  }
+
+  /**
+   * Gets the raw ADC counts for Channel A of the sampling process.
+   * 
+   * @return channel A ADC counts or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelA() {
+    return getRawChannel(Channel.CHANNEL_A);
+  }
+
+  /**
+   * Sets the raw ADC counts for Channel A of the sampling process.
+   * 
+   * @param rawChannelA the new ADC counts.
+   */
+  public void setRawChannelA(short[] rawChannelA) {
+    setRawChannel(Channel.CHANNEL_A, rawChannelA);
+  }
+
+  /**
+   * Gets the raw ADC counts for Channel B of the sampling process.
+   * 
+   * @return channel B ADC counts or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelB() {
+    return getRawChannel(Channel.CHANNEL_B);
+  }
+
+  /**
+   * Sets the raw ADC counts for Channel B of the sampling process.
+   * 
+   * @param rawChannelB the new ADC counts.
+   */
+  public void setRawChannelB(short[] rawChannelB) {
+    setRawChannel(Channel.CHANNEL_B, rawChannelB);
+  }
+
+  /**
+   * Gets the raw ADC counts for Channel C of the sampling process.
+   * 
+   * @return channel C ADC counts or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelC() {
+    return getRawChannel(Channel.CHANNEL_C);
+  }
+
+  /**
+   * Sets the raw ADC counts for Channel C of the sampling process.
+   * 
+   * @param rawChannelC the new ADC counts.
+   */
+  public void setRawChannelC(short[] rawChannelC) {
+    setRawChannel(Channel.CHANNEL_C, rawChannelC);
+  }
+
+  /**
+   * Gets the raw ADC counts for Channel D of the sampling process.
+   * 
+   * @return channel D ADC counts or {@code null} if not in {@link SampleFormat#ADC_COUNTS}.
+   */
+  public short[] getRawChannelD() {
+    return getRawChannel(Channel.CHANNEL_D);
+  }
+
+  /**
+   * Sets the raw ADC counts for Channel D of the sampling process.
+   * 
+   * @param rawChannelD the new ADC counts.
+   */
+  public void setRawChannelD(short[] rawChannelD) {
+    setRawChannel(Channel.CHANNEL_D, rawChannelD);
+  }
+
+  /**
+   * Gets the {@link SampleScaling} of all channels with raw ADC counts indexed by the id of the 
+   * {@link Channel}.
+   * 
+   * @return the {@link SampleScaling} per {@link Channel}.
+   */
+  public SampleScaling[] getScalings() {
+    return scalings;
+  }
+
+  /**
+   * Sets the {@link SampleScaling} of all channels with raw ADC counts indexed by the id of the 
+   * {@link Channel}.
+   * 
+   * @param scalings the new {@link SampleScaling} per {@link Channel}.
+   */
+  public void setScalings(SampleScaling[] scalings) {
+    this.scalings = scalings;
+  }
+
+  /**
+   * Gets the {@link SampleScaling} of a channel.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the {@link SampleScaling} or {@code null} if none is set.
+   */
+  public SampleScaling getScaling(Channel channel) {
+    if (null == scalings || channel.getId() >= scalings.length) {
+      return null;
+    }
+    return scalings[channel.getId()];
+  }
+
+  /**
+   * Sets the {@link SampleScaling} of a channel.
+   * 
+   * @param channel the {@link Channel}.
+   * @param scaling the new {@link SampleScaling}.
+   */
+  public void setScaling(Channel channel, SampleScaling scaling) {
+    if (null == scalings || channel.getId() >= scalings.length) {
+      SampleScaling[] resized = new SampleScaling[Channel.values().length];
+      if (null != scalings) {
+        System.arraycopy(scalings, 0, resized, 0, scalings.length);
+      }
+      scalings = resized;
+    }
+    scalings[channel.getId()] = scaling;
+  }
+
+  /**
+   * Gets the {@link Aggregation} of streamed sample data. If set, the channel samples are the 
+   * maxima of each aggregate.
+   * 
+   * @return the {@link Aggregation} or {@code null} if the sample data are not aggregated.
+   */
+  public Aggregation getAggregation() {
+    return aggregation;
+  }
+
+  /**
+   * Sets the {@link Aggregation} of streamed sample data.
+   * 
+   * @param aggregation the new {@link Aggregation}.
+   */
+  public void setAggregation(Aggregation aggregation) {
+    this.aggregation = aggregation;
+  }
+
+  /**
+   * Gets the {@link StreamingInfo} of streamed sample data. The times of the samples are not 
+   * materialized for streamed sample data, they are derived from it.
+   * 
+   * @return the {@link StreamingInfo} or {@code null} if the sample data were not streamed.
+   */
+  public StreamingInfo getStreamingInfo() {
+    return streamingInfo;
+  }
+
+  /**
+   * Sets the {@link StreamingInfo} of streamed sample data.
+   * 
+   * @param streamingInfo the new {@link StreamingInfo}.
+   */
+  public void setStreamingInfo(StreamingInfo streamingInfo) {
+    this.streamingInfo = streamingInfo;
+  }
+
+  /**
+   * Gets the minima of a channel of aggregated sample data. If only raw ADC counts are 
+   * available the voltages are calculated on the first call.
+   * 
+   * @param channel the {@link Channel}.
+   * @return the minima or {@code null} if the sample data are not aggregated.
+   */
+  public float[] getChannelMin(Channel channel) {
+    return getChannelMin(getAggregation(), channel);
+  }
+
+  /**
+   * Gets the minima of a channel of an {@link Aggregation} and keeps the calculated voltages 
+   * in it.
+   * 
+   * @param aggregation the {@link Aggregation} or {@code null}.
+   * @param channel the {@link Channel}.
+   * @return the minima or {@code null} if the sample data are not aggregated.
+   */
+  float[] getChannelMin(Aggregation aggregation, Channel channel) {
+    if (null == aggregation) {
+      return null;
+    }
+    float[] volts = aggregation.getChannel(channel);
+    if (null == volts) {
+      volts = toVolts(channel, aggregation.getRawChannel(channel));
+      if (null != volts) {
+        aggregation.setChannel(channel, volts);
+      }
+    }
+    return volts;
+  }
+
+  private float[] toVolts(Channel channel, short[] counts) {
+    SampleScaling scaling = getScaling(channel);
+    if (null == counts || null == scaling) {
+      return null;
+    }
+    return scaling.toVolts(counts);
   }
 
   @Override
   public int hashCode() {
-    int hash = 7;
-    hash = 23 * hash + Objects.hashCode(this.timeUnit);
-    hash = 23 * hash + this.divisions;
-    hash = 23 * hash + Objects.hashCode(this.collectionTime);
-    hash = 23 * hash + this.numberOfSamples;
-    hash = 23 * hash + Arrays.hashCode(this.times);
-    hash = 23 * hash + Arrays.hashCode(this.channelA);
-    hash = 23 * hash + Arrays.hashCode(this.channelB);
-    hash = 23 * hash + Arrays.hashCode(this.channelC);
-    hash = 23 * hash + Arrays.hashCode(this.channelD);
+    int hash = headerHashCode();
+    hash = 23 * hash + Columns.hashCode(this.channels, this.rawChannels);
+    hash = 23 * hash + Objects.hashCode(this.aggregation);
     return hash;
   }
 
@@ -250,6 +686,42 @@ public class ResultSet {
       return false;
     }
     final ResultSet other = (ResultSet) obj;
+    if (!headerEquals(other)) {
+      return false;
+    }
+    if (!Objects.equals(this.aggregation, other.aggregation)) {
+      return false;
+    }
+    return Columns.equals(this.channels, this.rawChannels, other.channels, other.rawChannels);
+  }
+
+  /**
+   * Calculates the hash code of the meta data without the sample columns.
+   * 
+   * @return the hash code.
+   */
+  int headerHashCode() {
+    int hash = 7;
+    hash = 23 * hash + Objects.hashCode(this.timeUnit);
+    hash = 23 * hash + this.divisions;
+    hash = 23 * hash + Objects.hashCode(this.collectionTime);
+    hash = 23 * hash + this.numberOfSamples;
+    hash = 23 * hash + Arrays.hashCode(this.times);
+    hash = 23 * hash + (int) (this.timeOffset ^ (this.timeOffset >>> 32));
+    hash = 23 * hash + (int) (this.timeInterval ^ (this.timeInterval >>> 32));
+    hash = 23 * hash + Objects.hashCode(this.sampleFormat);
+    hash = 23 * hash + Arrays.hashCode(this.scalings);
+    hash = 23 * hash + Objects.hashCode(this.streamingInfo);
+    return hash;
+  }
+
+  /**
+   * Compares the meta data without the sample columns.
+   * 
+   * @param other the other {@link ResultSet}.
+   * @return {@code true} if the meta data are equal.
+   */
+  boolean headerEquals(ResultSet other) {
     if (this.divisions != other.divisions) {
       return false;
     }
@@ -262,18 +734,21 @@ public class ResultSet {
     if (this.collectionTime != other.collectionTime) {
       return false;
     }
-    if (!Arrays.equals(this.times, other.times)) {
+    if (this.timeOffset != other.timeOffset) {
       return false;
     }
-    if (!Arrays.equals(this.channelA, other.channelA)) {
+    if (this.timeInterval != other.timeInterval) {
+      return false;
+    }
+    if (!Arrays.equals(this.times, other.times)) {
       return false;
     }
-    if (!Arrays.equals(this.channelB, other.channelB)) {
+    if (this.sampleFormat != other.sampleFormat) {
       return false;
     }
-    if (!Arrays.equals(this.channelC, other.channelC)) {
+    if (!Arrays.equals(this.scalings, other.scalings)) {
       return false;
     }
-    return Arrays.equals(this.channelD, other.channelD);
+    return Objects.equals(this.streamingInfo, other.streamingInfo);
   }
 }
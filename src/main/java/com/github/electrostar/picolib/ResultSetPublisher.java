@@ -0,0 +1,251 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Result Set Publisher.
+ * A {@link Flow.Publisher} view of streamed sample data. Register it as streaming callback, 
+ * see {@link PicoScope#registerStreamingPublisher(PublisherSettings)}, and any number of 
+ * {@link Flow.Subscriber}s receive the {@link ResultSet}s as they request them.
+ * <p>
+ * Each subscriber has its own bounded buffer for the {@link ResultSet}s it did not request yet. 
+ * A full buffer either drops the {@link ResultSet} for that subscriber or holds up the delivery, 
+ * see {@link PublisherSettings}. Once streaming is stopped the delivery is no longer held up, 
+ * a {@link ResultSet} which does not fit into a full buffer is dropped. Subscribers share the 
+ * same {@link ResultSet} instances and must not modify them. All subscribers complete once 
+ * streaming stopped and their buffers are empty.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ResultSetPublisher implements Flow.Publisher<ResultSet>, OnDataCallback {
+
+  private static final long BLOCK_WAIT_NS = 100_000;
+
+  private final PublisherSettings settings;
+  private final List<ResultSetSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile boolean stopping;
+  private volatile boolean completed;
+
+  /**
+   * Constructs a {@code ResultSetPublisher} with the default {@link PublisherSettings}.
+   */
+  public ResultSetPublisher() {
+    this(new PublisherSettings());
+  }
+
+  /**
+   * Constructs a {@code ResultSetPublisher}.
+   * 
+   * @param settings the {@link PublisherSettings} for the buffers of the subscribers.
+   * @throws IllegalArgumentException if a setting is not valid.
+   */
+  public ResultSetPublisher(PublisherSettings settings) {
+    if (null == settings || null == settings.getOverflowPolicy()) {
+      throw new IllegalArgumentException("Overflow policy must be set.");
+    }
+    if (settings.getBufferSize() < 1) {
+      throw new IllegalArgumentException("Buffer size must be at least one.");
+    }
+    this.settings = new PublisherSettings(settings);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ResultSet> subscriber) {
+    if (null == subscriber) {
+      throw new NullPointerException("Subscriber must be set.");
+    }
+
+    ResultSetSubscription subscription = new ResultSetSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+    subscriptions.add(subscription);
+    // Subscribers arriving after the stop complete right away
+    if (completed) {
+      subscription.complete();
+    }
+  }
+
+  @Override
+  public void onDataEvent(ResultSet rs) {
+    for (ResultSetSubscription subscription : subscriptions) {
+      subscription.offer(rs);
+    }
+  }
+
+  @Override
+  public void onStreamingStopping() {
+    stopping = true;
+  }
+
+  @Override
+  public void onStreamingComplete() {
+    completed = true;
+    for (ResultSetSubscription subscription : subscriptions) {
+      subscription.complete();
+    }
+  }
+
+  /**
+   * Gets the number of active subscribers.
+   * 
+   * @return the number of subscribers.
+   */
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  /**
+   * Gets the number of {@link ResultSet}s dropped because the buffer of a subscriber was full, 
+   * summed up over all subscribers.
+   * 
+   * @return the number of dropped {@link ResultSet}s.
+   */
+  public long getDroppedResultSets() {
+    return dropped.get();
+  }
+
+  /**
+   * Subscription of one subscriber. The signals are emitted by whichever thread finds items and 
+   * demand, but never by two threads at once.
+   */
+  private final class ResultSetSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super ResultSet> subscriber;
+    private final Queue<ResultSet> queue;
+    private final AtomicLong requested = new AtomicLong();
+    // Number of pending drain requests, only the thread raising it from zero drains
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private boolean terminated;
+
+    private ResultSetSubscription(Flow.Subscriber<? super ResultSet> subscriber) {
+      this.subscriber = subscriber;
+      this.queue = new ArrayBlockingQueue<>(settings.getBufferSize());
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("Requested items must be positive.");
+      } else {
+        long current;
+        long next;
+        do {
+          current = requested.get();
+          next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      subscriptions.remove(this);
+      drain();
+    }
+
+    private void offer(ResultSet rs) {
+      boolean offered = queue.offer(rs);
+      if (!offered && OverflowPolicy.BLOCK == settings.getOverflowPolicy()) {
+        // Wait for demand, but not beyond the stop of the stream
+        while (!offered && !cancelled && !stopping) {
+          LockSupport.parkNanos(BLOCK_WAIT_NS);
+          offered = queue.offer(rs);
+        }
+      }
+      if (!offered && !cancelled) {
+        dropped.incrementAndGet();
+      }
+      drain();
+    }
+
+    private void complete() {
+      done = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+      do {
+        long demand = requested.get();
+        long emitted = 0;
+        while (emitted != demand && !isTerminated()) {
+          ResultSet rs = queue.poll();
+          if (null == rs) {
+            break;
+          }
+          try {
+            subscriber.onNext(rs);
+          } catch (RuntimeException ex) {
+            Logger.getLogger(ResultSetPublisher.class.getName()).log(Level.SEVERE, null, ex);
+            cancel();
+          }
+          emitted++;
+        }
+        if (emitted != 0 && demand != Long.MAX_VALUE) {
+          requested.addAndGet(-emitted);
+        }
+        isTerminated();
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    // Emits the terminal signal once, must only be called while draining
+    private boolean isTerminated() {
+      if (terminated) {
+        return true;
+      }
+      if (cancelled) {
+        terminated = true;
+        queue.clear();
+      } else if (null != error) {
+        terminated = true;
+        queue.clear();
+        subscriptions.remove(this);
+        subscriber.onError(error);
+      } else if (done && queue.isEmpty()) {
+        terminated = true;
+        subscriptions.remove(this);
+        subscriber.onComplete();
+      }
+      return terminated;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Sample Scaling.
+ * Contains all informations to convert the raw ADC counts of one channel into voltages.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class SampleScaling {
+
+  private Range range;
+  private int maxValue;
+  private int lostValue;
+
+  /**
+   * Constructs empty Sample Scaling.
+   */
+  public SampleScaling() {
+  }
+
+  /**
+   * Constructs Sample Scaling.
+   * 
+   * @param range the {@link Range} of the channel.
+   * @param maxValue the ADC count which is mapped to the maximum voltage of the range.
+   * @param lostValue the ADC count which marks lost sample data.
+   */
+  public SampleScaling(Range range, int maxValue, int lostValue) {
+    this.range = range;
+    this.maxValue = maxValue;
+    this.lostValue = lostValue;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the scaling to copy.
+   */
+  public SampleScaling(SampleScaling s) {
+    this(s.range, s.maxValue, s.lostValue);
+  }
+
+  /**
+   * Gets the {@link Range} of the channel.
+   * 
+   * @return the {@link Range}.
+   */
+  public Range getRange() {
+    return range;
+  }
+
+  /**
+   * Sets the {@link Range} of the channel.
+   * 
+   * @param range the new {@link Range}.
+   */
+  public void setRange(Range range) {
+    this.range = range;
+  }
+
+  /**
+   * Gets the ADC count which is mapped to the maximum voltage of the range.
+   * 
+   * @return the maximum ADC count.
+   */
+  public int getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Sets the ADC count which is mapped to the maximum voltage of the range.
+   * 
+   * @param maxValue the new maximum ADC count.
+   */
+  public void setMaxValue(int maxValue) {
+    this.maxValue = maxValue;
+  }
+
+  /**
+   * Gets the ADC count which marks lost sample data.
+   * 
+   * @return the lost ADC count.
+   */
+  public int getLostValue() {
+    return lostValue;
+  }
+
+  /**
+   * Sets the ADC count which marks lost sample data.
+   * 
+   * @param lostValue the new lost ADC count.
+   */
+  public void setLostValue(int lostValue) {
+    this.lostValue = lostValue;
+  }
+
+  /**
+   * Converts raw ADC counts into voltages. Lost sample data are converted to 
+   * {@link Float#MAX_VALUE}.
+   * 
+   * @param counts the raw ADC counts.
+   * @return the voltages or {@code null} if no counts are given.
+   */
+  public float[] toVolts(short[] counts) {
+    if (null == counts) {
+      return null;
+    }
+
+    float multiplier = ((float) range.getValue() / 1000) / maxValue;
+    float[] volts = new float[counts.length];
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == lostValue) {
+        volts[i] = Float.MAX_VALUE;
+      } else {
+        volts[i] = multiplier * counts[i];
+      }
+    }
+    return volts;
+  }
+
+  /**
+   * Converts one raw ADC count into a voltage. Lost sample data are converted to 
+   * {@link Float#MAX_VALUE}.
+   * 
+   * @param count the raw ADC count.
+   * @return the voltage.
+   */
+  public float toVolts(short count) {
+    if (count == lostValue) {
+      return Float.MAX_VALUE;
+    }
+    return ((float) range.getValue() / 1000) / maxValue * count;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final SampleScaling other = (SampleScaling) obj;
+    if (this.maxValue != other.maxValue) {
+      return false;
+    }
+    if (this.lostValue != other.lostValue) {
+      return false;
+    }
+    return this.range == other.range;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 3;
+    hash = 41 * hash + Objects.hashCode(this.range);
+    hash = 41 * hash + this.maxValue;
+    hash = 41 * hash + this.lostValue;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "SampleScaling(range=" + this.getRange() + ", maxValue=" + this.getMaxValue() 
+            + ", lostValue=" + this.getLostValue() + ")";
+  }
+}
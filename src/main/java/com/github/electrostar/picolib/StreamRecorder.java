@@ -0,0 +1,292 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stream Recorder.
+ * Writes streamed sample data as raw ADC counts into memory-mapped segment files. Register it 
+ * with {@link PicoScope#registerStreamRecorder(RecorderSettings)} and read the segments back 
+ * with a {@link StreamRecording}.
+ * <p>
+ * Every segment is created with the size of the {@link RecorderSettings} and starts with a 
+ * header holding the ranges of the channels, the timebase and the index of its first sample. 
+ * The chunks of the driver are appended as they arrive, one block of counts per channel, so 
+ * the sample data are copied once from the driver into the file and nothing is allocated per 
+ * chunk. A new segment is started if the current one is full or covers the segment duration.
+ * </p>
+ * <p>
+ * Writing happens on the streaming thread. If it fails the recording stops, the error is 
+ * logged and thrown by {@link #close()}.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamRecorder implements OnOverviewBuffersCallback, AutoCloseable {
+
+  /**
+   * File extension of the segment files.
+   */
+  public static final String EXTENSION = ".psr";
+
+  static final int MAGIC = 0x50535231;
+  static final short VERSION = 1;
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  // Fixed part of the header, followed by the range, maximum and lost value of each channel
+  static final int FIXED_HEADER_SIZE = 64;
+  static final int CHANNEL_HEADER_SIZE = 12;
+  // Values, trigger index, overflow and the mask of the channels in the chunk
+  static final int CHUNK_HEADER_SIZE = 12;
+  static final int AUTO_STOP_FLAG = 0x8000;
+
+  static final int OFFSET_START_INDEX = 8;
+  static final int OFFSET_SAMPLES = 16;
+  static final int OFFSET_DATA_END = 24;
+  static final int OFFSET_DIVISION_TIME = 32;
+  static final int OFFSET_DIVISIONS = 40;
+  static final int OFFSET_TIME_INTERVAL = 44;
+  static final int OFFSET_TIME_UNIT = 48;
+  static final int OFFSET_COLUMNS = 50;
+  static final int OFFSET_SAMPLES_PER_AGGREGATE = 52;
+
+  private final RecorderSettings settings;
+  private final List<File> segments = new CopyOnWriteArrayList<>();
+
+  private SampleScaling[] scalings;
+  private Timebase timebase;
+  private int samplesPerAggregate = 1;
+  private long samplesPerSegment = Long.MAX_VALUE;
+  private int headerSize;
+
+  private MappedByteBuffer segment;
+  private ShortBuffer segmentShorts;
+  private long segmentStart;
+  private long segmentSamples;
+  private boolean closed;
+  private IOException error;
+
+  private volatile long recordedSamples;
+
+  /**
+   * Constructs a {@code StreamRecorder}.
+   * 
+   * @param settings the {@link RecorderSettings} of the segment files.
+   * @throws IllegalArgumentException if a setting is not valid.
+   */
+  public StreamRecorder(RecorderSettings settings) {
+    if (null == settings || null == settings.getDirectory() || null == settings.getPrefix() 
+            || settings.getPrefix().isEmpty()) {
+      throw new IllegalArgumentException("Directory and prefix must be set.");
+    }
+    if (settings.getSegmentSize() <= FIXED_HEADER_SIZE 
+            || settings.getSegmentSize() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Segment size must be greater than the header and "
+              + "at most " + Integer.MAX_VALUE + " bytes.");
+    }
+    if (settings.getSegmentDuration() < 0) {
+      throw new IllegalArgumentException("Segment duration must not be negative.");
+    }
+    this.settings = new RecorderSettings(settings);
+  }
+
+  /**
+   * Gets the segment files written so far, in the order of the stream.
+   * 
+   * @return the segment files.
+   */
+  public List<File> getSegments() {
+    return Collections.unmodifiableList(new ArrayList<>(segments));
+  }
+
+  /**
+   * Gets the number of recorded samples per channel.
+   * 
+   * @return the number of samples.
+   */
+  public long getRecordedSamples() {
+    return recordedSamples;
+  }
+
+  @Override
+  public synchronized void onStreamingStarted(SampleScaling[] scalings, Timebase timebase, 
+          int samplesPerAggregate) {
+    this.scalings = scalings.clone();
+    this.timebase = timebase;
+    this.samplesPerAggregate = samplesPerAggregate;
+    this.headerSize = FIXED_HEADER_SIZE + CHANNEL_HEADER_SIZE * scalings.length;
+
+    // The duration is measured in stream time, so the limit is a number of samples. The 
+    // interval of the timebase is in nanoseconds like in the poller and the monitor.
+    long intervalNs = (long) timebase.getTimeInterval() * samplesPerAggregate;
+    if (settings.getSegmentDuration() > 0 && intervalNs > 0) {
+      samplesPerSegment = Math.max(1, settings.getSegmentDuration() * 1000000L / intervalNs);
+    }
+  }
+
+  @Override
+  public synchronized void onOverviewBuffers(ShortBuffer[] maxima, ShortBuffer[] minima, 
+          int values, short overflow, int triggerIndex, boolean autoStop) {
+    if (closed || null == scalings) {
+      return;
+    }
+
+    int mask = 0;
+    int columns = 0;
+    for (int i = 0; i < maxima.length && i < scalings.length; i++) {
+      if (null != maxima[i] && null != scalings[i] 
+              && (null == minima || null != minima[i])) {
+        mask |= 1 << i;
+        columns += null == minima ? 1 : 2;
+      }
+    }
+    long chunkSize = CHUNK_HEADER_SIZE + (long) columns * values * Short.BYTES;
+
+    try {
+      if (null == segment || segment.remaining() < chunkSize 
+              || segmentSamples >= samplesPerSegment) {
+        roll(chunkSize);
+      }
+    } catch (IOException ex) {
+      Logger.getLogger(StreamRecorder.class.getName()).log(Level.SEVERE, null, ex);
+      error = ex;
+      closed = true;
+      return;
+    }
+
+    segment.putInt(values);
+    segment.putInt(triggerIndex);
+    segment.putShort(overflow);
+    segment.putShort((short) (autoStop ? mask | AUTO_STOP_FLAG : mask));
+    for (int i = 0; i < scalings.length; i++) {
+      if ((mask & (1 << i)) != 0) {
+        put(maxima[i], values);
+        if (null != minima) {
+          put(minima[i], values);
+        }
+      }
+    }
+
+    segmentSamples += values;
+    recordedSamples += values;
+    segment.putLong(OFFSET_SAMPLES, segmentSamples);
+    segment.putLong(OFFSET_DATA_END, segment.position());
+  }
+
+  private void put(ShortBuffer view, int values) {
+    // Bulk copy from the driver buffer straight into the mapped file
+    int position = view.position();
+    ShortBuffer source = view;
+    if (view.remaining() > values) {
+      source = view.duplicate();
+      source.limit(position + values);
+    }
+    segmentShorts.position(segment.position() / Short.BYTES);
+    segmentShorts.put(source);
+    view.position(position);
+    segment.position(segmentShorts.position() * Short.BYTES);
+  }
+
+  private void roll(long chunkSize) throws IOException {
+    finish();
+
+    long size = Math.max(settings.getSegmentSize(), headerSize + chunkSize);
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Chunk does not fit into a segment: " + chunkSize + " bytes");
+    }
+    File file = new File(settings.getDirectory(), String.format("%s-%06d%s", 
+            settings.getPrefix(), segments.size(), EXTENSION));
+    // The mapping stays valid after the file is closed
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(size);
+      segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    segment.order(ORDER);
+    segmentShorts = segment.duplicate().order(ORDER).asShortBuffer();
+    segmentStart = recordedSamples;
+    segmentSamples = 0;
+    writeHeader();
+    segments.add(file);
+  }
+
+  private void writeHeader() {
+    segment.putInt(MAGIC);
+    segment.putShort(VERSION);
+    segment.putShort((short) scalings.length);
+    segment.putLong(segmentStart);
+    segment.putLong(0);
+    segment.putLong(headerSize);
+    CollectionTime collectionTime = timebase.getCollectionTime();
+    segment.putLong(null == collectionTime ? 0 : collectionTime.getDivisionTime());
+    segment.putInt(timebase.getDivisions());
+    segment.putInt(timebase.getTimeInterval());
+    segment.putShort((short) TimeUnit.NANOSECOND.getId());
+    segment.putShort((short) (samplesPerAggregate > 1 ? 2 : 1));
+    segment.putInt(samplesPerAggregate);
+    segment.position(FIXED_HEADER_SIZE);
+    for (SampleScaling scaling : scalings) {
+      segment.putInt(null == scaling ? 0 : scaling.getRange().getValue());
+      segment.putInt(null == scaling ? 0 : scaling.getMaxValue());
+      segment.putInt(null == scaling ? 0 : scaling.getLostValue());
+    }
+  }
+
+  private void finish() {
+    if (null != segment) {
+      segment.force();
+      segment = null;
+      segmentShorts = null;
+    }
+  }
+
+  @Override
+  public synchronized void onStreamingComplete() {
+    finish();
+  }
+
+  /**
+   * Stops recording and writes the current segment to disk. Chunks arriving afterwards are 
+   * ignored.
+   * 
+   * @throws IOException if writing a segment failed while recording.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    finish();
+    if (null != error) {
+      throw error;
+    }
+  }
+}
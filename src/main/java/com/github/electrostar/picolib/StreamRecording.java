@@ -0,0 +1,259 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Stream Recording.
+ * Reads the segment files of a {@link StreamRecorder} back as {@link ResultSet}s, one per 
+ * recorded chunk, in {@link SampleFormat#ADC_COUNTS}.
+ * <p>
+ * The segments are mapped lazily while iterating, so a recording of any length is read with 
+ * the memory of one chunk. Each chunk is an {@link OffHeapResultSet} over the mapped segment, 
+ * its columns are only copied onto the heap by the getters of {@link ResultSet}. The times of 
+ * the samples are derived from the {@link StreamingInfo} of each {@link ResultSet}.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamRecording implements Iterable<ResultSet> {
+
+  private final List<File> segments;
+
+  /**
+   * Constructs a {@code StreamRecording} of segment files.
+   * 
+   * @param segments the segment files in the order of the stream.
+   * @throws IllegalArgumentException if no segments are given.
+   */
+  public StreamRecording(List<File> segments) {
+    if (null == segments || segments.contains(null)) {
+      throw new IllegalArgumentException("Segments must be set.");
+    }
+    this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+  }
+
+  /**
+   * Opens the recording of a {@link StreamRecorder} with the given settings.
+   * 
+   * @param settings the {@link RecorderSettings} the recording was written with.
+   * @return the {@code StreamRecording}.
+   * @throws IllegalArgumentException if the directory or the prefix is not set.
+   */
+  public static StreamRecording open(RecorderSettings settings) {
+    if (null == settings || null == settings.getDirectory() || null == settings.getPrefix()) {
+      throw new IllegalArgumentException("Directory and prefix must be set.");
+    }
+    String pattern = "\\Q" + settings.getPrefix() + "\\E-\\d{6}\\" + StreamRecorder.EXTENSION;
+    File[] files = settings.getDirectory().listFiles((dir, name) -> name.matches(pattern));
+    if (null == files) {
+      files = new File[0];
+    }
+    // The numbers have a fixed width, so the names sort in the order of the stream
+    Arrays.sort(files);
+    return new StreamRecording(Arrays.asList(files));
+  }
+
+  /**
+   * Gets the segment files.
+   * 
+   * @return the segment files in the order of the stream.
+   */
+  public List<File> getSegments() {
+    return segments;
+  }
+
+  /**
+   * Reads the number of samples per channel of all segments. Only the headers are read.
+   * 
+   * @return the number of samples.
+   * @throws IOException if a segment could not be read.
+   */
+  public long getSamples() throws IOException {
+    long samples = 0;
+    for (File file : segments) {
+      samples += map(file).getLong(StreamRecorder.OFFSET_SAMPLES);
+    }
+    return samples;
+  }
+
+  /**
+   * Returns an iterator over the recorded chunks. Errors while reading a segment are thrown as 
+   * {@link UncheckedIOException}.
+   * 
+   * @return the iterator.
+   */
+  @Override
+  public Iterator<ResultSet> iterator() {
+    return new ChunkIterator();
+  }
+
+  private static MappedByteBuffer map(File file) throws IOException {
+    MappedByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    }
+    buffer.order(StreamRecorder.ORDER);
+    if (buffer.limit() < StreamRecorder.FIXED_HEADER_SIZE 
+            || buffer.getInt(0) != StreamRecorder.MAGIC 
+            || buffer.getShort(4) != StreamRecorder.VERSION) {
+      throw new IOException("Not a stream recording segment: " + file);
+    }
+    return buffer;
+  }
+
+  /**
+   * Header of one segment.
+   */
+  private static final class Segment {
+
+    private final ByteBuffer buffer;
+    private final SampleScaling[] scalings;
+    private final long startIndex;
+    private final long dataEnd;
+    private final CollectionTime collectionTime;
+    private final int divisions;
+    private final long sampleInterval;
+    private final TimeUnit timeUnit;
+    private final int samplesPerAggregate;
+
+    private Segment(File file) throws IOException {
+      buffer = map(file);
+      startIndex = buffer.getLong(StreamRecorder.OFFSET_START_INDEX);
+      dataEnd = buffer.getLong(StreamRecorder.OFFSET_DATA_END);
+      collectionTime = CollectionTime.findByTime(
+              buffer.getLong(StreamRecorder.OFFSET_DIVISION_TIME));
+      divisions = buffer.getInt(StreamRecorder.OFFSET_DIVISIONS);
+      timeUnit = TimeUnit.findById(buffer.getShort(StreamRecorder.OFFSET_TIME_UNIT));
+      samplesPerAggregate = buffer.getInt(StreamRecorder.OFFSET_SAMPLES_PER_AGGREGATE);
+      sampleInterval = (long) buffer.getInt(StreamRecorder.OFFSET_TIME_INTERVAL) 
+              * samplesPerAggregate;
+
+      int channels = buffer.getShort(6);
+      scalings = new SampleScaling[channels];
+      int offset = StreamRecorder.FIXED_HEADER_SIZE;
+      for (int i = 0; i < channels; i++, offset += StreamRecorder.CHANNEL_HEADER_SIZE) {
+        Range range = Range.findByVoltage(buffer.getInt(offset));
+        if (null != range) {
+          scalings[i] = new SampleScaling(range, buffer.getInt(offset + 4), 
+                  buffer.getInt(offset + 8));
+        }
+      }
+      if (dataEnd < offset || dataEnd > buffer.limit()) {
+        throw new IOException("Corrupt stream recording segment: " + file);
+      }
+      buffer.position(offset);
+    }
+
+    private boolean hasNext() {
+      return buffer.position() < dataEnd;
+    }
+
+    private ResultSet next(long index) {
+      int values = buffer.getInt();
+      ResultSet header = new ResultSet(timeUnit, divisions, collectionTime);
+      header.setNumberOfSamples(values);
+      if (samplesPerAggregate > 1) {
+        header.setAggregation(new Aggregation(samplesPerAggregate));
+      }
+      int triggerIndex = buffer.getInt();
+      short overflow = buffer.getShort();
+      int mask = buffer.getShort() & 0xFFFF;
+
+      ShortBuffer[] maxima = new ShortBuffer[scalings.length];
+      ShortBuffer[] minima = new ShortBuffer[scalings.length];
+      ShortBuffer data = buffer.asShortBuffer();
+      for (int i = 0; i < scalings.length; i++) {
+        if ((mask & (1 << i)) == 0) {
+          continue;
+        }
+        header.setScaling(Channel.findById(i), scalings[i]);
+        maxima[i] = slice(data, values);
+        if (samplesPerAggregate > 1) {
+          minima[i] = slice(data, values);
+        }
+      }
+      buffer.position(buffer.position() + data.position() * Short.BYTES);
+      header.setStreamingInfo(new StreamingInfo(index, sampleInterval, triggerIndex, overflow, 
+              (mask & StreamRecorder.AUTO_STOP_FLAG) != 0));
+      return new OffHeapResultSet(header, maxima, minima, null);
+    }
+
+    private static ShortBuffer slice(ShortBuffer data, int values) {
+      ShortBuffer column = data.slice();
+      column.limit(values);
+      data.position(data.position() + values);
+      return column;
+    }
+  }
+
+  /**
+   * Iterates the chunks of all segments and maps the next segment once the current one is done.
+   */
+  private final class ChunkIterator implements Iterator<ResultSet> {
+
+    private int nextSegment;
+    private Segment current;
+    private long index;
+
+    @Override
+    public boolean hasNext() {
+      while (null == current || !current.hasNext()) {
+        if (nextSegment >= segments.size()) {
+          return false;
+        }
+        File file = segments.get(nextSegment++);
+        try {
+          current = new Segment(file);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+        index = current.startIndex;
+      }
+      return true;
+    }
+
+    @Override
+    public ResultSet next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ResultSet rs = current.next(index);
+      index += rs.getNumberOfSamples();
+      return rs;
+    }
+  }
+}
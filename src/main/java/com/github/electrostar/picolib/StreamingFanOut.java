@@ -0,0 +1,261 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streaming Fan-Out.
+ * Hands streamed sample data to several consumers. Register it as streaming callback, see 
+ * {@link PicoScope#registerStreamingFanOut(int)}, and add the consumers with 
+ * {@link #addConsumer(OnDataCallback, Executor)}.
+ * <p>
+ * Each {@link ResultSet} is converted once and shared by all consumers as a read-only view, its 
+ * setters throw an {@link UnsupportedOperationException} and its arrays must not be modified. 
+ * Every consumer has its own queue and is called on its own {@link Executor}, one call at a 
+ * time. A full queue drops the {@link ResultSet} for that consumer only, so a slow consumer 
+ * never holds up the others or the driver. {@link DataLostEvent}s are always queued and do not 
+ * count against the capacity.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingFanOut implements OnDataCallback {
+
+  /**
+   * Default number of queued {@link ResultSet}s per consumer.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+  private final int queueCapacity;
+  private final Map<OnDataCallback, Consumer> consumers = new ConcurrentHashMap<>();
+  private volatile boolean completed;
+
+  /**
+   * Constructs a {@code StreamingFanOut} with the default queue capacity.
+   */
+  public StreamingFanOut() {
+    this(DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Constructs a {@code StreamingFanOut}.
+   * 
+   * @param queueCapacity the number of queued {@link ResultSet}s per consumer.
+   * @throws IllegalArgumentException if the capacity is less than one.
+   */
+  public StreamingFanOut(int queueCapacity) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be at least one.");
+    }
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Adds a consumer. It receives the {@link ResultSet}s delivered from now on.
+   * 
+   * @param consumer the consumer.
+   * @param executor the {@link Executor} on which the consumer is called.
+   * @throws IllegalArgumentException if a parameter is {@code null} or the consumer was already 
+   *                                  added.
+   */
+  public void addConsumer(OnDataCallback consumer, Executor executor) {
+    if (null == consumer || null == executor) {
+      throw new IllegalArgumentException("Consumer and executor must be set.");
+    }
+    Consumer added = new Consumer(consumer, executor);
+    if (null != consumers.putIfAbsent(consumer, added)) {
+      throw new IllegalArgumentException("Consumer was already added.");
+    }
+    // Consumers added after the stop complete right away
+    if (completed) {
+      added.complete();
+    }
+  }
+
+  /**
+   * Removes a consumer. {@link ResultSet}s still queued for it are discarded.
+   * 
+   * @param consumer the consumer.
+   * @return {@code true} if the consumer was removed, {@code false} if it was not added.
+   */
+  public boolean removeConsumer(OnDataCallback consumer) {
+    Consumer removed = null == consumer ? null : consumers.remove(consumer);
+    if (null == removed) {
+      return false;
+    }
+    removed.clear();
+    return true;
+  }
+
+  /**
+   * Gets the {@link ConsumerStatistics} of a consumer.
+   * 
+   * @param consumer the consumer.
+   * @return the statistics or {@code null} if the consumer was not added.
+   */
+  public ConsumerStatistics getConsumerStatistics(OnDataCallback consumer) {
+    Consumer c = null == consumer ? null : consumers.get(consumer);
+    if (null == c) {
+      return null;
+    }
+    return new ConsumerStatistics(c.delivered, c.dropped, c.resultSets.get());
+  }
+
+  @Override
+  public void onDataEvent(ResultSet rs) {
+    // Converted once and shared by all consumers
+    ResultSet view = new ReadOnlyResultSet(rs);
+    for (Consumer consumer : consumers.values()) {
+      consumer.offer(view);
+    }
+  }
+
+  @Override
+  public void onDataLost(DataLostEvent event) {
+    for (Consumer consumer : consumers.values()) {
+      consumer.offer(new DataLostEvent(event));
+    }
+  }
+
+  @Override
+  public void onStreamingStopping() {
+    // Consumers are released right away, they may hold up the executor and not the delivery
+    for (Consumer consumer : consumers.values()) {
+      try {
+        consumer.callback.onStreamingStopping();
+      } catch (RuntimeException ex) {
+        Logger.getLogger(StreamingFanOut.class.getName()).log(Level.SEVERE, null, ex);
+      }
+    }
+  }
+
+  @Override
+  public void onStreamingComplete() {
+    completed = true;
+    for (Consumer consumer : consumers.values()) {
+      consumer.complete();
+    }
+  }
+
+  /**
+   * Queue and counters of one consumer. The queue is drained by one task on the executor at a 
+   * time, which is only scheduled if none is pending.
+   */
+  private final class Consumer {
+
+    private final OnDataCallback callback;
+    private final Executor executor;
+    // Holds ResultSets and DataLostEvents in delivery order
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    // Number of queued ResultSets, only they are limited by the capacity
+    private final AtomicInteger resultSets = new AtomicInteger();
+    // Number of pending drain requests, only the one raising it from zero schedules a task
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean done;
+    private boolean completeDelivered;
+    private volatile long delivered;
+    private volatile long dropped;
+
+    private Consumer(OnDataCallback callback, Executor executor) {
+      this.callback = callback;
+      this.executor = executor;
+    }
+
+    private void offer(ResultSet rs) {
+      if (resultSets.incrementAndGet() > queueCapacity) {
+        resultSets.decrementAndGet();
+        dropped++;
+      } else {
+        queue.add(rs);
+      }
+      schedule();
+    }
+
+    private void offer(DataLostEvent event) {
+      // Losses are rare and must reach the consumer, so they never take a ResultSet's slot
+      queue.add(event);
+      schedule();
+    }
+
+    private void clear() {
+      queue.clear();
+      resultSets.set(0);
+    }
+
+    private void complete() {
+      done = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+          Logger.getLogger(StreamingFanOut.class.getName()).log(Level.SEVERE, null, ex);
+          wip.set(0);
+        }
+      }
+    }
+
+    private void drain() {
+      int missed = 1;
+      do {
+        Object item;
+        while (null != (item = queue.poll())) {
+          dispatch(item);
+        }
+        if (done && !completeDelivered) {
+          completeDelivered = true;
+          try {
+            callback.onStreamingComplete();
+          } catch (RuntimeException ex) {
+            Logger.getLogger(StreamingFanOut.class.getName()).log(Level.SEVERE, null, ex);
+          }
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void dispatch(Object item) {
+      try {
+        if (item instanceof DataLostEvent) {
+          callback.onDataLost((DataLostEvent) item);
+        } else {
+          resultSets.decrementAndGet();
+          callback.onDataEvent((ResultSet) item);
+          delivered++;
+        }
+      } catch (RuntimeException ex) {
+        Logger.getLogger(StreamingFanOut.class.getName()).log(Level.SEVERE, null, ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+/**
+ * Streaming Info.
+ * Places a streamed {@link ResultSet} on the timeline since streaming started and carries the 
+ * status the driver reported with it. The times of the samples are derived on demand, so no 
+ * time array is held.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingInfo {
+
+  private long startIndex;
+  private long sampleInterval;
+  private int triggerIndex = -1;
+  private short overflow;
+  private boolean autoStop;
+
+  /**
+   * Constructs an empty Streaming Info.
+   */
+  public StreamingInfo() {
+  }
+
+  /**
+   * Constructs a Streaming Info.
+   * 
+   * @param startIndex the index of the first sample since streaming started.
+   * @param sampleInterval the time between two samples in the {@link TimeUnit} of the 
+   *                       {@link ResultSet}.
+   * @param triggerIndex the index of the trigger event within the samples, {@code -1} if the 
+   *                     trigger did not fire within them.
+   * @param overflow the bit field of channels whose range was exceeded.
+   * @param autoStop {@code true} if the driver stopped streaming automatically.
+   */
+  public StreamingInfo(long startIndex, long sampleInterval, int triggerIndex, short overflow, 
+          boolean autoStop) {
+    this.startIndex = startIndex;
+    this.sampleInterval = sampleInterval;
+    this.triggerIndex = triggerIndex;
+    this.overflow = overflow;
+    this.autoStop = autoStop;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param i the info to copy.
+   */
+  public StreamingInfo(StreamingInfo i) {
+    this(i.startIndex, i.sampleInterval, i.triggerIndex, i.overflow, i.autoStop);
+  }
+
+  /**
+   * Gets the index of the first sample since streaming started. It increases monotonically 
+   * from one {@link ResultSet} to the next, gaps mean that samples were dropped.
+   * 
+   * @return the start index.
+   */
+  public long getStartIndex() {
+    return startIndex;
+  }
+
+  /**
+   * Sets the index of the first sample since streaming started.
+   * 
+   * @param startIndex the new start index.
+   */
+  public void setStartIndex(long startIndex) {
+    this.startIndex = startIndex;
+  }
+
+  /**
+   * Gets the time between two samples in the {@link TimeUnit} of the {@link ResultSet}.
+   * 
+   * @return the sample interval.
+   */
+  public long getSampleInterval() {
+    return sampleInterval;
+  }
+
+  /**
+   * Sets the time between two samples.
+   * 
+   * @param sampleInterval the new sample interval.
+   */
+  public void setSampleInterval(long sampleInterval) {
+    this.sampleInterval = sampleInterval;
+  }
+
+  /**
+   * Gets the index of the trigger event within the samples.
+   * 
+   * @return the trigger index or {@code -1} if the trigger did not fire within the samples.
+   */
+  public int getTriggerIndex() {
+    return triggerIndex;
+  }
+
+  /**
+   * Sets the index of the trigger event within the samples.
+   * 
+   * @param triggerIndex the new trigger index.
+   */
+  public void setTriggerIndex(int triggerIndex) {
+    this.triggerIndex = triggerIndex;
+  }
+
+  /**
+   * Gets the bit field of channels whose range was exceeded. Bit 0 stands for 
+   * {@link Channel#CHANNEL_A}, bit 1 for {@link Channel#CHANNEL_B} and so on.
+   * 
+   * @return the overflow bits.
+   */
+  public short getOverflow() {
+    return overflow;
+  }
+
+  /**
+   * Sets the bit field of channels whose range was exceeded.
+   * 
+   * @param overflow the new overflow bits.
+   */
+  public void setOverflow(short overflow) {
+    this.overflow = overflow;
+  }
+
+  /**
+   * Gets if the driver stopped streaming automatically.
+   * 
+   * @return {@code true} if streaming stopped.
+   */
+  public boolean isAutoStop() {
+    return autoStop;
+  }
+
+  /**
+   * Sets if the driver stopped streaming automatically.
+   * 
+   * @param autoStop {@code true} if streaming stopped.
+   */
+  public void setAutoStop(boolean autoStop) {
+    this.autoStop = autoStop;
+  }
+
+  /**
+   * Checks if the trigger fired within the samples.
+   * 
+   * @return {@code true} if triggered, otherwise {@code false}.
+   */
+  public boolean isTriggered() {
+    return triggerIndex >= 0;
+  }
+
+  /**
+   * Checks if the range of a channel was exceeded.
+   * 
+   * @param channel the {@link Channel}.
+   * @return {@code true} if the channel overflowed, otherwise {@code false}.
+   */
+  public boolean isOverflow(Channel channel) {
+    return (overflow & (1 << channel.getId())) != 0;
+  }
+
+  /**
+   * Gets the time of a sample since streaming started.
+   * 
+   * @param index the index of the sample within the {@link ResultSet}.
+   * @return the time in the {@link TimeUnit} of the {@link ResultSet}.
+   */
+  public long getTime(int index) {
+    return (startIndex + index) * sampleInterval;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final StreamingInfo other = (StreamingInfo) obj;
+    if (this.startIndex != other.startIndex) {
+      return false;
+    }
+    if (this.sampleInterval != other.sampleInterval) {
+      return false;
+    }
+    if (this.triggerIndex != other.triggerIndex) {
+      return false;
+    }
+    if (this.overflow != other.overflow) {
+      return false;
+    }
+    return this.autoStop == other.autoStop;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 7;
+    hash = 53 * hash + (int) (this.startIndex ^ (this.startIndex >>> 32));
+    hash = 53 * hash + (int) (this.sampleInterval ^ (this.sampleInterval >>> 32));
+    hash = 53 * hash + this.triggerIndex;
+    hash = 53 * hash + this.overflow;
+    hash = 53 * hash + (this.autoStop ? 1 : 0);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamingInfo(startIndex=" + this.getStartIndex() + ", sampleInterval=" 
+            + this.getSampleInterval() + ", triggerIndex=" + this.getTriggerIndex() 
+            + ", overflow=" + this.getOverflow() + ", autoStop=" + this.isAutoStop() + ")";
+  }
+}
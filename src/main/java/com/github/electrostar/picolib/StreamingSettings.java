@@ -0,0 +1,278 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Streaming Settings.
+ * Contains all parameters for the buffering between the streaming driver and the callback.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingSettings {
+
+  /**
+   * Default number of buffered chunks.
+   */
+  public static final int DEFAULT_CAPACITY = 32;
+
+  /**
+   * Default poll period for {@link PollStrategy#FIXED} in nanoseconds.
+   */
+  public static final long DEFAULT_POLL_PERIOD = 5_000_000;
+
+  /**
+   * Default size of the overview buffers of the driver in samples.
+   */
+  public static final int DEFAULT_OVERVIEW_BUFFER_SIZE = 30000;
+
+  /**
+   * Maximum size of the overview buffers of the driver in samples.
+   */
+  public static final int MAX_OVERVIEW_BUFFER_SIZE = 1_000_000;
+
+  private int capacity;
+  private OverflowPolicy overflowPolicy;
+  private PollStrategy pollStrategy;
+  private long pollPeriod;
+  private int overviewBufferSize;
+  private boolean autoResize;
+
+  /**
+   * Constructs Streaming Settings with default values.
+   * <p>
+   * This means {@value #DEFAULT_CAPACITY} buffered chunks with {@link OverflowPolicy#DROP} and 
+   * {@link PollStrategy#ADAPTIVE} polling. The overview buffers have 
+   * {@value #DEFAULT_OVERVIEW_BUFFER_SIZE} samples and are not resized automatically.
+   * </p>
+   */
+  public StreamingSettings() {
+    this(DEFAULT_CAPACITY, OverflowPolicy.DROP);
+  }
+
+  /**
+   * Constructs Streaming Settings.
+   * 
+   * @param capacity the number of buffered chunks, at least one.
+   * @param overflowPolicy the {@link OverflowPolicy} if the buffer is full.
+   */
+  public StreamingSettings(int capacity, OverflowPolicy overflowPolicy) {
+    this(capacity, overflowPolicy, PollStrategy.ADAPTIVE, DEFAULT_POLL_PERIOD, 
+            DEFAULT_OVERVIEW_BUFFER_SIZE, false);
+  }
+
+  /**
+   * Constructs Streaming Settings.
+   * 
+   * @param capacity the number of buffered chunks, at least one.
+   * @param overflowPolicy the {@link OverflowPolicy} if the buffer is full.
+   * @param pollStrategy the {@link PollStrategy} of the streaming thread.
+   * @param pollPeriod the poll period for {@link PollStrategy#FIXED} in nanoseconds.
+   * @param overviewBufferSize the size of the overview buffers of the driver in samples.
+   * @param autoResize {@code true} to restart streaming with larger overview buffers on an 
+   *                   overrun.
+   */
+  public StreamingSettings(int capacity, OverflowPolicy overflowPolicy, 
+          PollStrategy pollStrategy, long pollPeriod, int overviewBufferSize, boolean autoResize) {
+    this.capacity = capacity;
+    this.overflowPolicy = overflowPolicy;
+    this.pollStrategy = pollStrategy;
+    this.pollPeriod = pollPeriod;
+    this.overviewBufferSize = overviewBufferSize;
+    this.autoResize = autoResize;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the settings to copy.
+   */
+  public StreamingSettings(StreamingSettings s) {
+    this(s.capacity, s.overflowPolicy, s.pollStrategy, s.pollPeriod, s.overviewBufferSize, 
+            s.autoResize);
+  }
+
+  /**
+   * Gets the number of buffered chunks.
+   * 
+   * @return the capacity.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the number of buffered chunks. Each call of the driver delivers one chunk, which is 
+   * buffered until the callback is done with the previous ones.
+   * 
+   * @param capacity the new capacity.
+   */
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Gets the {@link OverflowPolicy} if the buffer is full.
+   * 
+   * @return the {@link OverflowPolicy}.
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Sets the {@link OverflowPolicy} if the buffer is full.
+   * 
+   * @param overflowPolicy the new {@link OverflowPolicy}.
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Gets the {@link PollStrategy} of the streaming thread.
+   * 
+   * @return the {@link PollStrategy}.
+   */
+  public PollStrategy getPollStrategy() {
+    return pollStrategy;
+  }
+
+  /**
+   * Sets the {@link PollStrategy} of the streaming thread.
+   * 
+   * @param pollStrategy the new {@link PollStrategy}.
+   */
+  public void setPollStrategy(PollStrategy pollStrategy) {
+    this.pollStrategy = pollStrategy;
+  }
+
+  /**
+   * Gets the poll period for {@link PollStrategy#FIXED}.
+   * 
+   * @return the poll period in nanoseconds.
+   */
+  public long getPollPeriod() {
+    return pollPeriod;
+  }
+
+  /**
+   * Sets the poll period for {@link PollStrategy#FIXED}.
+   * 
+   * @param pollPeriod the new poll period in nanoseconds.
+   */
+  public void setPollPeriod(long pollPeriod) {
+    this.pollPeriod = pollPeriod;
+    this.overviewBufferSize = overviewBufferSize;
+    this.autoResize = autoResize;
+  }
+
+  /**
+   * Gets the size of the overview buffers of the driver.
+   * 
+   * @return the size in samples.
+   */
+  public int getOverviewBufferSize() {
+    return overviewBufferSize;
+  }
+
+  /**
+   * Sets the size of the overview buffers of the driver. They hold the sample data until they 
+   * are polled, at most {@value #MAX_OVERVIEW_BUFFER_SIZE} samples. Applied when streaming is 
+   * started.
+   * 
+   * @param overviewBufferSize the new size in samples.
+   */
+  public void setOverviewBufferSize(int overviewBufferSize) {
+    this.overviewBufferSize = overviewBufferSize;
+  }
+
+  /**
+   * Gets if streaming is restarted with larger overview buffers on an overrun.
+   * 
+   * @return {@code true} if the overview buffers are resized automatically.
+   */
+  public boolean isAutoResize() {
+    return autoResize;
+  }
+
+  /**
+   * Sets if streaming is restarted with larger overview buffers on an overrun. The new size is 
+   * calculated from the observed time between two polls with data.
+   * 
+   * @param autoResize {@code true} to resize the overview buffers automatically.
+   */
+  public void setAutoResize(boolean autoResize) {
+    this.autoResize = autoResize;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final StreamingSettings other = (StreamingSettings) obj;
+    if (this.capacity != other.capacity) {
+      return false;
+    }
+    if (this.overflowPolicy != other.overflowPolicy) {
+      return false;
+    }
+    if (this.pollPeriod != other.pollPeriod) {
+      return false;
+    }
+    if (this.overviewBufferSize != other.overviewBufferSize) {
+      return false;
+    }
+    if (this.autoResize != other.autoResize) {
+      return false;
+    }
+    return this.pollStrategy == other.pollStrategy;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 3;
+    hash = 67 * hash + this.capacity;
+    hash = 67 * hash + Objects.hashCode(this.overflowPolicy);
+    hash = 67 * hash + Objects.hashCode(this.pollStrategy);
+    hash = 67 * hash + (int) (this.pollPeriod ^ (this.pollPeriod >>> 32));
+    hash = 67 * hash + this.overviewBufferSize;
+    hash = 67 * hash + (this.autoResize ? 1 : 0);
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamingSettings(capacity=" + this.getCapacity() + ", overflowPolicy=" 
+            + this.getOverflowPolicy() + ", pollStrategy=" + this.getPollStrategy() 
+            + ", pollPeriod=" + this.getPollPeriod() + ", overviewBufferSize=" 
+            + this.getOverviewBufferSize() + ", autoResize=" + this.isAutoResize() + ")";
+  }
+}
@@ -0,0 +1,382 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.util.Objects;
+
+/**
+ * Streaming Statistics.
+ * Contains the counters of the buffer between the streaming driver and the callback. A chunk is 
+ * the data of one call of the driver.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingStatistics {
+
+  private long deliveredChunks;
+  private long deliveredSamples;
+  private long droppedChunks;
+  private long droppedSamples;
+  private long blockedChunks;
+  private long polls;
+  private long dataPolls;
+  private PollStrategy pollStrategy;
+  private long overruns;
+  private long restarts;
+  private int overviewBufferSize;
+
+  /**
+   * Constructs empty Streaming Statistics.
+   */
+  public StreamingStatistics() {
+  }
+
+  /**
+   * Constructs Streaming Statistics.
+   * 
+   * @param deliveredChunks the number of chunks delivered to the callback.
+   * @param deliveredSamples the number of samples delivered to the callback.
+   * @param droppedChunks the number of chunks dropped because the buffer was full.
+   * @param droppedSamples the number of samples dropped because the buffer was full.
+   * @param blockedChunks the number of chunks for which the driver had to wait for free space.
+   * @param polls the number of polls of the driver.
+   * @param dataPolls the number of polls which returned data.
+   * @param pollStrategy the active {@link PollStrategy}.
+   * @param overruns the number of overruns of the overview buffers.
+   * @param restarts the number of restarts with larger overview buffers.
+   * @param overviewBufferSize the current size of the overview buffers in samples.
+   */
+  public StreamingStatistics(long deliveredChunks, long deliveredSamples, long droppedChunks, 
+          long droppedSamples, long blockedChunks, long polls, long dataPolls, 
+          PollStrategy pollStrategy, long overruns, long restarts, int overviewBufferSize) {
+    this.deliveredChunks = deliveredChunks;
+    this.deliveredSamples = deliveredSamples;
+    this.droppedChunks = droppedChunks;
+    this.droppedSamples = droppedSamples;
+    this.blockedChunks = blockedChunks;
+    this.polls = polls;
+    this.dataPolls = dataPolls;
+    this.pollStrategy = pollStrategy;
+    this.overruns = overruns;
+    this.restarts = restarts;
+    this.overviewBufferSize = overviewBufferSize;
+  }
+
+  /**
+   * Copy Constructor.
+   * 
+   * @param s the statistics to copy.
+   */
+  public StreamingStatistics(StreamingStatistics s) {
+    this(s.deliveredChunks, s.deliveredSamples, s.droppedChunks, s.droppedSamples, s.blockedChunks, 
+            s.polls, s.dataPolls, s.pollStrategy, s.overruns, s.restarts, s.overviewBufferSize);
+  }
+
+  /**
+   * Gets the number of delivered chunks.
+   * 
+   * @return the number of delivered chunks.
+   */
+  public long getDeliveredChunks() {
+    return deliveredChunks;
+  }
+
+  /**
+   * Sets the number of delivered chunks.
+   * 
+   * @param deliveredChunks the new number of delivered chunks.
+   */
+  public void setDeliveredChunks(long deliveredChunks) {
+    this.deliveredChunks = deliveredChunks;
+  }
+
+  /**
+   * Gets the number of delivered samples.
+   * 
+   * @return the number of delivered samples.
+   */
+  public long getDeliveredSamples() {
+    return deliveredSamples;
+  }
+
+  /**
+   * Sets the number of delivered samples.
+   * 
+   * @param deliveredSamples the new number of delivered samples.
+   */
+  public void setDeliveredSamples(long deliveredSamples) {
+    this.deliveredSamples = deliveredSamples;
+  }
+
+  /**
+   * Gets the number of dropped chunks.
+   * 
+   * @return the number of dropped chunks.
+   */
+  public long getDroppedChunks() {
+    return droppedChunks;
+  }
+
+  /**
+   * Sets the number of dropped chunks.
+   * 
+   * @param droppedChunks the new number of dropped chunks.
+   */
+  public void setDroppedChunks(long droppedChunks) {
+    this.droppedChunks = droppedChunks;
+  }
+
+  /**
+   * Gets the number of dropped samples.
+   * 
+   * @return the number of dropped samples.
+   */
+  public long getDroppedSamples() {
+    return droppedSamples;
+  }
+
+  /**
+   * Sets the number of dropped samples.
+   * 
+   * @param droppedSamples the new number of dropped samples.
+   */
+  public void setDroppedSamples(long droppedSamples) {
+    this.droppedSamples = droppedSamples;
+  }
+
+  /**
+   * Gets the number of blocked chunks.
+   * 
+   * @return the number of blocked chunks.
+   */
+  public long getBlockedChunks() {
+    return blockedChunks;
+  }
+
+  /**
+   * Sets the number of blocked chunks.
+   * 
+   * @param blockedChunks the new number of blocked chunks.
+   */
+  public void setBlockedChunks(long blockedChunks) {
+    this.blockedChunks = blockedChunks;
+    this.polls = polls;
+    this.dataPolls = dataPolls;
+    this.pollStrategy = pollStrategy;
+  }
+
+  /**
+   * Gets the number of polls of the driver.
+   * 
+   * @return the number of polls.
+   */
+  public long getPolls() {
+    return polls;
+  }
+
+  /**
+   * Sets the number of polls of the driver.
+   * 
+   * @param polls the new number of polls.
+   */
+  public void setPolls(long polls) {
+    this.polls = polls;
+  }
+
+  /**
+   * Gets the number of polls which returned data.
+   * 
+   * @return the number of polls with data.
+   */
+  public long getDataPolls() {
+    return dataPolls;
+  }
+
+  /**
+   * Sets the number of polls which returned data.
+   * 
+   * @param dataPolls the new number of polls with data.
+   */
+  public void setDataPolls(long dataPolls) {
+    this.dataPolls = dataPolls;
+  }
+
+  /**
+   * Gets the active {@link PollStrategy}. With {@link PollStrategy#ADAPTIVE} settings this is 
+   * the strategy the streaming thread currently uses.
+   * 
+   * @return the {@link PollStrategy}.
+   */
+  public PollStrategy getPollStrategy() {
+    return pollStrategy;
+  }
+
+  /**
+   * Sets the active {@link PollStrategy}.
+   * 
+   * @param pollStrategy the new {@link PollStrategy}.
+   */
+  public void setPollStrategy(PollStrategy pollStrategy) {
+    this.pollStrategy = pollStrategy;
+  }
+
+  /**
+   * Gets the number of overruns of the overview buffers.
+   * 
+   * @return the number of overruns.
+   */
+  public long getOverruns() {
+    return overruns;
+  }
+
+  /**
+   * Sets the number of overruns of the overview buffers.
+   * 
+   * @param overruns the new number of overruns.
+   */
+  public void setOverruns(long overruns) {
+    this.overruns = overruns;
+  }
+
+  /**
+   * Gets the number of restarts with larger overview buffers.
+   * 
+   * @return the number of restarts.
+   */
+  public long getRestarts() {
+    return restarts;
+  }
+
+  /**
+   * Sets the number of restarts with larger overview buffers.
+   * 
+   * @param restarts the new number of restarts.
+   */
+  public void setRestarts(long restarts) {
+    this.restarts = restarts;
+  }
+
+  /**
+   * Gets the current size of the overview buffers.
+   * 
+   * @return the size in samples.
+   */
+  public int getOverviewBufferSize() {
+    return overviewBufferSize;
+  }
+
+  /**
+   * Sets the current size of the overview buffers.
+   * 
+   * @param overviewBufferSize the new size in samples.
+   */
+  public void setOverviewBufferSize(int overviewBufferSize) {
+    this.overviewBufferSize = overviewBufferSize;
+  }
+
+  /**
+   * Gets the ratio of polls to polls which returned data. A value of one means that every poll 
+   * returned data.
+   * 
+   * @return the poll to data ratio or {@code 0} if no poll returned data yet.
+   */
+  public double getPollToDataRatio() {
+    return dataPolls > 0 ? (double) polls / dataPolls : 0;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final StreamingStatistics other = (StreamingStatistics) obj;
+    if (this.deliveredChunks != other.deliveredChunks) {
+      return false;
+    }
+    if (this.deliveredSamples != other.deliveredSamples) {
+      return false;
+    }
+    if (this.droppedChunks != other.droppedChunks) {
+      return false;
+    }
+    if (this.droppedSamples != other.droppedSamples) {
+      return false;
+    }
+    if (this.blockedChunks != other.blockedChunks) {
+      return false;
+    }
+    if (this.polls != other.polls) {
+      return false;
+    }
+    if (this.dataPolls != other.dataPolls) {
+      return false;
+    }
+    if (this.overruns != other.overruns) {
+      return false;
+    }
+    if (this.restarts != other.restarts) {
+      return false;
+    }
+    if (this.overviewBufferSize != other.overviewBufferSize) {
+      return false;
+    }
+    return this.pollStrategy == other.pollStrategy;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 7;
+    hash = 41 * hash + (int) (this.deliveredChunks ^ (this.deliveredChunks >>> 32));
+    hash = 41 * hash + (int) (this.deliveredSamples ^ (this.deliveredSamples >>> 32));
+    hash = 41 * hash + (int) (this.droppedChunks ^ (this.droppedChunks >>> 32));
+    hash = 41 * hash + (int) (this.droppedSamples ^ (this.droppedSamples >>> 32));
+    hash = 41 * hash + (int) (this.blockedChunks ^ (this.blockedChunks >>> 32));
+    hash = 41 * hash + (int) (this.polls ^ (this.polls >>> 32));
+    hash = 41 * hash + (int) (this.dataPolls ^ (this.dataPolls >>> 32));
+    hash = 41 * hash + Objects.hashCode(this.pollStrategy);
+    hash = 41 * hash + (int) (this.overruns ^ (this.overruns >>> 32));
+    hash = 41 * hash + (int) (this.restarts ^ (this.restarts >>> 32));
+    hash = 41 * hash + this.overviewBufferSize;
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamingStatistics(deliveredChunks=" + this.getDeliveredChunks() 
+            + ", deliveredSamples=" + this.getDeliveredSamples() 
+            + ", droppedChunks=" + this.getDroppedChunks() 
+            + ", droppedSamples=" + this.getDroppedSamples() 
+            + ", blockedChunks=" + this.getBlockedChunks() 
+            + ", polls=" + this.getPolls() 
+            + ", dataPolls=" + this.getDataPolls() 
+            + ", pollStrategy=" + this.getPollStrategy() 
+            + ", overruns=" + this.getOverruns() 
+            + ", restarts=" + this.getRestarts() 
+            + ", overviewBufferSize=" + this.getOverviewBufferSize() + ")";
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.library;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lazy and thread-safe loader of a Pico Technology C-Library.
+ * The library is only loaded on the first call of {@link #get()} or {@link #isAvailable()}, not 
+ * when a class of picolib is initialized. The result of the first attempt is kept, so later 
+ * calls neither load again nor retry a failed load.
+ * <p>
+ * The name and the directory of the library are taken from {@link #configure(String, String)} 
+ * or from the system properties {@code <prefix>.name} and {@code <prefix>.path}, for the PS2000 
+ * library {@value #PS2000_PROPERTY}{@code .name} and {@value #PS2000_PROPERTY}{@code .path}.
+ * The name may also be an absolute path to the library file.
+ * </p>
+ * 
+ * @param <T> the type of the library interface.
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public final class LibraryLoader<T extends Library> {
+
+  /**
+   * Prefix of the system properties for the PS2000 library.
+   */
+  public static final String PS2000_PROPERTY = "picolib.ps2000.library";
+
+  /**
+   * Loader of the {@link PS2000CLibrary}.
+   */
+  public static final LibraryLoader<PS2000CLibrary> PS2000 = new LibraryLoader<>(
+          PS2000CLibrary.class, PS2000CLibrary.LIBRARY_NAME, PS2000_PROPERTY);
+
+  private final Class<T> type;
+  private final String defaultName;
+  private final String property;
+
+  private String name;
+  private String path;
+  private volatile T instance;
+  private volatile UnsatisfiedLinkError failure;
+
+  /**
+   * Constructs a {@code LibraryLoader}.
+   * 
+   * @param type the library interface.
+   * @param defaultName the name of the library if none is configured.
+   * @param property the prefix of the system properties.
+   */
+  LibraryLoader(Class<T> type, String defaultName, String property) {
+    this.type = type;
+    this.defaultName = defaultName;
+    this.property = property;
+  }
+
+  /**
+   * Configures the name and the directory of the library. Only allowed before the library is 
+   * loaded.
+   * 
+   * @param name the name of the library or the absolute path to the library file, {@code null} 
+   *             for the system property or the default name.
+   * @param path the directory to search the library in, {@code null} for the system property or 
+   *             the default search path of JNA.
+   * @throws IllegalArgumentException if the name is empty.
+   * @throws IllegalStateException if the library is already loaded or failed to load.
+   */
+  public synchronized void configure(String name, String path) {
+    if (null != name && name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Library name must not be empty.");
+    }
+    if (null != instance || null != failure) {
+      throw new IllegalStateException("Library " + getName() + " was already loaded.");
+    }
+    this.name = name;
+    this.path = path;
+  }
+
+  /**
+   * Gets the name of the library to load.
+   * 
+   * @return the configured name, the one of the system property or the default name.
+   */
+  public synchronized String getName() {
+    if (null != name) {
+      return name;
+    }
+    return System.getProperty(property + ".name", defaultName);
+  }
+
+  /**
+   * Gets the directory to search the library in.
+   * 
+   * @return the configured directory, the one of the system property or {@code null}.
+   */
+  public synchronized String getPath() {
+    if (null != path) {
+      return path;
+    }
+    return System.getProperty(property + ".path");
+  }
+
+  /**
+   * Gets the library and loads it on the first call.
+   * 
+   * @return the library.
+   * @throws UnsatisfiedLinkError if the library could not be loaded. The message tells which 
+   *                              library was searched where.
+   */
+  public T get() {
+    T result = instance;
+    if (null != result) {
+      return result;
+    }
+    synchronized (this) {
+      if (null == instance && null == failure) {
+        load();
+      }
+      if (null != failure) {
+        throw failure;
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Gets the status if the library can be used.
+   * <p>
+   * Probing is not free on the first call: it loads the library, which may take a while and 
+   * logs a warning if the library is missing. Later calls only read the kept result and do not 
+   * throw or catch any error. Use {@link #isLoaded()} to check without loading.
+   * </p>
+   * 
+   * @return {@code true} if the library is loaded, {@code false} if it could not be loaded.
+   */
+  public boolean isAvailable() {
+    if (null != instance) {
+      return true;
+    }
+    synchronized (this) {
+      if (null == instance && null == failure) {
+        load();
+      }
+      return null != instance;
+    }
+  }
+
+  /**
+   * Gets the status if the library is loaded, without loading it.
+   * 
+   * @return {@code true} if the library is loaded, otherwise {@code false}.
+   */
+  public boolean isLoaded() {
+    return null != instance;
+  }
+
+  /**
+   * Gets the error of the failed load.
+   * 
+   * @return the error or {@code null} if the library was not loaded yet or is loaded.
+   */
+  public UnsatisfiedLinkError getFailure() {
+    return failure;
+  }
+
+  private void load() {
+    String libraryName = getName();
+    String libraryPath = getPath();
+    try {
+      if (null != libraryPath) {
+        NativeLibrary.addSearchPath(libraryName, libraryPath);
+      }
+      instance = type.cast(Native.loadLibrary(libraryName, type));
+    } catch (UnsatisfiedLinkError ex) {
+      UnsatisfiedLinkError error = new UnsatisfiedLinkError("Could not load library " 
+              + libraryName + " (path: " + libraryPath 
+              + ", jna.library.path: " + System.getProperty("jna.library.path") 
+              + ", platform: " + Platform.RESOURCE_PREFIX + "): " + ex.getMessage());
+      error.initCause(ex);
+      failure = error;
+      Logger.getLogger(LibraryLoader.class.getName()).log(Level.WARNING, error.getMessage());
+    }
+  }
+}
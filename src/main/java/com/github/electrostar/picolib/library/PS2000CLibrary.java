@@ -23,7 +23,6 @@ package com.github.electrostar.picolib.library;
 import com.sun.jna.Callback;
 import com.sun.jna.Library;
 import com.sun.jna.Memory;
-import com.sun.jna.Native;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 import com.sun.jna.ptr.ShortByReference;
@@ -34,13 +33,20 @@ import com.sun.jna.ptr.ShortByReference;
  */
 public interface PS2000CLibrary extends Library, PicoLibrary {
 
+  /**
+   * Name of the PS2000 C Library.
+   */
+  String LIBRARY_NAME = "ps2000";
+
   /**
    * Instance of the PS2000 C Library.
-   * The instance will be automatically loaded with jna on init.
+   * The instance will be loaded by the {@link LibraryLoader#PS2000 loader} when this interface is 
+   * initialized, which fails if the library is missing.
+   * 
+   * @deprecated use {@link LibraryLoader#PS2000} to load the library when it is needed.
    */
-  PS2000CLibrary INSTANCE = (PS2000CLibrary) Native.loadLibrary(
-          "ps2000", PS2000CLibrary.class
-  );
+  @Deprecated
+  PS2000CLibrary INSTANCE = LibraryLoader.PS2000.get();
 
   /**
    * Prototype Method to open the device unit.
@@ -0,0 +1,230 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.library;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.ShortByReference;
+
+/**
+ * Direct mapped PS2000 Library.
+ * The functions which are called in tight loops, like {@link #ps2000_ready(short)} while polling 
+ * and {@link #ps2000_get_streaming_last_values(short, GetOverviewBuffersMaxMin)} while streaming, 
+ * are bound with {@link Native#register(Class, String) direct mapping}. Direct calls skip the 
+ * reflection of the interface proxy created by {@link Native#loadLibrary(String, Class)}. All 
+ * other functions are forwarded to an interface mapped {@link PS2000CLibrary}.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public final class PS2000DirectLibrary implements PS2000CLibrary {
+
+  private final PS2000CLibrary delegate;
+
+  /**
+   * Constructs a {@code PS2000DirectLibrary} for the {@link PS2000CLibrary#LIBRARY_NAME PS2000 
+   * library}. The direct mapped functions are registered on the first construction.
+   * 
+   * @param delegate the interface mapped {@link PS2000CLibrary} for all other functions.
+   * @throws IllegalArgumentException if no delegate is given.
+   * @throws UnsatisfiedLinkError if the library or one of the functions could not be found.
+   */
+  public PS2000DirectLibrary(PS2000CLibrary delegate) {
+    this(delegate, LIBRARY_NAME);
+  }
+
+  /**
+   * Constructs a {@code PS2000DirectLibrary} for the PS2000 library with the given name, like 
+   * the {@link LibraryLoader#getName() name of the loader} of the delegate. The direct mapped 
+   * functions are registered on the first construction, later names are ignored.
+   * 
+   * @param delegate the interface mapped {@link PS2000CLibrary} for all other functions.
+   * @param libraryName the name of the library or the absolute path to the library file.
+   * @throws IllegalArgumentException if no delegate or no library name is given.
+   * @throws UnsatisfiedLinkError if the library or one of the functions could not be found.
+   */
+  public PS2000DirectLibrary(PS2000CLibrary delegate, String libraryName) {
+    if (null == delegate) {
+      throw new IllegalArgumentException("Delegate must be set.");
+    }
+    if (null == libraryName) {
+      throw new IllegalArgumentException("Library name must be set.");
+    }
+    Direct.register(libraryName);
+    this.delegate = delegate;
+  }
+
+  @Override
+  public short ps2000_open_unit() {
+    return delegate.ps2000_open_unit();
+  }
+
+  @Override
+  public short ps2000_close_unit(short handle) {
+    return delegate.ps2000_close_unit(handle);
+  }
+
+  @Override
+  public short ps2000_get_unit_info(short handle, byte[] string, short stringLength, short info) {
+    return delegate.ps2000_get_unit_info(handle, string, stringLength, info);
+  }
+
+  @Override
+  public short ps2000_open_unit_async() {
+    return delegate.ps2000_open_unit_async();
+  }
+
+  @Override
+  public short ps2000_open_unit_progress(ShortByReference handle, 
+          ShortByReference progressPercent) {
+    return delegate.ps2000_open_unit_progress(handle, progressPercent);
+  }
+
+  @Override
+  public short ps2000_set_channel(short handle, short channel, short enabled, short dc, 
+          short range) {
+    return delegate.ps2000_set_channel(handle, channel, enabled, dc, range);
+  }
+
+  @Override
+  public int ps2000_set_ets(short handle, short mode, short ets_cycles, short ets_interleave) {
+    return delegate.ps2000_set_ets(handle, mode, ets_cycles, ets_interleave);
+  }
+
+  @Override
+  public short ps2000_get_timebase(short handle, short timebase, int no_of_samples, 
+          IntByReference time_interval, ShortByReference time_units, short oversample, 
+          IntByReference max_samples) {
+    return delegate.ps2000_get_timebase(handle, timebase, no_of_samples, time_interval, 
+            time_units, oversample, max_samples);
+  }
+
+  @Override
+  public short ps2000_set_trigger(short handle, short source, short threshold, short direction, 
+          short delay, short auto_trigger_ms) {
+    return delegate.ps2000_set_trigger(handle, source, threshold, direction, delay, 
+            auto_trigger_ms);
+  }
+
+  @Override
+  public short ps2000_set_trigger2(short handle, short source, short threshold, short direction, 
+          float delay, short auto_trigger_ms) {
+    return delegate.ps2000_set_trigger2(handle, source, threshold, direction, delay, 
+            auto_trigger_ms);
+  }
+
+  @Override
+  public short ps2000_run_block(short handle, int no_of_values, short timebase, short oversample, 
+          IntByReference time_indisposed_ms) {
+    return Direct.ps2000_run_block(handle, no_of_values, timebase, oversample, 
+            time_indisposed_ms);
+  }
+
+  @Override
+  public short ps2000_ready(short handle) {
+    return Direct.ps2000_ready(handle);
+  }
+
+  @Override
+  public short ps2000_stop(short handle) {
+    return delegate.ps2000_stop(handle);
+  }
+
+  @Override
+  public int ps2000_get_values(short handle, Memory buffer_a, Memory buffer_b, Memory buffer_c, 
+          Memory buffer_d, ShortByReference overflow, int no_of_values) {
+    return Direct.ps2000_get_values(handle, buffer_a, buffer_b, buffer_c, buffer_d, overflow, 
+            no_of_values);
+  }
+
+  @Override
+  public int ps2000_get_times_and_values(short handle, Memory times, Memory buffer_a, 
+          Memory buffer_b, Memory buffer_c, Memory buffer_d, ShortByReference overflow, 
+          short time_units, int no_of_values) {
+    return Direct.ps2000_get_times_and_values(handle, times, buffer_a, buffer_b, buffer_c, 
+            buffer_d, overflow, time_units, no_of_values);
+  }
+
+  @Override
+  public short ps2000_set_sig_gen_built_in(short handle, int offsetVoltage, int pkToPk, 
+          int waveType, float startFrequency, float stopFrequency, float increment, 
+          float dwellTime, int sweepType, int sweeps) {
+    return delegate.ps2000_set_sig_gen_built_in(handle, offsetVoltage, pkToPk, waveType, 
+            startFrequency, stopFrequency, increment, dwellTime, sweepType, sweeps);
+  }
+
+  @Override
+  public short ps2000_run_streaming_ns(short handle, int sample_interval, short time_units, 
+          int max_samples, short auto_stop, int noOfSamplesPerAggregate, 
+          int overview_buffer_size) {
+    return delegate.ps2000_run_streaming_ns(handle, sample_interval, time_units, max_samples, 
+            auto_stop, noOfSamplesPerAggregate, overview_buffer_size);
+  }
+
+  @Override
+  public short ps2000_get_streaming_last_values(short handle, GetOverviewBuffersMaxMin func) {
+    return Direct.ps2000_get_streaming_last_values(handle, func);
+  }
+
+  @Override
+  public short ps2000_overview_buffer_status(short handle, 
+          ShortByReference previous_buffer_overrun) {
+    return Direct.ps2000_overview_buffer_status(handle, previous_buffer_overrun);
+  }
+
+  /**
+   * The direct mapped native functions. A static initializer would leave the class unusable 
+   * after a failed registration, so the registration can be retried instead.
+   */
+  private static final class Direct {
+
+    private static boolean registered;
+
+    private Direct() {
+    }
+
+    static synchronized void register(String libraryName) {
+      if (!registered) {
+        Native.register(Direct.class, libraryName);
+        registered = true;
+      }
+    }
+
+    static native short ps2000_run_block(short handle, int no_of_values, short timebase, 
+            short oversample, IntByReference time_indisposed_ms);
+
+    static native short ps2000_ready(short handle);
+
+    static native int ps2000_get_values(short handle, Memory buffer_a, Memory buffer_b, 
+            Memory buffer_c, Memory buffer_d, ShortByReference overflow, int no_of_values);
+
+    static native int ps2000_get_times_and_values(short handle, Memory times, Memory buffer_a, 
+            Memory buffer_b, Memory buffer_c, Memory buffer_d, ShortByReference overflow, 
+            short time_units, int no_of_values);
+
+    static native short ps2000_get_streaming_last_values(short handle, 
+            GetOverviewBuffersMaxMin func);
+
+    static native short ps2000_overview_buffer_status(short handle, 
+            ShortByReference previous_buffer_overrun);
+  }
+}
@@ -0,0 +1,158 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Library-wide poller for the readiness of block captures.
+ * <p>
+ * All units share one daemon thread which polls the readiness of their blocks. The first poll is 
+ * scheduled after the expected collection time, afterwards the interval is doubled with every 
+ * poll until {@link #MAX_BACKOFF_NS} is reached. Finished blocks are transferred on separate 
+ * threads, so a slow transfer does not delay the polling of other units.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class BlockPoller {
+
+  /**
+   * Minimum interval between two polls of the same block in nanoseconds.
+   */
+  static final long MIN_BACKOFF_NS = 500_000L;
+
+  /**
+   * Maximum interval between two polls of the same block in nanoseconds.
+   */
+  static final long MAX_BACKOFF_NS = 100_000_000L;
+
+  private static final Object LOCK = new Object();
+  private static BlockPoller shared;
+
+  private final ScheduledThreadPoolExecutor scheduler;
+  private final ExecutorService transfers;
+
+  private BlockPoller() {
+    scheduler = new ScheduledThreadPoolExecutor(1, new DaemonFactory("picolib-block-poller"));
+    scheduler.setRemoveOnCancelPolicy(true);
+    transfers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, 
+            new SynchronousQueue<>(), new DaemonFactory("picolib-block-transfer"));
+  }
+
+  /**
+   * Gets the poller shared by all units.
+   * 
+   * @return the shared {@code BlockPoller}.
+   */
+  static BlockPoller getShared() {
+    synchronized (LOCK) {
+      if (null == shared) {
+        shared = new BlockPoller();
+      }
+      return shared;
+    }
+  }
+
+  /**
+   * Polls a running block until it is ready and transfers it.
+   * 
+   * @param <T> the type of the transferred result.
+   * @param ready checks if the block is ready.
+   * @param transfer transfers the block when it is ready.
+   * @param cancel stops the block when the returned future is cancelled.
+   * @param expectedNs the expected collection time of the block in nanoseconds.
+   * @return the future of the transferred block.
+   */
+  <T> CompletableFuture<T> submit(Callable<Boolean> ready, Callable<T> transfer, Runnable cancel, 
+          long expectedNs) {
+    Poll<T> poll = new Poll<>(ready, transfer, 
+            Math.min(Math.max(expectedNs / 8, MIN_BACKOFF_NS), MAX_BACKOFF_NS));
+    poll.future.whenComplete((r, ex) -> {
+      if (poll.future.isCancelled()) {
+        cancel.run();
+      }
+    });
+    poll.schedule(Math.max(expectedNs, 0L));
+    return poll.future;
+  }
+
+  private final class Poll<T> implements Runnable {
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final Callable<Boolean> ready;
+    private final Callable<T> transfer;
+    private long backoffNs;
+
+    Poll(Callable<Boolean> ready, Callable<T> transfer, long backoffNs) {
+      this.ready = ready;
+      this.transfer = transfer;
+      this.backoffNs = backoffNs;
+    }
+
+    void schedule(long delayNs) {
+      try {
+        scheduler.schedule(this, delayNs, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException ex) {
+        future.completeExceptionally(ex);
+      }
+    }
+
+    @Override
+    public void run() {
+      if (future.isDone()) {
+        return;
+      }
+
+      try {
+        if (Boolean.TRUE.equals(ready.call())) {
+          transfers.execute(this::transfer);
+          return;
+        }
+      } catch (Exception ex) {
+        future.completeExceptionally(ex);
+        return;
+      }
+
+      schedule(backoffNs);
+      backoffNs = Math.min(backoffNs * 2, MAX_BACKOFF_NS);
+    }
+
+    private void transfer() {
+      if (future.isDone()) {
+        return;
+      }
+
+      try {
+        future.complete(transfer.call());
+      } catch (Exception ex) {
+        future.completeExceptionally(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.AcquisitionSettings;
+import com.github.electrostar.picolib.AcquisitionStatistics;
+import com.github.electrostar.picolib.OnDataCallback;
+import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.exception.ConfigurationException;
+import com.github.electrostar.picolib.exception.PicoException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Continuous acquisition of blocks on a PicoScope of the 2000 series.
+ * <p>
+ * The acquisition thread waits for a block, transfers the raw sample data into a free 
+ * {@link NativeCaptureBuffer} and arms the next block right away. Conversion and delivery to the 
+ * application run on a separate consumer thread, so the unit only stays idle for the raw 
+ * transfer. If the consumer falls behind and all buffers are in use, the acquisition waits for a 
+ * free buffer, which shows up as dead time.
+ * </p>
+ * <p>
+ * The dead time of a cycle runs from the earliest moment the block can have been ready to the 
+ * moment the next block is armed. That moment is the end of the expected collection time or the 
+ * last poll which found the block not ready, whichever is later, so the latency of detecting 
+ * the ready block is part of the dead time.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class ContinuousAcquisition {
+
+  private static final long CONSUMER_POLL_MS = 10;
+
+  private final PicoScope2000 unit;
+  private final OnDataCallback callback;
+  private final SampleFormat format;
+  private final int samples;
+  private final BlockingQueue<NativeCaptureBuffer> free;
+  private final BlockingQueue<NativeCaptureBuffer> filled;
+  private final Thread acquisitionThread;
+  private final Thread consumerThread;
+
+  private volatile boolean running;
+  private volatile long startNanos;
+  private volatile long endNanos;
+  // Only used by the acquisition thread after the start
+  private long armedAt;
+  private long readyFrom;
+  private volatile long waveforms;
+  private volatile long lastDeadTime;
+  private volatile long totalDeadTime;
+  private volatile long maxDeadTime;
+
+  /**
+   * Constructs a {@code ContinuousAcquisition}.
+   * 
+   * @param unit the unit to acquire from.
+   * @param callback the application callback for every block.
+   * @param settings the {@link AcquisitionSettings}.
+   * @param samples the number of samples per block.
+   * @throws IllegalArgumentException if the callback or the settings are not valid.
+   */
+  ContinuousAcquisition(PicoScope2000 unit, OnDataCallback callback, 
+          AcquisitionSettings settings, int samples) {
+    if (null == callback) {
+      throw new IllegalArgumentException("Callback must be set.");
+    }
+    if (null == settings || null == settings.getFormat()) {
+      throw new IllegalArgumentException("Acquisition settings and format must be set.");
+    }
+    if (settings.getBuffers() < 2) {
+      throw new IllegalArgumentException("At least two buffers are needed.");
+    }
+
+    this.unit = unit;
+    this.callback = callback;
+    this.format = settings.getFormat();
+    this.samples = samples;
+    this.free = new ArrayBlockingQueue<>(settings.getBuffers());
+    this.filled = new ArrayBlockingQueue<>(settings.getBuffers());
+    for (int i = 0; i < settings.getBuffers(); i++) {
+      free.add(new NativeCaptureBuffer(samples));
+    }
+
+    acquisitionThread = new Thread(this::acquire, "picolib-acquisition");
+    acquisitionThread.setDaemon(true);
+    consumerThread = new Thread(this::consume, "picolib-acquisition-consumer");
+    consumerThread.setDaemon(true);
+  }
+
+  /**
+   * Arms the first block and starts the acquisition and consumer threads.
+   * 
+   * @throws ConfigurationException if the block could not be run.
+   */
+  void start() throws ConfigurationException {
+    unit.runBlock();
+    armedAt = System.nanoTime();
+    running = true;
+    startNanos = armedAt;
+    acquisitionThread.start();
+    consumerThread.start();
+  }
+
+  /**
+   * Stops the acquisition and waits for both threads to finish. Blocks which are not delivered 
+   * yet are discarded.
+   */
+  void stop() {
+    finish();
+    acquisitionThread.interrupt();
+    consumerThread.interrupt();
+    try {
+      if (Thread.currentThread() != acquisitionThread) {
+        acquisitionThread.join();
+      }
+      if (Thread.currentThread() != consumerThread) {
+        consumerThread.join();
+      }
+    } catch (InterruptedException ex) {
+      Logger.getLogger(ContinuousAcquisition.class.getName()).log(Level.SEVERE, null, ex);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets the status if the acquisition is running.
+   * 
+   * @return {@code true} if running, otherwise {@code false}.
+   */
+  boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Gets the current {@link AcquisitionStatistics}.
+   * 
+   * @return the {@link AcquisitionStatistics}.
+   */
+  AcquisitionStatistics getStatistics() {
+    long count = waveforms;
+    // The rate is frozen once the acquisition ended
+    long elapsed = (running ? System.nanoTime() : endNanos) - startNanos;
+    double rate = elapsed > 0 ? count * 1e9 / elapsed : 0;
+    return new AcquisitionStatistics(count, rate, lastDeadTime, 
+            count > 0 ? totalDeadTime / count : 0, maxDeadTime);
+  }
+
+  private void acquire() {
+    try {
+      while (running && awaitReady()) {
+        NativeCaptureBuffer buffer = free.take();
+        buffer.setRead(unit.transferTimesAndValues(buffer, samples));
+
+        // Arm the next block before anything else is done with the sample data
+        unit.runBlock();
+        armedAt = System.nanoTime();
+        record(armedAt - readyFrom);
+
+        filled.put(buffer);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (PicoException | RuntimeException ex) {
+      Logger.getLogger(ContinuousAcquisition.class.getName()).log(Level.SEVERE, null, ex);
+      finish();
+    }
+  }
+
+  private void finish() {
+    if (running) {
+      endNanos = System.nanoTime();
+    }
+    running = false;
+  }
+
+  private boolean awaitReady() throws PicoException {
+    long expectedNs = unit.getExpectedBlockNs();
+    long backoffNs = Math.min(Math.max(expectedNs / 8, BlockPoller.MIN_BACKOFF_NS), 
+            BlockPoller.MAX_BACKOFF_NS);
+    if (expectedNs > 0) {
+      LockSupport.parkNanos(expectedNs);
+    }
+
+    // The block is ready at the end of its collection time at the earliest
+    long earliestReady = armedAt + expectedNs;
+    while (running && !Thread.currentThread().isInterrupted()) {
+      if (unit.ready()) {
+        readyFrom = Math.min(System.nanoTime(), earliestReady);
+        return true;
+      }
+      // Not ready yet, so it became ready after this poll
+      earliestReady = System.nanoTime();
+      LockSupport.parkNanos(backoffNs);
+      backoffNs = Math.min(backoffNs * 2, BlockPoller.MAX_BACKOFF_NS);
+    }
+    return false;
+  }
+
+  private void record(long deadTime) {
+    lastDeadTime = deadTime;
+    totalDeadTime += deadTime;
+    if (deadTime > maxDeadTime) {
+      maxDeadTime = deadTime;
+    }
+    waveforms++;
+  }
+
+  private void consume() {
+    try {
+      while (running || !filled.isEmpty()) {
+        NativeCaptureBuffer buffer = filled.poll(CONSUMER_POLL_MS, TimeUnit.MILLISECONDS);
+        if (null != buffer) {
+          deliver(buffer);
+          free.put(buffer);
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deliver(NativeCaptureBuffer buffer) {
+    if (buffer.getRead() <= 0) {
+      return;
+    }
+
+    try {
+      ResultSet rs = unit.convertTimesAndValues(buffer, buffer.getRead(), 
+              buffer.getResultSet(), format);
+      callback.onDataEvent(rs);
+    } catch (RuntimeException ex) {
+      Logger.getLogger(ContinuousAcquisition.class.getName()).log(Level.SEVERE, null, ex);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.ConversionSettings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Library-wide executor for the conversion of sample data.
+ * <p>
+ * All units share one bounded pool of worker threads which is configured by 
+ * {@link ConversionSettings}. Conversions with less samples than the inline threshold run directly
+ * on the calling thread.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class ConversionExecutor {
+
+  private static final Object LOCK = new Object();
+  private static volatile ConversionExecutor shared;
+
+  private final ConversionSettings settings;
+  private final ExecutorService executor;
+  private final int parallelism;
+  // Running invocations, the executor is shut down when it is retired and none is left
+  private final AtomicInteger running = new AtomicInteger();
+  private volatile boolean retired;
+
+  private ConversionExecutor(ConversionSettings settings) {
+    this.settings = new ConversionSettings(settings);
+
+    int threads = settings.getThreads();
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    switch (settings.getMode()) {
+      case FORK_JOIN:
+        this.executor = new ForkJoinPool(threads);
+        this.parallelism = threads;
+        break;
+      case FIXED_POOL:
+        this.executor = Executors.newFixedThreadPool(threads, 
+                new DaemonFactory("picolib-conversion"));
+        this.parallelism = threads;
+        break;
+      default:
+        this.executor = null;
+        this.parallelism = 1;
+        break;
+    }
+  }
+
+  /**
+   * Configures the library-wide conversion executor.
+   * Already running conversions will be finished by the previous executor, which is shut down 
+   * afterwards. Conversions which still hold the previous executor run on the new one.
+   * 
+   * @param settings the {@link ConversionSettings} to apply.
+   * @throws IllegalArgumentException if the settings are out of range.
+   */
+  static void configure(ConversionSettings settings) {
+    if (null == settings || null == settings.getMode()) {
+      throw new IllegalArgumentException("Conversion mode must be set.");
+    }
+    if (settings.getThreads() < 0) {
+      throw new IllegalArgumentException("Number of threads must be 0 or greater.");
+    }
+    if (settings.getInlineThreshold() < 0) {
+      throw new IllegalArgumentException("Inline threshold must be 0 or greater.");
+    }
+
+    ConversionExecutor previous;
+    synchronized (LOCK) {
+      previous = shared;
+      shared = new ConversionExecutor(settings);
+    }
+
+    if (null != previous) {
+      previous.retire();
+    }
+  }
+
+  /**
+   * Gets the current library-wide {@link ConversionSettings}.
+   * 
+   * @return a copy of the current {@link ConversionSettings}.
+   */
+  static ConversionSettings getSettings() {
+    return new ConversionSettings(getShared().settings);
+  }
+
+  static ConversionExecutor getShared() {
+    ConversionExecutor ce = shared;
+    if (null == ce) {
+      synchronized (LOCK) {
+        if (null == shared) {
+          shared = new ConversionExecutor(new ConversionSettings());
+        }
+        ce = shared;
+      }
+    }
+    return ce;
+  }
+
+  /**
+   * Gets the number of tasks which could run in parallel.
+   * 
+   * @return the parallelism of this executor.
+   */
+  int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs all tasks and waits until they are finished.
+   * The calling thread executes the first task itself.
+   * 
+   * @param tasks the tasks to run.
+   * @param numberOfSamples the number of samples of all tasks.
+   * @throws IllegalStateException if a task failed or the calling thread was interrupted while 
+   *                               waiting. The interrupt status is kept.
+   */
+  void invokeAll(List<? extends Runnable> tasks, long numberOfSamples) {
+    if (null == executor || tasks.size() <= 1 || numberOfSamples < settings.getInlineThreshold()) {
+      tasks.forEach(Runnable::run);
+      return;
+    }
+
+    running.incrementAndGet();
+    if (retired) {
+      // Configured anew in the meantime, the current executor takes over
+      release();
+      getShared().invokeAll(tasks, numberOfSamples);
+      return;
+    }
+    try {
+      run(tasks);
+    } finally {
+      release();
+    }
+  }
+
+  private void run(List<? extends Runnable> tasks) {
+    List<Future<?>> futures = new ArrayList<>(tasks.size() - 1);
+    for (int i = 1; i < tasks.size(); i++) {
+      futures.add(executor.submit(tasks.get(i)));
+    }
+
+    tasks.get(0).run();
+
+    for (Future<?> f : futures) {
+      try {
+        f.get();
+      } catch (InterruptedException ex) {
+        futures.forEach(future -> future.cancel(true));
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Conversion of sample data was interrupted.", ex);
+      } catch (ExecutionException ex) {
+        throw new IllegalStateException("Conversion of sample data failed.", ex.getCause());
+      }
+    }
+  }
+
+  private void retire() {
+    retired = true;
+    if (0 == running.get()) {
+      shutdown();
+    }
+  }
+
+  private void release() {
+    if (0 == running.decrementAndGet() && retired) {
+      shutdown();
+    }
+  }
+
+  private void shutdown() {
+    if (null != executor) {
+      executor.shutdown();
+    }
+  }
+}
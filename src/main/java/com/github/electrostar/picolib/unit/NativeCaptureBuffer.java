@@ -0,0 +1,146 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.CaptureBuffer;
+import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.sun.jna.Memory; // NOSONAR
+import com.sun.jna.Native; // NOSONAR
+import com.sun.jna.ptr.ShortByReference; // NOSONAR
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link CaptureBuffer} backed by the native memory the driver writes into.
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class NativeCaptureBuffer implements CaptureBuffer {
+
+  private final int samples;
+  private final SampleFormat format;
+  private Memory times;
+  private Memory[] channels = new Memory[0];
+  private ShortBuffer[] views = new ShortBuffer[0];
+  private final ShortByReference overflow = new ShortByReference((short) 0);
+  private final ResultSet resultSet = new ResultSet();
+  private int read;
+
+  /**
+   * Constructs a {@code NativeCaptureBuffer} for voltages.
+   * 
+   * @param samples the maximum number of samples per channel.
+   * @throws IllegalArgumentException if the number of samples is not positive.
+   */
+  NativeCaptureBuffer(int samples) {
+    this(samples, SampleFormat.VOLTAGE);
+  }
+
+  /**
+   * Constructs a {@code NativeCaptureBuffer}.
+   * 
+   * @param samples the maximum number of samples per channel.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @throws IllegalArgumentException if the number of samples is not positive or no format is 
+   *                                  given.
+   */
+  NativeCaptureBuffer(int samples, SampleFormat format) {
+    if (samples <= 0) {
+      throw new IllegalArgumentException("Number of samples must be positive.");
+    }
+    if (null == format) {
+      throw new IllegalArgumentException("Sample format must be set.");
+    }
+    this.samples = samples;
+    this.format = format;
+  }
+
+  @Override
+  public int getSamples() {
+    return samples;
+  }
+
+  @Override
+  public SampleFormat getFormat() {
+    return format;
+  }
+
+  @Override
+  public ResultSet getResultSet() {
+    return resultSet;
+  }
+
+  @Override
+  public short getOverflow() {
+    return overflow.getValue();
+  }
+
+  Memory getTimes() {
+    // Only captures in ETS mode transfer times, all others have an implicit time axis
+    if (null == times) {
+      times = new Memory((long) samples * Native.getNativeSize(Integer.TYPE));
+    }
+    return times;
+  }
+
+  Memory getChannel(int index, boolean enabled) {
+    if (!enabled) {
+      return null;
+    }
+    if (index >= channels.length) {
+      // Grows with the channels of the unit instead of a fixed number of channels
+      channels = Arrays.copyOf(channels, index + 1);
+      views = Arrays.copyOf(views, index + 1);
+    }
+    if (null == channels[index]) {
+      channels[index] = new Memory((long) samples * Native.getNativeSize(Short.TYPE));
+    }
+    return channels[index];
+  }
+
+  ShortBuffer getView(int index, boolean enabled) {
+    // The view is created once per channel, so repeated conversions do not allocate it again
+    Memory channel = getChannel(index, enabled);
+    if (null == channel) {
+      return null;
+    }
+    if (null == views[index]) {
+      views[index] = channel.getByteBuffer(0, channel.size()).order(ByteOrder.nativeOrder())
+              .asShortBuffer();
+    }
+    return views[index];
+  }
+
+  ShortByReference getOverflowReference() {
+    return overflow;
+  }
+
+  int getRead() {
+    return read;
+  }
+
+  void setRead(int read) {
+    this.read = read;
+  }
+}
@@ -0,0 +1,124 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.DataLostEvent;
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.github.electrostar.picolib.StreamingSettings;
+
+/**
+ * Bookkeeping of overruns of the overview buffers while streaming.
+ * <p>
+ * The overview buffers have to hold all samples which arrive between two polls with data. On 
+ * an overrun the new size is twice the number of samples of the longest observed gap, but at 
+ * least twice the current size and at most 
+ * {@value com.github.electrostar.picolib.StreamingSettings#MAX_OVERVIEW_BUFFER_SIZE} samples.
+ * </p>
+ * <p>
+ * Only the gaps between polls are covered. A consumer lags behind the overview buffers only 
+ * while it holds up the polling thread, with {@link OverflowPolicy#BLOCK} or in an overview 
+ * buffer callback, and that time is part of the gap. A consumer behind the ring of 
+ * {@link OverflowPolicy#DROP} never causes an overrun, it loses chunks in the ring instead, 
+ * which larger overview buffers would not prevent. Each overrun grows the buffers at least by a 
+ * factor of two, so an overrun caused by anything else is still outgrown.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class OverviewBufferMonitor {
+
+  private final boolean autoResize;
+  private final long sampleIntervalNs;
+
+  private volatile int overviewBufferSize;
+  private volatile long overruns;
+  private volatile long restarts;
+
+  /**
+   * Constructs an {@code OverviewBufferMonitor}.
+   * 
+   * @param overviewBufferSize the size of the overview buffers in samples.
+   * @param autoResize {@code true} if the overview buffers are resized on an overrun.
+   * @param sampleIntervalNs the sample interval in nanoseconds.
+   */
+  OverviewBufferMonitor(int overviewBufferSize, boolean autoResize, long sampleIntervalNs) {
+    this.overviewBufferSize = overviewBufferSize;
+    this.autoResize = autoResize;
+    this.sampleIntervalNs = Math.max(sampleIntervalNs, 1);
+  }
+
+  /**
+   * Records an overrun of the overview buffers.
+   * 
+   * @param maxGapNs the longest observed time between two polls with data in nanoseconds.
+   * @return the {@link DataLostEvent} with the size for a restart, if resizing is enabled and 
+   *         the buffers could grow.
+   */
+  DataLostEvent overrun(long maxGapNs) {
+    overruns++;
+    int size = overviewBufferSize;
+    return new DataLostEvent(overruns, size, autoResize ? nextSize(size, maxGapNs) : size);
+  }
+
+  /**
+   * Records a restart of streaming with resized overview buffers.
+   * 
+   * @param size the new size of the overview buffers in samples.
+   */
+  void resized(int size) {
+    overviewBufferSize = size;
+    restarts++;
+  }
+
+  /**
+   * Gets the current size of the overview buffers.
+   * 
+   * @return the size in samples.
+   */
+  int getOverviewBufferSize() {
+    return overviewBufferSize;
+  }
+
+  /**
+   * Gets the number of overruns.
+   * 
+   * @return the number of overruns.
+   */
+  long getOverruns() {
+    return overruns;
+  }
+
+  /**
+   * Gets the number of restarts with resized overview buffers.
+   * 
+   * @return the number of restarts.
+   */
+  long getRestarts() {
+    return restarts;
+  }
+
+  private int nextSize(int size, long maxGapNs) {
+    long needed = 2 * ((maxGapNs + sampleIntervalNs - 1) / sampleIntervalNs);
+    long next = Math.max(2L * size, needed);
+    return (int) Math.min(next, StreamingSettings.MAX_OVERVIEW_BUFFER_SIZE);
+  }
+}
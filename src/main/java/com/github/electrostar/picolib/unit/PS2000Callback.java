@@ -20,88 +20,204 @@
 
 package com.github.electrostar.picolib.unit;
 
-import com.github.electrostar.picolib.ChannelSettings;
-import com.github.electrostar.picolib.OnDataCallback;
-import com.github.electrostar.picolib.ResultSet;
-import com.github.electrostar.picolib.Timebase;
+import com.github.electrostar.picolib.OnOverviewBuffersCallback;
 import com.github.electrostar.picolib.library.PS2000CLibrary;
+import com.sun.jna.CallbackThreadInitializer;
+import com.sun.jna.Native;
 import com.sun.jna.Pointer; // NOSONAR
 import com.sun.jna.ptr.PointerByReference; // NOSONAR
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 
 /**
  * Implementation of the Callback Function for the PicoScope of the 2000 series.
+ * It either copies the overview buffers into a {@link SampleRing} or hands read-only views of 
+ * them to an {@link OnOverviewBuffersCallback}.
  * 
  * @since 0.0.1
  * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
  */
 class PS2000Callback implements PS2000CLibrary.GetOverviewBuffersMaxMin {
 
-  private final OnDataCallback apiCallback;
-  private final List<ChannelSettings> channels;
-  private final int lostValue;
-  private final int maxValue;
-  private final Timebase timebase;
+  /**
+   * The policy for driver threads which call back. They stay attached to the JVM as named daemon 
+   * threads, so they are only attached on their first call instead of on every call.
+   */
+  static final CallbackThreadInitializer THREAD_INITIALIZER = 
+          new CallbackThreadInitializer(true, false, "picolib-ps2000-callback");
+
+  private final SampleRing ring;
+  private final StreamingPoller poller;
+  private final Pointer[] sources;
+  // Pointer objects which are pointed at the overview buffers on each call instead of new ones
+  private final Pointer[] pointers;
+  private final boolean envelopes;
+  private final OnOverviewBuffersCallback listener;
+  private final int overviewBufferSize;
+  // Native addresses and read-only views of the overview buffers, reused while they stay put
+  private final long[] addresses;
+  private final ShortBuffer[] views;
+  private final ShortBuffer[] maxima;
+  private final ShortBuffer[] minima;
+
+  private volatile long deliveredChunks;
+  private volatile long deliveredSamples;
+
+  /**
+   * Constructs a {@code PS2000Callback} which only copies the sample data into a 
+   * {@link SampleRing}. Conversion and delivery are left to the consumer of the ring.
+   * @param ring the {@link SampleRing} to fill.
+   * @param channels the number of channels.
+   * @param envelopes {@code true} to copy the minima of aggregated data too. The ring then 
+   *                  holds the maxima and minima of each channel one after another.
+   * @param poller the {@link StreamingPoller} which is told about every chunk.
+   */
+  PS2000Callback(SampleRing ring, int channels, boolean envelopes, StreamingPoller poller) {
+    this.ring = ring;
+    this.poller = poller;
+    this.sources = new Pointer[envelopes ? 2 * channels : channels];
+    this.pointers = newPointers(sources.length);
+    this.envelopes = envelopes;
+    this.listener = null;
+    this.overviewBufferSize = 0;
+    this.addresses = null;
+    this.views = null;
+    this.maxima = null;
+    this.minima = null;
+    Native.setCallbackThreadInitializer(this, THREAD_INITIALIZER);
+  }
 
   /**
-   * Constructs a {@code PS2000Callback} with an application callback and channel settings.
-   * @param callback to the application.
-   * @param channelSettings the settings of the channels.
-   * @param lostValue the value on which sample data are mean to be lost.
-   * @param maxValue the maximum value of the voltage range mapped as digital int value.
-   * @param timebase the {@link com.github.electrostar.picolib.Timebase} to set the additional 
-   *                 informations like {@link com.github.electrostar.picolib.TimeUnit} in the
-   *                 {@link com.github.electrostar.picolib.ResultSet}.
+   * Constructs a {@code PS2000Callback} which hands read-only views of the overview buffers to 
+   * the application without copying them.
+   * @param listener the application callback.
+   * @param channels the number of channels.
+   * @param envelopes {@code true} to hand over the minima of aggregated data too.
+   * @param poller the {@link StreamingPoller} which is told about every call.
+   * @param overviewBufferSize the size of the overview buffers in samples.
    */
-  public PS2000Callback(OnDataCallback callback, 
-          List<ChannelSettings> channelSettings,
-          int lostValue,
-          int maxValue,
-          Timebase timebase) {
-    this.apiCallback = callback;
-    this.channels = channelSettings;
-    this.lostValue = lostValue;
-    this.maxValue = maxValue;
-    this.timebase = timebase;
+  PS2000Callback(OnOverviewBuffersCallback listener, int channels, boolean envelopes, 
+          StreamingPoller poller, int overviewBufferSize) {
+    this.ring = null;
+    this.poller = poller;
+    this.sources = null;
+    this.pointers = null;
+    this.envelopes = envelopes;
+    this.listener = listener;
+    this.overviewBufferSize = overviewBufferSize;
+    this.addresses = new long[envelopes ? 2 * channels : channels];
+    this.views = new ShortBuffer[addresses.length];
+    this.maxima = new ShortBuffer[channels];
+    this.minima = envelopes ? new ShortBuffer[channels] : null;
+    Native.setCallbackThreadInitializer(this, THREAD_INITIALIZER);
   }
 
   @Override
   public void invoke(PointerByReference overviewBuffers, short overflow, int triggeredAt, 
           short triggered, short autoStop, int values) {
-    if (null != apiCallback 
-            && null != overviewBuffers 
-            && values > 0 
-            && null != channels
-            && !channels.isEmpty()) {
-      // Try to Process the Channel Informations
-      // Get the Address (Pointer) of the First Element of the Array of Pointers
-
-      // Get the Pointer which points to the Array of Pointers
-      Pointer ptrArray = overviewBuffers.getPointer();
-      // Convert to an Array
-      Pointer[] pointers = ptrArray.getPointerArray(0, 2 * 4);
-
-      List<Pointer> channelDatas = new ArrayList<>();
-      
-      for (int i = 0; i < channels.size(); i++) {
-        channelDatas.add(pointers[i * 2]);
+    if (null != ring) {
+      offer(overviewBuffers, values, overflow, 0 != triggered ? triggeredAt : -1, 0 != autoStop);
+    } else {
+      expose(overviewBuffers, values, overflow, 0 != triggered ? triggeredAt : -1, 0 != autoStop);
+    }
+  }
+
+  private void offer(PointerByReference overviewBuffers, int values, short overflow, 
+          int triggerIndex, boolean autoStop) {
+    if (null == overviewBuffers || values <= 0) {
+      return;
+    }
+    poller.record(values);
+
+    // The buffers of the maximum values are at the even positions, the minimum at the odd ones
+    Pointer ptrArray = overviewBuffers.getPointer();
+    int step = envelopes ? 1 : 2;
+    for (int i = 0; i < sources.length; i++) {
+      sources[i] = pointerAt(ptrArray, i * step, pointers[i]);
+    }
+    ring.offer(sources, values, overflow, triggerIndex, autoStop);
+  }
+
+  private void expose(PointerByReference overviewBuffers, int values, short overflow, 
+          int triggerIndex, boolean autoStop) {
+    if (null == overviewBuffers || values <= 0) {
+      return;
+    }
+    poller.record(values);
+
+    Pointer ptrArray = overviewBuffers.getPointer();
+    int step = envelopes ? 1 : 2;
+    for (int i = 0; i < views.length; i++) {
+      ShortBuffer view = view(i, addressAt(ptrArray, i * step), values);
+      if (envelopes) {
+        (i % 2 == 0 ? maxima : minima)[i / 2] = view;
+      } else {
+        maxima[i] = view;
       }
-      
-      ResultSetConverter rsc = new ResultSetConverter(
-              values, 
-              maxValue,
-              lostValue,
-              null, 
-              channelDatas, 
-              channels);
-      
-      ResultSet rs = rsc.convert();
-      rs.setCollectionTime(timebase.getCollectionTime());
-      rs.setDivisions(timebase.getDivisions());
-      rs.setTimeUnit(timebase.getTimeUnit());
-
-      apiCallback.onDataEvent(rs);
     }
+    listener.onOverviewBuffers(maxima, minima, values, overflow, triggerIndex, autoStop);
+    deliveredChunks++;
+    deliveredSamples += values;
+  }
+
+  private ShortBuffer view(int index, long address, int values) {
+    if (0 == address) {
+      return null;
+    }
+    // The driver keeps its buffers between calls, so the views are only mapped once
+    ShortBuffer view = views[index];
+    if (null == view || addresses[index] != address || view.capacity() < values) {
+      int capacity = Math.max(values, overviewBufferSize);
+      view = new Pointer(address).getByteBuffer(0, (long) capacity * Short.BYTES)
+              .order(ByteOrder.nativeOrder())
+              .asShortBuffer()
+              .asReadOnlyBuffer();
+      views[index] = view;
+      addresses[index] = address;
+    }
+    view.clear();
+    view.limit(values);
+    return view;
+  }
+
+  private static Pointer[] newPointers(int count) {
+    Pointer[] result = new Pointer[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = new Pointer(0);
+    }
+    return result;
+  }
+
+  private static long addressAt(Pointer array, int index) {
+    long offset = (long) index * Pointer.SIZE;
+    return Long.BYTES == Pointer.SIZE ? array.getLong(offset) : array.getInt(offset) & 0xFFFFFFFFL;
+  }
+
+  private static Pointer pointerAt(Pointer array, int index, Pointer target) {
+    long address = addressAt(array, index);
+    if (0 == address) {
+      return null;
+    }
+    Pointer.nativeValue(target, address);
+    return target;
+  }
+
+  /**
+   * Gets the number of calls handed to the application callback of the overview buffers.
+   * 
+   * @return the number of delivered chunks.
+   */
+  long getDeliveredChunks() {
+    return deliveredChunks;
+  }
+
+  /**
+   * Gets the number of values per channel handed to the application callback of the overview 
+   * buffers.
+   * 
+   * @return the number of delivered samples.
+   */
+  long getDeliveredSamples() {
+    return deliveredSamples;
   }
 }
@@ -20,15 +20,24 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.AcquisitionSettings;
+import com.github.electrostar.picolib.AcquisitionStatistics;
+import com.github.electrostar.picolib.CaptureBuffer;
 import com.github.electrostar.picolib.Channel;
 import com.github.electrostar.picolib.ChannelSettings;
+import com.github.electrostar.picolib.DataLostEvent;
 import com.github.electrostar.picolib.EtsMode;
 import com.github.electrostar.picolib.EtsSettings;
 import com.github.electrostar.picolib.GeneratorSettings;
 import com.github.electrostar.picolib.OnDataCallback;
+import com.github.electrostar.picolib.OnOverviewBuffersCallback;
 import com.github.electrostar.picolib.PicoInfo;
 import com.github.electrostar.picolib.Range;
 import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.SampleScaling;
+import com.github.electrostar.picolib.StreamingSettings;
+import com.github.electrostar.picolib.StreamingStatistics;
 import com.github.electrostar.picolib.TimeUnit;
 import com.github.electrostar.picolib.Timebase;
 import com.github.electrostar.picolib.TriggerSettings;
@@ -41,11 +50,18 @@ import com.github.electrostar.picolib.exception.UnitNotFoundException;
 import com.github.electrostar.picolib.library.PS2000CLibrary;
 import com.sun.jna.Memory; // NOSONAR
 import com.sun.jna.Native; // NOSONAR
-import com.sun.jna.Pointer; // NOSONAR
 import com.sun.jna.ptr.IntByReference; // NOSONAR
 import com.sun.jna.ptr.ShortByReference; // NOSONAR
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -75,12 +91,27 @@ import java.util.logging.Logger;
 final class PicoScope2000 implements PicoUnit {
 
   private static final int MAX_CHANNELS = 2;
+  private static final int POOL_SIZE = 4;
+  private static final int MAX_TIMEBASE = 255;
   private static final UnitSeries UNIT_SERIES = UnitSeries.PICOSCOPE2000;
   
   private final List<ChannelSettings> channels = new ArrayList<>(MAX_CHANNELS);
+  private final Map<String, TimebaseTable> timebaseTables = new HashMap<>();
   private final PS2000CLibrary library;
+  // The out-parameters of the driver calls, confined to the calling thread and reused
+  private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+  private final Map<Long, NativeCaptureBuffer> bufferPool = 
+          new LinkedHashMap<Long, NativeCaptureBuffer>(POOL_SIZE, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, NativeCaptureBuffer> eldest) {
+      return size() > POOL_SIZE;
+    }
+  };
   
-  private short handle;
+  // Written by the opener thread on an asynchronous open
+  private volatile short handle;
   private UnitInfo unitInfo;
   private PS2000CLibrary.GetOverviewBuffersMaxMin deviceCallback;
   private boolean streaming;
@@ -89,8 +120,19 @@ final class PicoScope2000 implements PicoUnit {
   private TriggerSettings trigger;
   private GeneratorSettings generator;
   private EtsSettings ets;
+  private StreamingSettings streamingSettings;
+  private volatile int overviewBufferSize;
+  private int samplesPerAggregate;
   
   private Thread callbackThread;
+  private volatile StreamingDelivery delivery;
+  private volatile PS2000Callback directCallback;
+  private volatile StreamingPoller poller;
+  private volatile OverviewBufferMonitor monitor;
+  private volatile long expectedBlockNs;
+  private volatile ContinuousAcquisition acquisition;
+  private volatile CompletableFuture<ResultSet> pendingBlock;
+  private volatile CompletableFuture<PicoUnit> pendingOpen;
 
   /**
    * Creates an instance of PicoUnit to handle one physical Pico Technology PicoScope of
@@ -112,7 +154,22 @@ final class PicoScope2000 implements PicoUnit {
     trigger = null;
     generator = null;
     ets = null;
+    streamingSettings = new StreamingSettings();
+    overviewBufferSize = StreamingSettings.DEFAULT_OVERVIEW_BUFFER_SIZE;
+    samplesPerAggregate = 1;
     callbackThread = null;
+    delivery = null;
+    directCallback = null;
+    poller = null;
+    monitor = null;
+    expectedBlockNs = 0;
+    pendingBlock = null;
+    pendingOpen = null;
+    acquisition = null;
+    timebaseTables.clear();
+    synchronized (bufferPool) {
+      bufferPool.clear();
+    }
     
     for (int i = 0; i < MAX_CHANNELS; i++) {
       channels.add(new ChannelSettings());
@@ -122,6 +179,7 @@ final class PicoScope2000 implements PicoUnit {
   @Override
   public void open() throws PicoException {
     checkNotOpen();
+    checkNotOpening();
     handle = library.ps2000_open_unit();
     if (handle == 0) {
       throw new UnitNotFoundException("No PicoScope of 2000er Series found.");
@@ -130,6 +188,33 @@ final class PicoScope2000 implements PicoUnit {
     }
   }
 
+  @Override
+  public CompletableFuture<PicoUnit> openAsync(IntConsumer progress) {
+    checkNotOpen();
+    checkNotOpening();
+
+    CompletableFuture<Short> opening = UnitOpener.getShared().submit(library, progress);
+    CompletableFuture<PicoUnit> pending = opening.thenApply(h -> {
+      handle = h;
+      return this;
+    });
+    // Cancel the open itself, so a unit which opens afterwards is closed again
+    pending.whenComplete((u, ex) -> {
+      if (ex instanceof CancellationException) {
+        opening.cancel(false);
+      }
+    });
+    pendingOpen = pending;
+    return pending;
+  }
+
+  private void checkNotOpening() {
+    CompletableFuture<PicoUnit> pending = pendingOpen;
+    if (null != pending && !pending.isDone()) {
+      throw new IllegalStateException("Unit is already opening.");
+    }
+  }
+
   private void checkNotOpen() {
     if (handle > 0) {
       throw new IllegalStateException("Unit already open.");
@@ -182,7 +267,16 @@ final class PicoScope2000 implements PicoUnit {
 
   @Override
   public void close() {
+    CompletableFuture<PicoUnit> opening = pendingOpen;
+    if (null != opening) {
+      opening.cancel(false);
+    }
     if (handle > 0) {
+      stopAcquisition();
+      CompletableFuture<ResultSet> pending = pendingBlock;
+      if (null != pending) {
+        pending.cancel(false);
+      }
       library.ps2000_close_unit(handle);
       // Reset all Values
       init();
@@ -223,46 +317,56 @@ final class PicoScope2000 implements PicoUnit {
   public Timebase setTimebase(Timebase sb) throws ConfigurationException {
     checkTimebaseOptions(sb);
 
-    short timebaseId = 0;
-    boolean found = false;
-    Timebase t = null;
-
-    do {
-      t = tryTimebase(timebaseId, sb.getMinSamples(), sb.getOversample());
-      // t == null -> next Timebase
-      // ((CollectionTime * Divisions) / timeInterval) > maxSamples -> next Timebase
-      if (null != t) {
-        long neededSamples = (sb.getCollectionTime().getDivisionTime() * sb.getDivisions()) 
-                             / t.getTimeInterval();
-        if (neededSamples <= t.getMaxSamples()) {
-          // Finally set the Timebase on the Device with the current samples number
-          t = tryTimebase(timebaseId, (int) neededSamples, sb.getOversample());
-          if (null == t) {
-            throw new ConfigurationException("PS0022: Fatalerror while setting up the timebase.");
-          }
-
-          found = true;
-          t.setCollectionTime(sb.getCollectionTime());
-          t.setDivisions(sb.getDivisions());
-          t.setSamples((int) neededSamples);
-          t.setInternalTimebaseId(timebaseId);
-          t.setMinSamples(sb.getMinSamples());
-        }
-      }
-      
-      if (timebaseId >= 255) {
-        break;
-      }
-      
-      timebaseId++;
-    } while (!found);
-
-    if (found) {
-      this.timebase = t;
-      return t;
-    } else {
+    TimebaseTable table = timebaseTable(sb.getOversample());
+    long collectionTime = sb.getCollectionTime().getDivisionTime() * sb.getDivisions();
+    int index = table.find(collectionTime, sb.getMinSamples());
+    if (index < 0) {
       return null;
     }
+
+    // Finally set the Timebase on the Device with the current samples number
+    short timebaseId = table.getId(index);
+    long neededSamples = table.getNeededSamples(index, collectionTime);
+    Timebase t = tryTimebase(timebaseId, (int) neededSamples, sb.getOversample());
+    if (null == t) {
+      throw new ConfigurationException("PS0022: Fatalerror while setting up the timebase.");
+    }
+
+    t.setCollectionTime(sb.getCollectionTime());
+    t.setDivisions(sb.getDivisions());
+    t.setSamples((int) neededSamples);
+    t.setInternalTimebaseId(timebaseId);
+    t.setMinSamples(sb.getMinSamples());
+    this.timebase = t;
+    return t;
+  }
+
+  private TimebaseTable timebaseTable(short oversample) {
+    checkOpen();
+
+    // The timebases depend on the oversampling, the enabled channels and the ETS mode
+    StringBuilder key = new StringBuilder("oversample").append(oversample).append(".channels");
+    for (ChannelSettings cs : channels) {
+      key.append(cs.isEnabled() ? '1' : '0');
+    }
+    key.append(".ets").append(null == ets ? EtsMode.OFF : ets.getMode());
+
+    String k = key.toString();
+    UnitInfo info = TimebaseTable.isCacheEnabled() ? getInfo() : null;
+    TimebaseTable table = timebaseTables.get(k);
+    if (null == table) {
+      table = TimebaseTable.load(info, k);
+    }
+    if (null == table) {
+      table = TimebaseTable.probe(id -> tryTimebase((short) id, 1, oversample), MAX_TIMEBASE);
+      if (table.size() == 0) {
+        // Nothing valid at all is no capability of the unit, so probe again next time
+        return table;
+      }
+      TimebaseTable.store(info, k, table);
+    }
+    timebaseTables.put(k, table);
+    return table;
   }
 
   private void checkTimebaseOptions(Timebase sb) {
@@ -282,9 +386,10 @@ final class PicoScope2000 implements PicoUnit {
   private Timebase tryTimebase(short timebase, int numberOfSamples, short oversampling) {
     checkOpen();
 
-    IntByReference timeInterval = new IntByReference(0);
-    ShortByReference timeUnits = new ShortByReference((short) 0);
-    IntByReference maxSamples = new IntByReference(0);
+    Scratch current = scratch.get();
+    IntByReference timeInterval = current.reset(current.timeInterval);
+    ShortByReference timeUnits = current.reset(current.timeUnits);
+    IntByReference maxSamples = current.reset(current.maxSamples);
 
     short r = library.ps2000_get_timebase(
             handle, 
@@ -353,6 +458,45 @@ final class PicoScope2000 implements PicoUnit {
 
   @Override
   public void registerCallback(OnDataCallback callback) throws ConfigurationException {
+    registerCallback(callback, SampleFormat.VOLTAGE);
+  }
+
+  @Override
+  public void registerCallback(OnDataCallback callback, SampleFormat format) 
+          throws ConfigurationException {
+    checkOpen();
+    checkTimebase();
+
+    if (!streamingStarted) {
+      throw new IllegalStateException("Only allowed in Streaming mode.");
+    }
+
+    if (null != callbackThread && callbackThread.isAlive()) {
+      throw new IllegalStateException("Could not register more than one callback.");
+    }
+
+    // Aggregated data need the minima too and arrive only once per aggregate
+    boolean envelopes = samplesPerAggregate > 1;
+    SampleRing ring = new SampleRing(streamingSettings.getCapacity(), 
+            streamingSettings.getOverflowPolicy(), 
+            envelopes ? 2 * channels.size() : channels.size(), 
+            overviewBufferSize);
+    StreamingDelivery current = new StreamingDelivery(ring, callback, channels, 
+            library.getLostValue(), library.getMaxValue(), timebase, format, samplesPerAggregate);
+    delivery = current;
+    directCallback = null;
+    current.start();
+
+    StreamingPoller currentPoller = newPoller();
+    // The driver callback only copies into the ring, the delivery thread converts
+    PS2000Callback currentCallback = new PS2000Callback(ring, channels.size(), envelopes, 
+            currentPoller);
+    startPolling(currentCallback, currentPoller, ring::markLost, current::stop);
+  }
+
+  @Override
+  public void registerOverviewBufferCallback(OnOverviewBuffersCallback callback) 
+          throws ConfigurationException {
     checkOpen();
     checkTimebase();
 
@@ -364,30 +508,143 @@ final class PicoScope2000 implements PicoUnit {
       throw new IllegalStateException("Could not register more than one callback.");
     }
 
-    deviceCallback = new PS2000Callback(callback, channels, 
-            library.getLostValue(), library.getMaxValue(), timebase);
+    StreamingPoller currentPoller = newPoller();
+    // The driver callback hands the overview buffers to the application on the polling thread
+    PS2000Callback currentCallback = new PS2000Callback(callback, channels.size(), 
+            samplesPerAggregate > 1, currentPoller, overviewBufferSize);
+    delivery = null;
+    directCallback = currentCallback;
+    callback.onStreamingStarted(scalings(), timebase, samplesPerAggregate);
+
+    startPolling(currentCallback, currentPoller, callback::onDataLost, () -> {
+      try {
+        callback.onStreamingComplete();
+      } catch (RuntimeException ex) {
+        Logger.getLogger(PicoScope2000.class.getName()).log(Level.SEVERE, null, ex);
+      }
+    });
+  }
+
+  private SampleScaling[] scalings() {
+    SampleScaling[] scalings = new SampleScaling[Channel.values().length];
+    for (int i = 0; i < channels.size() && i < scalings.length; i++) {
+      ChannelSettings cs = channels.get(i);
+      if (cs.isEnabled()) {
+        scalings[i] = new SampleScaling(cs.getRange(), library.getMaxValue(), 
+                library.getLostValue());
+      }
+    }
+    return scalings;
+  }
+
+  private StreamingPoller newPoller() {
+    long valueIntervalNs = (long) timebase.getTimeInterval() * samplesPerAggregate;
+    monitor = new OverviewBufferMonitor(overviewBufferSize, streamingSettings.isAutoResize(), 
+            valueIntervalNs);
+    StreamingPoller currentPoller = new StreamingPoller(streamingSettings.getPollStrategy(), 
+            streamingSettings.getPollPeriod(), valueIntervalNs, overviewBufferSize);
+    poller = currentPoller;
+    return currentPoller;
+  }
 
+  private void startPolling(PS2000Callback currentCallback, StreamingPoller currentPoller, 
+          Consumer<DataLostEvent> lost, Runnable stopped) {
+    OverviewBufferMonitor currentMonitor = monitor;
+    deviceCallback = currentCallback;
     streaming = true;
     callbackThread = new Thread(() -> {
+      ShortByReference overrun = new ShortByReference();
       while (streaming) {
-        try {
-          short r = library.ps2000_get_streaming_last_values(
-                  handle, 
-                  deviceCallback);
-          
-          if (r == 1) {
-            Thread.sleep(5);
-          }
-        } catch (InterruptedException ex) {
-          Logger.getLogger(PicoScope2000.class.getName()).log(Level.SEVERE, null, ex);
-          Thread.currentThread().interrupt();
-        }
+        library.ps2000_get_streaming_last_values(handle, currentCallback);
+        checkOverrun(overrun, lost, currentPoller, currentMonitor);
+        currentPoller.await();
       }
+      stopped.run();
       deviceCallback = null;
-    });
+    }, "picolib-streaming-poller");
     callbackThread.start();
   }
 
+  private void checkOverrun(ShortByReference overrun, Consumer<DataLostEvent> lost, 
+          StreamingPoller currentPoller, OverviewBufferMonitor currentMonitor) {
+    if (library.ps2000_overview_buffer_status(handle, overrun) != 0 || overrun.getValue() == 0) {
+      return;
+    }
+    overrun.setValue((short) 0);
+
+    DataLostEvent event = currentMonitor.overrun(currentPoller.getMaxGapNs());
+    if (event.isResized()) {
+      // Restart with larger overview buffers, the data are lost anyway
+      library.ps2000_stop(handle);
+      if (startStreaming(event.getNewOverviewBufferSize()) != 0) {
+        // Later pollers and rings are created for the new size too
+        overviewBufferSize = event.getNewOverviewBufferSize();
+        currentMonitor.resized(event.getNewOverviewBufferSize());
+        currentPoller.setOverviewBufferSize(event.getNewOverviewBufferSize());
+      } else {
+        Logger.getLogger(PicoScope2000.class.getName()).log(Level.WARNING, 
+                "Could not restart streaming with overview buffers of {0} samples.", 
+                event.getNewOverviewBufferSize());
+        event.setNewOverviewBufferSize(event.getOverviewBufferSize());
+        streaming = startStreaming(event.getOverviewBufferSize()) != 0;
+      }
+    }
+    lost.accept(event);
+  }
+
+  @Override
+  public void setStreamingSettings(StreamingSettings settings) {
+    if (null == settings || null == settings.getOverflowPolicy() 
+            || null == settings.getPollStrategy()) {
+      throw new IllegalArgumentException("Streaming settings, overflow policy and poll strategy "
+              + "must be set.");
+    }
+    if (settings.getCapacity() < 1) {
+      throw new IllegalArgumentException("Capacity must be at least one.");
+    }
+    if (settings.getPollPeriod() < 0) {
+      throw new IllegalArgumentException("Poll period must not be negative.");
+    }
+    if (settings.getOverviewBufferSize() < 1 
+            || settings.getOverviewBufferSize() > StreamingSettings.MAX_OVERVIEW_BUFFER_SIZE) {
+      throw new IllegalArgumentException("Overview buffer size must be between 1 and " 
+              + StreamingSettings.MAX_OVERVIEW_BUFFER_SIZE + ".");
+    }
+    streamingSettings = new StreamingSettings(settings);
+  }
+
+  @Override
+  public StreamingSettings getStreamingSettings() {
+    return streamingSettings;
+  }
+
+  @Override
+  public StreamingStatistics getStreamingStatistics() {
+    StreamingDelivery current = delivery;
+    PS2000Callback currentCallback = directCallback;
+    StreamingPoller currentPoller = poller;
+    OverviewBufferMonitor currentMonitor = monitor;
+    if ((null == current && null == currentCallback) 
+            || null == currentPoller || null == currentMonitor) {
+      return null;
+    }
+    StreamingStatistics stats;
+    if (null != current) {
+      stats = current.getStatistics();
+    } else {
+      stats = new StreamingStatistics();
+      stats.setDeliveredChunks(currentCallback.getDeliveredChunks());
+      stats.setDeliveredSamples(currentCallback.getDeliveredSamples());
+    }
+    stats.setPolls(currentPoller.getPolls());
+    stats.setDataPolls(currentPoller.getDataPolls());
+    stats.setPollStrategy(currentPoller.getActive());
+    stats.setOverruns(currentMonitor.getOverruns());
+    stats.setRestarts(currentMonitor.getRestarts());
+    stats.setOverviewBufferSize(currentMonitor.getOverviewBufferSize());
+    return stats;
+  }
+
   @Override
   public boolean isStreaming() {
     return streaming;
@@ -531,7 +788,8 @@ final class PicoScope2000 implements PicoUnit {
   public void runBlock() throws ConfigurationException {
     checkOpen();
     checkTimebase();
-    IntByReference timeIndisposedMs = new IntByReference(0);
+    Scratch current = scratch.get();
+    IntByReference timeIndisposedMs = current.reset(current.timeIndisposedMs);
     short r = library.ps2000_run_block(handle,
             timebase.getSamples(),
             timebase.getInternalTimebaseId(),
@@ -540,60 +798,242 @@ final class PicoScope2000 implements PicoUnit {
     if (r == 0) {
       throw new ConfigurationException("Could not run block. Check timebase configuration.");
     }
+    expectedBlockNs = Math.max((long) timebase.getTimeInterval() * timebase.getSamples(), 
+            timeIndisposedMs.getValue() * 1_000_000L);
+  }
+
+  @Override
+  public CompletableFuture<ResultSet> captureBlockAsync() throws ConfigurationException {
+    checkOpen();
+    checkTimebase();
+
+    CompletableFuture<ResultSet> pending = pendingBlock;
+    if (isAcquiring() || (null != pending && !pending.isDone())) {
+      throw new IllegalStateException("A block capture is already running.");
+    }
+
+    runBlock();
+    pending = BlockPoller.getShared().submit(this::ready, this::getTimesAndValues, 
+            this::stopBlock, expectedBlockNs);
+    pendingBlock = pending;
+    return pending;
+  }
+
+  @Override
+  public void startAcquisition(OnDataCallback callback, AcquisitionSettings settings) 
+          throws ConfigurationException {
+    checkOpen();
+    checkTimebase();
+
+    if (streamingStarted) {
+      throw new IllegalStateException("Not allowed in Streaming mode.");
+    }
+    CompletableFuture<ResultSet> pending = pendingBlock;
+    if (isAcquiring() || (null != pending && !pending.isDone())) {
+      throw new IllegalStateException("A block capture is already running.");
+    }
+
+    ContinuousAcquisition next = new ContinuousAcquisition(this, callback, settings, 
+            timebase.getSamples());
+    next.start();
+    acquisition = next;
+  }
+
+  @Override
+  public void stopAcquisition() {
+    ContinuousAcquisition current = acquisition;
+    if (null != current) {
+      current.stop();
+      stopBlock();
+    }
+  }
+
+  @Override
+  public boolean isAcquiring() {
+    ContinuousAcquisition current = acquisition;
+    return null != current && current.isRunning();
+  }
+
+  @Override
+  public AcquisitionStatistics getAcquisitionStatistics() {
+    ContinuousAcquisition current = acquisition;
+    return null == current ? null : current.getStatistics();
+  }
+
+  /**
+   * Gets the expected time until the last started block is ready.
+   * 
+   * @return the expected time in nanoseconds.
+   */
+  long getExpectedBlockNs() {
+    return expectedBlockNs;
+  }
+
+  private void stopBlock() {
+    if (isOpen()) {
+      stop();
+    }
+  }
+
+  @Override
+  public CaptureBuffer createCaptureBuffer(int samples, SampleFormat format) {
+    return new NativeCaptureBuffer(samples, format);
   }
 
   @Override
   public ResultSet getTimesAndValues() {
+    return getTimesAndValues(SampleFormat.VOLTAGE);
+  }
+
+  @Override
+  public ResultSet getTimesAndValues(SampleFormat format) {
     checkOpen();
     checkTimebase();
 
-    Memory timesPointer;
-    Memory chABufferPointer;
-    Memory chBBufferPointer;
-    
-    timesPointer = new Memory((long)timebase.getSamples() * Native.getNativeSize(Integer.TYPE));
-    chABufferPointer = channels.get(0).isEnabled() 
-            ? new Memory((long)timebase.getSamples() * Native.getNativeSize(Short.TYPE)) : null;
-    chBBufferPointer = channels.get(1).isEnabled() 
-            ? new Memory((long)timebase.getSamples() * Native.getNativeSize(Short.TYPE)) : null;
+    NativeCaptureBuffer buffer = pooledBuffer(timebase.getSamples());
+    return readTimesAndValues(buffer, timebase.getSamples(), new ResultSet(), format);
+  }
 
-    ShortByReference overflow = new ShortByReference((short) 0);
+  @Override
+  public ResultSet getTimesAndValues(CaptureBuffer buffer) {
+    checkOpen();
+    checkTimebase();
+    if (!(buffer instanceof NativeCaptureBuffer)) {
+      throw new IllegalArgumentException("Capture buffer was not created by a PicoScope.");
+    }
 
-    List<Pointer> channelDatas = new ArrayList<>();
-    channelDatas.add(chABufferPointer);
-    channelDatas.add(chBBufferPointer);
-    
-    int read = library.ps2000_get_times_and_values(
+    NativeCaptureBuffer nativeBuffer = (NativeCaptureBuffer) buffer;
+    return readTimesAndValues(nativeBuffer, 
+            Math.min(nativeBuffer.getSamples(), timebase.getSamples()), 
+            nativeBuffer.getResultSet(), nativeBuffer.getFormat());
+  }
+
+  private NativeCaptureBuffer pooledBuffer(int samples) {
+    // Key by sample count and enabled channels, only the native memory of the buffer is used
+    long key = (long) samples << MAX_CHANNELS;
+    for (int i = 0; i < MAX_CHANNELS; i++) {
+      if (channels.get(i).isEnabled()) {
+        key |= 1 << i;
+      }
+    }
+
+    synchronized (bufferPool) {
+      NativeCaptureBuffer buffer = bufferPool.get(key);
+      if (null == buffer) {
+        buffer = new NativeCaptureBuffer(samples);
+        bufferPool.put(key, buffer);
+      }
+      return buffer;
+    }
+  }
+
+  private ResultSet readTimesAndValues(NativeCaptureBuffer buffer, int samples, ResultSet target, 
+          SampleFormat format) {
+    int read = transferTimesAndValues(buffer, samples);
+    if (read > 0) {
+      return convertTimesAndValues(buffer, read, target, format);
+    }
+    return null;
+  }
+
+  /**
+   * Transfers the raw sample data of the last block into the native memory of a buffer.
+   * Only in ETS mode the times are transferred, otherwise they are given by the timebase.
+   * 
+   * @param buffer the {@link NativeCaptureBuffer} to transfer into.
+   * @param samples the maximum number of samples to transfer.
+   * @return the number of transferred samples.
+   */
+  int transferTimesAndValues(NativeCaptureBuffer buffer, int samples) {
+    if (!isEtsActive()) {
+      return library.ps2000_get_values(
+              handle,
+              buffer.getChannel(0, channels.get(0).isEnabled()),
+              buffer.getChannel(1, channels.get(1).isEnabled()),
+              null,
+              null,
+              buffer.getOverflowReference(),
+              samples);
+    }
+    return library.ps2000_get_times_and_values(
             handle,
-            timesPointer,
-            chABufferPointer,
-            chBBufferPointer,
+            buffer.getTimes(),
+            buffer.getChannel(0, channels.get(0).isEnabled()),
+            buffer.getChannel(1, channels.get(1).isEnabled()),
             null,
             null,
-            overflow,
+            buffer.getOverflowReference(),
             (short) timebase.getTimeUnit().getId(),
-            timebase.getSamples());
+            samples);
+  }
 
-    if (read > 0) {
-      ResultSetConverter rsc = new ResultSetConverter(
-              read, 
-              library.getMaxValue(),
-              library.getLostValue(),
-              timesPointer, 
-              channelDatas, 
-              channels);
-      
-      ResultSet rs = rsc.convert();
-      rs.setCollectionTime(timebase.getCollectionTime());
-      rs.setDivisions(timebase.getDivisions());
+  /**
+   * Converts the transferred raw sample data of a buffer.
+   * 
+   * @param buffer the {@link NativeCaptureBuffer} with the transferred sample data.
+   * @param read the number of transferred samples.
+   * @param target the {@link ResultSet} to fill.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return the filled {@link ResultSet}.
+   */
+  ResultSet convertTimesAndValues(NativeCaptureBuffer buffer, int read, ResultSet target, 
+          SampleFormat format) {
+    ShortBuffer[] channelDatas = scratch.get().channelViews;
+    for (int i = 0; i < MAX_CHANNELS; i++) {
+      channelDatas[i] = buffer.getView(i, channels.get(i).isEnabled());
+    }
+
+    boolean etsActive = isEtsActive();
+    ResultSetConverter rsc = new ResultSetConverter(
+            read, 
+            library.getMaxValue(),
+            library.getLostValue(),
+            etsActive ? buffer.getTimes() : null, 
+            channelDatas, 
+            channels,
+            format);
+    
+    target.setTimeInterval(0);
+    ResultSet rs = rsc.convert(target);
+    if (etsActive) {
+      // The driver transferred the times in the unit of the timebase
+      rs.setTimeOffset(0);
       rs.setTimeUnit(timebase.getTimeUnit());
-      return rs;
+    } else {
+      // The interval of the timebase is in nanoseconds, convert it as far as it stays exact
+      TimeUnit unit = UnitHelper.exactUnit(timebase.getTimeInterval(), timebase.getTimeUnit());
+      long interval = timebase.getTimeInterval() / UnitHelper.nanosPer(unit);
+      rs.setTimeOffset(-(long) triggerSample() * interval);
+      rs.setTimeInterval(interval);
+      rs.setTimeUnit(unit);
     }
-    return null;
+    rs.setCollectionTime(timebase.getCollectionTime());
+    rs.setDivisions(timebase.getDivisions());
+    return rs;
+  }
+
+  private boolean isEtsActive() {
+    return null != ets && ets.getMode() != EtsMode.OFF;
+  }
+
+  private int triggerSample() {
+    if (null == trigger || trigger.getChannel() == Channel.NONE) {
+      return 0;
+    }
+    return Math.round(trigger.getDelay() / 100 * timebase.getSamples());
   }
 
   @Override
   public void runStreaming() throws ConfigurationException, NotSupportedException {
+    runStreaming(1);
+  }
+
+  @Override
+  public void runStreaming(int samplesPerAggregate) 
+          throws ConfigurationException, NotSupportedException {
+    if (samplesPerAggregate < 1) {
+      throw new IllegalArgumentException("At least one sample per aggregate is needed.");
+    }
     checkOpen();
     checkTimebase();
     checkSupported(new String[]{"2202", "2203", "2204", "2204A", "2205", "2205A"});
@@ -602,14 +1042,9 @@ final class PicoScope2000 implements PicoUnit {
       throw new IllegalStateException("Already in streaming mode.");
     }
 
-    short r = library.ps2000_run_streaming_ns(
-            handle,
-            timebase.getTimeInterval(),
-            (short) timebase.getTimeUnit().getId(), // Should be Nanoseconds
-            timebase.getSamples(),
-            (short) 0,
-            1,
-            30000);
+    this.samplesPerAggregate = samplesPerAggregate;
+    overviewBufferSize = streamingSettings.getOverviewBufferSize();
+    short r = startStreaming(overviewBufferSize);
 
     if (r == 0) {
       throw new ConfigurationException("One of the parameters is out of range.");
@@ -618,8 +1053,40 @@ final class PicoScope2000 implements PicoUnit {
     streamingStarted = true;
   }
 
+  private short startStreaming(int size) {
+    return library.ps2000_run_streaming_ns(
+            handle,
+            timebase.getTimeInterval(),
+            (short) timebase.getTimeUnit().getId(), // Should be Nanoseconds
+            timebase.getSamples(),
+            (short) 0,
+            samplesPerAggregate,
+            size);
+  }
+
   @Override
   public EtsSettings getEtsSettings() {
     return ets;
   }
+
+  /**
+   * Out-parameters and pointer lists of the driver calls of one thread.
+   */
+  private static final class Scratch {
+    private final IntByReference timeInterval = new IntByReference();
+    private final ShortByReference timeUnits = new ShortByReference();
+    private final IntByReference maxSamples = new IntByReference();
+    private final IntByReference timeIndisposedMs = new IntByReference();
+    private final ShortBuffer[] channelViews = new ShortBuffer[MAX_CHANNELS];
+
+    IntByReference reset(IntByReference value) {
+      value.setValue(0);
+      return value;
+    }
+
+    ShortByReference reset(ShortByReference value) {
+      value.setValue((short) 0);
+      return value;
+    }
+  }
 }
@@ -20,12 +20,19 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.AcquisitionSettings;
+import com.github.electrostar.picolib.AcquisitionStatistics;
+import com.github.electrostar.picolib.CaptureBuffer;
 import com.github.electrostar.picolib.Channel;
 import com.github.electrostar.picolib.ChannelSettings;
 import com.github.electrostar.picolib.EtsSettings;
 import com.github.electrostar.picolib.GeneratorSettings;
 import com.github.electrostar.picolib.OnDataCallback;
+import com.github.electrostar.picolib.OnOverviewBuffersCallback;
 import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.StreamingSettings;
+import com.github.electrostar.picolib.StreamingStatistics;
 import com.github.electrostar.picolib.Timebase;
 import com.github.electrostar.picolib.TriggerSettings;
 import com.github.electrostar.picolib.UnitInfo;
@@ -35,6 +42,8 @@ import com.github.electrostar.picolib.exception.NotSupportedException;
 import com.github.electrostar.picolib.exception.PicoException;
 import com.github.electrostar.picolib.exception.UnitNotFoundException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
 
 /**
  * Interface of a PicoUnit.
@@ -122,6 +131,32 @@ public interface PicoUnit {
    */
   void open() throws PicoException;
 
+  /**
+   * Open a unit asynchronously. The firmware of a unit takes seconds to load, the opens of all 
+   * units are queued and run one after another without blocking the caller. Cancelling the 
+   * returned future before the unit is open closes the unit again.
+   * 
+   * @return the future of this unit, completed exceptionally with an 
+   *         {@link UnitNotFoundException} if no unit was found or it failed to open.
+   * @throws IllegalStateException if the unit is already open or opening.
+   */
+  default CompletableFuture<PicoUnit> openAsync() {
+    return openAsync(null);
+  }
+
+  /**
+   * Open a unit asynchronously and report the progress. The firmware of a unit takes seconds to 
+   * load, the opens of all units are queued and run one after another without blocking the 
+   * caller. Cancelling the returned future before the unit is open closes the unit again.
+   * 
+   * @param progress receives the estimated progress in percent from 0 to 100, may be 
+   *                 {@code null}. Called on a thread shared by all units.
+   * @return the future of this unit, completed exceptionally with an 
+   *         {@link UnitNotFoundException} if no unit was found or it failed to open.
+   * @throws IllegalStateException if the unit is already open or opening.
+   */
+  CompletableFuture<PicoUnit> openAsync(IntConsumer progress);
+
   /**
    * Gets the open unit status.
    * 
@@ -161,6 +196,58 @@ public interface PicoUnit {
    */
   void runBlock() throws ConfigurationException;
 
+  /**
+   * Start block mode execution on the oscilloscope and receive the sample data asynchronous. The
+   * readiness of the block is polled by a thread shared by all units. Cancelling the returned 
+   * future stops the block.
+   * 
+   * @return the future of the {@code ResultSet}, completed with {@code null} if no sample data 
+   *         could be received.
+   * @throws ConfigurationException if the previous configuration is not valid.
+   */
+  CompletableFuture<ResultSet> captureBlockAsync() throws ConfigurationException;
+
+  /**
+   * Start a continuous acquisition of blocks. The next block is armed right after the raw 
+   * transfer of the previous one, the conversion and delivery run on another thread.
+   * 
+   * @param callback the application callback for every block.
+   * @param settings the {@link AcquisitionSettings}.
+   * @throws ConfigurationException if the previous configuration is not valid.
+   */
+  void startAcquisition(OnDataCallback callback, AcquisitionSettings settings) 
+          throws ConfigurationException;
+
+  /**
+   * Stops a running continuous acquisition.
+   */
+  void stopAcquisition();
+
+  /**
+   * Gets the status if a continuous acquisition is running.
+   * 
+   * @return {@code true} if acquiring, otherwise {@code false}.
+   */
+  boolean isAcquiring();
+
+  /**
+   * Gets the {@link AcquisitionStatistics} of the current or last continuous acquisition.
+   * 
+   * @return the {@link AcquisitionStatistics} or {@code null} if there was no acquisition.
+   */
+  AcquisitionStatistics getAcquisitionStatistics();
+
+  /**
+   * Creates a reusable {@link CaptureBuffer} for this unit.
+   * 
+   * @param samples the maximum number of samples per channel.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return a new {@link CaptureBuffer}.
+   * @throws IllegalArgumentException if the number of samples is not positive or no format is 
+   *                                  given.
+   */
+  CaptureBuffer createCaptureBuffer(int samples, SampleFormat format);
+
   /**
    * Gets the sample data and time values of last block mode execution.
    * 
@@ -168,6 +255,25 @@ public interface PicoUnit {
    */
   ResultSet getTimesAndValues();
 
+  /**
+   * Gets the sample data and time values of last block mode execution in the given format.
+   * 
+   * @param format the {@link SampleFormat} of the sample data.
+   * @return {@code ResultSet} if sample data could received and converted, otherwise {@code null}.
+   */
+  ResultSet getTimesAndValues(SampleFormat format);
+
+  /**
+   * Gets the sample data and time values of last block mode execution into a reusable 
+   * {@link CaptureBuffer}. At most {@link CaptureBuffer#getSamples()} samples are read.
+   * 
+   * @param buffer the {@link CaptureBuffer} to read into.
+   * @return the {@code ResultSet} of the buffer if sample data could received and converted, 
+   *         otherwise {@code null}.
+   * @throws IllegalArgumentException if the buffer was not created by this unit series.
+   */
+  ResultSet getTimesAndValues(CaptureBuffer buffer);
+
   /**
    * Start the streaming mode execution on the oscilloscope.
    * 
@@ -176,6 +282,17 @@ public interface PicoUnit {
    */
   void runStreaming() throws ConfigurationException, NotSupportedException;
 
+  /**
+   * Start the streaming mode execution on the oscilloscope with aggregation. The driver merges 
+   * the given number of samples into one minimum and maximum value pair.
+   * 
+   * @param samplesPerAggregate the number of samples per aggregate, at least one.
+   * @throws ConfigurationException if the previous configuration is not valid.
+   * @throws NotSupportedException if this function is not supported by the unit.
+   */
+  void runStreaming(int samplesPerAggregate) 
+          throws ConfigurationException, NotSupportedException;
+
   /**
    * Register an application callback for new sample data arrived.
    * 
@@ -184,6 +301,48 @@ public interface PicoUnit {
    */
   void registerCallback(OnDataCallback callback) throws ConfigurationException;
 
+  /**
+   * Register an application callback for new sample data arrived in the given format.
+   * 
+   * @param callback the application callback method.
+   * @param format the {@link SampleFormat} of the sample data.
+   * @throws ConfigurationException if the previous configuration is not valid.
+   */
+  void registerCallback(OnDataCallback callback, SampleFormat format) 
+          throws ConfigurationException;
+
+  /**
+   * Register an application callback which receives read-only views of the overview buffers of 
+   * the driver without copying or converting them.
+   * 
+   * @param callback the application callback method.
+   * @throws ConfigurationException if the previous configuration is not valid.
+   */
+  void registerOverviewBufferCallback(OnOverviewBuffersCallback callback) 
+          throws ConfigurationException;
+
+  /**
+   * Sets the {@link StreamingSettings} for the buffering between the driver and the callback. 
+   * They are applied on the next registration of a callback.
+   * 
+   * @param settings the {@link StreamingSettings}.
+   */
+  void setStreamingSettings(StreamingSettings settings);
+
+  /**
+   * Gets the {@link StreamingSettings}.
+   * 
+   * @return the {@link StreamingSettings}.
+   */
+  StreamingSettings getStreamingSettings();
+
+  /**
+   * Gets the {@link StreamingStatistics} of the current or last registered callback.
+   * 
+   * @return the {@link StreamingStatistics} or {@code null} if no callback was registered.
+   */
+  StreamingStatistics getStreamingStatistics();
+
   /**
    * Setup the {@link Timebase}.
    * 
@@ -20,13 +20,17 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.Aggregation;
+import com.github.electrostar.picolib.Channel;
 import com.github.electrostar.picolib.ChannelSettings;
 import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.SampleScaling;
 import com.sun.jna.Pointer; // NOSONAR
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * Converts the integer based values to float based voltages.
@@ -41,8 +45,11 @@ class ResultSetConverter {
   private final int maxDataValue;
   private final int numberOfSamples;
   private final Pointer times;
-  private final List<Pointer> channelDatas;
+  private final ShortBuffer[] channelDatas;
+  private final ShortBuffer[] minDatas;
   private final List<ChannelSettings> channelSettings;
+  private final ConversionExecutor executor;
+  private final SampleFormat format;
 
   ResultSetConverter(int numberOfSamples, 
           int maxDataValue,
@@ -50,7 +57,8 @@ class ResultSetConverter {
           Pointer times, 
           List<Pointer> channelDatas,
           List<ChannelSettings> channelSettings) {
-    this(numberOfSamples, maxDataValue, lostDataValue, times, channelDatas, channelSettings, 4);
+    this(numberOfSamples, maxDataValue, lostDataValue, times, channelDatas, channelSettings, 
+            ConversionExecutor.getShared().getParallelism());
   }
 
   ResultSetConverter(int numberOfSamples, 
@@ -60,12 +68,83 @@ class ResultSetConverter {
           List<Pointer> channelDatas, 
           List<ChannelSettings> channelSettings, 
           int threadsPerCalc) {
+    this(numberOfSamples, maxDataValue, lostDataValue, times, channelDatas, channelSettings, 
+            threadsPerCalc, SampleFormat.VOLTAGE);
+  }
+
+  ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          Pointer times, 
+          List<Pointer> channelDatas, 
+          List<ChannelSettings> channelSettings, 
+          SampleFormat format) {
+    this(numberOfSamples, maxDataValue, lostDataValue, times, channelDatas, channelSettings, 
+            ConversionExecutor.getShared().getParallelism(), format);
+  }
+
+  ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          Pointer times, 
+          List<Pointer> channelDatas, 
+          List<ChannelSettings> channelSettings, 
+          int threadsPerCalc,
+          SampleFormat format) {
+    this(numberOfSamples, maxDataValue, lostDataValue, times, 
+            views(channelDatas, numberOfSamples), null, channelSettings, threadsPerCalc, format);
+  }
+
+  ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          Pointer times, 
+          ShortBuffer[] channelDatas, 
+          List<ChannelSettings> channelSettings, 
+          SampleFormat format) {
+    this(numberOfSamples, maxDataValue, lostDataValue, times, channelDatas, null, 
+            channelSettings, ConversionExecutor.getShared().getParallelism(), format);
+  }
+
+  ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          ShortBuffer[] channelDatas, 
+          List<ChannelSettings> channelSettings, 
+          SampleFormat format) {
+    this(numberOfSamples, maxDataValue, lostDataValue, channelDatas, null, channelSettings, 
+            format);
+  }
+
+  ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          ShortBuffer[] channelDatas, 
+          ShortBuffer[] minDatas, 
+          List<ChannelSettings> channelSettings, 
+          SampleFormat format) {
+    this(numberOfSamples, maxDataValue, lostDataValue, null, channelDatas, minDatas, 
+            channelSettings, ConversionExecutor.getShared().getParallelism(), format);
+  }
+
+  private ResultSetConverter(int numberOfSamples, 
+          int maxDataValue,
+          int lostDataValue,
+          Pointer times, 
+          ShortBuffer[] channelDatas, 
+          ShortBuffer[] minDatas, 
+          List<ChannelSettings> channelSettings, 
+          int threadsPerCalc,
+          SampleFormat format) {
     this.numberOfSamples = numberOfSamples;
     this.maxDataValue = maxDataValue;
     this.lostDataValue = lostDataValue;
     this.times = times;
     this.channelDatas = channelDatas;
+    this.minDatas = minDatas;
     this.channelSettings = channelSettings;
+    this.executor = ConversionExecutor.getShared();
+    this.format = null == format ? SampleFormat.VOLTAGE : format;
     
     // If wrong ThreadsPerCalc Value set it automatic to 1
     if (threadsPerCalc <= 0) {
@@ -76,73 +155,173 @@ class ResultSetConverter {
       
   }
 
+  private static ShortBuffer[] views(List<Pointer> pointers, int numberOfSamples) {
+    // Read straight from the native buffers, all tasks share the same views
+    ShortBuffer[] views = new ShortBuffer[pointers.size()];
+    for (int i = 0; i < views.length; i++) {
+      Pointer p = pointers.get(i);
+      if (null != p) {
+        views[i] = p.getByteBuffer(0, (long) Math.max(numberOfSamples, 0) * Short.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asShortBuffer();
+      }
+    }
+    return views;
+  }
+
   public ResultSet convert() {
-    ResultSet rs = new ResultSet();
+    return convert(new ResultSet());
+  }
+
+  /**
+   * Converts into an existing {@link ResultSet}. Its arrays are overwritten and only replaced if 
+   * their length does not match the number of samples, so repeated conversions of the same size 
+   * do not allocate any sample arrays.
+   * 
+   * @param rs the {@link ResultSet} to fill.
+   * @return the filled {@link ResultSet}.
+   */
+  public ResultSet convert(ResultSet rs) {
     rs.setNumberOfSamples(numberOfSamples);
+    if (null == minDatas) {
+      rs.setAggregation(null);
+    } else if (null == rs.getAggregation()) {
+      rs.setAggregation(new Aggregation());
+    }
     if (numberOfSamples > 0) {
+      int[] timeData = null;
       if (null != times) {
-        rs.setTimes(times.getIntArray(0, numberOfSamples));
+        timeData = reuse(rs.getTimes());
+        times.read(0, timeData, 0, numberOfSamples);
       }
+      rs.setTimes(timeData);
 
-      List<Thread> threads = new ArrayList<>();
+      List<CalculateValuesTask> tasks = new ArrayList<>();
 
       int steps = numberOfSamples / threadsPerCalc;
-      for (int i = 0; i < channelDatas.size(); i++) {
-        convertChannelData(i, rs, steps, threads);
+      long totalSamples = 0;
+      for (int i = 0; i < channelCount(); i++) {
+        if (convertChannelData(i, false, rs, steps, tasks)) {
+          totalSamples += numberOfSamples;
+        }
+        if (convertChannelData(i, true, rs, steps, tasks)) {
+          totalSamples += numberOfSamples;
+        }
       }
       
-      // Wait for all Threads to be finished
-      threads.forEach(t -> {
-        try {
-          t.join();
-        } catch (InterruptedException ex) {
-          Logger.getLogger(PicoScope2000.class.getName()).log(Level.SEVERE, null, ex);
-          Thread.currentThread().interrupt();
-        }
-      });
+      // Run all Tasks on the shared executor and wait for them to be finished
+      executor.invokeAll(tasks, totalSamples);
+    } else {
+      rs.setTimes(null);
+      for (int i = 0; i < channelCount(); i++) {
+        setChannel(rs, i, false, null, null);
+        setChannel(rs, i, true, null, null);
+        clearScaling(rs, i);
+      }
     }
+    rs.setSampleFormat(format);
 
     return rs;
   }
 
-  private void convertChannelData(int i, ResultSet rs, int steps, List<Thread> threads) {
-    Pointer channel = channelDatas.get(i);
+  private boolean convertChannelData(int i, boolean min, ResultSet rs, int steps, 
+          List<CalculateValuesTask> tasks) {
+    ShortBuffer[] datas = min ? minDatas : channelDatas;
+    ShortBuffer channel = null != datas && i < datas.length ? datas[i] : null;
     // Only Process when there is data
-    if (null != channel) {
-      // Calculate the multiplier for this channel
-      ChannelSettings cs = channelSettings.get(i);
-      float multiplier = ((float) cs.getRange().getValue() / 1000) / maxDataValue;
-
-      // Create Float Array
-      float[] convertedData = new float[numberOfSamples];
-
-      switch (i) {
-        case 0:
-          rs.setChannelA(convertedData);
-          break;
-        case 1:
-          rs.setChannelB(convertedData);
-          break;
-        case 2:
-          rs.setChannelC(convertedData);
-          break;
-        case 3:
-          rs.setChannelD(convertedData);
-          break;
-        default:
-          break;
+    if (null == channel) {
+      setChannel(rs, i, min, null, null);
+      if (!min) {
+        clearScaling(rs, i);
+      }
+      return false;
+    }
+
+    ChannelSettings cs = channelSettings.get(i);
+    if (SampleFormat.ADC_COUNTS == format) {
+      // Keep the ADC counts as they are, voltages are calculated on demand by the ResultSet
+      short[] counts = reuse(getRawChannel(rs, i, min));
+      channel.duplicate().get(counts, 0, numberOfSamples);
+      setChannel(rs, i, min, null, counts);
+
+      Channel ch = Channel.findById(i);
+      SampleScaling scaling = rs.getScaling(ch);
+      if (null == scaling || scaling.getRange() != cs.getRange() 
+              || scaling.getMaxValue() != maxDataValue || scaling.getLostValue() != lostDataValue) {
+        rs.setScaling(ch, new SampleScaling(cs.getRange(), maxDataValue, lostDataValue));
       }
+      return false;
+    }
+
+    // Calculate the multiplier for this channel
+    float multiplier = ((float) cs.getRange().getValue() / 1000) / maxDataValue;
+
+    // Reuse the Float Array of a previous voltage conversion
+    float[] convertedData = SampleFormat.VOLTAGE == rs.getSampleFormat() 
+            ? reuse(getChannel(rs, i, min)) : new float[numberOfSamples];
+    setChannel(rs, i, min, convertedData, null);
+    clearScaling(rs, i);
+
+    createTasks(steps, tasks, channel, convertedData, multiplier);
+    return true;
+  }
+
+  private int channelCount() {
+    // As many channels as the unit transfers columns for
+    return Math.max(null == channelDatas ? 0 : channelDatas.length, 
+            null == minDatas ? 0 : minDatas.length);
+  }
+
+  private static void clearScaling(ResultSet rs, int i) {
+    Channel ch = Channel.findById(i);
+    if (null != rs.getScaling(ch)) {
+      rs.setScaling(ch, null);
+    }
+  }
+
+  private int[] reuse(int[] old) {
+    return null != old && old.length == numberOfSamples ? old : new int[numberOfSamples];
+  }
+
+  private float[] reuse(float[] old) {
+    return null != old && old.length == numberOfSamples ? old : new float[numberOfSamples];
+  }
 
-      createThreads(steps, threads, channel, convertedData, multiplier);
+  private short[] reuse(short[] old) {
+    return null != old && old.length == numberOfSamples ? old : new short[numberOfSamples];
+  }
+
+  private static float[] getChannel(ResultSet rs, int i, boolean min) {
+    Channel ch = Channel.findById(i);
+    return min ? rs.getAggregation().getChannel(ch) : rs.getChannel(ch);
+  }
+
+  private static short[] getRawChannel(ResultSet rs, int i, boolean min) {
+    Channel ch = Channel.findById(i);
+    return min ? rs.getAggregation().getRawChannel(ch) : rs.getRawChannel(ch);
+  }
+
+  private static void setChannel(ResultSet rs, int i, boolean min, float[] volts, 
+          short[] counts) {
+    Channel ch = Channel.findById(i);
+    if (!min) {
+      rs.setChannel(ch, volts);
+      rs.setRawChannel(ch, counts);
+      return;
+    }
+    Aggregation aggregation = rs.getAggregation();
+    if (null != aggregation) {
+      aggregation.setChannel(ch, volts);
+      aggregation.setRawChannel(ch, counts);
     }
   }
 
-  private void createThreads(int steps, 
-          List<Thread> threads, 
-          Pointer channel, 
+  private void createTasks(int steps, 
+          List<CalculateValuesTask> tasks, 
+          ShortBuffer values, 
           float[] convertedData, 
           float multiplier) {
-    // Create Threads and start them
+    // Split the channel into one task per thread
     for (int threadCnt = 0; threadCnt < threadsPerCalc; threadCnt++) {
       int start = threadCnt * steps;
       int end = (threadCnt + 1) * steps;
@@ -150,41 +329,27 @@ class ResultSetConverter {
         end = numberOfSamples;
       }
 
-      threads.add(calculateValues(start,
-              end,
-              channel.getShortArray(0, numberOfSamples),
-              convertedData,
-              multiplier));
+      tasks.add(new CalculateValuesTask(start,
+                                        end, 
+                                        lostDataValue, 
+                                        values, 
+                                        convertedData, 
+                                        multiplier));
     }
   }
-
-  private Thread calculateValues(int start, 
-          int end, 
-          short[] values, 
-          float[] target, 
-          float multiplier) {
-    Thread t = new Thread(new CalculateValuesTask(start,
-                                                  end, 
-                                                  lostDataValue, 
-                                                  values, 
-                                                  target, 
-                                                  multiplier));
-    t.start();
-    return t;
-  }
   
   private static class CalculateValuesTask implements Runnable {
     int start;
     int end;
     int lostDataValue;
-    short[] values;
+    ShortBuffer values;
     float[] target;
     float multiplier;
 
     CalculateValuesTask(int start, 
                         int end, 
                         int lostDataValue, 
-                        short[] values, 
+                        ShortBuffer values, 
                         float[] target, 
                         float multiplier) {
       this.start = start;
@@ -198,10 +363,11 @@ class ResultSetConverter {
     @Override
     public void run() {
       for (int i = start; i < end; i++) {
-        if (values[i] == lostDataValue) {
+        short value = values.get(i);
+        if (value == lostDataValue) {
           target[i] = Float.MAX_VALUE;
         } else {
-          target[i] = multiplier * values[i];
+          target[i] = multiplier * value;
         }
       }
     }
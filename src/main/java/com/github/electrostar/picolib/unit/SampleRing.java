@@ -0,0 +1,352 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.DataLostEvent;
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.sun.jna.Pointer; // NOSONAR
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single producer, single consumer ring of preallocated sample chunks.
+ * <p>
+ * The producer is the streaming driver callback, which only copies the overview buffers into 
+ * the next free chunk. The consumer converts and delivers the chunks on its own thread. Neither 
+ * side takes a lock or allocates once the ring is constructed, the positions are published with 
+ * ordered writes only.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class SampleRing {
+
+  private static final long BLOCK_WAIT_NS = 100_000;
+
+  private final Chunk[] chunks;
+  private final OverflowPolicy policy;
+  private final int chunkSamples;
+  // Next position to write, only advanced by the producer
+  private final AtomicLong head = new AtomicLong();
+  // Next position to read, only advanced by the consumer
+  private final AtomicLong tail = new AtomicLong();
+
+  // Only accessed by the producer
+  private DataLostEvent lost;
+  private long nextIndex;
+
+  private volatile boolean closed;
+  private volatile long droppedChunks;
+  private volatile long droppedSamples;
+  private volatile long blockedChunks;
+
+  /**
+   * Constructs a {@code SampleRing}.
+   * 
+   * @param capacity the number of chunks.
+   * @param policy the {@link OverflowPolicy} if all chunks are in use.
+   * @param channels the number of channels per chunk.
+   * @param chunkSamples the maximum number of samples per channel and chunk.
+   * @throws IllegalArgumentException if one of the parameters is not valid.
+   */
+  SampleRing(int capacity, OverflowPolicy policy, int channels, int chunkSamples) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least one.");
+    }
+    if (null == policy) {
+      throw new IllegalArgumentException("Overflow policy must be set.");
+    }
+    if (channels < 1 || chunkSamples < 1) {
+      throw new IllegalArgumentException("Channels and samples must be positive.");
+    }
+
+    this.policy = policy;
+    this.chunkSamples = chunkSamples;
+    this.chunks = new Chunk[capacity];
+    for (int i = 0; i < capacity; i++) {
+      chunks[i] = new Chunk(channels, chunkSamples);
+    }
+  }
+
+  /**
+   * Copies the sample data of one driver call into the next free chunks. Data which do not fit 
+   * into one chunk are split over several chunks. Only called by the producer.
+   * 
+   * @param sources the native buffers per channel, {@code null} for channels without data.
+   * @param samples the number of samples per channel.
+   * @return {@code true} if all data were buffered, {@code false} if some were dropped or the 
+   *         ring is closed.
+   */
+  boolean offer(Pointer[] sources, int samples) {
+    return offer(sources, samples, (short) 0, -1, false);
+  }
+
+  /**
+   * Copies the sample data of one driver call together with the status the driver reported 
+   * into the next free chunks. Each chunk gets the index of its first sample since the ring was 
+   * constructed, dropped samples are counted too so that gaps stay visible. Only called by the 
+   * producer.
+   * 
+   * @param sources the native buffers per channel, {@code null} for channels without data.
+   * @param samples the number of samples per channel.
+   * @param overflow the bit field of channels whose range was exceeded.
+   * @param triggerIndex the index of the trigger event within the samples, {@code -1} if the 
+   *                     trigger did not fire within them.
+   * @param autoStop {@code true} if the driver stopped streaming automatically.
+   * @return {@code true} if all data were buffered, {@code false} if some were dropped or the 
+   *         ring is closed.
+   */
+  boolean offer(Pointer[] sources, int samples, short overflow, int triggerIndex, 
+          boolean autoStop) {
+    boolean complete = true;
+    for (int offset = 0; offset < samples; offset += chunkSamples) {
+      int count = Math.min(samples - offset, chunkSamples);
+      int trigger = triggerIndex >= offset && triggerIndex < offset + count 
+              ? triggerIndex - offset : -1;
+      // The auto stop belongs to the last chunk only
+      boolean last = offset + count >= samples;
+      complete &= offer(sources, offset, count, overflow, trigger, autoStop && last);
+      nextIndex += count;
+    }
+    return complete;
+  }
+
+  private boolean offer(Pointer[] sources, int offset, int samples, short overflow, 
+          int triggerIndex, boolean autoStop) {
+    if (closed) {
+      return false;
+    }
+
+    long position = head.get();
+    if (position - tail.get() >= chunks.length) {
+      if (OverflowPolicy.DROP == policy) {
+        droppedChunks++;
+        droppedSamples += samples;
+        return false;
+      }
+
+      blockedChunks++;
+      while (position - tail.get() >= chunks.length) {
+        if (closed) {
+          return false;
+        }
+        LockSupport.parkNanos(BLOCK_WAIT_NS);
+      }
+    }
+
+    Chunk chunk = chunks[(int) (position % chunks.length)];
+    chunk.fill(sources, offset, samples);
+    chunk.startIndex = nextIndex;
+    chunk.triggerIndex = triggerIndex;
+    chunk.overflow = overflow;
+    chunk.autoStop = autoStop;
+    chunk.lost = lost;
+    lost = null;
+    head.lazySet(position + 1);
+    return true;
+  }
+
+  /**
+   * Marks that the driver lost data. The event is handed to the consumer with the next chunk, 
+   * so it is delivered in order with the sample data. Only called by the producer.
+   * 
+   * @param event the {@link DataLostEvent}.
+   */
+  void markLost(DataLostEvent event) {
+    lost = event;
+  }
+
+  /**
+   * Gets the oldest filled chunk without removing it. Only called by the consumer.
+   * 
+   * @return the chunk or {@code null} if the ring is empty.
+   */
+  Chunk peek() {
+    long position = tail.get();
+    if (position == head.get()) {
+      return null;
+    }
+    return chunks[(int) (position % chunks.length)];
+  }
+
+  /**
+   * Hands the chunk returned by {@link #peek()} back to the producer. Only called by the 
+   * consumer.
+   */
+  void release() {
+    tail.lazySet(tail.get() + 1);
+  }
+
+  /**
+   * Closes the ring. Further data are not accepted and a waiting producer returns.
+   */
+  void close() {
+    closed = true;
+  }
+
+  /**
+   * Gets the status if the ring is closed.
+   * 
+   * @return {@code true} if closed, otherwise {@code false}.
+   */
+  boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Gets the number of chunks.
+   * 
+   * @return the capacity.
+   */
+  int getCapacity() {
+    return chunks.length;
+  }
+
+  /**
+   * Gets the number of dropped chunks.
+   * 
+   * @return the number of dropped chunks.
+   */
+  long getDroppedChunks() {
+    return droppedChunks;
+  }
+
+  /**
+   * Gets the number of dropped samples per channel.
+   * 
+   * @return the number of dropped samples.
+   */
+  long getDroppedSamples() {
+    return droppedSamples;
+  }
+
+  /**
+   * Gets the number of chunks for which the producer had to wait for a free chunk.
+   * 
+   * @return the number of blocked chunks.
+   */
+  long getBlockedChunks() {
+    return blockedChunks;
+  }
+
+  /**
+   * Preallocated sample data of one driver call.
+   */
+  static final class Chunk {
+
+    private final short[][] data;
+    private final ShortBuffer[] views;
+    private final ShortBuffer[] channels;
+    private int samples;
+    private long startIndex;
+    private int triggerIndex;
+    private short overflow;
+    private boolean autoStop;
+    private DataLostEvent lost;
+
+    private Chunk(int channels, int chunkSamples) {
+      this.data = new short[channels][chunkSamples];
+      this.views = new ShortBuffer[channels];
+      this.channels = new ShortBuffer[channels];
+      for (int i = 0; i < channels; i++) {
+        views[i] = ShortBuffer.wrap(data[i]);
+      }
+    }
+
+    private void fill(Pointer[] sources, int offset, int samples) {
+      for (int i = 0; i < channels.length; i++) {
+        Pointer source = i < sources.length ? sources[i] : null;
+        if (null == source) {
+          channels[i] = null;
+        } else {
+          source.read((long) offset * Short.BYTES, data[i], 0, samples);
+          channels[i] = views[i];
+        }
+      }
+      this.samples = samples;
+    }
+
+    /**
+     * Gets the number of samples per channel.
+     * 
+     * @return the number of samples.
+     */
+    int getSamples() {
+      return samples;
+    }
+
+    /**
+     * Gets the sample data per channel. The buffers are only valid until the chunk is released.
+     * 
+     * @return the sample data, {@code null} for channels without data.
+     */
+    ShortBuffer[] getChannels() {
+      return channels;
+    }
+
+    /**
+     * Gets the index of the first sample since the ring was constructed.
+     * 
+     * @return the start index.
+     */
+    long getStartIndex() {
+      return startIndex;
+    }
+
+    /**
+     * Gets the index of the trigger event within the samples of this chunk.
+     * 
+     * @return the trigger index or {@code -1} if the trigger did not fire within the chunk.
+     */
+    int getTriggerIndex() {
+      return triggerIndex;
+    }
+
+    /**
+     * Gets the bit field of channels whose range was exceeded.
+     * 
+     * @return the overflow bits.
+     */
+    short getOverflow() {
+      return overflow;
+    }
+
+    /**
+     * Gets if the driver stopped streaming automatically after this chunk.
+     * 
+     * @return {@code true} if streaming stopped.
+     */
+    boolean isAutoStop() {
+      return autoStop;
+    }
+
+    /**
+     * Gets the data lost event which happened before the sample data of this chunk.
+     * 
+     * @return the {@link DataLostEvent} or {@code null} if no data were lost.
+     */
+    DataLostEvent getLost() {
+      return lost;
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.ChannelSettings;
+import com.github.electrostar.picolib.OnDataCallback;
+import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.StreamingInfo;
+import com.github.electrostar.picolib.StreamingStatistics;
+import com.github.electrostar.picolib.TimeUnit;
+import com.github.electrostar.picolib.Timebase;
+import java.nio.ShortBuffer;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivery of streamed sample data to the application.
+ * <p>
+ * A dedicated thread takes the chunks out of a {@link SampleRing}, converts them and calls the 
+ * application callback. The driver callback therefore only has to copy the raw data and a slow 
+ * application callback does not hold up the driver.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class StreamingDelivery {
+
+  private static final long IDLE_WAIT_NS = 1_000_000;
+
+  private final SampleRing ring;
+  private final OnDataCallback callback;
+  private final List<ChannelSettings> channels;
+  private final int lostValue;
+  private final int maxValue;
+  private final Timebase timebase;
+  private final SampleFormat format;
+  private final int samplesPerAggregate;
+  private final ShortBuffer[] maxima;
+  private final ShortBuffer[] minima;
+  private final Thread thread;
+
+  private volatile long deliveredChunks;
+  private volatile long deliveredSamples;
+
+  /**
+   * Constructs a {@code StreamingDelivery}.
+   * 
+   * @param ring the {@link SampleRing} filled by the driver callback.
+   * @param callback the application callback.
+   * @param channels the settings of the channels.
+   * @param lostValue the value on which sample data are mean to be lost.
+   * @param maxValue the maximum value of the voltage range mapped as digital int value.
+   * @param timebase the {@link Timebase} to set the additional informations in the 
+   *                 {@link ResultSet}.
+   * @param format the {@link SampleFormat} of the delivered sample data.
+   * @param samplesPerAggregate the number of samples per aggregate. If it is more than one the 
+   *                            ring holds the maxima and minima of each channel one after 
+   *                            another.
+   */
+  StreamingDelivery(SampleRing ring, 
+          OnDataCallback callback, 
+          List<ChannelSettings> channels, 
+          int lostValue, 
+          int maxValue, 
+          Timebase timebase, 
+          SampleFormat format, 
+          int samplesPerAggregate) {
+    this.ring = ring;
+    this.callback = callback;
+    this.channels = channels;
+    this.lostValue = lostValue;
+    this.maxValue = maxValue;
+    this.timebase = timebase;
+    this.format = format;
+    this.samplesPerAggregate = samplesPerAggregate;
+    this.maxima = samplesPerAggregate > 1 ? new ShortBuffer[channels.size()] : null;
+    this.minima = samplesPerAggregate > 1 ? new ShortBuffer[channels.size()] : null;
+
+    thread = new Thread(this::deliver, "picolib-streaming-delivery");
+    thread.setDaemon(true);
+  }
+
+  /**
+   * Starts the delivery thread.
+   */
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Closes the ring and waits until all buffered chunks are delivered.
+   */
+  void stop() {
+    ring.close();
+    try {
+      // Lets a callback which holds up the delivery return, otherwise the join never ends
+      callback.onStreamingStopping();
+    } catch (RuntimeException ex) {
+      Logger.getLogger(StreamingDelivery.class.getName()).log(Level.SEVERE, null, ex);
+    }
+    try {
+      if (Thread.currentThread() != thread) {
+        thread.join();
+      }
+    } catch (InterruptedException ex) {
+      Logger.getLogger(StreamingDelivery.class.getName()).log(Level.SEVERE, null, ex);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets the current {@link StreamingStatistics}.
+   * 
+   * @return the {@link StreamingStatistics}.
+   */
+  StreamingStatistics getStatistics() {
+    return new StreamingStatistics(deliveredChunks, deliveredSamples, ring.getDroppedChunks(), 
+            ring.getDroppedSamples(), ring.getBlockedChunks(), 0, 0, null, 0, 0, 0);
+  }
+
+  private void deliver() {
+    while (true) {
+      SampleRing.Chunk chunk = ring.peek();
+      if (null == chunk) {
+        if (ring.isClosed() && null == ring.peek()) {
+          complete();
+          return;
+        }
+        LockSupport.parkNanos(IDLE_WAIT_NS);
+        continue;
+      }
+
+      try {
+        dispatch(chunk);
+      } finally {
+        ring.release();
+      }
+    }
+  }
+
+  private void complete() {
+    try {
+      callback.onStreamingComplete();
+    } catch (RuntimeException ex) {
+      Logger.getLogger(StreamingDelivery.class.getName()).log(Level.SEVERE, null, ex);
+    }
+  }
+
+  private void dispatch(SampleRing.Chunk chunk) {
+    try {
+      if (null != chunk.getLost()) {
+        callback.onDataLost(chunk.getLost());
+      }
+
+      ShortBuffer[] data = chunk.getChannels();
+      if (null != minima) {
+        for (int i = 0; i < maxima.length; i++) {
+          maxima[i] = data[2 * i];
+          minima[i] = data[2 * i + 1];
+        }
+        data = maxima;
+      }
+
+      ResultSetConverter rsc = new ResultSetConverter(
+              chunk.getSamples(), 
+              maxValue, 
+              lostValue, 
+              data, 
+              minima, 
+              channels, 
+              format);
+
+      ResultSet rs = rsc.convert();
+      if (null != rs.getAggregation()) {
+        rs.getAggregation().setSamplesPerAggregate(samplesPerAggregate);
+      }
+      rs.setCollectionTime(timebase.getCollectionTime());
+      rs.setDivisions(timebase.getDivisions());
+      // The interval of the timebase is in nanoseconds, convert it as far as it stays exact
+      long intervalNs = (long) timebase.getTimeInterval() * samplesPerAggregate;
+      TimeUnit unit = UnitHelper.exactUnit(intervalNs, timebase.getTimeUnit());
+      long interval = intervalNs / UnitHelper.nanosPer(unit);
+      rs.setTimeUnit(unit);
+      // The times are derived from the start index instead of being materialized per sample
+      rs.setTimeOffset(chunk.getStartIndex() * interval);
+      rs.setTimeInterval(interval);
+      rs.setStreamingInfo(new StreamingInfo(chunk.getStartIndex(), interval, 
+              chunk.getTriggerIndex(), chunk.getOverflow(), chunk.isAutoStop()));
+
+      callback.onDataEvent(rs);
+      deliveredChunks++;
+      deliveredSamples += chunk.getSamples();
+    } catch (RuntimeException ex) {
+      Logger.getLogger(StreamingDelivery.class.getName()).log(Level.SEVERE, null, ex);
+    }
+  }
+}
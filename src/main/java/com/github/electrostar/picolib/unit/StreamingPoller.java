@@ -0,0 +1,210 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.PollStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how the streaming thread waits between two polls of the driver.
+ * <p>
+ * With {@link PollStrategy#ADAPTIVE} the wait starts at an eighth of the time the driver needs 
+ * to fill the overview buffer. It grows while polls return no data and shrinks when a chunk 
+ * fills more than half of the overview buffer, otherwise it moves towards the time for a quarter 
+ * of the buffer. Short waits are spun or yielded, because parking a thread has a resolution of 
+ * tens of microseconds on most systems.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class StreamingPoller {
+
+  static final long SPIN_LIMIT_NS = 10_000;
+  static final long YIELD_LIMIT_NS = 100_000;
+  static final long MAX_WAIT_NS = 10_000_000;
+
+  private final PollStrategy strategy;
+  private final long pollPeriodNs;
+  private final long sampleIntervalNs;
+  private int overviewBufferSize;
+  private long quarterNs;
+  private long maxWaitNs;
+
+  private long waitNs;
+  private int pendingValues;
+  private boolean pollHadData;
+  private long lastDataNanos;
+  private long maxGapNs;
+  private volatile PollStrategy active;
+  private volatile long polls;
+  private volatile long dataPolls;
+
+  /**
+   * Constructs a {@code StreamingPoller}.
+   * 
+   * @param strategy the configured {@link PollStrategy}.
+   * @param pollPeriodNs the poll period for {@link PollStrategy#FIXED} in nanoseconds.
+   * @param sampleIntervalNs the sample interval in nanoseconds.
+   * @param overviewBufferSize the size of the overview buffer in samples.
+   */
+  StreamingPoller(PollStrategy strategy, long pollPeriodNs, long sampleIntervalNs, 
+          int overviewBufferSize) {
+    this.strategy = strategy;
+    this.pollPeriodNs = pollPeriodNs;
+    this.sampleIntervalNs = Math.max(sampleIntervalNs, 1);
+    setOverviewBufferSize(overviewBufferSize);
+    this.active = PollStrategy.ADAPTIVE == strategy ? select(waitNs) : strategy;
+  }
+
+  /**
+   * Sets the size of the overview buffer after streaming was restarted. The wait starts again 
+   * at an eighth of the time to fill the buffer.
+   * 
+   * @param overviewBufferSize the size of the overview buffer in samples.
+   */
+  void setOverviewBufferSize(int overviewBufferSize) {
+    this.overviewBufferSize = overviewBufferSize;
+
+    long fillNs = sampleIntervalNs * overviewBufferSize;
+    quarterNs = fillNs / 4;
+    maxWaitNs = Math.min(fillNs / 2, MAX_WAIT_NS);
+    waitNs = Math.min(fillNs / 8, maxWaitNs);
+    lastDataNanos = 0;
+    maxGapNs = 0;
+  }
+
+  /**
+   * Records a chunk delivered by the driver during the current poll.
+   * 
+   * @param values the number of samples in the chunk.
+   */
+  void record(int values) {
+    // A poll may deliver several chunks, it is counted once when it ends
+    pollHadData = true;
+    pendingValues += values;
+
+    long now = System.nanoTime();
+    if (lastDataNanos != 0) {
+      maxGapNs = Math.max(maxGapNs, now - lastDataNanos);
+    }
+    lastDataNanos = now;
+  }
+
+  /**
+   * Waits after a poll of the driver according to the active strategy.
+   */
+  void await() {
+    polls++;
+    if (pollHadData) {
+      pollHadData = false;
+      dataPolls++;
+    }
+    if (PollStrategy.ADAPTIVE == strategy) {
+      adapt();
+    }
+
+    switch (active) {
+      case BUSY_SPIN:
+        break;
+      case YIELD:
+        Thread.yield();
+        break;
+      case FIXED:
+        LockSupport.parkNanos(pollPeriodNs);
+        break;
+      default:
+        LockSupport.parkNanos(waitNs);
+        break;
+    }
+  }
+
+  /**
+   * Gets the strategy which is currently used.
+   * 
+   * @return the active {@link PollStrategy}.
+   */
+  PollStrategy getActive() {
+    return active;
+  }
+
+  /**
+   * Gets the current wait of the {@link PollStrategy#PARK} strategy.
+   * 
+   * @return the wait in nanoseconds.
+   */
+  long getWaitNs() {
+    return waitNs;
+  }
+
+  /**
+   * Gets the longest time between two chunks since streaming started.
+   * 
+   * @return the time in nanoseconds.
+   */
+  long getMaxGapNs() {
+    return maxGapNs;
+  }
+
+  /**
+   * Gets the number of polls.
+   * 
+   * @return the number of polls.
+   */
+  long getPolls() {
+    return polls;
+  }
+
+  /**
+   * Gets the number of polls which returned data.
+   * 
+   * @return the number of polls with data.
+   */
+  long getDataPolls() {
+    return dataPolls;
+  }
+
+  private void adapt() {
+    int values = pendingValues;
+    pendingValues = 0;
+
+    if (values == 0) {
+      // Nothing arrived yet, back off
+      waitNs = Math.min(waitNs + waitNs / 2 + 1, maxWaitNs);
+    } else if (values > overviewBufferSize / 2) {
+      // Close to an overrun of the overview buffer
+      waitNs /= 2;
+    } else {
+      waitNs = Math.min((waitNs + quarterNs) / 2, maxWaitNs);
+    }
+    active = select(waitNs);
+  }
+
+  private static PollStrategy select(long waitNs) {
+    if (waitNs < SPIN_LIMIT_NS) {
+      return PollStrategy.BUSY_SPIN;
+    }
+    if (waitNs < YIELD_LIMIT_NS) {
+      return PollStrategy.YIELD;
+    }
+    return PollStrategy.PARK;
+  }
+}
@@ -0,0 +1,275 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.Timebase;
+import com.github.electrostar.picolib.UnitInfo;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Table of all timebases a unit supports for one configuration.
+ * <p>
+ * The table is probed once with one sample per timebase and holds the time interval and the 
+ * maximum number of samples of every valid timebase, ordered by ascending time interval. A 
+ * suitable timebase is then found by binary search instead of asking the driver for every 
+ * timebase again.
+ * </p>
+ * <p>
+ * If the system property {@value #CACHE_PROPERTY} names a directory, the tables are also stored 
+ * there per unit variant and serial, so they are only probed once per unit at all.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class TimebaseTable {
+
+  /**
+   * System property with the directory to store the probed tables in.
+   */
+  static final String CACHE_PROPERTY = "picolib.timebase.cache";
+
+  private static final Object CACHE_LOCK = new Object();
+
+  private final short[] ids;
+  private final int[] timeIntervals;
+  private final int[] maxSamples;
+
+  private TimebaseTable(short[] ids, int[] timeIntervals, int[] maxSamples) {
+    this.ids = ids;
+    this.timeIntervals = timeIntervals;
+    this.maxSamples = maxSamples;
+  }
+
+  /**
+   * Probes all timebases from {@code 0} to {@code maxId}. Timebases which are not valid or whose 
+   * time interval is not greater than the one of a faster timebase are skipped.
+   * 
+   * @param prober returns the {@link Timebase} for one sample of a timebase id or {@code null} if 
+   *               the id is not valid.
+   * @param maxId the highest timebase id to probe.
+   * @return the probed {@code TimebaseTable}.
+   */
+  static TimebaseTable probe(IntFunction<Timebase> prober, int maxId) {
+    short[] foundIds = new short[maxId + 1];
+    int[] foundIntervals = new int[maxId + 1];
+    int[] foundMaxSamples = new int[maxId + 1];
+    int size = 0;
+
+    for (int id = 0; id <= maxId; id++) {
+      Timebase t = prober.apply(id);
+      if (null != t && t.getTimeInterval() > 0 
+              && (size == 0 || t.getTimeInterval() > foundIntervals[size - 1])) {
+        foundIds[size] = (short) id;
+        foundIntervals[size] = t.getTimeInterval();
+        foundMaxSamples[size] = t.getMaxSamples();
+        size++;
+      }
+    }
+
+    return new TimebaseTable(Arrays.copyOf(foundIds, size), Arrays.copyOf(foundIntervals, size), 
+            Arrays.copyOf(foundMaxSamples, size));
+  }
+
+  /**
+   * Gets the number of valid timebases.
+   * 
+   * @return the number of timebases.
+   */
+  int size() {
+    return ids.length;
+  }
+
+  /**
+   * Finds the fastest timebase which covers the collection time with its maximum number of 
+   * samples.
+   * 
+   * @param collectionTime the whole collection time in nanoseconds.
+   * @param minSamples the minimum number of samples the timebase must support.
+   * @return the index of the timebase or {@code -1} if no timebase is suitable.
+   */
+  int find(long collectionTime, int minSamples) {
+    // The needed samples shrink with every slower timebase, so search the first one that fits
+    int low = 0;
+    int high = ids.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getNeededSamples(mid, collectionTime) <= maxSamples[mid]) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+
+    for (int i = low; i < ids.length; i++) {
+      if (maxSamples[i] >= minSamples && getNeededSamples(i, collectionTime) <= maxSamples[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the timebase id of a table entry.
+   * 
+   * @param index the index of the entry.
+   * @return the timebase id.
+   */
+  short getId(int index) {
+    return ids[index];
+  }
+
+  /**
+   * Gets the number of samples a table entry needs for a collection time.
+   * 
+   * @param index the index of the entry.
+   * @param collectionTime the whole collection time in nanoseconds.
+   * @return the needed number of samples.
+   */
+  long getNeededSamples(int index, long collectionTime) {
+    return collectionTime / timeIntervals[index];
+  }
+
+  /**
+   * Gets the status if the tables are stored in a cache directory.
+   * 
+   * @return {@code true} if the cache directory is set, otherwise {@code false}.
+   */
+  static boolean isCacheEnabled() {
+    return null != System.getProperty(CACHE_PROPERTY);
+  }
+
+  /**
+   * Loads a table from the cache directory.
+   * 
+   * @param info the {@link UnitInfo} of the unit.
+   * @param key the key of the configuration.
+   * @return the {@code TimebaseTable} or {@code null} if it is not cached.
+   */
+  static TimebaseTable load(UnitInfo info, String key) {
+    File file = cacheFile(info);
+    if (null == file) {
+      return null;
+    }
+
+    synchronized (CACHE_LOCK) {
+      String value = read(file).getProperty(key);
+      if (null == value) {
+        return null;
+      }
+      try {
+        return parse(value);
+      } catch (IllegalArgumentException ex) {
+        Logger.getLogger(TimebaseTable.class.getName()).log(Level.WARNING, null, ex);
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Stores a table in the cache directory.
+   * 
+   * @param info the {@link UnitInfo} of the unit.
+   * @param key the key of the configuration.
+   * @param table the {@code TimebaseTable} to store.
+   */
+  static void store(UnitInfo info, String key, TimebaseTable table) {
+    File file = cacheFile(info);
+    if (null == file) {
+      return;
+    }
+
+    synchronized (CACHE_LOCK) {
+      Properties properties = read(file);
+      properties.setProperty(key, table.format());
+      try (OutputStream out = new FileOutputStream(file)) {
+        properties.store(out, "picolib timebase table");
+      } catch (IOException ex) {
+        Logger.getLogger(TimebaseTable.class.getName()).log(Level.WARNING, null, ex);
+      }
+    }
+  }
+
+  String format() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < ids.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(ids[i]).append(':').append(timeIntervals[i]).append(':').append(maxSamples[i]);
+    }
+    return sb.toString();
+  }
+
+  static TimebaseTable parse(String value) {
+    String[] entries = value.isEmpty() ? new String[0] : value.split(",");
+    short[] parsedIds = new short[entries.length];
+    int[] parsedIntervals = new int[entries.length];
+    int[] parsedMaxSamples = new int[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      String[] fields = entries[i].split(":");
+      if (fields.length != 3) {
+        throw new IllegalArgumentException("Invalid timebase table entry: " + entries[i]);
+      }
+      parsedIds[i] = Short.parseShort(fields[0]);
+      parsedIntervals[i] = Integer.parseInt(fields[1]);
+      parsedMaxSamples[i] = Integer.parseInt(fields[2]);
+      if (parsedIntervals[i] <= 0 || (i > 0 && parsedIntervals[i] <= parsedIntervals[i - 1])) {
+        throw new IllegalArgumentException("Invalid timebase table entry: " + entries[i]);
+      }
+    }
+    return new TimebaseTable(parsedIds, parsedIntervals, parsedMaxSamples);
+  }
+
+  private static File cacheFile(UnitInfo info) {
+    String directory = System.getProperty(CACHE_PROPERTY);
+    if (null == directory || null == info || null == info.getVariantInfo() 
+            || null == info.getBatchAndSerial()) {
+      return null;
+    }
+
+    String name = (info.getVariantInfo() + "-" + info.getBatchAndSerial())
+            .replaceAll("[^A-Za-z0-9._-]", "_");
+    return new File(directory, name + ".properties");
+  }
+
+  private static Properties read(File file) {
+    Properties properties = new Properties();
+    if (file.isFile()) {
+      try (InputStream in = new FileInputStream(file)) {
+        properties.load(in);
+      } catch (IOException ex) {
+        Logger.getLogger(TimebaseTable.class.getName()).log(Level.WARNING, null, ex);
+      }
+    }
+    return properties;
+  }
+}
@@ -20,9 +20,16 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.ConversionSettings;
 import com.github.electrostar.picolib.UnitSeries;
 import com.github.electrostar.picolib.exception.NotSupportedException;
+import com.github.electrostar.picolib.exception.UnitNotFoundException;
+import com.github.electrostar.picolib.library.LibraryLoader;
 import com.github.electrostar.picolib.library.PS2000CLibrary;
+import com.github.electrostar.picolib.library.PS2000DirectLibrary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The {@code UnitFactory} create PicoScope Driver Instrance based on the {@link UnitSeries}.
@@ -56,22 +63,91 @@ public class UnitFactory {
    * 
    * @param series the {@link UnitSeries} to create an instance of.
    * @return an instance of the {@link PicoUnit} like {@link PicoScope2000}.
-   * @throws NotSupportedException if the {@link UnitSeries} is not supported.
+   * @throws NotSupportedException if the {@link UnitSeries} is not supported or its library 
+   *                               could not be loaded.
    */
   public PicoUnit getUnit(UnitSeries series) throws NotSupportedException {
     PicoUnit unit = null;
     if (UnitSeries.PICOSCOPE2000 == series) {
-      unit = helper.makePS2000();
+      try {
+        unit = helper.makePS2000();
+      } catch (UnsatisfiedLinkError ex) {
+        throw new NotSupportedException(ex.getMessage(), ex);
+      }
     } else {
       throw new NotSupportedException("Unit Series is not supported by this SDK");
     }
 
     return unit;
   }
+
+  /**
+   * Creates and opens several units of the given {@link UnitSeries} asynchronously. The opens 
+   * are queued and run one after another, see {@link PicoUnit#openAsync()}.
+   * 
+   * @param series the {@link UnitSeries} to create instances of.
+   * @param count the number of units to open.
+   * @return the futures of the units in the order of their opens. A future is completed 
+   *         exceptionally with an {@link UnitNotFoundException} if there are less units than 
+   *         requested.
+   * @throws IllegalArgumentException if the count is less than one.
+   * @throws NotSupportedException if the {@link UnitSeries} is not supported or its library 
+   *                               could not be loaded.
+   */
+  public List<CompletableFuture<PicoUnit>> openUnitsAsync(UnitSeries series, int count) 
+          throws NotSupportedException {
+    if (count < 1) {
+      throw new IllegalArgumentException("At least one unit must be opened.");
+    }
+    List<CompletableFuture<PicoUnit>> units = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      units.add(getUnit(series).openAsync());
+    }
+    return units;
+  }
+
+  /**
+   * Gets the status if units of the given {@link UnitSeries} can be created.
+   * The library of the series is loaded on the first call, not on the construction of the 
+   * factory, so the first probe costs as much as loading the library. Later probes are cheap.
+   * 
+   * @param series the {@link UnitSeries} to check.
+   * @return {@code true} if the series is supported and its library could be loaded, otherwise 
+   *         {@code false}.
+   */
+  public boolean isAvailable(UnitSeries series) {
+    return UnitSeries.PICOSCOPE2000 == series && helper.isPS2000Available();
+  }
+  
+  /**
+   * Sets the library-wide {@link ConversionSettings} used to convert sample data of all units.
+   * Already running conversions are finished with the previous settings.
+   * 
+   * @param settings the {@link ConversionSettings} to apply.
+   * @throws IllegalArgumentException if the settings are out of range.
+   */
+  public static void setConversionSettings(ConversionSettings settings) {
+    ConversionExecutor.configure(settings);
+  }
+
+  /**
+   * Gets the library-wide {@link ConversionSettings}.
+   * 
+   * @return a copy of the current {@link ConversionSettings}.
+   */
+  public static ConversionSettings getConversionSettings() {
+    return ConversionExecutor.getSettings();
+  }
   
   static class FactoryHelper {
     PicoUnit makePS2000() {
-      return new PicoScope2000(PS2000CLibrary.INSTANCE);
+      // The polling and streaming calls are direct mapped, all others use the interface
+      LibraryLoader<PS2000CLibrary> loader = LibraryLoader.PS2000;
+      return new PicoScope2000(new PS2000DirectLibrary(loader.get(), loader.getName()));
+    }
+
+    boolean isPS2000Available() {
+      return LibraryLoader.PS2000.isAvailable();
     }
   }
 }
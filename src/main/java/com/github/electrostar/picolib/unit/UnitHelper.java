@@ -20,6 +20,7 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.TimeUnit;
 import com.github.electrostar.picolib.UnitInfo;
 
 /**
@@ -57,4 +58,40 @@ class UnitHelper {
 
     return found;
   }
+
+  /**
+   * Finds the coarsest {@link TimeUnit} up to a preferred one in which an interval of 
+   * nanoseconds is still a whole number. The intervals of the driver are in nanoseconds, while 
+   * the times of a {@link com.github.electrostar.picolib.ResultSet} have to fit into ints.
+   * 
+   * @param intervalNs the interval in nanoseconds.
+   * @param preferred the preferred {@link TimeUnit} or {@code null} for nanoseconds.
+   * @return the {@link TimeUnit}, at least {@link TimeUnit#NANOSECOND}.
+   */
+  public static TimeUnit exactUnit(long intervalNs, TimeUnit preferred) {
+    TimeUnit unit = TimeUnit.NANOSECOND;
+    int maxId = null == preferred ? unit.getId() : preferred.getId();
+    for (int id = unit.getId() + 1; id <= maxId; id++) {
+      TimeUnit coarser = TimeUnit.findById(id);
+      if (intervalNs % nanosPer(coarser) != 0) {
+        break;
+      }
+      unit = coarser;
+    }
+    return unit;
+  }
+
+  /**
+   * Gets the number of nanoseconds of one {@link TimeUnit}.
+   * 
+   * @param unit the {@link TimeUnit}, at least {@link TimeUnit#NANOSECOND}.
+   * @return the nanoseconds.
+   */
+  public static long nanosPer(TimeUnit unit) {
+    long nanos = 1;
+    for (int id = TimeUnit.NANOSECOND.getId(); id < unit.getId(); id++) {
+      nanos *= 1000;
+    }
+    return nanos;
+  }
 }
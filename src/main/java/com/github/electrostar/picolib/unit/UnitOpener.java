@@ -0,0 +1,242 @@
+/*
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.exception.UnitNotFoundException;
+import com.github.electrostar.picolib.library.PS2000CLibrary;
+import com.sun.jna.ptr.ShortByReference; // NOSONAR
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Library-wide opener of units with {@code ps2000_open_unit_async}.
+ * <p>
+ * The driver runs only one asynchronous open at a time, so all units share one daemon thread 
+ * which queues the opens, starts them one after another and polls their progress. Nobody has to 
+ * wait for an open, and the next unit starts to load its firmware as soon as the previous one is 
+ * done. If the driver reports an open in progress which was not started here, the start is 
+ * retried after the {@link #POLL_INTERVAL_NS poll interval}, but not beyond the 
+ * {@link #START_TIMEOUT_NS start timeout}, so that a hanging open does not hold up the queue.
+ * </p>
+ * 
+ * @since 0.0.2
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+final class UnitOpener {
+
+  /**
+   * Interval between two polls of the progress in nanoseconds.
+   */
+  static final long POLL_INTERVAL_NS = 20_000_000L;
+
+  /**
+   * Time in nanoseconds to retry the start of an open while the driver refuses it.
+   */
+  static final long START_TIMEOUT_NS = 30_000_000_000L;
+
+  private static final Object LOCK = new Object();
+  private static UnitOpener shared;
+
+  private final ScheduledThreadPoolExecutor scheduler;
+  // Only used by the scheduler thread
+  private final Queue<Open> queue = new ArrayDeque<>();
+  private final ShortByReference handle = new ShortByReference();
+  private final ShortByReference progress = new ShortByReference();
+  private Open active;
+
+  private UnitOpener() {
+    scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread t = new Thread(r, "picolib-unit-opener");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Gets the opener shared by all units.
+   * 
+   * @return the shared {@code UnitOpener}.
+   */
+  static UnitOpener getShared() {
+    synchronized (LOCK) {
+      if (null == shared) {
+        shared = new UnitOpener();
+      }
+      return shared;
+    }
+  }
+
+  /**
+   * Opens a unit asynchronously. A unit which opens after the returned future was cancelled is 
+   * closed again.
+   * 
+   * @param library the library to open the unit with.
+   * @param listener receives the progress in percent on the thread of the opener, may be 
+   *                 {@code null}.
+   * @return the future of the handle of the opened unit, completed exceptionally with an 
+   *         {@link UnitNotFoundException} if no unit was found or it failed to open.
+   */
+  CompletableFuture<Short> submit(PS2000CLibrary library, IntConsumer listener) {
+    return submit(library, listener, START_TIMEOUT_NS);
+  }
+
+  /**
+   * Opens a unit asynchronously with a start timeout.
+   * 
+   * @param library the library to open the unit with.
+   * @param listener receives the progress in percent on the thread of the opener, may be 
+   *                 {@code null}.
+   * @param startTimeoutNs the time in nanoseconds to retry the start while the driver refuses it.
+   * @return the future of the handle of the opened unit, completed exceptionally with an 
+   *         {@link UnitNotFoundException} if no unit was found, it failed to open or the open 
+   *         could not be started in time.
+   */
+  CompletableFuture<Short> submit(PS2000CLibrary library, IntConsumer listener, 
+          long startTimeoutNs) {
+    Open open = new Open(library, listener, startTimeoutNs);
+    try {
+      scheduler.execute(() -> {
+        queue.add(open);
+        next();
+      });
+    } catch (RejectedExecutionException ex) {
+      open.future.completeExceptionally(ex);
+    }
+    return open.future;
+  }
+
+  private void next() {
+    while (null == active && !queue.isEmpty()) {
+      Open open = queue.peek();
+      if (open.future.isDone()) {
+        queue.remove();
+        continue;
+      }
+
+      try {
+        if (0 == open.library.ps2000_open_unit_async()) {
+          if (open.isStartExpired()) {
+            // Give up on this one and let the rest of the queue proceed
+            queue.remove();
+            open.future.completeExceptionally(new UnitNotFoundException(
+                    "Could not start to open a PicoScope of 2000er Series in time."));
+            continue;
+          }
+          // Another open is in progress, try again later
+          scheduler.schedule(this::next, POLL_INTERVAL_NS, TimeUnit.NANOSECONDS);
+          return;
+        }
+      } catch (RuntimeException ex) {
+        queue.remove();
+        open.future.completeExceptionally(ex);
+        continue;
+      }
+      queue.remove();
+      active = open;
+      scheduler.schedule(this::poll, POLL_INTERVAL_NS, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void poll() {
+    Open open = active;
+    short r;
+    try {
+      handle.setValue((short) 0);
+      progress.setValue((short) 0);
+      r = open.library.ps2000_open_unit_progress(handle, progress);
+    } catch (RuntimeException ex) {
+      finish();
+      open.future.completeExceptionally(ex);
+      return;
+    }
+
+    open.report(progress.getValue());
+    if (r > 0 && handle.getValue() <= 0) {
+      // The driver reports a finished open, but without a unit
+      finish();
+      open.future.completeExceptionally(new UnitNotFoundException(
+              "No PicoScope of 2000er Series found."));
+    } else if (r > 0) {
+      finish();
+      if (!open.future.complete(handle.getValue())) {
+        // Nobody waits for the unit anymore
+        open.library.ps2000_close_unit(handle.getValue());
+      }
+    } else if (r < 0) {
+      finish();
+      open.future.completeExceptionally(new UnitNotFoundException(
+              "No PicoScope of 2000er Series found or it fails to open."));
+    } else {
+      scheduler.schedule(this::poll, POLL_INTERVAL_NS, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void finish() {
+    active = null;
+    // Start the next open after the future of this one is completed
+    scheduler.execute(this::next);
+  }
+
+  private static final class Open {
+    private final CompletableFuture<Short> future = new CompletableFuture<>();
+    private final PS2000CLibrary library;
+    private final IntConsumer listener;
+    private final long startTimeoutNs;
+    private boolean refused;
+    private long startDeadline;
+    private int reported = -1;
+
+    Open(PS2000CLibrary library, IntConsumer listener, long startTimeoutNs) {
+      this.library = library;
+      this.listener = listener;
+      this.startTimeoutNs = startTimeoutNs;
+    }
+
+    boolean isStartExpired() {
+      // The deadline starts with the first refused start
+      long now = System.nanoTime();
+      if (!refused) {
+        refused = true;
+        startDeadline = now + startTimeoutNs;
+      }
+      return now - startDeadline >= 0;
+    }
+
+    void report(int percent) {
+      if (null == listener || percent == reported) {
+        return;
+      }
+      reported = percent;
+      try {
+        listener.accept(percent);
+      } catch (RuntimeException ex) {
+        Logger.getLogger(UnitOpener.class.getName()).log(Level.SEVERE, null, ex);
+      }
+    }
+  }
+}
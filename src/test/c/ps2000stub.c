@@ -0,0 +1,100 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Stub of the hot-path functions of the PS2000 driver for the binding benchmarks. The functions 
+ * return at once, so a benchmark measures the cost of the call itself.
+ */
+
+#include <pthread.h>
+#include <stdint.h>
+
+typedef void (*GetOverviewBuffersMaxMin)(int16_t **overviewBuffers, int16_t overflow, 
+    uint32_t triggeredAt, int16_t triggered, int16_t auto_stop, uint32_t nValues);
+
+int16_t ps2000_run_block(int16_t handle, int32_t no_of_values, int16_t timebase, 
+    int16_t oversample, int32_t *time_indisposed_ms) {
+  if (time_indisposed_ms) {
+    *time_indisposed_ms = 0;
+  }
+  return 1;
+}
+
+int16_t ps2000_ready(int16_t handle) {
+  return 1;
+}
+
+int32_t ps2000_get_values(int16_t handle, int16_t *buffer_a, int16_t *buffer_b, 
+    int16_t *buffer_c, int16_t *buffer_d, int16_t *overflow, int32_t no_of_values) {
+  if (overflow) {
+    *overflow = 0;
+  }
+  return no_of_values;
+}
+
+int32_t ps2000_get_times_and_values(int16_t handle, int32_t *times, int16_t *buffer_a, 
+    int16_t *buffer_b, int16_t *buffer_c, int16_t *buffer_d, int16_t *overflow, 
+    int16_t time_units, int32_t no_of_values) {
+  if (overflow) {
+    *overflow = 0;
+  }
+  return no_of_values;
+}
+
+int16_t ps2000_get_streaming_last_values(int16_t handle, GetOverviewBuffersMaxMin func) {
+  /* No samples available, the callback is not called */
+  return 0;
+}
+
+int16_t ps2000_overview_buffer_status(int16_t handle, int16_t *previous_buffer_overrun) {
+  if (previous_buffer_overrun) {
+    *previous_buffer_overrun = 0;
+  }
+  return 0;
+}
+
+/*
+ * Not part of the driver: calls the callback count times from a new native thread, like a driver 
+ * which delivers its data on a thread of its own.
+ */
+struct burst {
+  GetOverviewBuffersMaxMin func;
+  int32_t count;
+};
+
+static void *run_burst(void *arg) {
+  struct burst *b = (struct burst *) arg;
+  int16_t *buffers[8] = { 0 };
+  int32_t i;
+  for (i = 0; i < b->count; i++) {
+    b->func(buffers, 0, 0, 0, 0, 0);
+  }
+  return 0;
+}
+
+int16_t ps2000stub_callback_burst(GetOverviewBuffersMaxMin func, int32_t count) {
+  struct burst b = { func, count };
+  pthread_t thread;
+  if (pthread_create(&thread, 0, run_burst, &b) != 0) {
+    return 0;
+  }
+  pthread_join(thread, 0);
+  return 1;
+}
@@ -0,0 +1,59 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import pl.pojo.tester.api.assertion.Assertions;
+import static pl.pojo.tester.api.FieldPredicate.exclude;
+
+/**
+ * Tests for the {@link Aggregation} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class AggregationTest {
+
+  public AggregationTest() {
+  }
+
+  /**
+   * Test of all method, of class Aggregation.
+   */
+  @Test
+  public void testPojo() {
+    Assertions.assertPojoMethodsFor(Aggregation.class, exclude("channels", "rawChannels"))
+            .areWellImplemented();
+  }
+
+  /**
+   * Test of toString method, of class Aggregation.
+   */
+  @Test
+  public void testToString() {
+    Aggregation aggregation = new Aggregation(8);
+    aggregation.setChannel(Channel.CHANNEL_A, new float[1000]);
+    aggregation.setRawChannel(Channel.CHANNEL_B, new short[500]);
+    
+    assertEquals("Aggregation(samplesPerAggregate=8, CHANNEL_A=float[1000], "
+            + "rawCHANNEL_B=short[500])", aggregation.toString());
+  }
+}
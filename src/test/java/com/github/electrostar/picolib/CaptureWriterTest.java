@@ -0,0 +1,269 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link CaptureWriter} and {@link CaptureReader} classes.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class CaptureWriterTest {
+
+  private static final int MAX_VALUE = 32767;
+  private static final int LOST_VALUE = -32768;
+
+  @TempDir
+  Path directory;
+
+  private File file;
+  private Timebase timebase;
+
+  @BeforeEach
+  public void setUp() {
+    file = directory.resolve("capture.psc").toFile();
+    timebase = new Timebase(CollectionTime.DIV1MS);
+    timebase.setTimeUnit(TimeUnit.NANOSECOND);
+    timebase.setTimeInterval(10);
+  }
+
+  private static ResultSet block(short[] channelA, short[] channelC, int firstTime) {
+    ResultSet rs = new ResultSet(TimeUnit.NANOSECOND, 10, CollectionTime.DIV1MS);
+    rs.setNumberOfSamples(channelA.length);
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    rs.setRawChannelA(channelA);
+    rs.setRawChannelC(channelC);
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_5V, MAX_VALUE, LOST_VALUE));
+    rs.setScaling(Channel.CHANNEL_C, new SampleScaling(Range.RANGE_1V, MAX_VALUE, LOST_VALUE));
+    int[] times = new int[channelA.length];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = firstTime + 10 * i;
+    }
+    rs.setTimes(times);
+    return rs;
+  }
+
+  /**
+   * Test of the zig-zag variable length encoding, of class CaptureWriter.
+   */
+  @Test
+  public void testEncode() {
+    short[] counts = new short[]{0, 1, -1, 63, -64, Short.MAX_VALUE, Short.MIN_VALUE, 
+        Short.MAX_VALUE};
+    byte[] encoded = new byte[counts.length * CaptureWriter.MAX_BYTES_PER_SAMPLE];
+    int length = CaptureWriter.encode(counts, counts.length, encoded);
+    // Small differences take one byte, the full swing three
+    assertEquals(1, CaptureWriter.encode(new short[]{-64}, 1, encoded));
+    assertEquals(3, CaptureWriter.encode(new short[]{Short.MIN_VALUE}, 1, encoded));
+
+    CaptureWriter.encode(counts, counts.length, encoded);
+    short[] decoded = new short[counts.length];
+    assertEquals(counts.length, CaptureReader.decode(ByteBuffer.wrap(encoded, 0, length), 
+            decoded));
+    assertArrayEquals(counts, decoded);
+  }
+
+  /**
+   * Test of writing and reading a capture, of class CaptureWriter.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testWriteAndRead() throws Exception {
+    Random random = new Random(42);
+    short[] channelA = new short[2500];
+    short[] channelC = new short[2500];
+    for (int i = 0; i < channelA.length; i++) {
+      channelA[i] = (short) (Math.sin(i / 40.0) * 20000 + random.nextInt(32));
+      channelC[i] = (short) random.nextInt();
+    }
+
+    try (CaptureWriter writer = new CaptureWriter(file, timebase, 1000)) {
+      writer.write(block(Arrays.copyOfRange(channelA, 0, 1200), 
+              Arrays.copyOfRange(channelC, 0, 1200), -500));
+      // The second block only has an implicit time axis
+      ResultSet implicit = block(Arrays.copyOfRange(channelA, 1200, 2500), 
+              Arrays.copyOfRange(channelC, 1200, 2500), 11500);
+      implicit.setTimes(null);
+      implicit.setTimeOffset(11500);
+      implicit.setTimeInterval(10);
+      writer.write(implicit);
+      assertEquals(2500, writer.getSamples());
+    }
+
+    try (CaptureReader reader = new CaptureReader(file)) {
+      assertEquals(2500, reader.getSamples());
+      assertEquals(TimeUnit.NANOSECOND, reader.getTimeUnit());
+      assertEquals(10, reader.getSampleInterval());
+      assertEquals(-500, reader.getStartTime());
+
+      ResultSet rs = reader.read(0, 5000);
+      assertEquals(2500, rs.getNumberOfSamples());
+      assertEquals(SampleFormat.ADC_COUNTS, rs.getSampleFormat());
+      assertEquals(CollectionTime.DIV1MS, rs.getCollectionTime());
+      assertArrayEquals(channelA, rs.getRawChannelA());
+      assertNull(rs.getRawChannelB());
+      assertArrayEquals(channelC, rs.getRawChannelC());
+      assertEquals(Range.RANGE_1V, rs.getScaling(Channel.CHANNEL_C).getRange());
+      assertEquals(-500, rs.getTimes()[0]);
+      assertEquals(-500 + 2499 * 10, rs.getTimes()[2499]);
+
+      // Window across a block boundary
+      rs = reader.readTime(9495, 9525);
+      assertEquals(3, rs.getNumberOfSamples());
+      assertEquals(9500, rs.getTimeOffset());
+      assertEquals(10, rs.getTimeInterval());
+      assertArrayEquals(new int[]{9500, 9510, 9520}, rs.getTimes());
+      assertArrayEquals(Arrays.copyOfRange(channelA, 1000, 1003), rs.getRawChannelA());
+      rs = reader.read(998, 4);
+      assertArrayEquals(Arrays.copyOfRange(channelC, 998, 1002), rs.getRawChannelC());
+
+      assertEquals(1, reader.read(2499, 10).getNumberOfSamples());
+      assertEquals(0, reader.read(3000, 10).getNumberOfSamples());
+      assertEquals(0, reader.readTime(-2000, -1000).getNumberOfSamples());
+      assertThrows(IllegalArgumentException.class, () -> {
+        reader.read(-1, 1);
+      });
+    }
+    // The noisy channel costs about two bytes and the random one three bytes per sample
+    assertTrue(file.length() < 2500 * 4 * 2);
+  }
+
+  /**
+   * Test of writing streamed and aggregated sample data, of class CaptureWriter.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testWriteStreamed() throws Exception {
+    ResultSet rs = new ResultSet(TimeUnit.NANOSECOND, 10, CollectionTime.DIV1MS);
+    rs.setNumberOfSamples(2);
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    rs.setRawChannelB(new short[]{10, 20});
+    rs.setAggregation(new Aggregation(4));
+    rs.getAggregation().setRawChannelB(new short[]{-10, -20});
+    rs.setStreamingInfo(new StreamingInfo(100, 40, -1, (short) 0, false));
+
+    try (CaptureWriter writer = new CaptureWriter(file, timebase)) {
+      writer.write(rs);
+    }
+
+    try (CaptureReader reader = new CaptureReader(file)) {
+      assertEquals(40, reader.getSampleInterval());
+      assertEquals(4000, reader.getStartTime());
+      ResultSet read = reader.read(1, 1);
+      assertArrayEquals(new short[]{20}, read.getRawChannelB());
+      assertArrayEquals(new short[]{-20}, read.getAggregation().getRawChannelB());
+      assertEquals(4, read.getAggregation().getSamplesPerAggregate());
+      assertNull(read.getTimes());
+      assertEquals(101, read.getStreamingInfo().getStartIndex());
+    }
+  }
+
+  /**
+   * Test of the time unit and interval of a capture, of class CaptureWriter.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testTimeUnit() throws Exception {
+    // The timebase suggests microseconds, but the interval of 2.5 µs is given in nanoseconds
+    timebase.setTimeUnit(TimeUnit.MICROSECOND);
+    timebase.setTimeInterval(2500);
+    ResultSet rs = block(new short[]{1, 2}, new short[]{1, 2}, 0);
+    rs.setTimes(null);
+    rs.setTimeOffset(-2500);
+    rs.setTimeInterval(2500);
+    try (CaptureWriter writer = new CaptureWriter(file, timebase)) {
+      writer.write(rs);
+    }
+    try (CaptureReader reader = new CaptureReader(file)) {
+      assertEquals(TimeUnit.NANOSECOND, reader.getTimeUnit());
+      assertEquals(2500, reader.getSampleInterval());
+      assertEquals(0, reader.read(1, 1).getTime(0));
+    }
+
+    // Without a time axis the interval of the timebase is used, it is in nanoseconds
+    rs = block(new short[]{1, 2}, new short[]{1, 2}, 0);
+    rs.setTimeUnit(TimeUnit.MICROSECOND);
+    rs.setTimes(null);
+    try (CaptureWriter writer = new CaptureWriter(file, timebase)) {
+      writer.write(rs);
+    }
+    try (CaptureReader reader = new CaptureReader(file)) {
+      assertEquals(TimeUnit.NANOSECOND, reader.getTimeUnit());
+      assertEquals(2500, reader.getSampleInterval());
+    }
+  }
+
+  /**
+   * Test of invalid input, of class CaptureWriter.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testInvalid() throws Exception {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CaptureWriter(file, null);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CaptureWriter(file, timebase, 0);
+    });
+
+    CaptureWriter writer = new CaptureWriter(file, timebase);
+    assertThrows(IllegalArgumentException.class, () -> {
+      writer.write(new ResultSet());
+    });
+    ResultSet ets = block(new short[]{1, 2, 3}, new short[]{1, 2, 3}, 0);
+    ets.getTimes()[2] = 25;
+    assertThrows(IllegalArgumentException.class, () -> {
+      writer.write(ets);
+    });
+    writer.close();
+    writer.close();
+    assertThrows(IllegalStateException.class, () -> {
+      writer.write(block(new short[]{1}, new short[]{1}, 0));
+    });
+
+    // An empty capture is still readable
+    try (CaptureReader reader = new CaptureReader(file)) {
+      assertEquals(0, reader.getSamples());
+    }
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(64);
+    }
+    assertThrows(IOException.class, () -> {
+      new CaptureReader(file);
+    });
+  }
+}
@@ -0,0 +1,48 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ConversionMode} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ConversionModeTest {
+
+  public ConversionModeTest() {
+  }
+
+  /**
+   * Test of valueOf method, of class ConversionMode.
+   */
+  @Test
+  public void testValueOf() {
+    assertEquals(ConversionMode.INLINE, ConversionMode.valueOf("INLINE"));
+    assertEquals(ConversionMode.FORK_JOIN, ConversionMode.valueOf("FORK_JOIN"));
+    assertEquals(ConversionMode.FIXED_POOL, ConversionMode.valueOf("FIXED_POOL"));
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConversionMode.valueOf("NotFound");
+    });
+  }
+}
@@ -0,0 +1,172 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.nio.ShortBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link OffHeapResultSet} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class OffHeapResultSetTest {
+
+  private static final SampleScaling SCALING = new SampleScaling(Range.RANGE_1V, 32767, -32768);
+
+  public OffHeapResultSetTest() {
+  }
+
+  private static ResultSet counts() {
+    ResultSet rs = new ResultSet(TimeUnit.NANOSECOND, 10, CollectionTime.DIV1MS);
+    rs.setNumberOfSamples(3);
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    rs.setRawChannelA(new short[] {32767, 0, -32768});
+    rs.setRawChannelC(new short[] {1, 2, 3});
+    rs.setScaling(Channel.CHANNEL_A, SCALING);
+    rs.setScaling(Channel.CHANNEL_C, SCALING);
+    rs.setTimeInterval(10);
+    return rs;
+  }
+
+  /**
+   * Test of the getters of ResultSet, of class OffHeapResultSet.
+   */
+  @Test
+  public void testCopyOf() {
+    ResultSet rs = counts();
+    try (OffHeapResultSet offHeap = OffHeapResultSet.copyOf(rs)) {
+      assertEquals(3, offHeap.getNumberOfSamples());
+      assertEquals(20, offHeap.getTime(2));
+      assertEquals(SampleFormat.ADC_COUNTS, offHeap.getSampleFormat());
+      short[] channelA = offHeap.getRawChannelA();
+      assertArrayEquals(rs.getRawChannelA(), channelA);
+      assertNotSame(rs.getRawChannelA(), channelA);
+      assertSame(channelA, offHeap.getRawChannelA());
+      assertNull(offHeap.getRawChannelB());
+      assertArrayEquals(rs.getChannelA(), offHeap.getChannelA());
+      assertArrayEquals(rs.getChannelC(), offHeap.getChannelC());
+      assertNull(offHeap.getAggregation());
+      assertEquals(offHeap, OffHeapResultSet.copyOf(rs));
+
+      assertThrows(UnsupportedOperationException.class, () -> {
+        offHeap.setRawChannelA(new short[1]);
+      });
+      assertThrows(UnsupportedOperationException.class, () -> {
+        offHeap.setSampleFormat(SampleFormat.VOLTAGE);
+      });
+    }
+
+    // Voltages can not be kept off-heap
+    ResultSet volts = new ResultSet();
+    volts.setChannelA(new float[] {1f});
+    assertThrows(IllegalArgumentException.class, () -> {
+      OffHeapResultSet.copyOf(volts);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OffHeapResultSet.copyOf(null);
+    });
+    assertFalse(OffHeapResultSet.copyOf(new ResultSet()).hasChannel(Channel.CHANNEL_A));
+  }
+
+  /**
+   * Test of the indexed and bulk accessors, of class OffHeapResultSet.
+   */
+  @Test
+  public void testAccessors() {
+    OffHeapResultSet offHeap = OffHeapResultSet.copyOf(counts());
+    assertTrue(offHeap.hasChannel(Channel.CHANNEL_A));
+    assertFalse(offHeap.hasChannel(Channel.CHANNEL_B));
+    assertFalse(offHeap.hasChannel(Channel.EXTERNAL));
+    assertEquals(2, offHeap.getRaw(Channel.CHANNEL_C, 1));
+    assertEquals(1f, offHeap.getVoltage(Channel.CHANNEL_A, 0), 1e-6f);
+    assertEquals(Float.MAX_VALUE, offHeap.getVoltage(Channel.CHANNEL_A, 2));
+    assertThrows(IllegalArgumentException.class, () -> {
+      offHeap.getRaw(Channel.CHANNEL_B, 0);
+    });
+
+    short[] raw = new short[4];
+    offHeap.getRaw(Channel.CHANNEL_C, 1, raw, 2, 2);
+    assertArrayEquals(new short[] {0, 0, 2, 3}, raw);
+    float[] volts = new float[2];
+    offHeap.getVoltages(Channel.CHANNEL_A, 0, volts, 0, 2);
+    assertArrayEquals(new float[] {1f, 0f}, volts, 1e-6f);
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      offHeap.getVoltages(Channel.CHANNEL_A, 2, volts, 0, 2);
+    });
+
+    float[] sum = new float[1];
+    offHeap.forEachSample((channel, index, value) -> sum[0] += value);
+    assertEquals(Float.MAX_VALUE, sum[0]);
+    assertEquals(2, offHeap.channels().size());
+
+    ShortBuffer buffer = offHeap.getRawBuffer(Channel.CHANNEL_C);
+    assertTrue(buffer.isReadOnly());
+    assertTrue(buffer.isDirect());
+    assertEquals(3, buffer.remaining());
+    assertNull(offHeap.getRawMinBuffer(Channel.CHANNEL_C));
+
+    // Only the copied columns survive closing
+    offHeap.getRawChannelA();
+    offHeap.close();
+    offHeap.close();
+    assertTrue(offHeap.isClosed());
+    assertEquals(3, offHeap.getRawChannelA().length);
+    assertThrows(IllegalStateException.class, () -> {
+      offHeap.getRawChannelC();
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      offHeap.getRaw(Channel.CHANNEL_A, 0);
+    });
+    // A view taken before closing is invalid instead of reading freed memory
+    assertEquals(0, buffer.remaining());
+    assertThrows(IndexOutOfBoundsException.class, () -> {
+      buffer.get(2);
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      offHeap.getRawBuffer(Channel.CHANNEL_C);
+    });
+  }
+
+  /**
+   * Test of the minima of aggregated sample data, of class OffHeapResultSet.
+   */
+  @Test
+  public void testAggregation() {
+    ResultSet rs = counts();
+    rs.setAggregation(new Aggregation(4));
+    rs.getAggregation().setRawChannelA(new short[] {-1, -2, -3});
+
+    try (OffHeapResultSet offHeap = OffHeapResultSet.copyOf(rs)) {
+      assertEquals(-2, offHeap.getRawMin(Channel.CHANNEL_A, 1));
+      assertEquals(3, offHeap.getRawMinBuffer(Channel.CHANNEL_A).remaining());
+      assertEquals(4, offHeap.getAggregation().getSamplesPerAggregate());
+      assertArrayEquals(new short[] {-1, -2, -3}, offHeap.getAggregation().getRawChannelA());
+      assertNull(offHeap.getAggregation().getRawChannelC());
+      assertArrayEquals(rs.getChannelMin(Channel.CHANNEL_A), 
+              offHeap.getChannelMin(Channel.CHANNEL_A));
+      assertThrows(UnsupportedOperationException.class, () -> {
+        offHeap.setAggregation(null);
+      });
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link OverflowPolicy} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class OverflowPolicyTest {
+
+  public OverflowPolicyTest() {
+  }
+
+  /**
+   * Test of valueOf method, of class OverflowPolicy.
+   */
+  @Test
+  public void testValueOf() {
+    assertEquals(OverflowPolicy.DROP, OverflowPolicy.valueOf("DROP"));
+    assertEquals(OverflowPolicy.BLOCK, OverflowPolicy.valueOf("BLOCK"));
+    assertThrows(IllegalArgumentException.class, () -> {
+      OverflowPolicy.valueOf("NotFound");
+    });
+  }
+}
@@ -25,6 +25,8 @@ import com.github.electrostar.picolib.exception.NotSupportedException;
 import com.github.electrostar.picolib.exception.PicoException;
 import com.github.electrostar.picolib.unit.PicoUnit;
 import com.github.electrostar.picolib.unit.UnitFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -123,6 +125,42 @@ public class PicoScopeTest {
     ps.open(UnitSeries.PICOSCOPE2000);
   }
 
+  /**
+   * Test of openAsync method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testOpenAsync() throws Exception {
+    // Test already open
+    assertThrows(IllegalStateException.class, () -> {
+      ps.openAsync(UnitSeries.PICOSCOPE2000);
+    });
+
+    CompletableFuture<PicoUnit> open = new CompletableFuture<>();
+    IntConsumer progress = percent -> {
+    };
+    when(mockUnit.openAsync(progress)).thenReturn(open);
+    when(mockUnit.openAsync(null)).thenReturn(open);
+    CompletableFuture<PicoScope> future = unopendPS.openAsync(UnitSeries.PICOSCOPE2000, progress);
+    assertFalse(future.isDone());
+
+    // Test already opening
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.openAsync(UnitSeries.PICOSCOPE2000);
+    });
+
+    open.complete(mockUnit);
+    assertSame(unopendPS, future.get());
+
+    // Cancelling the facade future cancels the open of the unit
+    CompletableFuture<PicoUnit> cancelled = new CompletableFuture<>();
+    when(mockUnit.isOpen()).thenReturn(false);
+    when(mockUnit.openAsync(null)).thenReturn(cancelled);
+    ps.openAsync(UnitSeries.PICOSCOPE2000).cancel(false);
+    assertTrue(cancelled.isCancelled());
+  }
+
   /**
    * Test of getUnitSeries method, of class PicoScope.
    */
@@ -424,6 +462,57 @@ public class PicoScopeTest {
     ps.runBlock();
   }
 
+  /**
+   * Test of captureBlockAsync method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testCaptureBlockAsync() throws Exception {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.captureBlockAsync();
+    });
+
+    CompletableFuture<ResultSet> future = CompletableFuture.completedFuture(new ResultSet());
+    when(mockUnit.captureBlockAsync()).thenReturn(future);
+
+    assertSame(future, ps.captureBlockAsync());
+  }
+
+  /**
+   * Test of the continuous acquisition methods, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testAcquisition() throws Exception {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.startAcquisition(callback);
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.stopAcquisition();
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.isAcquiring();
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.getAcquisitionStatistics();
+    });
+
+    ps.startAcquisition(callback);
+    verify(mockUnit).startAcquisition(callback, new AcquisitionSettings());
+
+    when(mockUnit.isAcquiring()).thenReturn(true);
+    assertTrue(ps.isAcquiring());
+
+    AcquisitionStatistics stats = new AcquisitionStatistics(10, 5.0, 1, 2, 3);
+    when(mockUnit.getAcquisitionStatistics()).thenReturn(stats);
+    assertEquals(stats, ps.getAcquisitionStatistics());
+
+    ps.stopAcquisition();
+    verify(mockUnit).stopAcquisition();
+  }
+
   /**
    * Test of getTimesAndValues method, of class PicoScope.
    */
@@ -438,6 +527,43 @@ public class PicoScopeTest {
     when(mockUnit.getTimesAndValues()).thenReturn(dummy);
 
     assertEquals(dummy, ps.getTimesAndValues());
+
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.getTimesAndValues(SampleFormat.ADC_COUNTS);
+    });
+
+    when(mockUnit.getTimesAndValues(SampleFormat.ADC_COUNTS)).thenReturn(dummy);
+
+    assertEquals(dummy, ps.getTimesAndValues(SampleFormat.ADC_COUNTS));
+
+    CaptureBuffer buffer = mock(CaptureBuffer.class);
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.getTimesAndValues(buffer);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.getTimesAndValues((CaptureBuffer) null);
+    });
+
+    when(mockUnit.getTimesAndValues(buffer)).thenReturn(dummy);
+
+    assertEquals(dummy, ps.getTimesAndValues(buffer));
+  }
+
+  /**
+   * Test of newCaptureBuffer method, of class PicoScope.
+   */
+  @Test
+  public void testNewCaptureBuffer() {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.newCaptureBuffer(10);
+    });
+
+    CaptureBuffer buffer = mock(CaptureBuffer.class);
+    when(mockUnit.createCaptureBuffer(10, SampleFormat.VOLTAGE)).thenReturn(buffer);
+    when(mockUnit.createCaptureBuffer(10, SampleFormat.ADC_COUNTS)).thenReturn(buffer);
+
+    assertSame(buffer, ps.newCaptureBuffer(10));
+    assertSame(buffer, ps.newCaptureBuffer(10, SampleFormat.ADC_COUNTS));
   }
 
   /**
@@ -492,6 +618,13 @@ public class PicoScopeTest {
     });
 
     ps.runStreaming();
+
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.runStreaming(4);
+    });
+
+    ps.runStreaming(4);
+    verify(mockUnit).runStreaming(4);
   }
 
   /**
@@ -506,6 +639,135 @@ public class PicoScopeTest {
     });
 
     ps.registerStreamingCallback(callback);
+
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.registerStreamingCallback(callback, SampleFormat.ADC_COUNTS);
+    });
+
+    ps.registerStreamingCallback(callback, SampleFormat.ADC_COUNTS);
+    verify(mockUnit).registerCallback(callback, SampleFormat.ADC_COUNTS);
+  }
+
+  /**
+   * Test of registerOverviewBufferCallback method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRegisterOverviewBufferCallback() throws Exception {
+    OnOverviewBuffersCallback listener = (maxima, minima, values, overflow, trigger, stop) -> { };
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.registerOverviewBufferCallback(listener);
+    });
+
+    ps.registerOverviewBufferCallback(listener);
+    verify(mockUnit).registerOverviewBufferCallback(listener);
+  }
+
+  /**
+   * Test of registerStreamRecorder method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRegisterStreamRecorder() throws Exception {
+    RecorderSettings settings = new RecorderSettings(new java.io.File("."));
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.registerStreamRecorder(settings);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.registerStreamRecorder(new RecorderSettings());
+    });
+
+    StreamRecorder recorder = ps.registerStreamRecorder(settings);
+    verify(mockUnit).registerOverviewBufferCallback(recorder);
+  }
+
+  /**
+   * Test of registerStreamingPublisher method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRegisterStreamingPublisher() throws Exception {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.registerStreamingPublisher(new PublisherSettings());
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.registerStreamingPublisher(new PublisherSettings(0, OverflowPolicy.DROP));
+    });
+
+    ResultSetPublisher publisher = ps.registerStreamingPublisher(new PublisherSettings());
+    verify(mockUnit).registerCallback(publisher, SampleFormat.VOLTAGE);
+
+    publisher = ps.registerStreamingPublisher(new PublisherSettings(), SampleFormat.ADC_COUNTS);
+    verify(mockUnit).registerCallback(publisher, SampleFormat.ADC_COUNTS);
+  }
+
+  /**
+   * Test of registerStreamingFanOut method, of class PicoScope.
+   *
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRegisterStreamingFanOut() throws Exception {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.registerStreamingFanOut(4);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.registerStreamingFanOut(0);
+    });
+
+    StreamingFanOut fanOut = ps.registerStreamingFanOut(4);
+    verify(mockUnit).registerCallback(fanOut, SampleFormat.VOLTAGE);
+
+    fanOut = ps.registerStreamingFanOut(4, SampleFormat.ADC_COUNTS);
+    verify(mockUnit).registerCallback(fanOut, SampleFormat.ADC_COUNTS);
+  }
+
+  /**
+   * Test of the streaming settings and statistics methods, of class PicoScope.
+   */
+  @Test
+  public void testStreamingSettings() {
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.setStreamingSettings(new StreamingSettings());
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.getStreamingSettings();
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      unopendPS.getStreamingStatistics();
+    });
+
+    StreamingSettings settings = new StreamingSettings(8, OverflowPolicy.BLOCK);
+    ps.setStreamingSettings(settings);
+    verify(mockUnit).setStreamingSettings(settings);
+
+    when(mockUnit.getStreamingSettings()).thenReturn(settings);
+    assertEquals(settings, ps.getStreamingSettings());
+
+    StreamingStatistics stats = new StreamingStatistics(1, 2, 3, 4, 5, 6, 7, 
+        PollStrategy.PARK, 8, 9, 10);
+    when(mockUnit.getStreamingStatistics()).thenReturn(stats);
+    assertEquals(stats, ps.getStreamingStatistics());
+  }
+
+  /**
+   * Test of setConversionSettings and getConversionSettings methods, of class PicoScope.
+   */
+  @Test
+  public void testConversionSettings() {
+    ConversionSettings cs = new ConversionSettings(ConversionMode.FIXED_POOL, 2, 1024);
+    PicoScope.setConversionSettings(cs);
+    assertEquals(cs, PicoScope.getConversionSettings());
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      PicoScope.setConversionSettings(null);
+    });
+
+    PicoScope.setConversionSettings(new ConversionSettings());
+    assertEquals(new ConversionSettings(), PicoScope.getConversionSettings());
   }
 
   /**
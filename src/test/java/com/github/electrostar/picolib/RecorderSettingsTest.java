@@ -0,0 +1,72 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link RecorderSettings} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class RecorderSettingsTest {
+
+  /**
+   * Test of the defaults, of class RecorderSettings.
+   */
+  @Test
+  public void testDefaults() {
+    RecorderSettings settings = new RecorderSettings(new File("data"));
+    assertEquals(new File("data"), settings.getDirectory());
+    assertEquals(RecorderSettings.DEFAULT_PREFIX, settings.getPrefix());
+    assertEquals(RecorderSettings.DEFAULT_SEGMENT_SIZE, settings.getSegmentSize());
+    assertEquals(0, settings.getSegmentDuration());
+  }
+
+  /**
+   * Test of equals, hashCode and the copy constructor, of class RecorderSettings.
+   */
+  @Test
+  public void testEquals() {
+    RecorderSettings settings = new RecorderSettings(new File("data"), "run", 1024, 60000);
+    RecorderSettings copy = new RecorderSettings(settings);
+    assertEquals(settings, copy);
+    assertEquals(settings.hashCode(), copy.hashCode());
+    assertEquals(settings.toString(), copy.toString());
+
+    copy.setPrefix("other");
+    assertNotEquals(settings, copy);
+    copy = new RecorderSettings(settings);
+    copy.setSegmentSize(2048);
+    assertNotEquals(settings, copy);
+    copy = new RecorderSettings(settings);
+    copy.setSegmentDuration(1);
+    assertNotEquals(settings, copy);
+    copy = new RecorderSettings(settings);
+    copy.setDirectory(null);
+    assertNotEquals(settings, copy);
+    assertNotEquals(settings, null);
+    assertNotEquals(settings, new Object());
+    assertEquals(settings, settings);
+  }
+}
@@ -0,0 +1,233 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ResultSetPublisher} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ResultSetPublisherTest {
+
+  /**
+   * Subscriber which records all signals and requests a fixed number of items on subscribe.
+   */
+  private static class RecordingSubscriber implements Flow.Subscriber<ResultSet> {
+
+    private final long initial;
+    private final List<ResultSet> items = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+    private int completions;
+
+    RecordingSubscriber(long initial) {
+      this.initial = initial;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initial > 0) {
+        subscription.request(initial);
+      }
+    }
+
+    @Override
+    public void onNext(ResultSet item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completions++;
+    }
+  }
+
+  private static ResultSet resultSet(int samples) {
+    ResultSet rs = new ResultSet();
+    rs.setNumberOfSamples(samples);
+    return rs;
+  }
+
+  /**
+   * Test of the constructor, of class ResultSetPublisher.
+   */
+  @Test
+  public void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResultSetPublisher(null);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResultSetPublisher(new PublisherSettings(0, OverflowPolicy.DROP));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResultSetPublisher(new PublisherSettings(1, null));
+    });
+    assertThrows(NullPointerException.class, () -> {
+      new ResultSetPublisher().subscribe(null);
+    });
+  }
+
+  /**
+   * Test of request and the drop policy, of class ResultSetPublisher.
+   */
+  @Test
+  public void testRequestAndDrop() {
+    ResultSetPublisher publisher = new ResultSetPublisher(
+            new PublisherSettings(2, OverflowPolicy.DROP));
+    RecordingSubscriber fast = new RecordingSubscriber(Long.MAX_VALUE);
+    RecordingSubscriber slow = new RecordingSubscriber(1);
+    publisher.subscribe(fast);
+    publisher.subscribe(slow);
+    assertEquals(2, publisher.getSubscriberCount());
+
+    for (int i = 1; i <= 4; i++) {
+      publisher.onDataEvent(resultSet(i));
+    }
+
+    // The slow subscriber got one, buffered two and lost the last one
+    assertEquals(4, fast.items.size());
+    assertEquals(1, slow.items.size());
+    assertEquals(1, publisher.getDroppedResultSets());
+    slow.subscription.request(5);
+    assertEquals(3, slow.items.size());
+    assertEquals(3, slow.items.get(2).getNumberOfSamples());
+    assertSame(fast.items.get(0), slow.items.get(0));
+  }
+
+  /**
+   * Test of the block policy, of class ResultSetPublisher.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testBlock() throws Exception {
+    ResultSetPublisher publisher = new ResultSetPublisher(
+            new PublisherSettings(1, OverflowPolicy.BLOCK));
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    publisher.subscribe(subscriber);
+    publisher.onDataEvent(resultSet(1));
+
+    CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+      publisher.onDataEvent(resultSet(2));
+    });
+    assertThrows(TimeoutException.class, () -> {
+      blocked.get(50, TimeUnit.MILLISECONDS);
+    });
+
+    subscriber.subscription.request(1);
+    blocked.get(5, TimeUnit.SECONDS);
+    assertEquals(0, publisher.getDroppedResultSets());
+    subscriber.subscription.request(1);
+    assertEquals(2, subscriber.items.size());
+  }
+
+  /**
+   * Test of stopping while a subscriber without demand holds up the delivery, of class 
+   * ResultSetPublisher.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testBlockStopped() throws Exception {
+    ResultSetPublisher publisher = new ResultSetPublisher(
+            new PublisherSettings(1, OverflowPolicy.BLOCK));
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    publisher.subscribe(subscriber);
+    publisher.onDataEvent(resultSet(1));
+
+    CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+      publisher.onDataEvent(resultSet(2));
+    });
+    assertThrows(TimeoutException.class, () -> {
+      blocked.get(50, TimeUnit.MILLISECONDS);
+    });
+
+    // The stop releases the delivery and drops what does not fit
+    publisher.onStreamingStopping();
+    blocked.get(5, TimeUnit.SECONDS);
+    publisher.onDataEvent(resultSet(3));
+    assertEquals(2, publisher.getDroppedResultSets());
+
+    publisher.onStreamingComplete();
+    subscriber.subscription.request(5);
+    assertEquals(1, subscriber.items.size());
+    assertEquals(1, subscriber.completions);
+  }
+
+  /**
+   * Test of the completion, of class ResultSetPublisher.
+   */
+  @Test
+  public void testComplete() {
+    ResultSetPublisher publisher = new ResultSetPublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    publisher.subscribe(subscriber);
+    publisher.onDataEvent(resultSet(1));
+    publisher.onStreamingComplete();
+
+    // Buffered items are delivered before the completion
+    assertEquals(0, subscriber.completions);
+    subscriber.subscription.request(1);
+    assertEquals(1, subscriber.items.size());
+    assertEquals(1, subscriber.completions);
+    assertEquals(0, publisher.getSubscriberCount());
+
+    RecordingSubscriber late = new RecordingSubscriber(0);
+    publisher.subscribe(late);
+    assertEquals(1, late.completions);
+  }
+
+  /**
+   * Test of cancel and invalid requests, of class ResultSetPublisher.
+   */
+  @Test
+  public void testCancelAndError() {
+    ResultSetPublisher publisher = new ResultSetPublisher();
+    RecordingSubscriber cancelled = new RecordingSubscriber(1);
+    RecordingSubscriber failed = new RecordingSubscriber(1);
+    publisher.subscribe(cancelled);
+    publisher.subscribe(failed);
+
+    cancelled.subscription.cancel();
+    failed.subscription.request(0);
+    assertTrue(failed.error instanceof IllegalArgumentException);
+    assertEquals(0, publisher.getSubscriberCount());
+
+    publisher.onDataEvent(resultSet(1));
+    publisher.onStreamingComplete();
+    assertTrue(cancelled.items.isEmpty());
+    assertEquals(0, cancelled.completions);
+    assertTrue(failed.items.isEmpty());
+    assertEquals(0, failed.completions);
+  }
+}
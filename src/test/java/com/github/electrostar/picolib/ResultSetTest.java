@@ -21,9 +21,14 @@
 package com.github.electrostar.picolib;
 
 import com.github.electrostar.picolib.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import pl.pojo.tester.api.assertion.Assertions;
 import pl.pojo.tester.api.assertion.Method;
+import static pl.pojo.tester.api.FieldPredicate.exclude;
 
 /**
  * Tests for the {@link ResultSet} class.
@@ -40,10 +45,172 @@ public class ResultSetTest {
    */
   @Test
   public void testPojo() {
-    Assertions.assertPojoMethodsFor(ResultSet.class).testing(Method.SETTER, Method.GETTER)
+    // The columns are reached through the channel-indexed accessors, calculated times are a cache
+    Assertions.assertPojoMethodsFor(ResultSet.class, 
+            exclude("channels", "rawChannels", "calculatedTimes"))
+            .testing(Method.SETTER, Method.GETTER)
             .testing(Method.EQUALS)
             .testing(Method.HASH_CODE)
             .testing(Method.CONSTRUCTOR)
             .areWellImplemented();
   }
+
+  /**
+   * Test of the lazy voltage calculation, of class ResultSet.
+   */
+  @Test
+  public void testLazyVoltages() {
+    ResultSet rs = new ResultSet();
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    rs.setRawChannelA(new short[] {32767, -32768});
+    rs.setRawChannelB(new short[] {-32767});
+    assertNull(rs.getChannelA());
+    
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    float[] volts = rs.getChannelA();
+    assertArrayEquals(new float[] {1f, Float.MAX_VALUE}, volts);
+    assertSame(volts, rs.getChannelA());
+    assertNull(rs.getChannelB());
+    assertNull(rs.getChannelC());
+    assertNull(rs.getChannelD());
+    
+    rs.setScalings(null);
+    rs.setScaling(Channel.CHANNEL_B, new SampleScaling(Range.RANGE_2V, 32767, -32768));
+    assertArrayEquals(new float[] {-2f}, rs.getChannelB());
+  }
+
+  /**
+   * Test of the lazy voltage calculation of the minima, of class ResultSet.
+   */
+  @Test
+  public void testLazyMinima() {
+    ResultSet rs = new ResultSet();
+    assertNull(rs.getChannelMin(Channel.CHANNEL_A));
+    
+    Aggregation aggregation = new Aggregation(16);
+    aggregation.setRawChannelA(new short[] {-32767});
+    rs.setAggregation(aggregation);
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    float[] volts = rs.getChannelMin(Channel.CHANNEL_A);
+    assertArrayEquals(new float[] {-1f}, volts);
+    assertSame(volts, aggregation.getChannelA());
+    assertNull(rs.getChannelMin(Channel.CHANNEL_B));
+    assertNull(rs.getChannelMin(Channel.EXTERNAL));
+  }
+
+  /**
+   * Test of the implicit time axis, of class ResultSet.
+   */
+  @Test
+  public void testImplicitTimes() {
+    ResultSet rs = new ResultSet();
+    rs.setNumberOfSamples(3);
+    assertNull(rs.getTimes());
+    
+    rs.setTimeOffset(-20);
+    rs.setTimeInterval(10);
+    assertEquals(0, rs.getTime(2));
+    ResultSet copy = new ResultSet(rs);
+    int hash = rs.hashCode();
+    int[] times = rs.getTimes();
+    assertArrayEquals(new int[] {-20, -10, 0}, times);
+    assertSame(times, rs.getTimes());
+    
+    // Calculated times are no part of the equality
+    assertEquals(copy, rs);
+    assertEquals(hash, rs.hashCode());
+    
+    // Changing the axis calculates the times again
+    rs.setTimeOffset(0);
+    assertArrayEquals(new int[] {0, 10, 20}, rs.getTimes());
+    
+    // Given times win over the implicit axis
+    rs.setTimes(new int[] {1, 2, 3});
+    assertEquals(3, rs.getTime(2));
+    assertArrayEquals(new int[] {1, 2, 3}, rs.getTimes());
+  }
+
+  /**
+   * Test of the times of a chunk far into a stream, of class ResultSet.
+   */
+  @Test
+  public void testLongTimes() {
+    // About 50 s of streaming at 10 ns per sample
+    long startIndex = 5_000_000_000L;
+    ResultSet rs = new ResultSet();
+    rs.setNumberOfSamples(2);
+    rs.setTimeUnit(TimeUnit.NANOSECOND);
+    rs.setTimeInterval(10);
+    rs.setTimeOffset(startIndex * 10);
+    rs.setStreamingInfo(new StreamingInfo(startIndex, 10, -1, (short) 0, false));
+    
+    assertEquals(rs.getStreamingInfo().getTime(1), rs.getTime(1));
+    assertArrayEquals(new long[] {50_000_000_000L, 50_000_000_010L}, rs.getLongTimes());
+    assertThrows(IllegalStateException.class, () -> {
+      rs.getTimes();
+    });
+    
+    rs.setTimeOffset(0);
+    assertArrayEquals(new int[] {0, 10}, rs.getTimes());
+    rs.setTimes(new int[] {1, 2});
+    assertArrayEquals(new long[] {1, 2}, rs.getLongTimes());
+    assertNull(new ResultSet().getLongTimes());
+  }
+
+  /**
+   * Test of the channel-indexed columns, of class ResultSet.
+   */
+  @Test
+  public void testChannelColumns() {
+    ResultSet rs = new ResultSet();
+    assertTrue(rs.channels().isEmpty());
+    assertNull(rs.getChannel(Channel.CHANNEL_D));
+    
+    rs.setChannel(Channel.CHANNEL_B, new float[] {1f, 2f});
+    rs.setRawChannel(Channel.CHANNEL_D, new short[] {-32767});
+    rs.setScaling(Channel.CHANNEL_D, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    assertArrayEquals(new float[] {1f, 2f}, rs.getChannelB());
+    assertSame(rs.getRawChannel(Channel.CHANNEL_D), rs.getRawChannelD());
+    assertEquals(Arrays.asList(Channel.CHANNEL_B, Channel.CHANNEL_D), rs.channels());
+    assertFalse(rs.hasChannel(Channel.CHANNEL_A));
+    assertFalse(rs.hasChannel(Channel.NONE));
+    
+    List<String> samples = new ArrayList<>();
+    rs.forEachSample((channel, index, value) -> samples.add(channel.name() + index + "=" + value));
+    assertEquals(Arrays.asList("CHANNEL_B0=1.0", "CHANNEL_B1=2.0", "CHANNEL_D0=-1.0"), samples);
+    
+    // Copies do not share the columns
+    ResultSet copy = new ResultSet(rs);
+    assertEquals(rs, copy);
+    assertEquals(rs.hashCode(), copy.hashCode());
+    copy.setChannel(Channel.CHANNEL_B, null);
+    assertNotNull(rs.getChannelB());
+    assertNotEquals(rs, copy);
+  }
+  
+  /**
+   * Test of equals and hashCode with raw ADC counts, of class ResultSet.
+   */
+  @Test
+  public void testEqualsDoesNotConvert() {
+    ResultSet rs = new ResultSet();
+    rs.setRawChannel(Channel.CHANNEL_A, new short[] {32767, -32767});
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    rs.setAggregation(new Aggregation());
+    rs.getAggregation().setRawChannel(Channel.CHANNEL_A, new short[] {0});
+    ResultSet copy = new ResultSet(rs);
+    copy.setAggregation(new Aggregation());
+    copy.getAggregation().setRawChannel(Channel.CHANNEL_A, new short[] {0});
+    int hash = rs.hashCode();
+    
+    assertEquals(rs, copy);
+    assertEquals(hash, copy.hashCode());
+    assertNull(rs.getAggregation().getChannel(Channel.CHANNEL_A));
+    
+    // Voltages calculated from the counts do not change the equality
+    assertArrayEquals(new float[] {1f, -1f}, copy.getChannelA());
+    assertArrayEquals(new float[] {0f}, copy.getChannelMin(Channel.CHANNEL_A));
+    assertEquals(rs, copy);
+    assertEquals(hash, copy.hashCode());
+  }
 }
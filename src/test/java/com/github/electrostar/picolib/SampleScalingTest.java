@@ -0,0 +1,55 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import pl.pojo.tester.api.assertion.Assertions;
+
+/**
+ * Tests for the {@link SampleScaling} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class SampleScalingTest {
+
+  public SampleScalingTest() {
+  }
+
+  /**
+   * Test of all method, of class SampleScaling.
+   */
+  @Test
+  public void testPojo() {
+    Assertions.assertPojoMethodsFor(SampleScaling.class).areWellImplemented();
+  }
+
+  /**
+   * Test of toVolts method, of class SampleScaling.
+   */
+  @Test
+  public void testToVolts() {
+    SampleScaling scaling = new SampleScaling(Range.RANGE_5V, 32767, -32768);
+
+    assertNull(scaling.toVolts(null));
+    assertArrayEquals(new float[] {-5f, 5f, Float.MAX_VALUE, 0f}, 
+            scaling.toVolts(new short[] {-32767, 32767, -32768, 0}));
+  }
+}
@@ -0,0 +1,295 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ShortBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link StreamRecorder} and {@link StreamRecording} classes.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamRecorderTest {
+
+  private static final int MAX_VALUE = 32767;
+  private static final int LOST_VALUE = -32768;
+  // Header with four channels and one chunk of two samples on two channels
+  private static final int SEGMENT_SIZE = 64 + 4 * 12 + 12 + 2 * 2 * 2;
+
+  @TempDir
+  Path directory;
+
+  private SampleScaling[] scalings;
+  private Timebase timebase;
+
+  @BeforeEach
+  public void setUp() {
+    scalings = new SampleScaling[Channel.values().length];
+    scalings[0] = new SampleScaling(Range.RANGE_5V, MAX_VALUE, LOST_VALUE);
+    scalings[2] = new SampleScaling(Range.RANGE_1V, MAX_VALUE, LOST_VALUE);
+    timebase = new Timebase(CollectionTime.DIV1MS);
+    timebase.setTimeUnit(TimeUnit.NANOSECOND);
+    timebase.setTimeInterval(10);
+  }
+
+  private static ShortBuffer[] buffers(short[] channelA, short[] channelC) {
+    ShortBuffer[] buffers = new ShortBuffer[Channel.values().length];
+    buffers[0] = ShortBuffer.wrap(channelA).asReadOnlyBuffer();
+    buffers[2] = ShortBuffer.wrap(channelC).asReadOnlyBuffer();
+    return buffers;
+  }
+
+  private static List<ResultSet> read(StreamRecording recording) {
+    List<ResultSet> results = new ArrayList<>();
+    recording.forEach(results::add);
+    return results;
+  }
+
+  /**
+   * Test of the settings validation, of class StreamRecorder.
+   */
+  @Test
+  public void testSettings() {
+    File dir = directory.toFile();
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(null);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(new RecorderSettings());
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(new RecorderSettings(dir, "", SEGMENT_SIZE, 0));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(new RecorderSettings(dir, "run", 64, 0));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(new RecorderSettings(dir, "run", 1L << 31, 0));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecorder(new RecorderSettings(dir, "run", SEGMENT_SIZE, -1));
+    });
+  }
+
+  /**
+   * Test of recording and reading back, of class StreamRecorder.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRecord() throws Exception {
+    RecorderSettings settings = new RecorderSettings(directory.toFile());
+    StreamRecorder recorder = new StreamRecorder(settings);
+    // Nothing is recorded before the format is known
+    recorder.onOverviewBuffers(buffers(new short[]{1}, new short[]{1}), null, 1, (short) 0, -1, 
+            false);
+    assertTrue(recorder.getSegments().isEmpty());
+
+    recorder.onStreamingStarted(scalings, timebase, 1);
+    ShortBuffer[] buffers = buffers(new short[]{100, -100, 7}, new short[]{5, -5, 7});
+    buffers[0].limit(2);
+    buffers[2].limit(2);
+    recorder.onOverviewBuffers(buffers, null, 2, (short) 4, 1, false);
+    assertEquals(2, buffers[0].remaining());
+    recorder.onOverviewBuffers(buffers, null, 2, (short) 0, -1, true);
+    recorder.onStreamingComplete();
+    recorder.close();
+    // Ignored after close
+    recorder.onOverviewBuffers(buffers, null, 2, (short) 0, -1, false);
+
+    assertEquals(4, recorder.getRecordedSamples());
+    assertEquals(1, recorder.getSegments().size());
+    assertEquals(RecorderSettings.DEFAULT_SEGMENT_SIZE, recorder.getSegments().get(0).length());
+
+    StreamRecording recording = StreamRecording.open(settings);
+    assertEquals(recorder.getSegments(), recording.getSegments());
+    assertEquals(4, recording.getSamples());
+    List<ResultSet> results = read(recording);
+    assertEquals(2, results.size());
+
+    ResultSet rs = results.get(0);
+    assertEquals(2, rs.getNumberOfSamples());
+    // The chunks read the mapped segment without copying
+    OffHeapResultSet mapped = (OffHeapResultSet) rs;
+    assertEquals(-100, mapped.getRaw(Channel.CHANNEL_A, 1));
+    assertFalse(mapped.hasChannel(Channel.CHANNEL_B));
+    assertEquals(SampleFormat.ADC_COUNTS, rs.getSampleFormat());
+    assertEquals(TimeUnit.NANOSECOND, rs.getTimeUnit());
+    assertEquals(CollectionTime.DIV1MS, rs.getCollectionTime());
+    assertArrayEquals(new short[]{100, -100}, rs.getRawChannelA());
+    assertNull(rs.getRawChannelB());
+    assertArrayEquals(new short[]{5, -5}, rs.getRawChannelC());
+    assertEquals(scalings[0], rs.getScaling(Channel.CHANNEL_A));
+    assertEquals(scalings[2], rs.getScaling(Channel.CHANNEL_C));
+    assertNull(rs.getAggregation());
+    assertEquals(new StreamingInfo(0, 10, 1, (short) 4, false), rs.getStreamingInfo());
+    assertEquals(new StreamingInfo(2, 10, -1, (short) 0, true), 
+            results.get(1).getStreamingInfo());
+  }
+
+  /**
+   * Test of recording aggregated sample data, of class StreamRecorder.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRecordAggregated() throws Exception {
+    RecorderSettings settings = new RecorderSettings(directory.toFile());
+    try (StreamRecorder recorder = new StreamRecorder(settings)) {
+      recorder.onStreamingStarted(scalings, timebase, 4);
+      recorder.onOverviewBuffers(buffers(new short[]{10}, new short[]{20}), 
+              buffers(new short[]{-10}, new short[]{-20}), 1, (short) 0, -1, false);
+    }
+
+    List<ResultSet> results = read(StreamRecording.open(settings));
+    assertEquals(1, results.size());
+    ResultSet rs = results.get(0);
+    assertArrayEquals(new short[]{10}, rs.getRawChannelA());
+    assertArrayEquals(new short[]{20}, rs.getRawChannelC());
+    assertEquals(4, rs.getAggregation().getSamplesPerAggregate());
+    assertArrayEquals(new short[]{-10}, rs.getAggregation().getRawChannelA());
+    assertArrayEquals(new short[]{-20}, rs.getAggregation().getRawChannelC());
+    assertEquals(-10, ((OffHeapResultSet) rs).getRawMin(Channel.CHANNEL_A, 0));
+    assertEquals(40, rs.getStreamingInfo().getSampleInterval());
+  }
+
+  /**
+   * Test of rolling to a new segment at the size limit, of class StreamRecorder.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRollBySize() throws Exception {
+    RecorderSettings settings = new RecorderSettings(directory.toFile(), "run", SEGMENT_SIZE, 0);
+    try (StreamRecorder recorder = new StreamRecorder(settings)) {
+      recorder.onStreamingStarted(scalings, timebase, 1);
+      for (int i = 0; i < 3; i++) {
+        recorder.onOverviewBuffers(buffers(new short[]{(short) i, 0}, new short[]{0, 0}), null, 
+                2, (short) 0, -1, false);
+      }
+      // A chunk larger than a segment gets a segment of its own
+      recorder.onOverviewBuffers(buffers(new short[8], new short[8]), null, 8, (short) 0, -1, 
+              false);
+      assertEquals(4, recorder.getSegments().size());
+      assertTrue(recorder.getSegments().get(3).length() > SEGMENT_SIZE);
+    }
+
+    StreamRecording recording = StreamRecording.open(settings);
+    assertEquals(4, recording.getSegments().size());
+    List<ResultSet> results = read(recording);
+    assertEquals(4, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, results.get(i).getRawChannelA()[0]);
+      assertEquals(2L * i, results.get(i).getStreamingInfo().getStartIndex());
+    }
+    assertEquals(6, results.get(3).getStreamingInfo().getStartIndex());
+    assertEquals(14, recording.getSamples());
+  }
+
+  /**
+   * Test of rolling to a new segment at the duration limit, of class StreamRecorder.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRollByDuration() throws Exception {
+    // 1 ms covers 100000 samples of 10 ns
+    timebase.setTimeInterval(10);
+    RecorderSettings settings = new RecorderSettings(directory.toFile(), "run", 1 << 20, 1);
+    try (StreamRecorder recorder = new StreamRecorder(settings)) {
+      recorder.onStreamingStarted(scalings, timebase, 1);
+      ShortBuffer[] buffers = buffers(new short[60000], new short[60000]);
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      assertEquals(1, recorder.getSegments().size());
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      assertEquals(2, recorder.getSegments().size());
+    }
+  }
+
+  /**
+   * Test of the duration limit with a timebase suggesting another unit, of class StreamRecorder.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRollByDurationInNanoseconds() throws Exception {
+    // The interval stays in nanoseconds whatever unit the driver suggests
+    timebase.setTimeUnit(TimeUnit.MICROSECOND);
+    timebase.setTimeInterval(10);
+    RecorderSettings settings = new RecorderSettings(directory.toFile(), "run", 1 << 20, 1);
+    StreamRecording recording;
+    try (StreamRecorder recorder = new StreamRecorder(settings)) {
+      recorder.onStreamingStarted(scalings, timebase, 1);
+      ShortBuffer[] buffers = buffers(new short[60000], new short[60000]);
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      assertEquals(1, recorder.getSegments().size());
+      recorder.onOverviewBuffers(buffers, null, 60000, (short) 0, -1, false);
+      assertEquals(2, recorder.getSegments().size());
+      recording = new StreamRecording(recorder.getSegments());
+    }
+    ResultSet rs = read(recording).get(0);
+    assertEquals(TimeUnit.NANOSECOND, rs.getTimeUnit());
+    assertEquals(10, rs.getStreamingInfo().getSampleInterval());
+  }
+
+  /**
+   * Test of reading files which are no segments, of class StreamRecording.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testReadInvalid() throws Exception {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamRecording(null);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      StreamRecording.open(new RecorderSettings());
+    });
+
+    File file = directory.resolve("run-000000" + StreamRecorder.EXTENSION).toFile();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(128);
+    }
+    StreamRecording recording = new StreamRecording(Collections.singletonList(file));
+    assertThrows(IOException.class, recording::getSamples);
+    Iterator<ResultSet> it = recording.iterator();
+    assertThrows(UncheckedIOException.class, it::hasNext);
+
+    StreamRecording empty = StreamRecording.open(
+            new RecorderSettings(directory.resolve("missing").toFile()));
+    assertFalse(empty.iterator().hasNext());
+  }
+}
@@ -0,0 +1,242 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link StreamingFanOut} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingFanOutTest {
+
+  /**
+   * Consumer which records all calls.
+   */
+  private static class RecordingConsumer implements OnDataCallback {
+
+    private final List<ResultSet> results = new ArrayList<>();
+    private final List<DataLostEvent> losts = new ArrayList<>();
+    private int completions;
+
+    @Override
+    public void onDataEvent(ResultSet rs) {
+      results.add(rs);
+    }
+
+    @Override
+    public void onDataLost(DataLostEvent event) {
+      losts.add(event);
+    }
+
+    @Override
+    public void onStreamingComplete() {
+      completions++;
+    }
+  }
+
+  /**
+   * Executor which only runs the tasks when told to.
+   */
+  private static class ManualExecutor implements Executor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    void runAll() {
+      Runnable task;
+      while (null != (task = tasks.poll())) {
+        task.run();
+      }
+    }
+  }
+
+  private static ResultSet resultSet(int samples) {
+    ResultSet rs = new ResultSet();
+    rs.setNumberOfSamples(samples);
+    return rs;
+  }
+
+  /**
+   * Test of the constructor and addConsumer method, of class StreamingFanOut.
+   */
+  @Test
+  public void testAddConsumer() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new StreamingFanOut(0);
+    });
+
+    StreamingFanOut fanOut = new StreamingFanOut();
+    RecordingConsumer consumer = new RecordingConsumer();
+    assertThrows(IllegalArgumentException.class, () -> {
+      fanOut.addConsumer(null, Runnable::run);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      fanOut.addConsumer(consumer, null);
+    });
+    fanOut.addConsumer(consumer, Runnable::run);
+    assertThrows(IllegalArgumentException.class, () -> {
+      fanOut.addConsumer(consumer, Runnable::run);
+    });
+
+    assertTrue(fanOut.removeConsumer(consumer));
+    assertFalse(fanOut.removeConsumer(consumer));
+    assertFalse(fanOut.removeConsumer(null));
+    assertNull(fanOut.getConsumerStatistics(consumer));
+    assertNull(fanOut.getConsumerStatistics(null));
+  }
+
+  /**
+   * Test of the shared read-only view, of class StreamingFanOut.
+   */
+  @Test
+  public void testSharedView() {
+    StreamingFanOut fanOut = new StreamingFanOut();
+    RecordingConsumer first = new RecordingConsumer();
+    RecordingConsumer second = new RecordingConsumer();
+    fanOut.addConsumer(first, Runnable::run);
+    fanOut.addConsumer(second, Runnable::run);
+
+    ResultSet rs = resultSet(2);
+    rs.setSampleFormat(SampleFormat.ADC_COUNTS);
+    rs.setRawChannelA(new short[] {32767, -32767});
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    fanOut.onDataEvent(rs);
+
+    ResultSet view = first.results.get(0);
+    assertSame(view, second.results.get(0));
+    assertSame(rs.getRawChannelA(), view.getRawChannelA());
+    assertArrayEquals(new float[] {1f, -1f}, view.getChannelA());
+    assertSame(view.getChannelA(), second.results.get(0).getChannelA());
+    assertThrows(UnsupportedOperationException.class, () -> {
+      view.setNumberOfSamples(1);
+    });
+    assertThrows(UnsupportedOperationException.class, () -> {
+      view.setScaling(Channel.CHANNEL_A, null);
+    });
+  }
+
+  /**
+   * Test of the copies handed out by the shared read-only view, of class StreamingFanOut.
+   */
+  @Test
+  public void testSharedViewCopies() {
+    StreamingFanOut fanOut = new StreamingFanOut();
+    RecordingConsumer consumer = new RecordingConsumer();
+    fanOut.addConsumer(consumer, Runnable::run);
+
+    ResultSet rs = resultSet(1);
+    rs.setRawChannelA(new short[] {32767});
+    rs.setScaling(Channel.CHANNEL_A, new SampleScaling(Range.RANGE_1V, 32767, -32768));
+    rs.setAggregation(new Aggregation(2));
+    rs.getAggregation().setRawChannel(Channel.CHANNEL_A, new short[] {-32767});
+    rs.setStreamingInfo(new StreamingInfo(10, 1, -1, (short) 0, false));
+    fanOut.onDataEvent(rs);
+    ResultSet view = consumer.results.get(0);
+
+    // Changing what the view hands out does not change the view
+    view.getScalings()[0].setRange(Range.RANGE_5V);
+    view.getScaling(Channel.CHANNEL_A).setMaxValue(1);
+    view.getAggregation().setChannel(Channel.CHANNEL_A, new float[] {0f});
+    view.getAggregation().setSamplesPerAggregate(4);
+    view.getStreamingInfo().setStartIndex(0);
+    assertArrayEquals(new float[] {1f}, view.getChannelA());
+    assertArrayEquals(new float[] {-1f}, view.getChannelMin(Channel.CHANNEL_A));
+    assertSame(view.getChannelMin(Channel.CHANNEL_A), 
+            view.getAggregation().getChannel(Channel.CHANNEL_A));
+    assertEquals(2, view.getAggregation().getSamplesPerAggregate());
+    assertEquals(10, view.getStreamingInfo().getStartIndex());
+  }
+
+  /**
+   * Test of a slow consumer, of class StreamingFanOut.
+   */
+  @Test
+  public void testSlowConsumer() {
+    StreamingFanOut fanOut = new StreamingFanOut(2);
+    RecordingConsumer fast = new RecordingConsumer();
+    RecordingConsumer slow = new RecordingConsumer();
+    ManualExecutor executor = new ManualExecutor();
+    fanOut.addConsumer(fast, Runnable::run);
+    fanOut.addConsumer(slow, executor);
+
+    fanOut.onDataLost(new DataLostEvent(1, 4, 4));
+    for (int i = 1; i <= 3; i++) {
+      fanOut.onDataEvent(resultSet(i));
+    }
+
+    // A loss is queued even if the queue is full of ResultSets
+    fanOut.onDataLost(new DataLostEvent(2, 4, 4));
+
+    // The slow consumer holds up nobody, it only loses what does not fit into its queue
+    assertEquals(3, fast.results.size());
+    assertEquals(2, fast.losts.size());
+    assertEquals(new ConsumerStatistics(3, 0, 0), fanOut.getConsumerStatistics(fast));
+    assertEquals(new ConsumerStatistics(0, 1, 2), fanOut.getConsumerStatistics(slow));
+
+    executor.runAll();
+    assertEquals(2, slow.losts.size());
+    assertEquals(2, slow.losts.get(1).getOverruns());
+    assertEquals(2, slow.results.size());
+    assertEquals(1, slow.results.get(0).getNumberOfSamples());
+    assertEquals(2, slow.results.get(1).getNumberOfSamples());
+    assertEquals(new ConsumerStatistics(2, 1, 0), fanOut.getConsumerStatistics(slow));
+  }
+
+  /**
+   * Test of the completion, of class StreamingFanOut.
+   */
+  @Test
+  public void testComplete() {
+    StreamingFanOut fanOut = new StreamingFanOut();
+    RecordingConsumer consumer = new RecordingConsumer();
+    ManualExecutor executor = new ManualExecutor();
+    fanOut.addConsumer(consumer, executor);
+    fanOut.onDataEvent(resultSet(1));
+    fanOut.onStreamingComplete();
+
+    // Queued results are delivered before the completion
+    executor.runAll();
+    assertEquals(1, consumer.results.size());
+    assertEquals(1, consumer.completions);
+
+    RecordingConsumer late = new RecordingConsumer();
+    fanOut.addConsumer(late, Runnable::run);
+    assertEquals(1, late.completions);
+
+    RecordingConsumer rejected = new RecordingConsumer();
+    fanOut.addConsumer(rejected, (Runnable command) -> {
+      throw new RejectedExecutionException();
+    });
+    assertEquals(0, rejected.completions);
+  }
+}
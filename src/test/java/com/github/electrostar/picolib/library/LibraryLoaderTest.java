@@ -0,0 +1,115 @@
+/*
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.library;
+
+import com.sun.jna.Library;
+import com.sun.jna.Platform;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link LibraryLoader} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class LibraryLoaderTest {
+
+  private static final String PROPERTY = "picolib.test.library";
+
+  /**
+   * Any library interface, the functions are only looked up when called.
+   */
+  public interface TestLibrary extends Library {
+  }
+
+  @AfterEach
+  public void tearDown() {
+    System.clearProperty(PROPERTY + ".name");
+    System.clearProperty(PROPERTY + ".path");
+  }
+
+  /**
+   * Test of the name and path configuration, of class LibraryLoader.
+   */
+  @Test
+  public void testConfiguration() {
+    LibraryLoader<TestLibrary> loader = new LibraryLoader<>(TestLibrary.class, "test", PROPERTY);
+    assertEquals("test", loader.getName());
+    assertNull(loader.getPath());
+    
+    System.setProperty(PROPERTY + ".name", "property");
+    System.setProperty(PROPERTY + ".path", "/property");
+    assertEquals("property", loader.getName());
+    assertEquals("/property", loader.getPath());
+    
+    loader.configure("configured", "/configured");
+    assertEquals("configured", loader.getName());
+    assertEquals("/configured", loader.getPath());
+    
+    assertThrows(IllegalArgumentException.class, () -> {
+      loader.configure(" ", null);
+    });
+    assertFalse(loader.isLoaded());
+  }
+
+  /**
+   * Test of a missing library, of class LibraryLoader.
+   */
+  @Test
+  public void testMissingLibrary() {
+    LibraryLoader<TestLibrary> loader = new LibraryLoader<>(TestLibrary.class, 
+            "picolib-missing", PROPERTY);
+    assertNull(loader.getFailure());
+    
+    assertFalse(loader.isAvailable());
+    UnsatisfiedLinkError error = assertThrows(UnsatisfiedLinkError.class, loader::get);
+    assertSame(loader.getFailure(), error);
+    assertTrue(error.getMessage().contains("picolib-missing"));
+    // Probing again reads the kept result
+    assertFalse(loader.isAvailable());
+    assertSame(error, loader.getFailure());
+    assertFalse(loader.isLoaded());
+    
+    assertThrows(IllegalStateException.class, () -> {
+      loader.configure("other", null);
+    });
+  }
+
+  /**
+   * Test of a present library, of class LibraryLoader.
+   */
+  @Test
+  public void testLoad() {
+    LibraryLoader<TestLibrary> loader = new LibraryLoader<>(TestLibrary.class, 
+            Platform.C_LIBRARY_NAME, PROPERTY);
+    assertFalse(loader.isLoaded());
+    
+    assertTrue(loader.isAvailable());
+    assertTrue(loader.isLoaded());
+    assertSame(loader.get(), loader.get());
+    assertNull(loader.getFailure());
+    
+    assertThrows(IllegalStateException.class, () -> {
+      loader.configure("other", null);
+    });
+  }
+}
@@ -0,0 +1,111 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.library;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.ptr.ShortByReference;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the per call overhead of the interface mapped {@link PS2000CLibrary} compared to 
+ * the direct mapped {@link PS2000DirectLibrary}.
+ * <p>
+ * The calls go to the {@link PS2000Stub} which returns at once. The stub is compiled on setup, 
+ * so a C compiler is needed.
+ * </p>
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=PS2000BindingBenchmark}.
+ * </p>
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PS2000BindingBenchmark {
+
+  private static final short HANDLE = 1;
+  private static final int SAMPLES = 1000;
+
+  private PS2000CLibrary proxy;
+  private PS2000CLibrary direct;
+
+  private Memory buffer;
+  private ShortByReference overflow;
+  private PS2000CLibrary.GetOverviewBuffersMaxMin callback;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InterruptedException {
+    PS2000Stub.compile();
+    proxy = (PS2000CLibrary) Native.loadLibrary(PS2000CLibrary.LIBRARY_NAME, PS2000CLibrary.class);
+    direct = new PS2000DirectLibrary(proxy);
+
+    buffer = new Memory((long) SAMPLES * Native.getNativeSize(Short.TYPE));
+    overflow = new ShortByReference();
+    callback = (overviewBuffers, overflowed, triggeredAt, triggered, autoStop, nValues) -> { };
+  }
+
+  @Benchmark
+  public short readyProxy() {
+    return proxy.ps2000_ready(HANDLE);
+  }
+
+  @Benchmark
+  public short readyDirect() {
+    return direct.ps2000_ready(HANDLE);
+  }
+
+  @Benchmark
+  public short streamingLastValuesProxy() {
+    return proxy.ps2000_get_streaming_last_values(HANDLE, callback);
+  }
+
+  @Benchmark
+  public short streamingLastValuesDirect() {
+    return direct.ps2000_get_streaming_last_values(HANDLE, callback);
+  }
+
+  @Benchmark
+  public int getValuesProxy() {
+    return proxy.ps2000_get_values(HANDLE, buffer, null, null, null, overflow, SAMPLES);
+  }
+
+  @Benchmark
+  public int getValuesDirect() {
+    return direct.ps2000_get_values(HANDLE, buffer, null, null, null, overflow, SAMPLES);
+  }
+}
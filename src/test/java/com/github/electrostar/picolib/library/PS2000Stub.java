@@ -0,0 +1,68 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.library;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Stub of the PS2000 library for the benchmarks, compiled from {@code src/test/c/ps2000stub.c} 
+ * with {@code cc}. The stub functions return at once.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public interface PS2000Stub extends Library {
+
+  /**
+   * Calls the callback from a new native thread.
+   * 
+   * @param func the callback.
+   * @param count the number of calls.
+   * @return {@code 1} if the thread could be started, {@code 0} otherwise.
+   */
+  short ps2000stub_callback_burst(PS2000CLibrary.GetOverviewBuffersMaxMin func, int count);
+
+  /**
+   * Compiles the stub into a temporary directory and adds it to the {@code jna.library.path}, so 
+   * it is loaded for the {@link PS2000CLibrary#LIBRARY_NAME PS2000 library}.
+   * 
+   * @return the stub.
+   * @throws IOException if the stub could not be written or compiled.
+   * @throws InterruptedException if interrupted while compiling.
+   */
+  static PS2000Stub compile() throws IOException, InterruptedException {
+    String source = "src/test/c/ps2000stub.c";
+    File directory = Files.createTempDirectory("ps2000stub").toFile();
+    directory.deleteOnExit();
+    File library = new File(directory, System.mapLibraryName(PS2000CLibrary.LIBRARY_NAME));
+    library.deleteOnExit();
+    Process cc = new ProcessBuilder("cc", "-shared", "-fPIC", "-O2", "-pthread", "-o", 
+            library.getAbsolutePath(), source).inheritIO().start();
+    if (cc.waitFor() != 0) {
+      throw new IOException("Could not compile " + source);
+    }
+    System.setProperty("jna.library.path", directory.getAbsolutePath());
+    return (PS2000Stub) Native.loadLibrary(PS2000CLibrary.LIBRARY_NAME, PS2000Stub.class);
+  }
+}
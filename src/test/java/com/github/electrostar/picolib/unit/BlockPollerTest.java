@@ -0,0 +1,90 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link BlockPoller} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class BlockPollerTest {
+
+  /**
+   * Test of submit method, of class BlockPoller.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testSubmit() throws Exception {
+    assertSame(BlockPoller.getShared(), BlockPoller.getShared());
+    
+    AtomicInteger polls = new AtomicInteger();
+    CompletableFuture<String> future = BlockPoller.getShared().submit(
+        () -> polls.incrementAndGet() >= 4, 
+        () -> Thread.currentThread().getName(), 
+        () -> fail("Not cancelled."), 
+        1_000_000L);
+    
+    assertTrue(future.get(5, TimeUnit.SECONDS).startsWith("picolib-block-transfer-"));
+    assertEquals(4, polls.get());
+  }
+
+  /**
+   * Test of submit method with failures, of class BlockPoller.
+   */
+  @Test
+  public void testSubmitFailure() {
+    CompletableFuture<String> future = BlockPoller.getShared().submit(
+        () -> true, 
+        () -> {
+          throw new IllegalStateException("Transfer failed.");
+        }, 
+        () -> fail("Not cancelled."), 
+        0L);
+    
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      future.get(5, TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof IllegalStateException);
+  }
+
+  /**
+   * Test of cancel on a submitted block, of class BlockPoller.
+   */
+  @Test
+  public void testCancel() {
+    AtomicBoolean cancelled = new AtomicBoolean();
+    CompletableFuture<String> future = BlockPoller.getShared().submit(
+        () -> false, 
+        () -> "Never", 
+        () -> cancelled.set(true), 
+        BlockPoller.MAX_BACKOFF_NS);
+    
+    assertTrue(future.cancel(false));
+    assertTrue(cancelled.get());
+  }
+}
@@ -0,0 +1,193 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.ConversionMode;
+import com.github.electrostar.picolib.ConversionSettings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ConversionExecutor} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class ConversionExecutorTest {
+
+  private static final int TASKS = 8;
+
+  @AfterEach
+  public void tearDown() {
+    ConversionExecutor.configure(new ConversionSettings());
+  }
+
+  /**
+   * Test of configure method, of class ConversionExecutor.
+   */
+  @Test
+  public void testConfigure() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConversionExecutor.configure(null);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConversionExecutor.configure(new ConversionSettings(null, 0, 0));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, -1, 0));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 1, -1));
+    });
+
+    ConversionSettings cs = new ConversionSettings(ConversionMode.FIXED_POOL, 3, 100);
+    ConversionExecutor.configure(cs);
+    assertEquals(cs, ConversionExecutor.getSettings());
+    assertEquals(3, ConversionExecutor.getShared().getParallelism());
+
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.INLINE, 3, 100));
+    assertEquals(1, ConversionExecutor.getShared().getParallelism());
+  }
+
+  /**
+   * Test of invokeAll method below the inline threshold, of class ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllInline() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 4, 1000));
+
+    Set<Thread> threads = runTasks(999);
+
+    assertEquals(1, threads.size());
+    assertTrue(threads.contains(Thread.currentThread()));
+  }
+
+  /**
+   * Test of invokeAll method with a fixed pool, of class ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllFixedPool() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 4, 0));
+
+    Set<Thread> threads = runTasks(TASKS);
+
+    assertTrue(threads.contains(Thread.currentThread()));
+  }
+
+  /**
+   * Test of invokeAll method with a fork join pool, of class ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllForkJoin() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FORK_JOIN, 4, 0));
+
+    runTasks(TASKS);
+  }
+
+  /**
+   * Test of failing tasks for invokeAll method, of class ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllFailure() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 2, 0));
+
+    List<Runnable> tasks = new ArrayList<>();
+    tasks.add(() -> {
+    });
+    tasks.add(() -> {
+      throw new ArithmeticException();
+    });
+
+    assertThrows(IllegalStateException.class, () -> {
+      ConversionExecutor.getShared().invokeAll(tasks, TASKS);
+    });
+  }
+
+  /**
+   * Test of an interrupted invokeAll method, of class ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllInterrupted() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 2, 0));
+
+    List<Runnable> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      Thread.currentThread().interrupt();
+    });
+    tasks.add(() -> {
+      try {
+        Thread.sleep(10_000L);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    assertThrows(IllegalStateException.class, () -> {
+      ConversionExecutor.getShared().invokeAll(tasks, TASKS);
+    });
+    assertTrue(Thread.interrupted());
+  }
+
+  /**
+   * Test of invokeAll method on a previous executor after configure, of class 
+   * ConversionExecutor.
+   */
+  @Test
+  public void testInvokeAllAfterConfigure() {
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 2, 0));
+    ConversionExecutor previous = ConversionExecutor.getShared();
+    ConversionExecutor.configure(new ConversionSettings(ConversionMode.FIXED_POOL, 3, 0));
+
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    List<Runnable> tasks = new ArrayList<>();
+    for (int i = 0; i < TASKS; i++) {
+      tasks.add(() -> threads.add(Thread.currentThread()));
+    }
+    assertDoesNotThrow(() -> {
+      previous.invokeAll(tasks, TASKS);
+    });
+    assertFalse(threads.isEmpty());
+  }
+
+  private Set<Thread> runTasks(long samples) {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    boolean[] done = new boolean[TASKS];
+    List<Runnable> tasks = new ArrayList<>();
+    for (int i = 0; i < TASKS; i++) {
+      final int index = i;
+      tasks.add(() -> {
+        threads.add(Thread.currentThread());
+        done[index] = true;
+      });
+    }
+
+    ConversionExecutor.getShared().invokeAll(tasks, samples);
+
+    for (boolean d : done) {
+      assertTrue(d);
+    }
+    return threads;
+  }
+}
@@ -0,0 +1,94 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.SampleFormat;
+import com.sun.jna.Memory;
+import java.nio.ShortBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link NativeCaptureBuffer} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class NativeCaptureBufferTest {
+
+  /**
+   * Test of the constructors, of class NativeCaptureBuffer.
+   */
+  @Test
+  public void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new NativeCaptureBuffer(0);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new NativeCaptureBuffer(10, null);
+    });
+    
+    NativeCaptureBuffer buffer = new NativeCaptureBuffer(10);
+    assertEquals(10, buffer.getSamples());
+    assertEquals(SampleFormat.VOLTAGE, buffer.getFormat());
+    assertNotNull(buffer.getResultSet());
+    assertEquals(0, buffer.getOverflow());
+    assertEquals(40, buffer.getTimes().size());
+    
+    buffer = new NativeCaptureBuffer(10, SampleFormat.ADC_COUNTS);
+    assertEquals(SampleFormat.ADC_COUNTS, buffer.getFormat());
+  }
+
+  /**
+   * Test of getChannel method, of class NativeCaptureBuffer.
+   */
+  @Test
+  public void testGetChannel() {
+    NativeCaptureBuffer buffer = new NativeCaptureBuffer(10);
+    assertNull(buffer.getChannel(0, false));
+    
+    Memory channel = buffer.getChannel(0, true);
+    assertEquals(20, channel.size());
+    assertSame(channel, buffer.getChannel(0, true));
+    assertNotSame(channel, buffer.getChannel(1, true));
+    
+    buffer.getOverflowReference().setValue((short) 2);
+    assertEquals(2, buffer.getOverflow());
+  }
+
+  /**
+   * Test of getView method, of class NativeCaptureBuffer.
+   */
+  @Test
+  public void testGetView() {
+    NativeCaptureBuffer buffer = new NativeCaptureBuffer(10);
+    assertNull(buffer.getView(0, false));
+    
+    ShortBuffer view = buffer.getView(0, true);
+    assertEquals(10, view.limit());
+    assertSame(view, buffer.getView(0, true));
+    buffer.getChannel(0, true).setShort(2, (short) 42);
+    assertEquals(42, view.get(1));
+    
+    // The buffer grows with the channels of the unit
+    assertSame(view, buffer.getView(0, true));
+    assertEquals(10, buffer.getView(3, true).limit());
+    assertSame(view, buffer.getView(0, true));
+  }
+}
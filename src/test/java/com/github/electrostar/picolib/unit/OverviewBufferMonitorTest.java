@@ -0,0 +1,69 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.DataLostEvent;
+import com.github.electrostar.picolib.StreamingSettings;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link OverviewBufferMonitor} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class OverviewBufferMonitorTest {
+
+  /**
+   * Test of overrun method without resizing, of class OverviewBufferMonitor.
+   */
+  @Test
+  public void testOverrun() {
+    OverviewBufferMonitor monitor = new OverviewBufferMonitor(1000, false, 10);
+    DataLostEvent event = monitor.overrun(1_000_000);
+    assertEquals(new DataLostEvent(1, 1000, 1000), event);
+    assertFalse(event.isResized());
+    assertEquals(1, monitor.getOverruns());
+    assertEquals(0, monitor.getRestarts());
+  }
+
+  /**
+   * Test of overrun method with resizing, of class OverviewBufferMonitor.
+   */
+  @Test
+  public void testResize() {
+    OverviewBufferMonitor monitor = new OverviewBufferMonitor(1000, true, 10);
+    // At least twice the current size
+    assertEquals(2000, monitor.overrun(1000).getNewOverviewBufferSize());
+
+    // Twice the samples of the longest gap, 1 ms with 10 ns interval
+    DataLostEvent event = monitor.overrun(1_000_000);
+    assertTrue(event.isResized());
+    assertEquals(200_000, event.getNewOverviewBufferSize());
+    monitor.resized(event.getNewOverviewBufferSize());
+    assertEquals(200_000, monitor.getOverviewBufferSize());
+    assertEquals(1, monitor.getRestarts());
+
+    // Never beyond the driver limit
+    assertEquals(StreamingSettings.MAX_OVERVIEW_BUFFER_SIZE, 
+            monitor.overrun(1_000_000_000).getNewOverviewBufferSize());
+    assertEquals(3, monitor.getOverruns());
+  }
+}
@@ -0,0 +1,85 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.github.electrostar.picolib.library.PS2000Stub;
+import com.sun.jna.Native;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the overhead per call of a {@link PS2000Callback} from a native driver thread, 
+ * with and without the {@link PS2000Callback#THREAD_INITIALIZER}. Without it the driver thread 
+ * is attached to and detached from the JVM on every call.
+ * <p>
+ * The calls come from the {@link PS2000Stub}, which is compiled on setup, so a C compiler is 
+ * needed. Run with {@code mvn test -Pbenchmark -Dbenchmark=PS2000CallbackBenchmark}.
+ * </p>
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PS2000CallbackBenchmark {
+
+  private static final int CALLS = 1000;
+
+  @Param({"false", "true"})
+  private boolean attached;
+
+  private PS2000Stub stub;
+  private PS2000Callback callback;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InterruptedException {
+    stub = PS2000Stub.compile();
+    // The calls carry no values, so they return at once
+    callback = new PS2000Callback(new SampleRing(1, OverflowPolicy.DROP, 1, 1), 1, false, null);
+    if (!attached) {
+      // The default of JNA, a new daemon thread attached for one call
+      Native.setCallbackThreadInitializer(callback, null);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS)
+  public short callback() {
+    return stub.ps2000stub_callback_burst(callback, CALLS);
+  }
+}
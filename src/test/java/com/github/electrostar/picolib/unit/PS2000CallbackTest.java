@@ -24,20 +24,16 @@ import com.github.electrostar.picolib.unit.PS2000Callback;
 import com.sun.jna.Memory;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import com.github.electrostar.picolib.ChannelSettings;
-import com.github.electrostar.picolib.CollectionTime;
-import com.github.electrostar.picolib.Coupling;
-import com.github.electrostar.picolib.OnDataCallback;
-import com.github.electrostar.picolib.Range;
-import com.github.electrostar.picolib.ResultSet;
-import com.github.electrostar.picolib.TimeUnit;
-import com.github.electrostar.picolib.Timebase;
+import com.github.electrostar.picolib.OnOverviewBuffersCallback;
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.github.electrostar.picolib.PollStrategy;
 
 /**
  * Tests for the {@link ResultSetConverter} class.
@@ -47,23 +43,8 @@ import com.github.electrostar.picolib.Timebase;
 public class PS2000CallbackTest {
 
   private static final int CHANNELS = 4;
-  private static final int MAX_VALUE = 32767;
-  private static final int LOST_VALUE = -32768;
   
   private PointerByReference buffers;
-  private Timebase timebase;
-  private List<ChannelSettings> channelSettings;
-  private boolean indicator;
-  
-  private final OnDataCallback apiCallback = (ResultSet rs) -> {
-    indicator = true;
-    ResultSet result = new ResultSet();
-    result.setNumberOfSamples(1);
-    result.setCollectionTime(timebase.getCollectionTime());
-    result.setDivisions(timebase.getDivisions());
-    result.setTimeUnit(timebase.getTimeUnit());
-    assertEquals(rs, result);
-  };
   
   @BeforeEach
   public void setUp() {
@@ -73,14 +54,6 @@ public class PS2000CallbackTest {
     
     buffers = new PointerByReference();
     buffers.setPointer(pointers);
-    timebase = new Timebase(CollectionTime.DIV1MS);
-    timebase.setTimeUnit(TimeUnit.NANOSECOND);
-    indicator = false;
-    
-    channelSettings = new ArrayList<>();
-    for(int i = 0; i < CHANNELS; i++) {
-      channelSettings.add(new ChannelSettings(Range.RANGE_5V, Coupling.DC, true));
-    }
   }
   
   @AfterEach
@@ -88,75 +61,129 @@ public class PS2000CallbackTest {
   }
 
   /**
-   * Test of no api callback for invoke method of class PS2000Callback.
+   * Test of invoke method in ring mode, of class PS2000Callback.
    */
   @Test
-  public void testNoApiCallbackInvoke() {
-    PS2000Callback callback = new PS2000Callback(null, channelSettings, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 5);
+  public void testInvokeRing() {
+    SampleRing ring = new SampleRing(1, OverflowPolicy.DROP, CHANNELS, 10);
+    PS2000Callback callback = new PS2000Callback(ring, CHANNELS, false, 
+        new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 10));
+    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 0);
+    assertNull(ring.peek());
+    callback.invoke(null, (short)0, 0, (short)0, (short)0, 1);
+    assertNull(ring.peek());
     
-    assertFalse(indicator);
-  }
-  
-  /**
-   * Test of no channels for invoke method of class PS2000Callback.
-   */
-  @Test
-  public void testNoChannelsInvoke() {
-    PS2000Callback callback = new PS2000Callback(apiCallback, null, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 5);
+    callback.invoke(buffers, (short)2, 0, (short)1, (short)1, 1);
+    assertEquals(1, ring.peek().getSamples());
+    assertNull(ring.peek().getChannels()[0]);
+    assertEquals(2, ring.peek().getOverflow());
+    assertEquals(0, ring.peek().getTriggerIndex());
+    assertTrue(ring.peek().isAutoStop());
     
-    assertFalse(indicator);
+    // Ring is full
+    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 1);
+    assertEquals(1, ring.getDroppedChunks());
   }
-  
+
   /**
-   * Test of empty channels for invoke method of class PS2000Callback.
+   * Test of invoke method in ring mode with minima, of class PS2000Callback.
    */
   @Test
-  public void testEmptyChannelsInvoke() {
-    channelSettings.clear();
-    PS2000Callback callback = new PS2000Callback(apiCallback, channelSettings, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 5);
+  public void testInvokeRingEnvelopes() {
+    Memory max = new Memory(Short.BYTES);
+    max.setShort(0, (short) 10);
+    Memory min = new Memory(Short.BYTES);
+    min.setShort(0, (short) -10);
+    buffers.getPointer().setPointer(0, max);
+    buffers.getPointer().setPointer(Pointer.SIZE, min);
     
-    assertFalse(indicator);
+    SampleRing ring = new SampleRing(1, OverflowPolicy.DROP, 2 * CHANNELS, 10);
+    PS2000Callback callback = new PS2000Callback(ring, CHANNELS, true, 
+        new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 10));
+    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 1);
+    assertEquals(10, ring.peek().getChannels()[0].get(0));
+    assertEquals(-10, ring.peek().getChannels()[1].get(0));
+    assertNull(ring.peek().getChannels()[2]);
   }
-  
+
   /**
-   * Test of no values for invoke method of class PS2000Callback.
+   * Test of invoke method with an overview buffer callback, of class PS2000Callback.
    */
   @Test
-  public void testNoValuesInvoke() {
-    PS2000Callback callback = new PS2000Callback(apiCallback, channelSettings, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 0);
+  public void testInvokeOverviewBuffers() {
+    Memory values = new Memory(2 * Short.BYTES);
+    values.write(0, new short[]{100, -100}, 0, 2);
+    buffers.getPointer().setPointer(0, values);
+    
+    List<ShortBuffer[]> calls = new ArrayList<>();
+    OnOverviewBuffersCallback listener = (maxima, minima, n, overflow, trigger, autoStop) -> {
+      assertNull(minima);
+      assertEquals(2, n);
+      assertEquals(4, overflow);
+      assertEquals(1, trigger);
+      assertFalse(autoStop);
+      calls.add(maxima.clone());
+    };
+    PS2000Callback callback = new PS2000Callback(listener, CHANNELS, false, 
+        new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 10), 10);
+    callback.invoke(buffers, (short)4, 1, (short)1, (short)0, 0);
+    assertTrue(calls.isEmpty());
     
-    assertFalse(indicator);
+    callback.invoke(buffers, (short)4, 1, (short)1, (short)0, 2);
+    callback.invoke(buffers, (short)4, 1, (short)1, (short)0, 2);
+    assertEquals(2, calls.size());
+    ShortBuffer view = calls.get(0)[0];
+    assertTrue(view.isReadOnly());
+    assertTrue(view.isDirect());
+    assertEquals(2, view.remaining());
+    assertEquals(100, view.get(0));
+    assertEquals(-100, view.get(1));
+    assertNull(calls.get(0)[1]);
+    // The view is mapped once and reused for the following calls
+    assertSame(view, calls.get(1)[0]);
+    assertEquals(2, callback.getDeliveredChunks());
+    assertEquals(4, callback.getDeliveredSamples());
   }
-  
+
   /**
-   * Test of no values for invoke method of class PS2000Callback.
+   * Test of invoke method with an overview buffer callback and minima, of class PS2000Callback.
    */
   @Test
-  public void testNullDataInvoke() {
-    PS2000Callback callback = new PS2000Callback(apiCallback, channelSettings, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(null, (short)0, 0, (short)0, (short)0, 5);
+  public void testInvokeOverviewBuffersEnvelopes() {
+    Memory max = new Memory(Short.BYTES);
+    max.setShort(0, (short) 10);
+    Memory min = new Memory(Short.BYTES);
+    min.setShort(0, (short) -10);
+    buffers.getPointer().setPointer(0, max);
+    buffers.getPointer().setPointer(Pointer.SIZE, min);
     
-    assertFalse(indicator);
+    List<Short> results = new ArrayList<>();
+    OnOverviewBuffersCallback listener = (maxima, minima, n, overflow, trigger, autoStop) -> {
+      assertEquals(-1, trigger);
+      assertTrue(autoStop);
+      assertNull(maxima[1]);
+      results.add(maxima[0].get(0));
+      results.add(minima[0].get(0));
+    };
+    PS2000Callback callback = new PS2000Callback(listener, CHANNELS, true, 
+        new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 10), 1);
+    callback.invoke(buffers, (short)0, 0, (short)0, (short)1, 1);
+    assertEquals(2, results.size());
+    assertEquals(10, (short) results.get(0));
+    assertEquals(-10, (short) results.get(1));
   }
-  
+
   /**
-   * Test of working invoke method of class PS2000Callback.
+   * Test of the thread policy for driver threads, of class PS2000Callback.
    */
   @Test
-  public void testInvoke() {
-    PS2000Callback callback = new PS2000Callback(apiCallback, channelSettings, 
-                                                 LOST_VALUE, MAX_VALUE, timebase);
-    callback.invoke(buffers, (short)0, 0, (short)0, (short)0, 1);
+  public void testThreadInitializer() {
+    PS2000Callback callback = new PS2000Callback(
+        new SampleRing(1, OverflowPolicy.DROP, CHANNELS, 10), CHANNELS, false, 
+        new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 10));
     
-    assertTrue(indicator);
+    assertTrue(PS2000Callback.THREAD_INITIALIZER.isDaemon(callback));
+    assertFalse(PS2000Callback.THREAD_INITIALIZER.detach(callback));
+    assertEquals("picolib-ps2000-callback", PS2000Callback.THREAD_INITIALIZER.getName(callback));
   }
 }
@@ -0,0 +1,279 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.Channel;
+import com.github.electrostar.picolib.ChannelSettings;
+import com.github.electrostar.picolib.Coupling;
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.github.electrostar.picolib.PollStrategy;
+import com.github.electrostar.picolib.Range;
+import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.Timebase;
+import com.github.electrostar.picolib.library.PS2000CLibrary;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import com.sun.jna.ptr.ShortByReference;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the allocations of the driver calls of a {@link PicoScope2000} in block capture 
+ * and streaming. The driver is replaced by a library which returns at once, so only the 
+ * allocations of the unit itself are measured.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark="PicoScope2000AllocationBenchmark -prof gc"} 
+ * and compare {@code gc.alloc.rate.norm}.
+ * </p>
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PicoScope2000AllocationBenchmark {
+
+  private static final int SAMPLES = 1000;
+  private static final int CHANNELS = 2;
+
+  private PicoScope2000 unit;
+  private NativeCaptureBuffer buffer;
+  private SampleRing ring;
+  private PS2000Callback ringCallback;
+  private PS2000Callback overviewCallback;
+  private Memory overviewBuffers;
+  private PointerByReference overviewReference;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    unit = new PicoScope2000(new NullLibrary());
+    unit.open();
+    unit.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_5V, Coupling.DC, true));
+    unit.setChannel(Channel.CHANNEL_B, new ChannelSettings(Range.RANGE_5V, Coupling.DC, true));
+    unit.setTimebase(new Timebase());
+    buffer = new NativeCaptureBuffer(unit.getTimebase().getSamples(), SampleFormat.ADC_COUNTS);
+
+    // The driver hands over an array of the maximum and minimum buffers of four channels
+    overviewBuffers = new Memory(8L * Pointer.SIZE);
+    overviewBuffers.clear();
+    for (int i = 0; i < CHANNELS; i++) {
+      Memory channel = new Memory((long) SAMPLES * Short.BYTES);
+      channel.clear();
+      overviewBuffers.setPointer((long) 2 * i * Pointer.SIZE, channel);
+    }
+    overviewReference = new PointerByReference();
+    overviewReference.setPointer(overviewBuffers);
+
+    StreamingPoller poller = new StreamingPoller(PollStrategy.FIXED, 0, 1000, SAMPLES);
+    ring = new SampleRing(4, OverflowPolicy.DROP, CHANNELS, SAMPLES);
+    ringCallback = new PS2000Callback(ring, CHANNELS, false, poller);
+    overviewCallback = new PS2000Callback((maxima, minima, values, overflow, triggerIndex, 
+            autoStop) -> { }, CHANNELS, false, poller, SAMPLES);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ring.close();
+  }
+
+  /**
+   * Starts a block and transfers the raw sample data into the native memory of the buffer.
+   */
+  @Benchmark
+  public int blockTransfer() throws Exception {
+    unit.runBlock();
+    // The library is ready at once
+    unit.ready();
+    return unit.transferTimesAndValues(buffer, SAMPLES);
+  }
+
+  /**
+   * Starts a block and reads it into the {@link ResultSet} of the buffer, which includes the 
+   * conversion.
+   */
+  @Benchmark
+  public ResultSet blockCapture() throws Exception {
+    unit.runBlock();
+    // The library is ready at once
+    unit.ready();
+    return unit.getTimesAndValues(buffer);
+  }
+
+  /**
+   * One driver call of the streaming callback which copies into the ring.
+   */
+  @Benchmark
+  public SampleRing.Chunk streamingRing() {
+    ringCallback.invoke(overviewReference, (short) 0, 0, (short) 0, (short) 0, SAMPLES);
+    SampleRing.Chunk chunk = ring.peek();
+    ring.release();
+    return chunk;
+  }
+
+  /**
+   * One driver call of the streaming callback which hands the overview buffers over.
+   */
+  @Benchmark
+  public long streamingOverview() {
+    overviewCallback.invoke(overviewReference, (short) 0, 0, (short) 0, (short) 0, SAMPLES);
+    return overviewCallback.getDeliveredChunks();
+  }
+
+  /**
+   * A PS2000 library where every call succeeds at once.
+   */
+  private static final class NullLibrary implements PS2000CLibrary {
+
+    @Override
+    public short ps2000_open_unit() {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_close_unit(short handle) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_get_unit_info(short handle, byte[] string, short stringLength, 
+            short info) {
+      return 0;
+    }
+
+    @Override
+    public short ps2000_open_unit_async() {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_open_unit_progress(ShortByReference handle, 
+            ShortByReference progressPercent) {
+      handle.setValue((short) 1);
+      progressPercent.setValue((short) 100);
+      return 1;
+    }
+
+    @Override
+    public short ps2000_set_channel(short handle, short channel, short enabled, short dc, 
+            short range) {
+      return 1;
+    }
+
+    @Override
+    public int ps2000_set_ets(short handle, short mode, short ets_cycles, short ets_interleave) {
+      return 0;
+    }
+
+    @Override
+    public short ps2000_get_timebase(short handle, short timebase, int no_of_samples, 
+            IntByReference time_interval, ShortByReference time_units, short oversample, 
+            IntByReference max_samples) {
+      time_interval.setValue(10 << timebase);
+      time_units.setValue((short) 2);
+      max_samples.setValue(SAMPLES);
+      return 1;
+    }
+
+    @Override
+    public short ps2000_set_trigger(short handle, short source, short threshold, 
+            short direction, short delay, short auto_trigger_ms) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_set_trigger2(short handle, short source, short threshold, 
+            short direction, float delay, short auto_trigger_ms) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_run_block(short handle, int no_of_values, short timebase, 
+            short oversample, IntByReference time_indisposed_ms) {
+      time_indisposed_ms.setValue(0);
+      return 1;
+    }
+
+    @Override
+    public short ps2000_ready(short handle) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_stop(short handle) {
+      return 1;
+    }
+
+    @Override
+    public int ps2000_get_values(short handle, Memory buffer_a, Memory buffer_b, 
+            Memory buffer_c, Memory buffer_d, ShortByReference overflow, int no_of_values) {
+      return no_of_values;
+    }
+
+    @Override
+    public int ps2000_get_times_and_values(short handle, Memory times, Memory buffer_a, 
+            Memory buffer_b, Memory buffer_c, Memory buffer_d, ShortByReference overflow, 
+            short time_units, int no_of_values) {
+      return no_of_values;
+    }
+
+    @Override
+    public short ps2000_set_sig_gen_built_in(short handle, int offsetVoltage, int pkToPk, 
+            int waveType, float startFrequency, float stopFrequency, float increment, 
+            float dwellTime, int sweepType, int sweeps) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_run_streaming_ns(short handle, int sample_interval, short time_units, 
+            int max_samples, short auto_stop, int noOfSamplesPerAggregate, 
+            int overview_buffer_size) {
+      return 1;
+    }
+
+    @Override
+    public short ps2000_get_streaming_last_values(short handle, GetOverviewBuffersMaxMin func) {
+      return 0;
+    }
+
+    @Override
+    public short ps2000_overview_buffer_status(short handle, 
+            ShortByReference previous_buffer_overrun) {
+      return 0;
+    }
+  }
+}
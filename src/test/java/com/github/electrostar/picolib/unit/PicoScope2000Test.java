@@ -20,17 +20,32 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.AcquisitionSettings;
+import com.github.electrostar.picolib.AcquisitionStatistics;
+import com.github.electrostar.picolib.CaptureBuffer;
 import com.github.electrostar.picolib.Channel;
 import com.github.electrostar.picolib.ChannelSettings;
 import com.github.electrostar.picolib.CollectionTime;
 import com.github.electrostar.picolib.Coupling;
+import com.github.electrostar.picolib.DataLostEvent;
 import com.github.electrostar.picolib.EtsMode;
 import com.github.electrostar.picolib.EtsSettings;
+import com.github.electrostar.picolib.Flow;
 import com.github.electrostar.picolib.GeneratorSettings;
 import com.github.electrostar.picolib.OnDataCallback;
+import com.github.electrostar.picolib.OnOverviewBuffersCallback;
+import com.github.electrostar.picolib.OverflowPolicy;
 import com.github.electrostar.picolib.PicoInfo;
+import com.github.electrostar.picolib.PollStrategy;
+import com.github.electrostar.picolib.PublisherSettings;
 import com.github.electrostar.picolib.Range;
 import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.ResultSetPublisher;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.SampleScaling;
+import com.github.electrostar.picolib.StreamingInfo;
+import com.github.electrostar.picolib.StreamingSettings;
+import com.github.electrostar.picolib.StreamingStatistics;
 import com.github.electrostar.picolib.TimeUnit;
 import com.github.electrostar.picolib.Timebase;
 import com.github.electrostar.picolib.TriggerDirection;
@@ -44,11 +59,20 @@ import com.github.electrostar.picolib.exception.UnitNotFoundException;
 import com.github.electrostar.picolib.library.PS2000CLibrary;
 import com.sun.jna.Memory;
 import com.sun.jna.Native;
+import com.sun.jna.Pointer;
 import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
 import com.sun.jna.ptr.ShortByReference;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.awaitility.Awaitility;
 import org.awaitility.Duration;
 import org.junit.jupiter.api.AfterAll;
@@ -59,6 +83,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.AdditionalMatchers.or;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import static org.mockito.Mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -255,6 +280,56 @@ public class PicoScope2000Test {
     });
   }
 
+  /**
+   * Test of openAsync method, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testOpenAsync() throws Exception {
+    // Check already Open
+    assertThrows(IllegalStateException.class, () -> {
+      ps.openAsync();
+    });
+    
+    when(mockLib.ps2000_open_unit_async()).thenReturn((short)1);
+    AtomicInteger polls = new AtomicInteger();
+    when(mockLib.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenAnswer((iom) -> {
+              ShortByReference handle = iom.getArgument(0);
+              ShortByReference progress = iom.getArgument(1);
+              if (polls.incrementAndGet() < 3) {
+                progress.setValue((short)(polls.get() * 40));
+                return (short)0;
+              }
+              handle.setValue((short)2);
+              progress.setValue((short)100);
+              return (short)1;
+            });
+    
+    List<Integer> reported = new CopyOnWriteArrayList<>();
+    PicoScope2000 unit = new PicoScope2000(mockLib);
+    CompletableFuture<PicoUnit> future = unit.openAsync(reported::add);
+    
+    // Check already opening
+    assertThrows(IllegalStateException.class, () -> {
+      unit.open();
+    });
+    
+    assertSame(unit, future.get(5, java.util.concurrent.TimeUnit.SECONDS));
+    assertTrue(unit.isOpen());
+    assertEquals(Arrays.asList(40, 80, 100), reported);
+    
+    // Check not found
+    when(mockLib.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenReturn((short)-1);
+    PicoScope2000 missing = new PicoScope2000(mockLib);
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      missing.openAsync().get(5, java.util.concurrent.TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof UnitNotFoundException);
+    assertFalse(missing.isOpen());
+  }
+
   /**
    * Test of getInfo method, of class PicoScope2000.
    */
@@ -402,6 +477,31 @@ public class PicoScope2000Test {
     });
   }
 
+  /**
+   * Test of setTimebase method with the timebase table, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testSetTimebaseTable() throws Exception {
+    setupTimebase();
+    
+    // The table is only probed once, afterwards only the confirmation call is made
+    clearInvocations(mockLib);
+    Timebase t = ps.setTimebase(new Timebase(CollectionTime.DIV10MS, 10));
+    assertEquals(11, t.getInternalTimebaseId());
+    assertEquals(5 * 2048, t.getTimeInterval());
+    verify(mockLib, times(1)).ps2000_get_timebase(anyShort(), anyShort(), anyInt(), 
+            any(IntByReference.class), any(ShortByReference.class), anyShort(), 
+            any(IntByReference.class));
+    
+    // Other oversampling needs another table
+    clearInvocations(mockLib);
+    ps.setTimebase(new Timebase(CollectionTime.DIV1MS, 10, (short)2));
+    verify(mockLib, atLeast(256)).ps2000_get_timebase(anyShort(), anyShort(), anyInt(), 
+            any(IntByReference.class), any(ShortByReference.class), anyShort(), 
+            any(IntByReference.class));
+  }
+
   /**
    * Test of setEts method, of class PicoScope2000.
    * @throws java.lang.Exception if any error occur.
@@ -488,6 +588,422 @@ public class PicoScope2000Test {
             .thenReturn((short)1);
   }
   
+  /**
+   * Test of the streaming delivery thread, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testStreamingDelivery() throws Exception {
+    assertEquals(new StreamingSettings(), ps.getStreamingSettings());
+    assertNull(ps.getStreamingStatistics());
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(0, OverflowPolicy.DROP));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(4, null));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, null, 0, 1, false));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, PollStrategy.FIXED, 
+              -1, 1, false));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, PollStrategy.FIXED, 
+              0, 0, false));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, PollStrategy.FIXED, 
+              0, StreamingSettings.MAX_OVERVIEW_BUFFER_SIZE + 1, false));
+    });
+    ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.BLOCK));
+    assertEquals(new StreamingSettings(4, OverflowPolicy.BLOCK), ps.getStreamingSettings());
+
+    setupStreaming();
+
+    // Overview buffers with data on channel A only
+    Memory values = new Memory(2 * Short.BYTES);
+    values.write(0, new short[]{100, -100}, 0, 2);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, values);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+
+    CountDownLatch once = new CountDownLatch(1);
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              if (once.getCount() > 0) {
+                once.countDown();
+                PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+                cb.invoke(buffers, (short) 0, 1, (short) 1, (short) 0, 2);
+              }
+              return (short) 1;
+            });
+
+    CountDownLatch delivered = new CountDownLatch(1);
+    CountDownLatch completed = new CountDownLatch(1);
+    List<ResultSet> results = new ArrayList<>();
+    ps.registerCallback(new OnDataCallback() {
+      @Override
+      public void onDataEvent(ResultSet rs) {
+        results.add(rs);
+        delivered.countDown();
+      }
+
+      @Override
+      public void onStreamingComplete() {
+        completed.countDown();
+      }
+    }, SampleFormat.ADC_COUNTS);
+
+    assertTrue(delivered.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    ResultSet rs = results.get(0);
+    assertEquals(2, rs.getNumberOfSamples());
+    assertArrayEquals(new short[]{100, -100}, rs.getRawChannelA());
+    assertNull(rs.getRawChannelB());
+    int interval = ps.getTimebase().getTimeInterval();
+    assertEquals(TimeUnit.NANOSECOND, rs.getTimeUnit());
+    assertEquals(0, rs.getTimeOffset());
+    assertEquals(interval, rs.getTimeInterval());
+    assertArrayEquals(new int[]{0, interval}, rs.getTimes());
+    StreamingInfo info = rs.getStreamingInfo();
+    assertEquals(0, info.getStartIndex());
+    assertEquals(1, info.getTriggerIndex());
+    assertTrue(info.isTriggered());
+    assertFalse(info.isOverflow(Channel.CHANNEL_A));
+    assertEquals(ps.getTimebase().getTimeInterval(), info.getSampleInterval());
+    assertEquals(info.getSampleInterval(), info.getTime(1));
+
+    ps.stop();
+    assertTrue(completed.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    Awaitility.await().atMost(Duration.FIVE_SECONDS)
+            .until(() -> ps.getStreamingStatistics().getDeliveredChunks() == 1);
+    StreamingStatistics stats = ps.getStreamingStatistics();
+    assertEquals(2, stats.getDeliveredSamples());
+    assertEquals(0, stats.getDroppedChunks());
+    assertEquals(1, stats.getDataPolls());
+    assertTrue(stats.getPolls() >= 1);
+    assertNotNull(stats.getPollStrategy());
+    assertEquals(0, stats.getOverruns());
+    assertEquals(StreamingSettings.DEFAULT_OVERVIEW_BUFFER_SIZE, stats.getOverviewBufferSize());
+  }
+
+  /**
+   * Test of stopping a stream whose publisher has a subscriber without demand, of class 
+   * PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testStreamingStopWithoutDemand() throws Exception {
+    setupStreaming();
+
+    Memory values = new Memory(2 * Short.BYTES);
+    values.write(0, new short[]{100, -100}, 0, 2);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, values);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+
+    AtomicInteger chunks = new AtomicInteger();
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              if (chunks.getAndIncrement() < 3) {
+                PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+                cb.invoke(buffers, (short) 0, -1, (short) 0, (short) 0, 2);
+              }
+              return (short) 1;
+            });
+
+    // The subscriber never requests, so the second chunk holds up the delivery
+    ResultSetPublisher publisher = new ResultSetPublisher(
+            new PublisherSettings(1, OverflowPolicy.BLOCK));
+    List<Flow.Subscription> subscriptions = new ArrayList<>();
+    CountDownLatch completed = new CountDownLatch(1);
+    publisher.subscribe(new Flow.Subscriber<ResultSet>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscriptions.add(subscription);
+      }
+
+      @Override
+      public void onNext(ResultSet item) {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+        completed.countDown();
+      }
+    });
+    ps.registerCallback(publisher, SampleFormat.ADC_COUNTS);
+    Awaitility.await().atMost(Duration.FIVE_SECONDS).until(() -> chunks.get() > 3);
+
+    ps.stop();
+    Awaitility.await().atMost(Duration.FIVE_SECONDS)
+            .until(() -> ps.getStreamingStatistics().getDeliveredChunks() == 3);
+    assertEquals(2, publisher.getDroppedResultSets());
+    subscriptions.get(0).request(1);
+    assertTrue(completed.await(5, java.util.concurrent.TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test of registerOverviewBufferCallback method, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testRegisterOverviewBufferCallback() throws Exception {
+    assertThrows(IllegalStateException.class, () -> {
+      ps.registerOverviewBufferCallback((maxima, minima, values, overflow, trigger, stop) -> { });
+    });
+
+    setupStreaming();
+
+    // Overview buffers with data on channel A only
+    Memory values = new Memory(2 * Short.BYTES);
+    values.write(0, new short[]{100, -100}, 0, 2);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, values);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+
+    CountDownLatch once = new CountDownLatch(1);
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              if (once.getCount() > 0) {
+                once.countDown();
+                PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+                cb.invoke(buffers, (short) 0, 1, (short) 1, (short) 0, 2);
+              }
+              return (short) 1;
+            });
+
+    CountDownLatch delivered = new CountDownLatch(1);
+    CountDownLatch completed = new CountDownLatch(1);
+    short[] received = new short[2];
+    List<SampleScaling[]> started = new ArrayList<>();
+    ps.registerOverviewBufferCallback(new OnOverviewBuffersCallback() {
+      @Override
+      public void onStreamingStarted(SampleScaling[] scalings, Timebase timebase, 
+              int samplesPerAggregate) {
+        assertEquals(1, samplesPerAggregate);
+        started.add(scalings);
+      }
+
+      @Override
+      public void onOverviewBuffers(ShortBuffer[] maxima, ShortBuffer[] minima, int count, 
+              short overflow, int triggerIndex, boolean autoStop) {
+        assertNull(minima);
+        assertNull(maxima[1]);
+        assertEquals(1, triggerIndex);
+        maxima[0].get(received, 0, count);
+        delivered.countDown();
+      }
+
+      @Override
+      public void onStreamingComplete() {
+        completed.countDown();
+      }
+    });
+
+    assertTrue(delivered.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    assertArrayEquals(new short[]{100, -100}, received);
+    assertEquals(1, started.size());
+    assertEquals(Channel.values().length, started.get(0).length);
+    assertThrows(IllegalStateException.class, () -> {
+      ps.registerOverviewBufferCallback((maxima, minima, count, overflow, trigger, stop) -> { });
+    });
+
+    ps.stop();
+    assertTrue(completed.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    StreamingStatistics stats = ps.getStreamingStatistics();
+    assertEquals(1, stats.getDeliveredChunks());
+    assertEquals(2, stats.getDeliveredSamples());
+    assertEquals(1, stats.getDataPolls());
+  }
+
+  /**
+   * Test of streaming with aggregation, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testStreamingAggregation() throws Exception {
+    setupTimebase();
+    mockStreaming();
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.runStreaming(0);
+    });
+    ps.runStreaming(8);
+    verify(mockLib).ps2000_run_streaming_ns(anyShort(), anyInt(), anyShort(), anyInt(), 
+            anyShort(), eq(8), anyInt());
+
+    // Maximum and minimum buffer of channel A
+    Memory max = new Memory(2 * Short.BYTES);
+    max.write(0, new short[]{100, 50}, 0, 2);
+    Memory min = new Memory(2 * Short.BYTES);
+    min.write(0, new short[]{-100, -50}, 0, 2);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, max);
+    pointers.setPointer(Pointer.SIZE, min);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+
+    CountDownLatch once = new CountDownLatch(1);
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              if (once.getCount() > 0) {
+                once.countDown();
+                PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+                cb.invoke(buffers, (short) 0, 0, (short) 0, (short) 0, 2);
+              }
+              return (short) 1;
+            });
+
+    CountDownLatch delivered = new CountDownLatch(1);
+    List<ResultSet> results = new ArrayList<>();
+    ps.registerCallback((ResultSet rs) -> {
+      results.add(rs);
+      delivered.countDown();
+    }, SampleFormat.ADC_COUNTS);
+
+    assertTrue(delivered.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    ResultSet rs = results.get(0);
+    assertEquals(8, rs.getAggregation().getSamplesPerAggregate());
+    assertArrayEquals(new short[]{100, 50}, rs.getRawChannelA());
+    assertArrayEquals(new short[]{-100, -50}, rs.getAggregation().getRawChannelA());
+    assertNull(rs.getAggregation().getRawChannelB());
+    ps.stop();
+  }
+
+  /**
+   * Test of the overview buffer overrun handling, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testStreamingOverrun() throws Exception {
+    ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, PollStrategy.FIXED, 
+            1_000_000, 1000, true));
+    setupStreaming();
+    verify(mockLib).ps2000_run_streaming_ns(anyShort(), anyInt(), anyShort(), anyInt(), 
+            anyShort(), anyInt(), eq(1000));
+
+    Memory values = new Memory(Short.BYTES);
+    values.setShort(0, (short) 1);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, values);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+
+    // One overrun after the first poll, data on every poll
+    CountDownLatch overrun = new CountDownLatch(1);
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+              cb.invoke(buffers, (short) 0, 0, (short) 0, (short) 0, 1);
+              return (short) 1;
+            });
+    when(mockLib.ps2000_overview_buffer_status(anyShort(), any(ShortByReference.class)))
+            .thenAnswer((iom) -> {
+              if (overrun.getCount() > 0) {
+                overrun.countDown();
+                ShortByReference status = iom.getArgument(1);
+                status.setValue((short) 1);
+              }
+              return (short) 0;
+            });
+
+    CountDownLatch lost = new CountDownLatch(1);
+    List<DataLostEvent> events = new ArrayList<>();
+    ps.registerCallback(new OnDataCallback() {
+      @Override
+      public void onDataEvent(ResultSet rs) {
+        // Only lost data are of interest
+      }
+
+      @Override
+      public void onDataLost(DataLostEvent event) {
+        events.add(event);
+        lost.countDown();
+      }
+    });
+
+    assertTrue(lost.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    assertEquals(1, events.get(0).getOverruns());
+    assertEquals(1000, events.get(0).getOverviewBufferSize());
+    assertEquals(2000, events.get(0).getNewOverviewBufferSize());
+    verify(mockLib).ps2000_run_streaming_ns(anyShort(), anyInt(), anyShort(), anyInt(), 
+            anyShort(), anyInt(), eq(2000));
+
+    StreamingStatistics stats = ps.getStreamingStatistics();
+    assertEquals(1, stats.getOverruns());
+    assertEquals(1, stats.getRestarts());
+    assertEquals(2000, stats.getOverviewBufferSize());
+    ps.stop();
+  }
+
+  /**
+   * Test of the overview buffer size after a resize, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testStreamingOverrunKeepsSize() throws Exception {
+    ps.setStreamingSettings(new StreamingSettings(4, OverflowPolicy.DROP, PollStrategy.FIXED, 
+            1_000_000, 1000, true));
+    setupStreaming();
+
+    // Resizing to 2000 succeeds, resizing again and restarting with 2000 fail
+    AtomicInteger restarts = new AtomicInteger();
+    when(mockLib.ps2000_run_streaming_ns(anyShort(), anyInt(), anyShort(), anyInt(), 
+            anyShort(), anyInt(), anyInt()))
+            .thenAnswer((iom) -> {
+              int size = iom.getArgument(6);
+              return (short) (size == 2000 && restarts.getAndIncrement() == 0 ? 1 : 0);
+            });
+    Memory values = new Memory(Short.BYTES);
+    values.setShort(0, (short) 1);
+    Memory pointers = new Memory(Pointer.SIZE * 2 * 4);
+    pointers.clear();
+    pointers.setPointer(0, values);
+    PointerByReference buffers = new PointerByReference();
+    buffers.setPointer(pointers);
+    when(mockLib.ps2000_get_streaming_last_values(anyShort(), 
+            any(PS2000CLibrary.GetOverviewBuffersMaxMin.class)))
+            .thenAnswer((iom) -> {
+              PS2000CLibrary.GetOverviewBuffersMaxMin cb = iom.getArgument(1);
+              cb.invoke(buffers, (short) 0, 0, (short) 0, (short) 0, 1);
+              return (short) 1;
+            });
+    when(mockLib.ps2000_overview_buffer_status(anyShort(), any(ShortByReference.class)))
+            .thenAnswer((iom) -> {
+              ShortByReference status = iom.getArgument(1);
+              status.setValue((short) 1);
+              return (short) 0;
+            });
+
+    ps.registerCallback(callback);
+    Awaitility.await().atMost(Duration.FIVE_SECONDS).until(() -> !ps.isStreaming());
+
+    // A new callback starts with the resized overview buffers
+    when(mockLib.ps2000_overview_buffer_status(anyShort(), any(ShortByReference.class)))
+            .thenReturn((short) 0);
+    ps.registerCallback(callback);
+    assertEquals(2000, ps.getStreamingStatistics().getOverviewBufferSize());
+    ps.stop();
+  }
+
   /**
    * Test of isStreaming method, of class PicoScope2000.
    * @throws java.lang.Exception if any error occur.
@@ -654,6 +1170,129 @@ public class PicoScope2000Test {
     ps.runBlock();
   }
 
+  /**
+   * Test of captureBlockAsync method, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testCaptureBlockAsync() throws Exception {
+    setupTimebase();
+    mockTimesAndValues();
+    mockChannel();
+    ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
+    
+    // Test Configuration Error
+    assertThrows(ConfigurationException.class, () -> {
+      ps.captureBlockAsync();
+    });
+    
+    when(mockLib.ps2000_run_block(anyShort(), anyInt(), anyShort(), 
+             anyShort(), any(IntByReference.class)))
+             .thenReturn((short)1);
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)0, (short)0, (short)1);
+    
+    ResultSet rs = ps.captureBlockAsync().get(5, java.util.concurrent.TimeUnit.SECONDS);
+    assertEquals(ps.getTimebase().getSamples(), rs.getNumberOfSamples());
+    verify(mockLib, times(3)).ps2000_ready(anyShort());
+    
+    // Never ready, only one capture at a time and cancel stops the unit
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)0);
+    CompletableFuture<ResultSet> future = ps.captureBlockAsync();
+    assertThrows(IllegalStateException.class, () -> {
+      ps.captureBlockAsync();
+    });
+    future.cancel(false);
+    verify(mockLib).ps2000_stop(anyShort());
+    
+    // Errors while polling complete the future
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)-1);
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      ps.captureBlockAsync().get(5, java.util.concurrent.TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof PicoException);
+    
+    // Closing the unit cancels a running capture
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)0);
+    future = ps.captureBlockAsync();
+    ps.close();
+    assertTrue(future.isCancelled());
+  }
+
+  /**
+   * Test of the continuous acquisition methods, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testAcquisition() throws Exception {
+    setupTimebase();
+    mockTimesAndValues();
+    mockChannel();
+    ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
+    assertFalse(ps.isAcquiring());
+    assertNull(ps.getAcquisitionStatistics());
+    
+    CountDownLatch blocks = new CountDownLatch(3);
+    OnDataCallback counter = (rs) -> {
+      assertEquals(ps.getTimebase().getSamples(), rs.getNumberOfSamples());
+      blocks.countDown();
+    };
+    
+    // Test Configuration Error and invalid Settings
+    assertThrows(ConfigurationException.class, () -> {
+      ps.startAcquisition(counter, new AcquisitionSettings());
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.startAcquisition(null, new AcquisitionSettings());
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.startAcquisition(counter, new AcquisitionSettings(1, SampleFormat.VOLTAGE));
+    });
+    
+    when(mockLib.ps2000_run_block(anyShort(), anyInt(), anyShort(), 
+             anyShort(), any(IntByReference.class)))
+             .thenReturn((short)1);
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)1);
+    
+    ps.startAcquisition(counter, new AcquisitionSettings(3, SampleFormat.ADC_COUNTS));
+    assertTrue(ps.isAcquiring());
+    assertThrows(IllegalStateException.class, () -> {
+      ps.startAcquisition(counter, new AcquisitionSettings());
+    });
+    assertThrows(IllegalStateException.class, () -> {
+      ps.captureBlockAsync();
+    });
+    assertTrue(blocks.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    
+    ps.stopAcquisition();
+    assertFalse(ps.isAcquiring());
+    verify(mockLib).ps2000_stop(anyShort());
+    
+    AcquisitionStatistics stats = ps.getAcquisitionStatistics();
+    assertTrue(stats.getWaveforms() >= 3);
+    assertTrue(stats.getWaveformsPerSecond() > 0);
+    assertTrue(stats.getMaxDeadTime() >= stats.getAverageDeadTime());
+    // The rate does not decay after the stop
+    Thread.sleep(20);
+    assertEquals(stats.getWaveformsPerSecond(), 
+            ps.getAcquisitionStatistics().getWaveformsPerSecond());
+    
+    // The time until the ready block is detected counts as dead time
+    AtomicInteger polls = new AtomicInteger();
+    when(mockLib.ps2000_ready(anyShort()))
+            .thenAnswer((iom) -> polls.incrementAndGet() % 2 == 0 ? (short)1 : (short)0);
+    CountDownLatch delayed = new CountDownLatch(2);
+    ps.startAcquisition((rs) -> delayed.countDown(), new AcquisitionSettings());
+    assertTrue(delayed.await(5, java.util.concurrent.TimeUnit.SECONDS));
+    ps.stopAcquisition();
+    assertTrue(ps.getAcquisitionStatistics().getMaxDeadTime() >= BlockPoller.MIN_BACKOFF_NS);
+    
+    // A failing unit ends the acquisition
+    when(mockLib.ps2000_ready(anyShort())).thenReturn((short)-1);
+    ps.startAcquisition(counter, new AcquisitionSettings());
+    Awaitility.await().atMost(Duration.FIVE_SECONDS).until(() -> !ps.isAcquiring());
+    ps.stopAcquisition();
+  }
+
   /**
    * Test of getTimesAndValues method, of class PicoScope2000.
    * @throws java.lang.Exception if any error occur.
@@ -683,6 +1322,139 @@ public class PicoScope2000Test {
     ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
     ps.setChannel(Channel.CHANNEL_B, new ChannelSettings());
     assertNotNull(ps.getTimesAndValues());
+    
+    // Raw ADC counts of Channel A
+    ResultSet rs = ps.getTimesAndValues(SampleFormat.ADC_COUNTS);
+    assertEquals(SampleFormat.ADC_COUNTS, rs.getSampleFormat());
+    assertEquals(-32767, rs.getRawChannelA()[0]);
+    assertNull(rs.getRawChannelB());
+    assertEquals(-2f, rs.getChannelA()[0], 1e-6f);
+    assertEquals(Float.MAX_VALUE, rs.getChannelA()[2]);
+  }
+
+  /**
+   * Test of getTimesAndValues method with a capture buffer, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testGetTimesAndValuesBuffer() throws Exception {
+    setupTimebase();
+    mockTimesAndValues();
+    mockChannel();
+    ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
+    
+    CaptureBuffer buffer = ps.createCaptureBuffer(ps.getTimebase().getSamples(), 
+            SampleFormat.VOLTAGE);
+    ResultSet rs = ps.getTimesAndValues(buffer);
+    assertSame(buffer.getResultSet(), rs);
+    assertEquals(ps.getTimebase().getSamples(), rs.getNumberOfSamples());
+    assertNull(rs.getChannelB());
+    
+    // The same arrays are filled again
+    float[] channelA = rs.getChannelA();
+    assertSame(rs, ps.getTimesAndValues(buffer));
+    assertSame(channelA, rs.getChannelA());
+    
+    // Smaller buffers only read their own size
+    rs = ps.getTimesAndValues(ps.createCaptureBuffer(10, SampleFormat.ADC_COUNTS));
+    assertEquals(10, rs.getNumberOfSamples());
+    assertEquals(10, rs.getRawChannelA().length);
+    
+    // Only buffers created by a unit can be read into
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.getTimesAndValues(mock(CaptureBuffer.class));
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ps.createCaptureBuffer(0, SampleFormat.VOLTAGE);
+    });
+    
+    // The internal pool hands out the same native memory for the same setup
+    ps.getTimesAndValues();
+    ps.getTimesAndValues(SampleFormat.ADC_COUNTS);
+    ArgumentCaptor<Memory> channelCaptor = ArgumentCaptor.forClass(Memory.class);
+    verify(mockLib, times(5)).ps2000_get_values(anyShort(), channelCaptor.capture(), any(), 
+            any(), any(), any(ShortByReference.class), anyInt());
+    assertSame(channelCaptor.getAllValues().get(3), channelCaptor.getAllValues().get(4));
+    assertNotSame(channelCaptor.getAllValues().get(0), channelCaptor.getAllValues().get(3));
+  }
+
+  /**
+   * Test of the implicit and the ETS time axis of getTimesAndValues, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testGetTimesAndValuesTimeAxis() throws Exception {
+    setupTimebase();
+    mockTimesAndValues();
+    mockChannel();
+    ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
+    int interval = ps.getTimebase().getTimeInterval();
+    
+    // Without ETS no times are transferred
+    ResultSet rs = ps.getTimesAndValues();
+    verify(mockLib, never()).ps2000_get_times_and_values(anyShort(), any(), any(), any(), any(), 
+            any(), any(), anyShort(), anyInt());
+    assertEquals(0, rs.getTimeOffset());
+    assertEquals(interval, rs.getTimeInterval());
+    assertEquals(3L * interval, rs.getTime(3));
+    assertEquals(3 * interval, rs.getTimes()[3]);
+    
+    // The trigger moves the time axis
+    when(mockLib.ps2000_set_trigger2(anyShort(), anyShort(), anyShort(), 
+            anyShort(), anyFloat(), anyShort()))
+            .thenReturn((short)1);
+    ps.setTrigger(new TriggerSettings(Channel.CHANNEL_A, TriggerDirection.RISING, 0, 50));
+    rs = ps.getTimesAndValues();
+    int triggerSample = Math.round(ps.getTimebase().getSamples() / 2f);
+    assertEquals(-(long) triggerSample * interval, rs.getTimeOffset());
+    assertEquals(0, rs.getTime(triggerSample));
+    
+    // ETS transfers the times
+    when(mockLib.ps2000_set_ets(anyShort(), anyShort(), anyShort(), anyShort()))
+            .thenReturn(10);
+    ps.setEts(new EtsSettings(EtsMode.FAST, 10, 2));
+    rs = ps.getTimesAndValues();
+    assertEquals(0, rs.getTimeInterval());
+    assertEquals(3, rs.getTimes()[3]);
+    verify(mockLib).ps2000_get_times_and_values(anyShort(), any(), any(), any(), any(), any(), 
+            any(), anyShort(), anyInt());
+  }
+
+  /**
+   * Test of the time axis for timebases in micro- and milliseconds, of class PicoScope2000.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testGetTimesAndValuesTimeUnits() throws Exception {
+    mockTimesAndValues();
+    mockChannel();
+    ps.setChannel(Channel.CHANNEL_A, new ChannelSettings(Range.RANGE_2V, Coupling.DC, true));
+    
+    // Each oversampling has its own timebase table, so every case probes its own timebases
+    // 40 µs between two samples, the driver suggests microseconds
+    mockTimebase(40_000, TimeUnit.MICROSECOND);
+    ps.setTimebase(new Timebase());
+    ResultSet rs = ps.getTimesAndValues();
+    assertEquals(TimeUnit.MICROSECOND, rs.getTimeUnit());
+    assertEquals(40, rs.getTimeInterval());
+    assertEquals(120, rs.getTime(3));
+    assertEquals(120, rs.getTimes()[3]);
+    
+    // 2 ms between two samples, the driver suggests milliseconds
+    mockTimebase(2_000_000, TimeUnit.MILLISECOND);
+    ps.setTimebase(new Timebase(CollectionTime.DIV1S, 10, (short) 2));
+    rs = ps.getTimesAndValues();
+    assertEquals(TimeUnit.MILLISECOND, rs.getTimeUnit());
+    assertEquals(2, rs.getTimeInterval());
+    assertEquals(6, rs.getTime(3));
+    
+    // 2.5 µs can only be given exactly in nanoseconds
+    mockTimebase(2_500, TimeUnit.MICROSECOND);
+    ps.setTimebase(new Timebase(CollectionTime.DIV100US, 10, (short) 3));
+    rs = ps.getTimesAndValues();
+    assertEquals(TimeUnit.NANOSECOND, rs.getTimeUnit());
+    assertEquals(2_500, rs.getTimeInterval());
+    assertEquals(7_500, rs.getTimes()[3]);
   }
 
   /**
@@ -744,42 +1516,56 @@ public class PicoScope2000Test {
                                               anyInt()))
             .thenAnswer((iom) -> {
               Memory times = iom.getArgument(1);
-              Memory chA = iom.getArgument(2);
-              Memory chB = iom.getArgument(3);
               int samples = iom.getArgument(8);
-              int max = 32767;
-              int min = -32767;
-              int lost = -32768;
-              
-              Random rnd = new Random();
-              
               for(int i = 0; i < samples; i++) {
                 times.setInt(i*Native.getNativeSize(Integer.TYPE), i);
-                if (null != chA) {
-                  chA.setShort(i*Native.getNativeSize(Short.TYPE), 
-                          (short) (rnd.nextInt((max - min) + 1) + min));
-                }
-                if (null != chB) {
-                  chB.setShort(i*Native.getNativeSize(Short.TYPE), 
-                          (short) (rnd.nextInt((max - min) + 1) + min));
-                }
-              }
-              // Set the First 3 With Min, Max and Lost Value
-              if (null != chA) {
-                chA.setShort(0*Native.getNativeSize(Short.TYPE), (short)min);
-                chA.setShort(1*Native.getNativeSize(Short.TYPE), (short)max);
-                chA.setShort(2*Native.getNativeSize(Short.TYPE), (short)lost);
-              }
-              if (null != chB) {
-                chB.setShort(0*Native.getNativeSize(Short.TYPE), (short)min);
-                chB.setShort(1*Native.getNativeSize(Short.TYPE), (short)max);
-                chB.setShort(2*Native.getNativeSize(Short.TYPE), (short)lost);
               }
-              
-              return samples;
+              return fillValues(iom.getArgument(2), iom.getArgument(3), samples);
+            });
+    when(mockLib.ps2000_get_values( anyShort(), 
+                                    or(any(Memory.class), eq(null)),
+                                    or(any(Memory.class), eq(null)),
+                                    eq(null), 
+                                    eq(null), 
+                                    any(ShortByReference.class), 
+                                    anyInt()))
+            .thenAnswer((iom) -> {
+              return fillValues(iom.getArgument(1), iom.getArgument(2), iom.getArgument(6));
             });
   }
   
+  private int fillValues(Memory chA, Memory chB, int samples) {
+    int max = 32767;
+    int min = -32767;
+    int lost = -32768;
+    
+    Random rnd = new Random();
+    
+    for(int i = 0; i < samples; i++) {
+      if (null != chA) {
+        chA.setShort(i*Native.getNativeSize(Short.TYPE), 
+                (short) (rnd.nextInt((max - min) + 1) + min));
+      }
+      if (null != chB) {
+        chB.setShort(i*Native.getNativeSize(Short.TYPE), 
+                (short) (rnd.nextInt((max - min) + 1) + min));
+      }
+    }
+    // Set the First 3 With Min, Max and Lost Value
+    if (null != chA) {
+      chA.setShort(0*Native.getNativeSize(Short.TYPE), (short)min);
+      chA.setShort(1*Native.getNativeSize(Short.TYPE), (short)max);
+      chA.setShort(2*Native.getNativeSize(Short.TYPE), (short)lost);
+    }
+    if (null != chB) {
+      chB.setShort(0*Native.getNativeSize(Short.TYPE), (short)min);
+      chB.setShort(1*Native.getNativeSize(Short.TYPE), (short)max);
+      chB.setShort(2*Native.getNativeSize(Short.TYPE), (short)lost);
+    }
+    
+    return samples;
+  }
+  
   private void mockTimebase() {
     when(mockLib.ps2000_get_timebase( anyShort(), 
                                       anyShort(), 
@@ -806,6 +1592,21 @@ public class PicoScope2000Test {
             });
   }
   
+  private void mockTimebase(int intervalNs, TimeUnit unit) {
+    when(mockLib.ps2000_get_timebase(anyShort(), anyShort(), anyInt(), any(IntByReference.class), 
+            any(ShortByReference.class), anyShort(), any(IntByReference.class)))
+            .thenAnswer((iom) -> {
+              // Every timebase has the same interval, so the chosen one does not matter
+              IntByReference timeInterval = iom.getArgument(3);
+              ShortByReference timeUnits = iom.getArgument(4);
+              IntByReference maxSamples = iom.getArgument(6);
+              maxSamples.setValue(16256);
+              timeInterval.setValue(intervalNs);
+              timeUnits.setValue((short) unit.getId());
+              return (short) 1;
+            });
+  }
+  
   private void setupTimebase() throws Exception {
     mockTimebase();
     
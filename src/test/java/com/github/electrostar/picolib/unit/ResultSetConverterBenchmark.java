@@ -0,0 +1,150 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.ChannelSettings;
+import com.github.electrostar.picolib.ConversionMode;
+import com.github.electrostar.picolib.ConversionSettings;
+import com.github.electrostar.picolib.Coupling;
+import com.github.electrostar.picolib.Range;
+import com.github.electrostar.picolib.ResultSet;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@link ResultSetConverter} compared to a new thread per chunk of a channel.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=ResultSetConverterBenchmark}.
+ * </p>
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetConverterBenchmark {
+
+  private static final int CHANNELS = 2;
+  private static final int MAX_VALUE = 32767;
+  private static final int LOST_VALUE = -32768;
+  private static final int THREADS_PER_CALC = 4;
+
+  @Param({"1000", "100000", "10000000"})
+  private int samples;
+
+  @Param({"THREAD_PER_CHUNK", "INLINE", "FORK_JOIN", "FIXED_POOL"})
+  private String mode;
+
+  private List<Pointer> channelDatas;
+  private List<ChannelSettings> channelSettings;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random rnd = new Random(42);
+    channelDatas = new ArrayList<>();
+    channelSettings = new ArrayList<>();
+    for (int i = 0; i < CHANNELS; i++) {
+      Memory data = new Memory((long) samples * Native.getNativeSize(Short.TYPE));
+      for (int s = 0; s < samples; s++) {
+        data.setShort((long) s * Native.getNativeSize(Short.TYPE), (short) rnd.nextInt());
+      }
+      channelDatas.add(data);
+      channelSettings.add(new ChannelSettings(Range.RANGE_5V, Coupling.DC, true));
+    }
+
+    if (!"THREAD_PER_CHUNK".equals(mode)) {
+      ConversionExecutor.configure(new ConversionSettings(ConversionMode.valueOf(mode), 0, 
+              ConversionSettings.DEFAULT_INLINE_THRESHOLD));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ConversionExecutor.configure(new ConversionSettings());
+  }
+
+  @Benchmark
+  public ResultSet convert() throws InterruptedException {
+    if ("THREAD_PER_CHUNK".equals(mode)) {
+      return convertThreadPerChunk();
+    }
+    return new ResultSetConverter(samples, MAX_VALUE, LOST_VALUE, null, channelDatas, 
+            channelSettings).convert();
+  }
+
+  /**
+   * The conversion as it was done before the shared executor: one new thread and one copy of the
+   * native buffer for each quarter of each channel.
+   */
+  private ResultSet convertThreadPerChunk() throws InterruptedException {
+    ResultSet rs = new ResultSet();
+    rs.setNumberOfSamples(samples);
+    List<Thread> threads = new ArrayList<>();
+    int steps = samples / THREADS_PER_CALC;
+    for (int c = 0; c < channelDatas.size(); c++) {
+      Pointer channel = channelDatas.get(c);
+      float multiplier = ((float) channelSettings.get(c).getRange().getValue() / 1000) / MAX_VALUE;
+      float[] target = new float[samples];
+      if (c == 0) {
+        rs.setChannelA(target);
+      } else {
+        rs.setChannelB(target);
+      }
+      for (int t = 0; t < THREADS_PER_CALC; t++) {
+        int start = t * steps;
+        int end = t + 1 == THREADS_PER_CALC ? samples : (t + 1) * steps;
+        short[] values = channel.getShortArray(0, samples);
+        Thread thread = new Thread(() -> {
+          for (int i = start; i < end; i++) {
+            target[i] = values[i] == LOST_VALUE ? Float.MAX_VALUE : multiplier * values[i];
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    return rs;
+  }
+}
@@ -21,18 +21,25 @@
 package com.github.electrostar.picolib.unit;
 
 import com.github.electrostar.picolib.unit.ResultSetConverter;
+import com.github.electrostar.picolib.ConversionMode;
+import com.github.electrostar.picolib.ConversionSettings;
 import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import com.github.electrostar.picolib.Channel;
 import com.github.electrostar.picolib.ChannelSettings;
 import com.github.electrostar.picolib.Coupling;
 import com.github.electrostar.picolib.Range;
 import com.github.electrostar.picolib.ResultSet;
+import com.github.electrostar.picolib.SampleFormat;
+import com.github.electrostar.picolib.SampleScaling;
 
 /**
  * Tests for the {@link ResultSetConverter} class.
@@ -56,7 +63,7 @@ public class ResultSetConverterTest {
     // Create Dummy Data for 4 Channels
     channelDatas = new ArrayList<>();
     channelSettings = new ArrayList<>();
-    for(int i = 0; i < 5; i++) {
+    for(int i = 0; i < 4; i++) {
       Memory data = new Memory(Native.getNativeSize(Short.TYPE) * SAMPLES);
       data.setShort(0 * Native.getNativeSize(Short.TYPE), (short)MIN_VALUE);
       data.setShort(1 * Native.getNativeSize(Short.TYPE), (short)MAX_VALUE);
@@ -75,6 +82,11 @@ public class ResultSetConverterTest {
             times, channelDatas, channelSettings);
   }
   
+  @AfterEach
+  public void tearDown() {
+    ConversionExecutor.configure(new ConversionSettings());
+  }
+  
   /**
    * Test of convert method, of class ResultSetConverter.
    */
@@ -123,4 +135,135 @@ public class ResultSetConverterTest {
     // Test full with Times
     assertEquals(rs, rsc.convert());
   }
+  
+  /**
+   * Test of convert method on the shared pools, of class ResultSetConverter.
+   */
+  @Test
+  public void testConvertParallel() {
+    ResultSet inline = new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+            times, channelDatas, channelSettings).convert();
+    
+    for (ConversionMode mode : ConversionMode.values()) {
+      ConversionExecutor.configure(new ConversionSettings(mode, 2, 0));
+      
+      assertEquals(inline, new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+              times, channelDatas, channelSettings).convert());
+      assertEquals(inline, new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+              times, channelDatas, channelSettings, 3).convert());
+    }
+  }
+  
+  /**
+   * Test of convert method on plain native pointers, of class ResultSetConverter.
+   */
+  @Test
+  public void testConvertPointerView() {
+    ResultSet expected = new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+            null, channelDatas, channelSettings).convert();
+    
+    // The driver hands out plain pointers, not JNA owned memory
+    List<Pointer> views = new ArrayList<>();
+    for (Pointer data : channelDatas) {
+      views.add(new Pointer(Pointer.nativeValue(data)));
+    }
+    
+    assertEquals(expected, new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+            null, views, channelSettings, 3).convert());
+  }
+  
+  /**
+   * Test of convert method with raw ADC counts, of class ResultSetConverter.
+   */
+  @Test
+  public void testConvertAdcCounts() {
+    ResultSet volts = new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+            times, channelDatas, channelSettings).convert();
+    ResultSet counts = new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, 
+            times, channelDatas, channelSettings, SampleFormat.ADC_COUNTS).convert();
+    
+    short[] expected = {(short) MIN_VALUE, (short) MAX_VALUE, (short) LOST_VALUE, 0};
+    assertEquals(SampleFormat.ADC_COUNTS, counts.getSampleFormat());
+    assertArrayEquals(expected, counts.getRawChannelA());
+    assertArrayEquals(expected, counts.getRawChannelD());
+    assertEquals(new SampleScaling(Range.RANGE_5V, MAX_VALUE, LOST_VALUE), 
+            counts.getScaling(Channel.CHANNEL_B));
+    assertNull(counts.getScaling(Channel.EXTERNAL));
+    
+    // Voltages are calculated on demand
+    assertArrayEquals(volts.getChannelA(), counts.getChannelA());
+    assertArrayEquals(volts.getChannelC(), counts.getChannelC());
+    assertArrayEquals(volts.getTimes(), counts.getTimes());
+  }
+  
+  /**
+   * Test of convert method with minima of aggregated data, of class ResultSetConverter.
+   */
+  @Test
+  public void testConvertEnvelopes() {
+    ShortBuffer[] maxima = {ShortBuffer.wrap(new short[]{100, 200}), null};
+    ShortBuffer[] minima = {ShortBuffer.wrap(new short[]{-100, -200}), null};
+    
+    ResultSet rs = new ResultSetConverter(2, MAX_VALUE, LOST_VALUE, maxima, minima, 
+            channelSettings, SampleFormat.ADC_COUNTS).convert();
+    assertArrayEquals(new short[]{100, 200}, rs.getRawChannelA());
+    assertArrayEquals(new short[]{-100, -200}, rs.getAggregation().getRawChannelA());
+    assertNull(rs.getAggregation().getRawChannelB());
+    
+    ResultSet volts = new ResultSetConverter(2, MAX_VALUE, LOST_VALUE, maxima, minima, 
+            channelSettings, SampleFormat.VOLTAGE).convert();
+    assertArrayEquals(volts.getChannelMin(Channel.CHANNEL_A), rs.getChannelMin(Channel.CHANNEL_A));
+    assertEquals(-volts.getChannelA()[1], volts.getChannelMin(Channel.CHANNEL_A)[1]);
+    
+    // Without minima they are reset
+    new ResultSetConverter(2, MAX_VALUE, LOST_VALUE, maxima, channelSettings, 
+            SampleFormat.VOLTAGE).convert(volts);
+    assertNull(volts.getAggregation());
+  }
+  
+  /**
+   * Test of convert method into an existing result, of class ResultSetConverter.
+   */
+  @Test
+  public void testConvertReuse() {
+    ResultSet expected = rsc.convert();
+    ResultSet target = new ResultSet();
+    
+    assertSame(target, rsc.convert(target));
+    assertEquals(expected, target);
+    
+    // The arrays are reused for the same number of samples
+    int[] timeData = target.getTimes();
+    float[] channelA = target.getChannelA();
+    rsc.convert(target);
+    assertSame(timeData, target.getTimes());
+    assertSame(channelA, target.getChannelA());
+    assertEquals(expected, target);
+    
+    // Disabled channels and formats are reset
+    channelDatas.set(1, null);
+    new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, times, channelDatas, 
+            channelSettings, SampleFormat.ADC_COUNTS).convert(target);
+    assertNull(target.getChannelB());
+    assertNotNull(target.getRawChannelA());
+    assertArrayEquals(expected.getChannelA(), target.getChannelA());
+    
+    short[] counts = target.getRawChannelA();
+    new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, times, channelDatas, 
+            channelSettings, SampleFormat.ADC_COUNTS).convert(target);
+    assertSame(counts, target.getRawChannelA());
+    
+    new ResultSetConverter(SAMPLES, MAX_VALUE, LOST_VALUE, null, channelDatas, 
+            channelSettings).convert(target);
+    assertNull(target.getRawChannelA());
+    assertNull(target.getScaling(Channel.CHANNEL_A));
+    assertNull(target.getTimes());
+    assertArrayEquals(expected.getChannelA(), target.getChannelA());
+    
+    new ResultSetConverter(0, MAX_VALUE, LOST_VALUE, times, channelDatas, 
+            channelSettings).convert(target);
+    assertEquals(0, target.getNumberOfSamples());
+    assertNull(target.getTimes());
+    assertNull(target.getChannelA());
+  }
 }
@@ -0,0 +1,179 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.DataLostEvent;
+import com.github.electrostar.picolib.OverflowPolicy;
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link SampleRing} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class SampleRingTest {
+
+  private static Pointer[] sources(short... values) {
+    Memory memory = new Memory(values.length * Short.BYTES);
+    memory.write(0, values, 0, values.length);
+    return new Pointer[]{memory, null};
+  }
+
+  /**
+   * Test of the constructor, of class SampleRing.
+   */
+  @Test
+  public void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SampleRing(0, OverflowPolicy.DROP, 2, 10);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SampleRing(2, null, 2, 10);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SampleRing(2, OverflowPolicy.DROP, 0, 10);
+    });
+    assertEquals(2, new SampleRing(2, OverflowPolicy.DROP, 2, 10).getCapacity());
+  }
+
+  /**
+   * Test of offer, peek and release methods, of class SampleRing.
+   */
+  @Test
+  public void testOfferAndPeek() {
+    SampleRing ring = new SampleRing(3, OverflowPolicy.DROP, 2, 3);
+    assertNull(ring.peek());
+
+    assertTrue(ring.offer(sources((short) 1, (short) 2), 2));
+    assertTrue(ring.offer(sources((short) 3, (short) 4, (short) 5, (short) 6), 4));
+
+    SampleRing.Chunk chunk = ring.peek();
+    assertEquals(2, chunk.getSamples());
+    assertEquals(2, chunk.getChannels()[0].get(1));
+    assertNull(chunk.getChannels()[1]);
+    ring.release();
+
+    // Samples beyond the chunk size are split over the next chunk
+    chunk = ring.peek();
+    assertEquals(3, chunk.getSamples());
+    assertEquals(5, chunk.getChannels()[0].get(2));
+    ring.release();
+    chunk = ring.peek();
+    assertEquals(1, chunk.getSamples());
+    assertEquals(6, chunk.getChannels()[0].get(0));
+    ring.release();
+    assertNull(ring.peek());
+  }
+
+  /**
+   * Test of the streaming status of the chunks, of class SampleRing.
+   */
+  @Test
+  public void testOfferStatus() {
+    SampleRing ring = new SampleRing(2, OverflowPolicy.DROP, 2, 3);
+    assertTrue(ring.offer(sources((short) 1, (short) 2, (short) 3, (short) 4), 4, (short) 1, 
+            3, true));
+
+    // The trigger and the auto stop end up in the second chunk
+    SampleRing.Chunk chunk = ring.peek();
+    assertEquals(0, chunk.getStartIndex());
+    assertEquals(-1, chunk.getTriggerIndex());
+    assertEquals(1, chunk.getOverflow());
+    assertFalse(chunk.isAutoStop());
+    ring.release();
+    chunk = ring.peek();
+    assertEquals(3, chunk.getStartIndex());
+    assertEquals(0, chunk.getTriggerIndex());
+    assertTrue(chunk.isAutoStop());
+
+    // Dropped samples still advance the index
+    assertTrue(ring.offer(sources((short) 5, (short) 6), 2));
+    assertFalse(ring.offer(sources((short) 7), 1));
+    ring.release();
+    ring.release();
+    assertTrue(ring.offer(sources((short) 8), 1));
+    assertEquals(7, ring.peek().getStartIndex());
+  }
+
+  /**
+   * Test of markLost method, of class SampleRing.
+   */
+  @Test
+  public void testMarkLost() {
+    SampleRing ring = new SampleRing(1, OverflowPolicy.DROP, 2, 4);
+    DataLostEvent event = new DataLostEvent(1, 4, 8);
+    ring.markLost(event);
+    assertTrue(ring.offer(sources((short) 1), 1));
+    assertEquals(event, ring.peek().getLost());
+    ring.release();
+
+    // The event is only handed over once
+    assertTrue(ring.offer(sources((short) 2), 1));
+    assertNull(ring.peek().getLost());
+  }
+
+  /**
+   * Test of the drop policy, of class SampleRing.
+   */
+  @Test
+  public void testDrop() {
+    SampleRing ring = new SampleRing(1, OverflowPolicy.DROP, 2, 4);
+    assertTrue(ring.offer(sources((short) 1), 1));
+    assertFalse(ring.offer(sources((short) 2, (short) 3), 2));
+    assertEquals(1, ring.getDroppedChunks());
+    assertEquals(2, ring.getDroppedSamples());
+    assertEquals(0, ring.getBlockedChunks());
+
+    // The buffered chunk is untouched
+    assertEquals(1, ring.peek().getChannels()[0].get(0));
+  }
+
+  /**
+   * Test of the block policy, of class SampleRing.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testBlock() throws Exception {
+    SampleRing ring = new SampleRing(1, OverflowPolicy.BLOCK, 2, 4);
+    assertTrue(ring.offer(sources((short) 1), 1));
+
+    CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(
+        () -> ring.offer(sources((short) 2), 1));
+    Thread.sleep(50);
+    assertFalse(blocked.isDone());
+
+    ring.release();
+    assertTrue(blocked.get(5, TimeUnit.SECONDS));
+    assertEquals(1, ring.getBlockedChunks());
+    assertEquals(2, ring.peek().getChannels()[0].get(0));
+
+    // Closing releases a waiting producer
+    blocked = CompletableFuture.supplyAsync(() -> ring.offer(sources((short) 3), 1));
+    ring.close();
+    assertFalse(blocked.get(5, TimeUnit.SECONDS));
+    assertTrue(ring.isClosed());
+    assertFalse(ring.offer(sources((short) 4), 1));
+  }
+}
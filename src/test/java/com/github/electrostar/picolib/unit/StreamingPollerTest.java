@@ -0,0 +1,141 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.PollStrategy;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link StreamingPoller} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class StreamingPollerTest {
+
+  /**
+   * Test of the initial strategy, of class StreamingPoller.
+   */
+  @Test
+  public void testInitialStrategy() {
+    // 1 us interval with 30000 samples fills the buffer in 30 ms
+    assertEquals(PollStrategy.PARK, 
+            new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1_000, 30000).getActive());
+    // 1 ns interval with 30000 samples fills the buffer in 30 us
+    assertEquals(PollStrategy.BUSY_SPIN, 
+            new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1, 30000).getActive());
+    assertEquals(PollStrategy.YIELD, 
+            new StreamingPoller(PollStrategy.ADAPTIVE, 0, 10, 30000).getActive());
+    assertEquals(PollStrategy.FIXED, 
+            new StreamingPoller(PollStrategy.FIXED, 1, 1, 30000).getActive());
+  }
+
+  /**
+   * Test of the adaption, of class StreamingPoller.
+   */
+  @Test
+  public void testAdapt() {
+    StreamingPoller poller = new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1_000, 30000);
+    long initial = poller.getWaitNs();
+    assertEquals(3_750_000, initial);
+
+    // Large chunks halve the wait
+    poller.record(20000);
+    poller.await();
+    assertEquals(initial / 2, poller.getWaitNs());
+
+    // Moderate chunks move towards a quarter of the buffer
+    poller.record(5000);
+    poller.await();
+    assertEquals((initial / 2 + 7_500_000) / 2, poller.getWaitNs());
+
+    // Empty polls back off up to the maximum
+    for (int i = 0; i < 10; i++) {
+      poller.await();
+    }
+    assertEquals(StreamingPoller.MAX_WAIT_NS, poller.getWaitNs());
+    assertEquals(12, poller.getPolls());
+    assertEquals(2, poller.getDataPolls());
+  }
+
+  /**
+   * Test of the poll counters with several chunks per poll, of class StreamingPoller.
+   */
+  @Test
+  public void testDataPolls() {
+    StreamingPoller poller = new StreamingPoller(PollStrategy.FIXED, 1, 1_000, 30000);
+    poller.record(100);
+    poller.record(100);
+    poller.record(100);
+    poller.await();
+    poller.await();
+    assertEquals(2, poller.getPolls());
+    assertEquals(1, poller.getDataPolls());
+  }
+
+  /**
+   * Test of the strategy switch under load, of class StreamingPoller.
+   */
+  @Test
+  public void testSwitchToSpin() {
+    StreamingPoller poller = new StreamingPoller(PollStrategy.ADAPTIVE, 0, 100, 30000);
+    assertEquals(PollStrategy.PARK, poller.getActive());
+    while (PollStrategy.PARK == poller.getActive()) {
+      poller.record(30000);
+      poller.await();
+    }
+    assertEquals(PollStrategy.YIELD, poller.getActive());
+    while (PollStrategy.BUSY_SPIN != poller.getActive()) {
+      poller.record(30000);
+      poller.await();
+    }
+    assertTrue(poller.getWaitNs() < StreamingPoller.SPIN_LIMIT_NS);
+  }
+
+  /**
+   * Test of a consumer holding up the polling thread, of class StreamingPoller.
+   * 
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testConsumerLagInGap() throws Exception {
+    StreamingPoller poller = new StreamingPoller(PollStrategy.FIXED, 1, 1_000, 30000);
+    poller.record(100);
+    // A blocking consumer delays the next poll, the overview buffers are sized for that gap
+    Thread.sleep(20);
+    poller.record(100);
+    assertTrue(poller.getMaxGapNs() >= 20_000_000);
+  }
+
+  /**
+   * Test of setOverviewBufferSize method, of class StreamingPoller.
+   */
+  @Test
+  public void testSetOverviewBufferSize() {
+    StreamingPoller poller = new StreamingPoller(PollStrategy.ADAPTIVE, 0, 1_000, 30000);
+    poller.record(1);
+    poller.record(1);
+    assertTrue(poller.getMaxGapNs() >= 0);
+
+    poller.setOverviewBufferSize(60000);
+    assertEquals(7_500_000, poller.getWaitNs());
+    assertEquals(0, poller.getMaxGapNs());
+  }
+}
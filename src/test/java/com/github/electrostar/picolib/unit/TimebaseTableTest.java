@@ -0,0 +1,160 @@
+/* 
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ *  version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.Timebase;
+import com.github.electrostar.picolib.UnitInfo;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link TimebaseTable} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class TimebaseTableTest {
+
+  private static final int MAX_ID = 20;
+
+  @AfterEach
+  public void tearDown() {
+    System.clearProperty(TimebaseTable.CACHE_PROPERTY);
+  }
+
+  private static TimebaseTable probe() {
+    return TimebaseTable.probe(id -> {
+      if (id == 3) {
+        return null;
+      }
+      Timebase t = new Timebase();
+      // Id 5 is not slower than id 4 and must be skipped
+      t.setTimeInterval(10 * (1 << (id == 5 ? 4 : id)));
+      t.setMaxSamples(id < 10 ? 500 : 1000);
+      return t;
+    }, MAX_ID);
+  }
+
+  /**
+   * Test of probe method, of class TimebaseTable.
+   */
+  @Test
+  public void testProbe() {
+    TimebaseTable table = probe();
+    assertEquals(MAX_ID - 1, table.size());
+    assertEquals(2, table.getId(2));
+    assertEquals(4, table.getId(3));
+    assertEquals(6, table.getId(4));
+    
+    assertEquals(0, TimebaseTable.probe(id -> null, MAX_ID).size());
+  }
+
+  /**
+   * Test of find method, of class TimebaseTable.
+   */
+  @Test
+  public void testFind() {
+    TimebaseTable table = probe();
+    
+    // 10 ns * 500 samples fit into the fastest timebase
+    assertEquals(0, table.getId(table.find(5_000L, 1)));
+    assertEquals(500, table.getNeededSamples(table.find(5_000L, 1), 5_000L));
+    
+    // 1 ms needs an interval of at least 2 us -> 10 * 2^8
+    int index = table.find(1_000_000L, 1);
+    assertEquals(8, table.getId(index));
+    assertTrue(table.getNeededSamples(index, 1_000_000L) <= 500);
+    
+    // Timebases with too less samples are skipped
+    assertEquals(1, table.getId(table.find(10_000L, 1)));
+    assertEquals(10, table.getId(table.find(10_000L, 501)));
+    assertEquals(-1, table.find(10_000L, 1001));
+    
+    // Too long for all timebases
+    assertEquals(-1, table.find(Long.MAX_VALUE, 1));
+    assertEquals(-1, TimebaseTable.probe(id -> null, MAX_ID).find(10_000L, 1));
+  }
+
+  /**
+   * Test of format and parse methods, of class TimebaseTable.
+   */
+  @Test
+  public void testFormatAndParse() {
+    TimebaseTable table = probe();
+    assertEquals(table.format(), TimebaseTable.parse(table.format()).format());
+    assertEquals("0:10:1000,1:20:1000", TimebaseTable.parse("0:10:1000,1:20:1000").format());
+    assertEquals(0, TimebaseTable.parse("").size());
+    
+    assertThrows(IllegalArgumentException.class, () -> {
+      TimebaseTable.parse("0:10");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      TimebaseTable.parse("0:10:1000,1:10:1000");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      TimebaseTable.parse("0:a:1000");
+    });
+  }
+
+  /**
+   * Test of load and store methods, of class TimebaseTable.
+   * @param dir temporary cache directory.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testLoadAndStore(@TempDir Path dir) throws Exception {
+    UnitInfo info = new UnitInfo();
+    info.setVariantInfo("2204A");
+    info.setBatchAndSerial("AB123/0045");
+    TimebaseTable table = probe();
+    
+    // Without cache directory nothing is stored
+    assertFalse(TimebaseTable.isCacheEnabled());
+    TimebaseTable.store(info, "key", table);
+    assertNull(TimebaseTable.load(info, "key"));
+    
+    System.setProperty(TimebaseTable.CACHE_PROPERTY, dir.toString());
+    assertTrue(TimebaseTable.isCacheEnabled());
+    assertNull(TimebaseTable.load(info, "key"));
+    assertNull(TimebaseTable.load(null, "key"));
+    
+    TimebaseTable.store(info, "key", table);
+    TimebaseTable.store(info, "other", TimebaseTable.parse("0:10:1000"));
+    assertEquals(table.format(), TimebaseTable.load(info, "key").format());
+    assertEquals("0:10:1000", TimebaseTable.load(info, "other").format());
+    
+    File file = new File(dir.toFile(), "2204A-AB123_0045.properties");
+    assertTrue(file.isFile());
+    
+    // Broken entries are ignored
+    Properties broken = new Properties();
+    broken.setProperty("key", "broken");
+    try (OutputStream out = new FileOutputStream(file)) {
+      broken.store(out, null);
+    }
+    assertNull(TimebaseTable.load(info, "key"));
+  }
+}
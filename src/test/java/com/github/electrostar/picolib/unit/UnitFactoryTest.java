@@ -20,13 +20,19 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.ConversionMode;
+import com.github.electrostar.picolib.ConversionSettings;
 import com.github.electrostar.picolib.UnitSeries;
 import com.github.electrostar.picolib.exception.NotSupportedException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -87,4 +93,74 @@ public class UnitFactoryTest {
       UnitFactory uf = new UnitFactory();
     });
   }
+
+  /**
+   * Test of getUnit method with a missing library, of class UnitFactory.
+   */
+  @Test
+  public void testGetUnitWithoutLibrary() {
+    when(mockFactoryHelper.makePS2000()).thenThrow(new UnsatisfiedLinkError("missing"));
+    
+    NotSupportedException ex = assertThrows(NotSupportedException.class, () -> {
+      factory.getUnit(UnitSeries.PICOSCOPE2000);
+    });
+    assertEquals("missing", ex.getMessage());
+    assertTrue(ex.getCause() instanceof UnsatisfiedLinkError);
+  }
+  
+  /**
+   * Test of isAvailable method, of class UnitFactory.
+   */
+  @Test
+  public void testIsAvailable() {
+    when(mockFactoryHelper.isPS2000Available()).thenReturn(true);
+    assertTrue(factory.isAvailable(UnitSeries.PICOSCOPE2000));
+    for(UnitSeries us : UnitSeries.values()) {
+      if(us != UnitSeries.PICOSCOPE2000) {
+        assertFalse(factory.isAvailable(us));
+      }
+    }
+    assertFalse(factory.isAvailable(null));
+    
+    when(mockFactoryHelper.isPS2000Available()).thenReturn(false);
+    assertFalse(factory.isAvailable(UnitSeries.PICOSCOPE2000));
+  }
+
+  /**
+   * Test of openUnitsAsync method, of class UnitFactory.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testOpenUnitsAsync() throws Exception {
+    when(mockUnitPS2000.openAsync()).thenReturn(CompletableFuture.completedFuture(mockUnitPS2000));
+    
+    List<CompletableFuture<PicoUnit>> units = factory.openUnitsAsync(UnitSeries.PICOSCOPE2000, 3);
+    assertEquals(3, units.size());
+    for (CompletableFuture<PicoUnit> unit : units) {
+      assertSame(mockUnitPS2000, unit.get());
+    }
+    verify(mockFactoryHelper, times(3)).makePS2000();
+    
+    assertThrows(IllegalArgumentException.class, () -> {
+      factory.openUnitsAsync(UnitSeries.PICOSCOPE2000, 0);
+    });
+  }
+
+  /**
+   * Test of setConversionSettings and getConversionSettings methods, of class UnitFactory.
+   */
+  @Test
+  public void testConversionSettings() {
+    ConversionSettings cs = new ConversionSettings(ConversionMode.FIXED_POOL, 2, 1024);
+    UnitFactory.setConversionSettings(cs);
+    assertEquals(cs, UnitFactory.getConversionSettings());
+    assertNotSame(cs, UnitFactory.getConversionSettings());
+    
+    assertThrows(IllegalArgumentException.class, () -> {
+      UnitFactory.setConversionSettings(null);
+    });
+    
+    UnitFactory.setConversionSettings(new ConversionSettings());
+    assertEquals(new ConversionSettings(), UnitFactory.getConversionSettings());
+  }
 }
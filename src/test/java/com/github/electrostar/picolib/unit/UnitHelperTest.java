@@ -20,6 +20,7 @@
 
 package com.github.electrostar.picolib.unit;
 
+import com.github.electrostar.picolib.TimeUnit;
 import com.github.electrostar.picolib.UnitInfo;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
@@ -50,4 +51,19 @@ public class UnitHelperTest {
     assertTrue(UnitHelper.isSupported(ui, variants2));
     assertTrue(UnitHelper.isSupported(ui, variants1));
   }
+
+  /**
+   * Test of exactUnit and nanosPer methods, of class UnitHelper.
+   */
+  @Test
+  public void testExactUnit() {
+    assertEquals(1, UnitHelper.nanosPer(TimeUnit.NANOSECOND));
+    assertEquals(1_000_000, UnitHelper.nanosPer(TimeUnit.MILLISECOND));
+    
+    assertEquals(TimeUnit.MILLISECOND, UnitHelper.exactUnit(2_000_000, TimeUnit.SECOND));
+    assertEquals(TimeUnit.MICROSECOND, UnitHelper.exactUnit(2_000_000, TimeUnit.MICROSECOND));
+    assertEquals(TimeUnit.NANOSECOND, UnitHelper.exactUnit(2_500, TimeUnit.MICROSECOND));
+    assertEquals(TimeUnit.NANOSECOND, UnitHelper.exactUnit(1_000, TimeUnit.PICOSECOND));
+    assertEquals(TimeUnit.NANOSECOND, UnitHelper.exactUnit(1_000, null));
+  }
 }
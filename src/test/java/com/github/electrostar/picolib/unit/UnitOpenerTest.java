@@ -0,0 +1,193 @@
+/*
+ * picolib, open source library to work with PicoScopes.
+ * Copyright (C) 2018-2019 ElectroStar <startrooper@startrooper.org>
+ *
+ * This file is part of picolib.
+ *
+ * picolib is free software: you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * picolib is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with picolib. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.github.electrostar.picolib.unit;
+
+import com.github.electrostar.picolib.exception.UnitNotFoundException;
+import com.github.electrostar.picolib.library.PS2000CLibrary;
+import com.sun.jna.ptr.ShortByReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.awaitility.Awaitility;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link UnitOpener} class.
+ * 
+ * @author <a href="mailto:startrooper@startrooper.org">ElectroStar</a>
+ */
+public class UnitOpenerTest {
+
+  /**
+   * Test of submit method with several units, of class UnitOpener.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testSubmit() throws Exception {
+    assertSame(UnitOpener.getShared(), UnitOpener.getShared());
+    
+    // The driver refuses a second open while one is in progress
+    AtomicBoolean opening = new AtomicBoolean();
+    AtomicInteger handles = new AtomicInteger();
+    AtomicInteger refused = new AtomicInteger();
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenAnswer((iom) -> {
+      if (opening.getAndSet(true)) {
+        refused.incrementAndGet();
+        return (short)0;
+      }
+      return (short)1;
+    });
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenAnswer((iom) -> {
+              ShortByReference handle = iom.getArgument(0);
+              handle.setValue((short)handles.incrementAndGet());
+              opening.set(false);
+              return (short)1;
+            });
+    
+    CompletableFuture<Short> first = UnitOpener.getShared().submit(library, null);
+    CompletableFuture<Short> second = UnitOpener.getShared().submit(library, null);
+    
+    assertEquals(1, (short) first.get(5, TimeUnit.SECONDS));
+    assertEquals(2, (short) second.get(5, TimeUnit.SECONDS));
+    assertEquals(0, refused.get());
+  }
+
+  /**
+   * Test of submit method when another open is in progress, of class UnitOpener.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testSubmitRetry() throws Exception {
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenReturn((short)0, (short)0, (short)1);
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenAnswer((iom) -> {
+              ShortByReference handle = iom.getArgument(0);
+              handle.setValue((short)1);
+              return (short)1;
+            });
+    
+    assertEquals(1, (short) UnitOpener.getShared().submit(library, null)
+            .get(5, TimeUnit.SECONDS));
+    verify(library, times(3)).ps2000_open_unit_async();
+  }
+
+  /**
+   * Test of submit method with failures, of class UnitOpener.
+   */
+  @Test
+  public void testSubmitFailure() {
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenReturn((short)1);
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenReturn((short)-1);
+    
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      UnitOpener.getShared().submit(library, null).get(5, TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof UnitNotFoundException);
+  }
+
+  /**
+   * Test of submit method when the driver finishes without a unit, of class UnitOpener.
+   */
+  @Test
+  public void testSubmitNoHandle() {
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenReturn((short)1);
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenReturn((short)1);
+    
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      UnitOpener.getShared().submit(library, null).get(5, TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof UnitNotFoundException);
+  }
+
+  /**
+   * Test of submit method when the driver never accepts the start, of class UnitOpener.
+   * @throws java.lang.Exception if any error occur.
+   */
+  @Test
+  public void testSubmitStartTimeout() throws Exception {
+    PS2000CLibrary refusing = mock(PS2000CLibrary.class);
+    when(refusing.ps2000_open_unit_async()).thenReturn((short)0);
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenReturn((short)1);
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenAnswer((iom) -> {
+              ShortByReference handle = iom.getArgument(0);
+              handle.setValue((short)4);
+              return (short)1;
+            });
+    
+    CompletableFuture<Short> hanging = UnitOpener.getShared().submit(refusing, null, 
+            5 * UnitOpener.POLL_INTERVAL_NS);
+    CompletableFuture<Short> queued = UnitOpener.getShared().submit(library, null);
+    
+    ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+      hanging.get(5, TimeUnit.SECONDS);
+    });
+    assertTrue(ex.getCause() instanceof UnitNotFoundException);
+    // The rest of the queue proceeds
+    assertEquals(4, (short) queued.get(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test of cancel on a submitted open, of class UnitOpener.
+   */
+  @Test
+  public void testCancel() {
+    AtomicBoolean done = new AtomicBoolean();
+    PS2000CLibrary library = mock(PS2000CLibrary.class);
+    when(library.ps2000_open_unit_async()).thenReturn((short)1);
+    when(library.ps2000_open_unit_progress(any(ShortByReference.class), 
+            any(ShortByReference.class))).thenAnswer((iom) -> {
+              ShortByReference handle = iom.getArgument(0);
+              handle.setValue((short)3);
+              return done.get() ? (short)1 : (short)0;
+            });
+    
+    CompletableFuture<Short> future = UnitOpener.getShared().submit(library, null);
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+      verify(library, atLeastOnce()).ps2000_open_unit_progress(any(ShortByReference.class), 
+              any(ShortByReference.class));
+    });
+    future.cancel(false);
+    done.set(true);
+    
+    // The unit which opens anyway is closed again
+    Awaitility.await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+      verify(library).ps2000_close_unit((short)3);
+    });
+  }
+}